@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -17,6 +18,47 @@ import java.util.Set;
  */
 public abstract class AbstractParsimoniousContextTreeLearner<C> {
 
+    /**
+     * The listener of the work done by this learner.
+     */
+    private LearnerListener listener = LearnerListener.NO_OP;
+
+    public LearnerListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener reporting the work done by this learner. The learners
+     * not reporting their work ignore the listener.
+     *
+     * @param listener the listener, or {@link LearnerListener#NO_OP}.
+     */
+    public void setListener(LearnerListener listener) {
+        this.listener = Objects.requireNonNull(listener,
+                                               "The listener is null.");
+    }
+
+    /**
+     * The context bounding the learning of this learner.
+     */
+    private LearningContext context = new LearningContext();
+
+    public LearningContext getContext() {
+        return context;
+    }
+
+    /**
+     * Sets the context whose deadline and cancellation the learner honors and
+     * to which it reports its progress. By default, the learner has a context
+     * of its own without a deadline.
+     *
+     * @param context the learning context.
+     */
+    public void setContext(LearningContext context) {
+        this.context = Objects.requireNonNull(context,
+                                              "The context is null.");
+    }
+
     /**
      * Learns a parsimonious context tree from the list of data rows.
      *
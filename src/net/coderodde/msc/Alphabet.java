@@ -2,10 +2,12 @@ package net.coderodde.msc;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -13,6 +15,7 @@ public class Alphabet<C> implements Iterable<C> {
 
     private final Set<C> alphabet;
     private final List<C> characterList;
+    private final Map<C, Integer> characterIndexMap;
     
     public Alphabet(C... chars) {
         Objects.requireNonNull(chars, "The array of characters is null.");  
@@ -23,12 +26,36 @@ public class Alphabet<C> implements Iterable<C> {
         }
         
         this.characterList = new ArrayList<>(this.alphabet);
+        this.characterIndexMap = new HashMap<>(this.characterList.size());
+        
+        for (C ch : this.characterList) {
+            this.characterIndexMap.put(ch, this.characterIndexMap.size());
+        }
     }
     
     public C get(int index) {
         return this.characterList.get(index);
     }
     
+    /**
+     * Returns the index of the character {@code ch} in this alphabet. The 
+     * indices run from zero to {@code size() - 1} in the order of 
+     * {@link #getCharacters()}.
+     * 
+     * @param ch the character to look up.
+     * @return the index of the character.
+     */
+    public int getIndexOf(C ch) {
+        Integer index = this.characterIndexMap.get(ch);
+        
+        if (index == null) {
+            throw new IllegalArgumentException(
+                    "The character '" + ch + "' is not in the alphabet.");
+        }
+        
+        return index;
+    }
+    
     public int size() {
         return this.alphabet.size();
     }
@@ -2,9 +2,13 @@ package net.coderodde.msc;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import net.coderodde.msc.io.CharacterCodec;
+import net.coderodde.msc.io.LearnedTreeCache;
 import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
 import net.coderodde.msc.support.IndependenceModelParsimoniousContextTreeLearner;
 
@@ -21,6 +25,11 @@ public final class Benchmarks {
      */
     private static boolean dataGenerationMode = true;
     
+    /**
+     * The cache of the baseline trees, opened on first use.
+     */
+    private static LearnedTreeCache<Character> baselineCache;
+    
     /**
      * This static method runs all benchmark for the input learner. The input
      * learner is compared to the optimal baseline learner and the independence
@@ -236,27 +245,31 @@ public final class Benchmarks {
                     new IndependenceModelParsimoniousContextTreeLearner<>();
 
             // First, learn an optimal PCT:
+            int numberOfHits = getBaselineCache().getNumberOfHits();
             long startTime = System.currentTimeMillis();
             
             ParsimoniousContextTree<Character> optimalPCT = 
-                    optimalLearner.learn(dataSet);
+                    learnBaseline(optimalLearner, dataSet);
             
             long endTime = System.currentTimeMillis();
             
             System.out.println("Optimal PCT learner in " + 
-                               (endTime - startTime) + " milliseconds.");
+                               (endTime - startTime) + " milliseconds" +
+                               getBaselineSource(numberOfHits) + ".");
             System.out.println("Optimal PCT score: " + optimalPCT.getScore());
             
             // Second, learn an independence model:
+            numberOfHits = getBaselineCache().getNumberOfHits();
             startTime = System.currentTimeMillis();
             
             ParsimoniousContextTree<Character> independenceModel =
-                    independenceModelLearner.learn(dataSet);
+                    learnBaseline(independenceModelLearner, dataSet);
             
             endTime = System.currentTimeMillis();
             
             System.out.println("Independence model learner in " +
-                               (endTime - startTime) + " milliseconds.");
+                               (endTime - startTime) + " milliseconds" +
+                               getBaselineSource(numberOfHits) + ".");
             System.out.println(
                     "Independence model score: " + 
                             independenceModel.getScore());
@@ -380,6 +393,49 @@ public final class Benchmarks {
         }
     }
     
+    /**
+     * Learns a baseline tree through the cache of
+     * {@link LearnedTreeCache#openDefault(CharacterCodec)}, so that the
+     * baselines of the same data are learned only once across the runs.
+     * 
+     * @param learner the baseline learner.
+     * @param dataSet the data set.
+     * @return the baseline tree.
+     */
+    private static ParsimoniousContextTree<Character> learnBaseline(
+            AbstractParsimoniousContextTreeLearner<Character> learner,
+            List<DataRow<Character>> dataSet) {
+        return getBaselineCache().getOrLearn(dataSet, learner, "")
+                                 .toParsimoniousContextTree();
+    }
+    
+    private static LearnedTreeCache<Character> getBaselineCache() {
+        if (baselineCache == null) {
+            try {
+                baselineCache = 
+                        LearnedTreeCache.openDefault(
+                                CharacterCodec.forCharacters());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        
+        return baselineCache;
+    }
+    
+    /**
+     * Tells whether the last baseline was read from the cache or learned, so
+     * that the time of a cache hit is not mistaken for a learning time.
+     * 
+     * @param numberOfHits the number of cache hits before the baseline.
+     * @return the source of the baseline for the timing line.
+     */
+    private static String getBaselineSource(int numberOfHits) {
+        return getBaselineCache().getNumberOfHits() > numberOfHits ?
+               " (cache hit)" :
+               " (cache miss, learned)";
+    }
+    
     /**
      * This static method returns the list of all file names containing data for
      * depth benchmarks.
@@ -0,0 +1,824 @@
+package net.coderodde.msc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements an immutable parsimonious context tree stored in
+ * parallel primitive arrays. The nodes are numbered in breadth-first order
+ * starting from the root {@code 0}, so that the children of each node occupy a
+ * contiguous range of node indices. In the shared form returned by
+ * {@link #share()}, several parents may refer to the same range, and the only
+ * guarantee on the numbering is that the children come after their parents.
+ * For each node, the arrays hold the label as a mask over the character
+ * indices of the {@link Alphabet}, the index of the first child, the number of
+ * children, the score, and the offset of the response variable distribution
+ * in a flat probability array holding {@code alphabet.size()} probabilities
+ * per node.
+ * <p>
+ * The children of a node are ordered by their label masks. A node at depth
+ * {@code d}, the root being at depth zero, branches on the explanatory
+ * variable {@code d}, in the sense of
+ * {@link DataRow#getExplanatoryVariable(int)}, exactly as in the learners.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class CompactParsimoniousContextTree<C> {
+
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The value denoting a missing node or a missing distribution.
+     */
+    public static final int NONE = -1;
+
+    private final Alphabet<C> alphabet;
+    private final long[] labelMasks;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final double[] scores;
+    private final int[] responseOffsets;
+    private final double[] responseProbabilities;
+    private final int depth;
+
+    /**
+     * Converts the node graph of {@code tree} to the compact representation.
+     * The alphabet is the union of the labels of the root's children.
+     *
+     * @param tree the tree to convert.
+     */
+    public CompactParsimoniousContextTree(ParsimoniousContextTree<C> tree) {
+        this(tree, inferAlphabet(tree));
+    }
+
+    /**
+     * Converts the node graph of {@code tree} to the compact representation.
+     *
+     * @param tree     the tree to convert.
+     * @param alphabet the alphabet indexing the label masks.
+     */
+    public CompactParsimoniousContextTree(ParsimoniousContextTree<C> tree,
+                                          Alphabet<C> alphabet) {
+        Objects.requireNonNull(tree, "The input tree is null.");
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null.");
+
+        if (alphabet.size() > Long.SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large (" + alphabet.size() + "), " +
+                    "must be at most " + Long.SIZE + ".");
+        }
+
+        List<ParsimoniousContextTreeNode<C>> nodes = new ArrayList<>();
+        List<Long> masks = new ArrayList<>();
+        int[] depthHolder = new int[1];
+        int numberOfDistributions =
+                linearize(tree.getRoot(), nodes, masks, depthHolder);
+        int size = nodes.size();
+
+        this.labelMasks = new long[size];
+        this.firstChildren = new int[size];
+        this.childCounts = new int[size];
+        this.scores = new double[size];
+        this.responseOffsets = new int[size];
+        this.responseProbabilities =
+                new double[numberOfDistributions * alphabet.size()];
+        this.depth = depthHolder[0];
+
+        int nextChild = 1;
+        int nextOffset = 0;
+
+        for (int node = 0; node < size; node++) {
+            ParsimoniousContextTreeNode<C> treeNode = nodes.get(node);
+            labelMasks[node] = masks.get(node);
+            scores[node] = treeNode.getScore();
+
+            int numberOfChildren = treeNode.getChildren() == null ?
+                                   0 :
+                                   treeNode.getChildren().size();
+
+            childCounts[node] = numberOfChildren;
+            firstChildren[node] = numberOfChildren == 0 ? NONE : nextChild;
+            nextChild += numberOfChildren;
+
+            ResponseVariableDistribution<C> distribution =
+                    treeNode.getResponseVariableDistribution();
+
+            if (distribution == null) {
+                responseOffsets[node] = NONE;
+            } else {
+                responseOffsets[node] = nextOffset;
+
+                for (int c = 0; c < alphabet.size(); c++) {
+                    responseProbabilities[nextOffset + c] =
+                            distribution.getResponseVariableProbability(
+                                    alphabet.get(c));
+                }
+
+                nextOffset += alphabet.size();
+            }
+        }
+    }
+
+    private CompactParsimoniousContextTree(Alphabet<C> alphabet,
+                                           long[] labelMasks,
+                                           int[] firstChildren,
+                                           int[] childCounts,
+                                           double[] scores,
+                                           int[] responseOffsets,
+                                           double[] responseProbabilities) {
+        this.alphabet = alphabet;
+        this.labelMasks = labelMasks;
+        this.firstChildren = firstChildren;
+        this.childCounts = childCounts;
+        this.scores = scores;
+        this.responseOffsets = responseOffsets;
+        this.responseProbabilities = responseProbabilities;
+        this.depth = computeDepth(firstChildren, childCounts);
+    }
+
+    /**
+     * Constructs a tree directly from its arrays, which are not copied. Each
+     * child range must lie after its parent, so that the arrays describe a
+     * rooted tree or a rooted directed acyclic graph.
+     *
+     * @param <C>                   the character type.
+     * @param alphabet              the alphabet indexing the label masks.
+     * @param labelMasks            the label masks.
+     * @param firstChildren         the first child indices.
+     * @param childCounts           the child counts.
+     * @param scores                the scores.
+     * @param responseOffsets       the response distribution offsets.
+     * @param responseProbabilities the response probabilities.
+     * @return the tree.
+     */
+    public static <C> CompactParsimoniousContextTree<C>
+        fromArrays(Alphabet<C> alphabet,
+                   long[] labelMasks,
+                   int[] firstChildren,
+                   int[] childCounts,
+                   double[] scores,
+                   int[] responseOffsets,
+                   double[] responseProbabilities) {
+        Objects.requireNonNull(alphabet, "Alphabet is null.");
+
+        if (alphabet.size() > Long.SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large (" + alphabet.size() + "), " +
+                    "must be at most " + Long.SIZE + ".");
+        }
+
+        int size = labelMasks.length;
+
+        if (size == 0) {
+            throw new IllegalArgumentException("The tree has no nodes.");
+        }
+
+        if (firstChildren.length != size ||
+                childCounts.length != size ||
+                scores.length != size ||
+                responseOffsets.length != size) {
+            throw new IllegalArgumentException(
+                    "The node arrays have different lengths.");
+        }
+
+        for (int node = 0; node < size; node++) {
+            if (childCounts[node] < 0) {
+                throw new IllegalArgumentException(
+                        "Negative child count at node " + node + ".");
+            }
+
+            if (childCounts[node] == 0) {
+                if (firstChildren[node] != NONE) {
+                    throw new IllegalArgumentException(
+                            "The leaf " + node + " has a first child.");
+                }
+            } else if (firstChildren[node] <= node ||
+                    firstChildren[node] > size - childCounts[node]) {
+                throw new IllegalArgumentException(
+                        "Invalid child range at node " + node + ".");
+            }
+
+            if (responseOffsets[node] != NONE &&
+                    (responseOffsets[node] < 0 ||
+                     responseOffsets[node] >
+                     responseProbabilities.length - alphabet.size())) {
+                throw new IllegalArgumentException(
+                        "Invalid response offset at node " + node + ".");
+            }
+        }
+
+        return new CompactParsimoniousContextTree<>(alphabet,
+                                                    labelMasks,
+                                                    firstChildren,
+                                                    childCounts,
+                                                    scores,
+                                                    responseOffsets,
+                                                    responseProbabilities);
+    }
+
+    /**
+     * Converts the node graph of {@code tree} directly to the shared
+     * representation of {@link #share()}, without first building the
+     * unshared arrays.
+     *
+     * @param <C>      the character type.
+     * @param tree     the tree to convert.
+     * @param alphabet the alphabet indexing the label masks.
+     * @return the shared tree.
+     */
+    public static <C> CompactParsimoniousContextTree<C>
+        createShared(ParsimoniousContextTree<C> tree, Alphabet<C> alphabet) {
+        Objects.requireNonNull(tree, "The input tree is null.");
+        Objects.requireNonNull(alphabet, "Alphabet is null.");
+        SubtreeInterner interner = new SubtreeInterner();
+        ParsimoniousContextTreeNode<C> root = tree.getRoot();
+        return interner.build(alphabet,
+                              describe(root, 0L, interner, alphabet));
+    }
+
+    /**
+     * Returns the hash-consed form of this tree, in which equal subtrees
+     * below different parents are stored once. Two subtrees are equal if
+     * their nodes have the same labels, scores and response distributions
+     * level by level, which happens mostly in the sparse regions of a learned
+     * tree. A parent keeps its own label, score and distribution and refers
+     * to the shared child list, so that the result is a rooted directed
+     * acyclic graph. All the queries, the predictors and the tree files
+     * handle the shared form like any other compact tree; only
+     * {@link #withLeafDistributions(EncodedDataSet, double)} pools the counts
+     * of a leaf shared by several contexts, so the distributions should be
+     * estimated before sharing.
+     *
+     * @return the shared tree.
+     */
+    public CompactParsimoniousContextTree<C> share() {
+        SubtreeInterner interner = new SubtreeInterner();
+        return interner.build(alphabet, describe(ROOT, interner));
+    }
+
+    /**
+     * Returns the number of nodes in the tree obtained by expanding all the
+     * shared subtrees. For a tree not having shared subtrees this is
+     * {@link #size()}.
+     *
+     * @return the number of nodes in the expanded tree.
+     */
+    public long getExpandedSize() {
+        long[] expandedSizes = new long[size()];
+
+        for (int node = size() - 1; node >= 0; node--) {
+            expandedSizes[node] = 1L;
+            int end = firstChildren[node] + childCounts[node];
+
+            for (int child = firstChildren[node]; child < end; child++) {
+                expandedSizes[node] += expandedSizes[child];
+            }
+        }
+
+        return expandedSizes[ROOT];
+    }
+
+    /**
+     * Returns a tree of the same shape whose leaves hold the response
+     * distributions estimated from {@code dataSet} as
+     * {@code (N_c + a) / (N + a * alphabetSize)}, where {@code a} is the
+     * pseudo count. The internal nodes hold no distributions. Leaves reached
+     * by no row and a zero pseudo count get the uniform distribution.
+     *
+     * @param dataSet     the encoded data set.
+     * @param pseudoCount the pseudo count added to each response count.
+     * @return the tree with the leaf distributions.
+     */
+    public CompactParsimoniousContextTree<C>
+        withLeafDistributions(EncodedDataSet<C> dataSet, double pseudoCount) {
+        checkDataSet(dataSet);
+
+        if (Double.isNaN(pseudoCount) || pseudoCount < 0.0) {
+            throw new IllegalArgumentException(
+                    "The pseudo count must be non-negative: " + pseudoCount);
+        }
+
+        int alphabetSize = alphabet.size();
+        int[] newResponseOffsets = new int[size()];
+        int numberOfLeaves = 0;
+
+        for (int node = 0; node < size(); node++) {
+            newResponseOffsets[node] = isLeaf(node) ?
+                                       alphabetSize * numberOfLeaves++ :
+                                       NONE;
+        }
+
+        double[] counts = new double[numberOfLeaves * alphabetSize];
+        byte[] responses = dataSet.getResponseColumn();
+
+        for (int row = 0; row < dataSet.size(); row++) {
+            int leaf = findLeaf(dataSet, row);
+
+            if (leaf != NONE) {
+                counts[newResponseOffsets[leaf] + responses[row]]++;
+            }
+        }
+
+        for (int offset = 0; offset < counts.length; offset += alphabetSize) {
+            double total = 0.0;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                total += counts[offset + c];
+            }
+
+            double denominator = total + pseudoCount * alphabetSize;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                counts[offset + c] = denominator == 0.0 ?
+                                     1.0 / alphabetSize :
+                                     (counts[offset + c] + pseudoCount) /
+                                     denominator;
+            }
+        }
+
+        return new CompactParsimoniousContextTree<>(alphabet,
+                                                    labelMasks,
+                                                    firstChildren,
+                                                    childCounts,
+                                                    scores,
+                                                    newResponseOffsets,
+                                                    counts);
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the number of nodes in this tree.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return labelMasks.length;
+    }
+
+    /**
+     * Returns the number of edges on the longest path from the root to a leaf.
+     *
+     * @return the depth of this tree.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getScore() {
+        return scores[ROOT];
+    }
+
+    public long getLabelMask(int node) {
+        return labelMasks[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return childCounts[node] == 0;
+    }
+
+    public double getScore(int node) {
+        return scores[node];
+    }
+
+    /**
+     * Returns the offset of the response variable distribution of
+     * {@code node} in the probability array, or {@link #NONE} if the node has
+     * no distribution.
+     *
+     * @param node the node index.
+     * @return the offset of the distribution.
+     */
+    public int getResponseOffset(int node) {
+        return responseOffsets[node];
+    }
+
+    /**
+     * Returns the probability of the response character with the index
+     * {@code characterIndex} at {@code node}.
+     *
+     * @param node           the node index.
+     * @param characterIndex the index of the response character.
+     * @return the probability of the response character.
+     */
+    public double getResponseProbability(int node, int characterIndex) {
+        if (responseOffsets[node] == NONE) {
+            throw new IllegalStateException(
+                    "The node " + node + " has no response distribution.");
+        }
+
+        return responseProbabilities[responseOffsets[node] + characterIndex];
+    }
+
+    /**
+     * Returns the child of {@code node} whose label contains the character with
+     * the index {@code characterIndex}, or {@link #NONE} if there is no such
+     * child.
+     *
+     * @param node           the parent node index.
+     * @param characterIndex the character index.
+     * @return the child node index.
+     */
+    public int findChild(int node, int characterIndex) {
+        long bit = 1L << characterIndex;
+        int child = firstChildren[node];
+        int end = child + childCounts[node];
+
+        for (; child < end; child++) {
+            if ((labelMasks[child] & bit) != 0L) {
+                return child;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Returns the leaf the context of {@code dataRow} leads to, or
+     * {@link #NONE} if some character of the context is not covered by the
+     * tree.
+     *
+     * @param dataRow the data row whose context to follow.
+     * @return the leaf node index.
+     */
+    public int findLeaf(DataRow<C> dataRow) {
+        int node = ROOT;
+
+        for (int d = 0; !isLeaf(node); d++) {
+            C character = dataRow.getExplanatoryVariable(d);
+
+            if (!alphabet.containsCharacter(character)) {
+                return NONE;
+            }
+
+            node = findChild(node, alphabet.getIndexOf(character));
+
+            if (node == NONE) {
+                return NONE;
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns the leaf the context of the row {@code row} of {@code dataSet}
+     * leads to, or {@link #NONE} if some character of the context is not
+     * covered by the tree. The data set must be encoded with the alphabet of
+     * this tree.
+     *
+     * @param dataSet the encoded data set.
+     * @param row     the row index.
+     * @return the leaf node index.
+     */
+    public int findLeaf(EncodedDataSet<C> dataSet, int row) {
+        int node = ROOT;
+
+        for (int d = 0; !isLeaf(node); d++) {
+            node = findChild(node, dataSet.getExplanatoryColumn(d)[row]);
+
+            if (node == NONE) {
+                return NONE;
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns the label of {@code node} as a set.
+     *
+     * @param node the node index.
+     * @return the label of the node.
+     */
+    public Set<C> getLabel(int node) {
+        Set<C> label = new HashSet<>();
+        long mask = labelMasks[node];
+
+        while (mask != 0L) {
+            label.add(alphabet.get(Long.numberOfTrailingZeros(mask)));
+            mask &= mask - 1L;
+        }
+
+        return label;
+    }
+
+    /**
+     * Converts this tree back to the node graph representation.
+     *
+     * @return the node graph of this tree.
+     */
+    public ParsimoniousContextTree<C> toParsimoniousContextTree() {
+        return new ParsimoniousContextTree<>(toNode(ROOT));
+    }
+
+    private ParsimoniousContextTreeNode<C> toNode(int node) {
+        ParsimoniousContextTreeNode<C> treeNode =
+                new ParsimoniousContextTreeNode<>();
+
+        treeNode.setLabel(getLabel(node));
+        treeNode.setScore(scores[node]);
+
+        if (responseOffsets[node] != NONE) {
+            ResponseVariableDistribution<C> distribution =
+                    new ResponseVariableDistribution<>();
+
+            for (int c = 0; c < alphabet.size(); c++) {
+                distribution.putResponseVariableProbability(
+                        alphabet.get(c),
+                        responseProbabilities[responseOffsets[node] + c]);
+            }
+
+            treeNode.setResponseVariableDistribution(distribution);
+        }
+
+        if (!isLeaf(node)) {
+            Set<ParsimoniousContextTreeNode<C>> children =
+                    new HashSet<>(childCounts[node]);
+            int end = firstChildren[node] + childCounts[node];
+
+            for (int child = firstChildren[node]; child < end; child++) {
+                children.add(toNode(child));
+            }
+
+            treeNode.setChildren(children);
+        }
+
+        return treeNode;
+    }
+
+    /**
+     * Lists the nodes in breadth-first order with each child list sorted by
+     * the label masks, and computes the masks and the depth.
+     *
+     * @return the number of nodes having a response variable distribution.
+     */
+    private int linearize(ParsimoniousContextTreeNode<C> root,
+                          List<ParsimoniousContextTreeNode<C>> nodes,
+                          List<Long> masks,
+                          int[] depthHolder) {
+        Deque<ParsimoniousContextTreeNode<C>> queue = new ArrayDeque<>();
+        Deque<Integer> depthQueue = new ArrayDeque<>();
+        int numberOfDistributions = 0;
+
+        queue.addLast(root);
+        depthQueue.addLast(0);
+        nodes.add(root);
+        masks.add(0L);
+
+        while (!queue.isEmpty()) {
+            ParsimoniousContextTreeNode<C> node = queue.removeFirst();
+            int nodeDepth = depthQueue.removeFirst();
+            depthHolder[0] = Math.max(depthHolder[0], nodeDepth);
+
+            if (node.getResponseVariableDistribution() != null) {
+                numberOfDistributions++;
+            }
+
+            if (node.getChildren() == null) {
+                continue;
+            }
+
+            List<ParsimoniousContextTreeNode<C>> children =
+                    new ArrayList<>(node.getChildren());
+            long[] childMasks = new long[children.size()];
+            Integer[] order = new Integer[children.size()];
+
+            for (int i = 0; i < children.size(); i++) {
+                childMasks[i] = computeMask(children.get(i).getLabel());
+                order[i] = i;
+            }
+
+            Arrays.sort(order, Comparator.comparingLong(i -> childMasks[i]));
+
+            for (int i : order) {
+                queue.addLast(children.get(i));
+                depthQueue.addLast(nodeDepth + 1);
+                nodes.add(children.get(i));
+                masks.add(childMasks[i]);
+            }
+        }
+
+        return numberOfDistributions;
+    }
+
+    private SubtreeInterner.Node describe(int node,
+                                          SubtreeInterner interner) {
+        int childList = NONE;
+
+        if (!isLeaf(node)) {
+            List<SubtreeInterner.Node> children =
+                    new ArrayList<>(childCounts[node]);
+            int end = firstChildren[node] + childCounts[node];
+
+            for (int child = firstChildren[node]; child < end; child++) {
+                children.add(describe(child, interner));
+            }
+
+            childList = interner.intern(children);
+        }
+
+        double[] distribution = responseOffsets[node] == NONE ?
+                null :
+                Arrays.copyOfRange(responseProbabilities,
+                                   responseOffsets[node],
+                                   responseOffsets[node] + alphabet.size());
+
+        return new SubtreeInterner.Node(labelMasks[node],
+                                        scores[node],
+                                        distribution,
+                                        childList,
+                                        childCounts[node]);
+    }
+
+    private static <C> SubtreeInterner.Node describe(
+            ParsimoniousContextTreeNode<C> node,
+            long labelMask,
+            SubtreeInterner interner,
+            Alphabet<C> alphabet) {
+        int childList = NONE;
+        int childCount = 0;
+
+        if (node.getChildren() != null && !node.getChildren().isEmpty()) {
+            List<ParsimoniousContextTreeNode<C>> children =
+                    new ArrayList<>(node.getChildren());
+            long[] childMasks = new long[children.size()];
+            Integer[] order = new Integer[children.size()];
+
+            for (int i = 0; i < children.size(); i++) {
+                childMasks[i] = computeMask(children.get(i).getLabel(),
+                                            alphabet);
+                order[i] = i;
+            }
+
+            Arrays.sort(order, Comparator.comparingLong(i -> childMasks[i]));
+            List<SubtreeInterner.Node> childNodes =
+                    new ArrayList<>(children.size());
+
+            for (int i : order) {
+                childNodes.add(describe(children.get(i),
+                                        childMasks[i],
+                                        interner,
+                                        alphabet));
+            }
+
+            childList = interner.intern(childNodes);
+            childCount = childNodes.size();
+        }
+
+        ResponseVariableDistribution<C> responseVariableDistribution =
+                node.getResponseVariableDistribution();
+        double[] distribution = null;
+
+        if (responseVariableDistribution != null) {
+            distribution = new double[alphabet.size()];
+
+            for (int c = 0; c < alphabet.size(); c++) {
+                distribution[c] = responseVariableDistribution
+                        .getResponseVariableProbability(alphabet.get(c));
+            }
+        }
+
+        return new SubtreeInterner.Node(labelMask,
+                                        node.getScore(),
+                                        distribution,
+                                        childList,
+                                        childCount);
+    }
+
+    /**
+     * Returns the score the structure of this tree has for {@code dataSet}:
+     * the sum over the leaves of the log-likelihood of the responses of the
+     * rows reaching the leaf, minus the leaf penalty for the size of
+     * {@code dataSet}. This is the score a learner would give this tree if it
+     * had learned it from {@code dataSet}, which allows comparing trees
+     * learned from approximate counts with exact ones. As in
+     * {@link #withLeafDistributions(EncodedDataSet, double)}, the rows of a
+     * leaf shared by several contexts are pooled.
+     *
+     * @param dataSet the encoded data set.
+     * @return the score of this tree for the data set.
+     */
+    public double computeScore(EncodedDataSet<C> dataSet) {
+        checkDataSet(dataSet);
+        int alphabetSize = alphabet.size();
+        long[][] histograms = new long[size()][];
+        byte[] responses = dataSet.getResponseColumn();
+
+        for (int node = 0; node < size(); node++) {
+            if (isLeaf(node)) {
+                histograms[node] = new long[alphabetSize];
+            }
+        }
+
+        for (int row = 0; row < dataSet.size(); row++) {
+            int leaf = findLeaf(dataSet, row);
+
+            if (leaf != NONE) {
+                histograms[leaf][responses[row]]++;
+            }
+        }
+
+        double k = ScoringKernel.computeLeafPenalty(alphabetSize,
+                                                    (long) dataSet.size());
+        double score = 0.0;
+
+        for (long[] histogram : histograms) {
+            if (histogram != null) {
+                score += ScoringKernel.computeScore(histogram, k);
+            }
+        }
+
+        return score;
+    }
+
+    private void checkDataSet(EncodedDataSet<C> dataSet) {
+        Objects.requireNonNull(dataSet, "The data set is null.");
+
+        if (dataSet.getAlphabet() != alphabet &&
+                !dataSet.getAlphabet().getCharacters()
+                        .equals(alphabet.getCharacters())) {
+            throw new IllegalArgumentException(
+                    "The data set is encoded with a different alphabet.");
+        }
+
+        if (dataSet.size() > 0 &&
+                dataSet.getNumberOfExplanatoryVariables() < depth) {
+            throw new IllegalArgumentException(
+                    "The data set has too few explanatory variables: " +
+                    dataSet.getNumberOfExplanatoryVariables() + ", must " +
+                    "be at least " + depth + ".");
+        }
+    }
+
+    private static int computeDepth(int[] firstChildren, int[] childCounts) {
+        // The children come after their parents, so the heights of the
+        // children are known when a node is reached from the end:
+        int[] heights = new int[firstChildren.length];
+
+        for (int node = firstChildren.length - 1; node >= 0; node--) {
+            int end = firstChildren[node] + childCounts[node];
+
+            for (int child = firstChildren[node]; child < end; child++) {
+                heights[node] = Math.max(heights[node], heights[child] + 1);
+            }
+        }
+
+        return heights[ROOT];
+    }
+
+    private long computeMask(Set<C> label) {
+        return computeMask(label, alphabet);
+    }
+
+    private static <C> long computeMask(Set<C> label, Alphabet<C> alphabet) {
+        long mask = 0L;
+
+        for (C character : label) {
+            mask |= 1L << alphabet.getIndexOf(character);
+        }
+
+        return mask;
+    }
+
+    // The array is only read by the constructor of the alphabet, so it never
+    // escapes as a C[]:
+    @SuppressWarnings("unchecked")
+    private static <C> Alphabet<C> inferAlphabet(
+            ParsimoniousContextTree<C> tree) {
+        Objects.requireNonNull(tree, "The input tree is null.");
+        Set<C> characters = new LinkedHashSet<>();
+
+        if (tree.getRoot().getChildren() != null) {
+            for (ParsimoniousContextTreeNode<C> child :
+                    tree.getRoot().getChildren()) {
+                characters.addAll(child.getLabel());
+            }
+        }
+
+        return new Alphabet<>((C[]) characters.toArray());
+    }
+}
@@ -0,0 +1,259 @@
+package net.coderodde.msc;
+
+import java.util.Objects;
+import net.coderodde.msc.util.CountMinSketch;
+
+/**
+ * This class holds approximate response counts of contexts in a
+ * {@link CountMinSketch}, as a fixed-size alternative to
+ * {@link ContextCountTrie} when the number of distinct contexts is too large.
+ * A context prefix, that is, the values of the explanatory variables
+ * {@code 0, 1, ..., d - 1} in the sense of
+ * {@link DataRow#getExplanatoryVariable(int)}, is identified by a 64-bit
+ * hash, and for each prefix of each added row the sketch counts the pair of
+ * the prefix and the response as well as the prefix alone.
+ * <p>
+ * The estimates are never less than the true counts. In particular, a prefix
+ * whose estimated count is zero has never been seen, which lets the learners
+ * skip the unseen parts of the context space. The memory usage is fixed by
+ * the error bounds and does not grow with the number of rows.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ContextCountSketch<C> {
+
+    /**
+     * The hash of the empty prefix.
+     */
+    public static final long ROOT = 0x5851f42d4c957f2dL;
+
+    private static final long PREFIX_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    private static final long RESPONSE_MULTIPLIER = 0xc2b2ae3d27d4eb4fL;
+
+    private final Alphabet<C> alphabet;
+    private final int alphabetSize;
+    private final int depth;
+    private final double epsilon;
+    private final double delta;
+    private final CountMinSketch sketch;
+
+    /**
+     * The encoded context of the row being added.
+     */
+    private final byte[] context;
+
+    private long numberOfRows;
+
+    /**
+     * Constructs a sketch whose estimates exceed the true counts by at most
+     * {@link #getErrorBound()}, with probability at least {@code 1 - delta}
+     * per estimate.
+     *
+     * @param alphabet     the alphabet.
+     * @param depth        the number of explanatory variables counted.
+     * @param epsilon      the relative error bound.
+     * @param delta        the failure probability.
+     * @param conservative whether to use the conservative update.
+     */
+    public ContextCountSketch(Alphabet<C> alphabet,
+                              int depth,
+                              double epsilon,
+                              double delta,
+                              boolean conservative) {
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null.");
+        this.alphabetSize = alphabet.size();
+
+        if (depth < 0) {
+            throw new IllegalArgumentException(
+                    "The depth must be non-negative: " + depth);
+        }
+
+        if (alphabetSize > EncodedDataSet.MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large (" + alphabetSize + "), " +
+                    "must be at most " + EncodedDataSet.MAXIMUM_ALPHABET_SIZE +
+                    ".");
+        }
+
+        this.depth = depth;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.sketch = CountMinSketch.forErrorBounds(epsilon,
+                                                    delta,
+                                                    conservative);
+        this.context = new byte[depth];
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public boolean isConservative() {
+        return sketch.isConservative();
+    }
+
+    public long getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Returns the bound {@code epsilon} times the total count of the sketch,
+     * by which an estimate exceeds the true count with probability at least
+     * {@code 1 - delta}. Each row adds two counts per prefix, so the total
+     * count is {@code 2 (depth + 1)} times the number of rows.
+     *
+     * @return the error bound of the estimates.
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(epsilon * sketch.getTotalCount());
+    }
+
+    /**
+     * Returns the number of bytes taken by the counters of the sketch.
+     *
+     * @return the memory usage in bytes.
+     */
+    public long getMemoryUsage() {
+        return sketch.getMemoryUsage();
+    }
+
+    /**
+     * Adds the first {@link #getDepth()} explanatory variables and the
+     * response of {@code dataRow}.
+     *
+     * @param dataRow the data row to add.
+     */
+    public void add(DataRow<C> dataRow) {
+        checkNumberOfExplanatoryVariables(
+                dataRow.getNumberOfExplanatoryVariables());
+
+        for (int d = 0; d < depth; d++) {
+            context[d] = (byte) alphabet.getIndexOf(
+                    dataRow.getExplanatoryVariable(d));
+        }
+
+        add(context,
+            alphabet.getIndexOf(dataRow.getResponseVariable()),
+            1L);
+    }
+
+    /**
+     * Adds the row {@code row} of {@code dataSet}, which must be encoded with
+     * the alphabet of this sketch.
+     *
+     * @param dataSet the encoded data set.
+     * @param row     the index of the row to add.
+     */
+    public void add(EncodedDataSet<C> dataSet, int row) {
+        checkNumberOfExplanatoryVariables(
+                dataSet.getNumberOfExplanatoryVariables());
+
+        for (int d = 0; d < depth; d++) {
+            context[d] = dataSet.getExplanatoryColumn(d)[row];
+        }
+
+        add(context, dataSet.getResponseColumn()[row], 1L);
+    }
+
+    /**
+     * Adds {@code count} rows having the context {@code context} and the
+     * response {@code response}. The character index of the explanatory
+     * variable {@code d} is {@code context[d]}.
+     *
+     * @param context  the encoded context.
+     * @param response the index of the response character.
+     * @param count    the number of rows to add.
+     */
+    public void add(byte[] context, int response, long count) {
+        checkNumberOfExplanatoryVariables(context.length);
+        long prefix = ROOT;
+
+        for (int d = 0; ; d++) {
+            sketch.add(prefix, count);
+            sketch.add(getResponseKey(prefix, response), count);
+
+            if (d == depth) {
+                break;
+            }
+
+            prefix = extend(prefix, context[d]);
+        }
+
+        numberOfRows += count;
+    }
+
+    /**
+     * Returns the hash of the prefix {@code prefix} followed by the character
+     * with the index {@code characterIndex}.
+     *
+     * @param prefix         the hash of a prefix.
+     * @param characterIndex the index of the next character.
+     * @return the hash of the extended prefix.
+     */
+    public long extend(long prefix, int characterIndex) {
+        return CountMinSketch.mix(prefix * PREFIX_MULTIPLIER +
+                                  characterIndex + 1);
+    }
+
+    /**
+     * Returns the estimated number of rows having the prefix {@code prefix}.
+     *
+     * @param prefix the hash of the prefix.
+     * @return the estimated count.
+     */
+    public long estimateCount(long prefix) {
+        return sketch.estimate(prefix);
+    }
+
+    /**
+     * Returns the estimated number of rows having the prefix {@code prefix}
+     * and the response character with the index {@code characterIndex}.
+     *
+     * @param prefix         the hash of the prefix.
+     * @param characterIndex the index of the response character.
+     * @return the estimated count.
+     */
+    public long estimateResponseCount(long prefix, int characterIndex) {
+        return sketch.estimate(getResponseKey(prefix, characterIndex));
+    }
+
+    /**
+     * Returns an empty sketch with the same alphabet, depth and error bounds.
+     *
+     * @return an empty sketch.
+     */
+    public ContextCountSketch<C> createEmptyCopy() {
+        return new ContextCountSketch<>(alphabet,
+                                        depth,
+                                        epsilon,
+                                        delta,
+                                        sketch.isConservative());
+    }
+
+    private static long getResponseKey(long prefix, int characterIndex) {
+        return CountMinSketch.mix(prefix ^
+                                  (characterIndex + 1) * RESPONSE_MULTIPLIER);
+    }
+
+    private void checkNumberOfExplanatoryVariables(int count) {
+        if (count < depth) {
+            throw new IllegalArgumentException(
+                    "The data row has too few explanatory variables: " +
+                    count + ", must be at least " + depth + ".");
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package net.coderodde.msc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class implements a trie of the response counts of contexts. A trie
+ * node at level {@code d}, the root being at level zero, stands for the
+ * values of the explanatory variables {@code 0, 1, ..., d - 1}, in the sense
+ * of {@link DataRow#getExplanatoryVariable(int)}, and holds the response
+ * histogram of all the rows having those values. Only the contexts actually
+ * seen are stored, so that the size of the trie is bounded by the number of
+ * distinct contexts times the depth instead of the number of rows.
+ * <p>
+ * The counts of the rows reaching a node of a parsimonious context tree are
+ * the sums of the counts of the trie nodes matching the labels on the path to
+ * the node, which is all the learners need to know about the data.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ContextCountTrie<C> {
+
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The value denoting a missing child.
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Alphabet<C> alphabet;
+    private final int alphabetSize;
+    private final int depth;
+
+    /**
+     * The children of the nodes, {@code alphabetSize} per node.
+     */
+    private int[] children;
+
+    /**
+     * The response counts of the nodes, {@code alphabetSize} per node.
+     */
+    private long[] responseCounts;
+
+    private int size;
+    private long numberOfRows;
+
+    public ContextCountTrie(Alphabet<C> alphabet, int depth) {
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null.");
+        this.alphabetSize = alphabet.size();
+
+        if (depth < 0) {
+            throw new IllegalArgumentException(
+                    "The depth must be non-negative: " + depth);
+        }
+
+        if (alphabetSize > EncodedDataSet.MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large (" + alphabetSize + "), " +
+                    "must be at most " + EncodedDataSet.MAXIMUM_ALPHABET_SIZE +
+                    ".");
+        }
+
+        this.depth = depth;
+        this.children = new int[INITIAL_CAPACITY * alphabetSize];
+        this.responseCounts = new long[INITIAL_CAPACITY * alphabetSize];
+        Arrays.fill(children, NONE);
+        this.size = 1;
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the number of explanatory variables the contexts consist of.
+     *
+     * @return the depth of this trie.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of nodes in this trie.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Adds the first {@link #getDepth()} explanatory variables and the
+     * response of {@code dataRow}.
+     *
+     * @param dataRow the data row to add.
+     */
+    public void add(DataRow<C> dataRow) {
+        checkNumberOfExplanatoryVariables(
+                dataRow.getNumberOfExplanatoryVariables());
+        int response = alphabet.getIndexOf(dataRow.getResponseVariable());
+        int node = ROOT;
+        responseCounts[response]++;
+
+        for (int d = 0; d < depth; d++) {
+            node = getOrCreateChild(
+                    node,
+                    alphabet.getIndexOf(dataRow.getExplanatoryVariable(d)));
+            responseCounts[node * alphabetSize + response]++;
+        }
+
+        numberOfRows++;
+    }
+
+    /**
+     * Adds the row {@code row} of {@code dataSet}, which must be encoded with
+     * the alphabet of this trie.
+     *
+     * @param dataSet the encoded data set.
+     * @param row     the index of the row to add.
+     */
+    public void add(EncodedDataSet<C> dataSet, int row) {
+        checkNumberOfExplanatoryVariables(
+                dataSet.getNumberOfExplanatoryVariables());
+        int response = dataSet.getResponseColumn()[row];
+        int node = ROOT;
+        responseCounts[response]++;
+
+        for (int d = 0; d < depth; d++) {
+            node = getOrCreateChild(node,
+                                    dataSet.getExplanatoryColumn(d)[row]);
+            responseCounts[node * alphabetSize + response]++;
+        }
+
+        numberOfRows++;
+    }
+
+    /**
+     * Adds {@code count} rows having the context {@code context} and the
+     * response {@code response}. The character index of the explanatory
+     * variable {@code d} is {@code context[d]}.
+     *
+     * @param context  the encoded context.
+     * @param response the index of the response character.
+     * @param count    the number of rows to add.
+     */
+    public void add(byte[] context, int response, long count) {
+        checkNumberOfExplanatoryVariables(context.length);
+
+        if (count < 0L) {
+            throw new IllegalArgumentException(
+                    "The count must be non-negative: " + count);
+        }
+
+        int node = ROOT;
+        responseCounts[response] += count;
+
+        for (int d = 0; d < depth; d++) {
+            node = getOrCreateChild(node, context[d]);
+            responseCounts[node * alphabetSize + response] += count;
+        }
+
+        numberOfRows += count;
+    }
+
+    /**
+     * Returns the child of {@code node} for the character with the index
+     * {@code characterIndex}, or {@link #NONE} if no such context has been
+     * seen.
+     *
+     * @param node           the parent node.
+     * @param characterIndex the character index.
+     * @return the child node.
+     */
+    public int getChild(int node, int characterIndex) {
+        return children[node * alphabetSize + characterIndex];
+    }
+
+    /**
+     * Returns the number of rows reaching {@code node} with the response
+     * character having the index {@code characterIndex}.
+     *
+     * @param node           the node.
+     * @param characterIndex the index of the response character.
+     * @return the response count.
+     */
+    public long getResponseCount(int node, int characterIndex) {
+        return responseCounts[node * alphabetSize + characterIndex];
+    }
+
+    /**
+     * Adds the response counts of {@code node} to {@code histogram}.
+     *
+     * @param node      the node.
+     * @param histogram the histogram to add to.
+     */
+    public void addResponseCounts(int node, long[] histogram) {
+        int offset = node * alphabetSize;
+
+        for (int c = 0; c < alphabetSize; c++) {
+            histogram[c] += responseCounts[offset + c];
+        }
+    }
+
+    /**
+     * Writes the depth, the number of rows and the nodes of this trie. The
+     * alphabet is not written.
+     *
+     * @param out the output to write to.
+     * @throws IOException if writing fails.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(size);
+        out.writeLong(numberOfRows);
+
+        for (int i = 0; i < size * alphabetSize; i++) {
+            out.writeInt(children[i]);
+        }
+
+        for (int i = 0; i < size * alphabetSize; i++) {
+            out.writeLong(responseCounts[i]);
+        }
+    }
+
+    /**
+     * Reads a trie written by {@link #write(java.io.DataOutput)}.
+     *
+     * @param <C>      the character type.
+     * @param in       the input to read from.
+     * @param alphabet the alphabet of the written trie.
+     * @return the trie.
+     * @throws IOException if reading fails or the trie is not valid.
+     */
+    public static <C> ContextCountTrie<C> read(DataInput in,
+                                               Alphabet<C> alphabet)
+    throws IOException {
+        int depth = in.readInt();
+        int size = in.readInt();
+        long numberOfRows = in.readLong();
+        int alphabetSize = alphabet.size();
+
+        if (depth < 0 || size < 1 ||
+                size > Integer.MAX_VALUE / Math.max(alphabetSize, 1) ||
+                numberOfRows < 0L) {
+            throw new IOException("Invalid trie header: depth " + depth +
+                                  ", size " + size + ", rows " +
+                                  numberOfRows + ".");
+        }
+
+        ContextCountTrie<C> trie = new ContextCountTrie<>(alphabet, depth);
+        trie.children = new int[size * alphabetSize];
+        trie.responseCounts = new long[size * alphabetSize];
+        trie.size = size;
+        trie.numberOfRows = numberOfRows;
+
+        for (int i = 0; i < size * alphabetSize; i++) {
+            int child = in.readInt();
+
+            // Children are always created after their parents:
+            if (child != NONE && (child <= i / alphabetSize ||
+                                  child >= size)) {
+                throw new IOException("Invalid trie child " + child +
+                                      " of node " + i / alphabetSize + ".");
+            }
+
+            trie.children[i] = child;
+        }
+
+        for (int i = 0; i < size * alphabetSize; i++) {
+            long count = in.readLong();
+
+            if (count < 0L) {
+                throw new IOException("Negative trie count " + count + ".");
+            }
+
+            trie.responseCounts[i] = count;
+        }
+
+        return trie;
+    }
+
+    private int getOrCreateChild(int node, int characterIndex) {
+        int index = node * alphabetSize + characterIndex;
+        int child = children[index];
+
+        if (child != NONE) {
+            return child;
+        }
+
+        if (size * alphabetSize == children.length) {
+            int capacity = 2 * children.length;
+            children = Arrays.copyOf(children, capacity);
+            responseCounts = Arrays.copyOf(responseCounts, capacity);
+            Arrays.fill(children, capacity / 2, capacity, NONE);
+        }
+
+        children[index] = size;
+        return size++;
+    }
+
+    private void checkNumberOfExplanatoryVariables(int count) {
+        if (count < depth) {
+            throw new IllegalArgumentException(
+                    "The data row has too few explanatory variables: " +
+                    count + ", must be at least " + depth + ".");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package net.coderodde.msc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import net.coderodde.msc.jfr.DataLoadedEvent;
+
+/**
+ * This class stores a list of data rows column by column, each character
+ * encoded as a byte holding its index in the {@link Alphabet}. The explanatory
+ * column {@code i} holds the values of {@link DataRow#getExplanatoryVariable(int)}
+ * for index {@code i}, so the column indices coincide with the ones used by the
+ * learners. Labels are encoded as {@code long} masks whose bit {@code c} is set
+ * if and only if the character with index {@code c} is in the label.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class EncodedDataSet<C> {
+
+    /**
+     * The maximum alphabet size that fits in a label mask.
+     */
+    public static final int MAXIMUM_ALPHABET_SIZE = Long.SIZE;
+
+    private final Alphabet<C> alphabet;
+    private final byte[][] explanatoryColumns;
+    private final byte[] responseColumn;
+
+    public EncodedDataSet(List<DataRow<C>> dataRows, Alphabet<C> alphabet) {
+        Objects.requireNonNull(dataRows, "The data row list is null.");
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null.");
+
+        if (alphabet.size() > MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large (" + alphabet.size() + "), " +
+                    "must be at most " + MAXIMUM_ALPHABET_SIZE + ".");
+        }
+
+        DataLoadedEvent event = new DataLoadedEvent();
+        event.begin();
+        int numberOfRows = dataRows.size();
+        int numberOfExplanatoryVariables =
+                dataRows.isEmpty() ?
+                0 :
+                dataRows.get(0).getNumberOfExplanatoryVariables();
+
+        this.explanatoryColumns =
+                new byte[numberOfExplanatoryVariables][numberOfRows];
+        this.responseColumn = new byte[numberOfRows];
+
+        for (int row = 0; row < numberOfRows; row++) {
+            DataRow<C> dataRow = dataRows.get(row);
+
+            for (int i = 0; i < numberOfExplanatoryVariables; i++) {
+                explanatoryColumns[i][row] =
+                        (byte) alphabet.getIndexOf(
+                                dataRow.getExplanatoryVariable(i));
+            }
+
+            responseColumn[row] =
+                    (byte) alphabet.getIndexOf(dataRow.getResponseVariable());
+        }
+
+        event.commit("encoded",
+                     numberOfExplanatoryVariables,
+                     alphabet.size(),
+                     numberOfRows);
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    public int size() {
+        return responseColumn.length;
+    }
+
+    public int getNumberOfExplanatoryVariables() {
+        return explanatoryColumns.length;
+    }
+
+    /**
+     * Returns the explanatory column {@code index}. The returned array is
+     * not copied and must not be modified.
+     *
+     * @param index the index of the explanatory variable.
+     * @return the encoded column.
+     */
+    public byte[] getExplanatoryColumn(int index) {
+        return explanatoryColumns[index];
+    }
+
+    /**
+     * Returns the response column. The returned array is not copied and must
+     * not be modified.
+     *
+     * @return the encoded response column.
+     */
+    public byte[] getResponseColumn() {
+        return responseColumn;
+    }
+
+    /**
+     * Returns the fingerprint of this data set along with
+     * {@code configuration}, which is the hexadecimal SHA-256 hash of the
+     * alphabet characters as strings, the columns and the configuration. Data
+     * sets of the same rows over the same alphabet in the same order have the
+     * same fingerprint.
+     *
+     * @param configuration the configuration of a computation on this data
+     *                      set, such as the learner and its parameters.
+     * @return the fingerprint of 64 hexadecimal digits.
+     */
+    public String computeFingerprint(String configuration) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        update(digest, alphabet.size());
+
+        for (C character : alphabet.getCharacters()) {
+            byte[] bytes = String.valueOf(character)
+                                 .getBytes(StandardCharsets.UTF_8);
+            update(digest, bytes.length);
+            digest.update(bytes);
+        }
+
+        update(digest, explanatoryColumns.length);
+        update(digest, responseColumn.length);
+
+        for (byte[] column : explanatoryColumns) {
+            digest.update(column);
+        }
+
+        digest.update(responseColumn);
+        digest.update(configuration.getBytes(StandardCharsets.UTF_8));
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            stringBuilder.append(Character.forDigit((b >>> 4) & 0xf, 16))
+                         .append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    /**
+     * Encodes the label as a mask.
+     *
+     * @param label the label to encode.
+     * @return the label mask.
+     */
+    public long getLabelMask(Set<C> label) {
+        long mask = 0L;
+
+        for (C character : label) {
+            mask |= 1L << alphabet.getIndexOf(character);
+        }
+
+        return mask;
+    }
+}
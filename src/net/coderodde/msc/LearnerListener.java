@@ -0,0 +1,64 @@
+package net.coderodde.msc;
+
+/**
+ * This interface defines the callbacks through which the learners report the
+ * work they do. All the methods do nothing by default, and the learners start
+ * with {@link #NO_OP}, whose calls the JIT compiler inlines away, so that a
+ * learner without a listener of its own does no extra work.
+ * <p>
+ * The level of a node is its distance from the root, so the root is at level
+ * 0 and the leaves of a tree of depth {@code d} are at level {@code d}. The
+ * work of selecting the children of a node, such as the partitions evaluated
+ * and the merges attempted, is reported at the level of the node, while the
+ * created and pruned children are reported at their own level. The learners
+ * that learn on several threads call the listener concurrently.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public interface LearnerListener {
+
+    /**
+     * The listener ignoring all the calls.
+     */
+    public static final LearnerListener NO_OP = new LearnerListener() {};
+
+    /**
+     * Reports the estimated size of the search before the learning starts.
+     *
+     * @param numberOfNodes the estimated number of nodes to build.
+     * @param workPerNode   the estimated work per node.
+     */
+    public default void onWorkEstimated(long numberOfNodes, long workPerNode) {}
+
+    /**
+     * Reports that the subtree of a node at level {@code level} is about to be
+     * built on the current thread. Each call is followed by a call to
+     * {@link #onSubtreeFinished(int)} of the same level on the same thread,
+     * and the calls of the descendants of the node come in between.
+     *
+     * @param level the level of the node.
+     */
+    public default void onSubtreeStarted(int level) {}
+
+    /**
+     * Reports that the subtree of a node at level {@code level} is built.
+     *
+     * @param level the level of the node.
+     */
+    public default void onSubtreeFinished(int level) {}
+
+    public default void onNodesCreated(int level, int count) {}
+
+    public default void onNodesPruned(int level, int count) {}
+
+    public default void onPartitionsEvaluated(int level, int count) {}
+
+    public default void onMergesAttempted(int level, int count) {}
+
+    public default void onMergesAccepted(int level, int count) {}
+
+    public default void onRowsScanned(int level, int count) {}
+
+    public default void onHistogramsBuilt(int level, int count) {}
+}
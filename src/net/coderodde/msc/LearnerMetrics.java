@@ -0,0 +1,359 @@
+package net.coderodde.msc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * This class aggregates the reports of the learners it listens to over all
+ * their runs, level by level. The subtrees are timed in wall-clock time and,
+ * on JVMs supporting it, in the bytes allocated by their threads. Since the
+ * subtrees of the deeper levels are built within the subtrees of the nodes
+ * at a level, the time and the allocation of a level are kept both including
+ * and excluding the nested subtrees.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class LearnerMetrics implements LearnerListener {
+
+    private static final int NODES_CREATED = 0;
+    private static final int NODES_PRUNED = 1;
+    private static final int PARTITIONS_EVALUATED = 2;
+    private static final int MERGES_ATTEMPTED = 3;
+    private static final int MERGES_ACCEPTED = 4;
+    private static final int ROWS_SCANNED = 5;
+    private static final int HISTOGRAMS_BUILT = 6;
+    private static final int SUBTREES_BUILT = 7;
+    private static final int NANOSECONDS = 8;
+    private static final int ALLOCATED_BYTES = 9;
+    private static final int SELF_NANOSECONDS = 10;
+    private static final int SELF_ALLOCATED_BYTES = 11;
+    private static final int NUMBER_OF_COUNTERS = 12;
+
+    private static final ThreadMXBean THREAD_MX_BEAN =
+            ManagementFactory.getThreadMXBean();
+
+    private static final boolean ALLOCATION_MEASURED =
+            THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean &&
+            ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+                    .isThreadAllocatedMemoryEnabled();
+
+    /**
+     * Holds the counters of each level.
+     */
+    private final List<long[]> levelCounters = new ArrayList<>();
+
+    /**
+     * Holds the subtrees being built on each thread, each as its start time,
+     * its start allocation and the time and the allocation of its nested
+     * subtrees.
+     */
+    private final ThreadLocal<Deque<long[]>> subtreeStarts =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    private long estimatedNumberOfNodes;
+    private long estimatedWorkPerNode;
+
+    @Override
+    public synchronized void onWorkEstimated(long numberOfNodes,
+                                             long workPerNode) {
+        estimatedNumberOfNodes += numberOfNodes;
+        estimatedWorkPerNode = workPerNode;
+    }
+
+    @Override
+    public void onSubtreeStarted(int level) {
+        subtreeStarts.get().push(new long[]{ System.nanoTime(),
+                                             getAllocatedBytes(),
+                                             0L,
+                                             0L });
+    }
+
+    @Override
+    public void onSubtreeFinished(int level) {
+        Deque<long[]> starts = subtreeStarts.get();
+        long[] start = starts.pop();
+        long nanoseconds = System.nanoTime() - start[0];
+        long allocatedBytes = getAllocatedBytes() - start[1];
+        long[] parent = starts.peek();
+
+        if (parent != null) {
+            parent[2] += nanoseconds;
+            parent[3] += allocatedBytes;
+        }
+
+        synchronized (this) {
+            long[] counters = getCounters(level);
+            counters[SUBTREES_BUILT]++;
+            counters[NANOSECONDS] += nanoseconds;
+            counters[ALLOCATED_BYTES] += allocatedBytes;
+            counters[SELF_NANOSECONDS] += nanoseconds - start[2];
+            counters[SELF_ALLOCATED_BYTES] += allocatedBytes - start[3];
+        }
+    }
+
+    @Override
+    public void onNodesCreated(int level, int count) {
+        add(level, NODES_CREATED, count);
+    }
+
+    @Override
+    public void onNodesPruned(int level, int count) {
+        add(level, NODES_PRUNED, count);
+    }
+
+    @Override
+    public void onPartitionsEvaluated(int level, int count) {
+        add(level, PARTITIONS_EVALUATED, count);
+    }
+
+    @Override
+    public void onMergesAttempted(int level, int count) {
+        add(level, MERGES_ATTEMPTED, count);
+    }
+
+    @Override
+    public void onMergesAccepted(int level, int count) {
+        add(level, MERGES_ACCEPTED, count);
+    }
+
+    @Override
+    public void onRowsScanned(int level, int count) {
+        add(level, ROWS_SCANNED, count);
+    }
+
+    @Override
+    public void onHistogramsBuilt(int level, int count) {
+        add(level, HISTOGRAMS_BUILT, count);
+    }
+
+    /**
+     * Returns {@code true} if the allocations of the threads are measured on
+     * this JVM.
+     *
+     * @return {@code true} if the allocations are measured.
+     */
+    public static boolean isAllocationMeasured() {
+        return ALLOCATION_MEASURED;
+    }
+
+    public synchronized int getNumberOfLevels() {
+        return levelCounters.size();
+    }
+
+    public synchronized long getEstimatedNumberOfNodes() {
+        return estimatedNumberOfNodes;
+    }
+
+    public synchronized long getEstimatedWorkPerNode() {
+        return estimatedWorkPerNode;
+    }
+
+    public long getNumberOfNodesCreated() {
+        return getTotal(NODES_CREATED);
+    }
+
+    public long getNumberOfNodesPruned() {
+        return getTotal(NODES_PRUNED);
+    }
+
+    public long getNumberOfPartitionsEvaluated() {
+        return getTotal(PARTITIONS_EVALUATED);
+    }
+
+    public long getNumberOfMergesAttempted() {
+        return getTotal(MERGES_ATTEMPTED);
+    }
+
+    public long getNumberOfMergesAccepted() {
+        return getTotal(MERGES_ACCEPTED);
+    }
+
+    public long getNumberOfRowsScanned() {
+        return getTotal(ROWS_SCANNED);
+    }
+
+    public long getNumberOfHistogramsBuilt() {
+        return getTotal(HISTOGRAMS_BUILT);
+    }
+
+    /**
+     * Returns the number of subtrees built at level {@code level}.
+     *
+     * @param level the level.
+     * @return the number of subtrees.
+     */
+    public long getNumberOfSubtreesBuilt(int level) {
+        return get(level, SUBTREES_BUILT);
+    }
+
+    /**
+     * Returns the total wall-clock time of building the subtrees of the nodes
+     * at level {@code level}, including the deeper levels.
+     *
+     * @param level the level.
+     * @return the time in nanoseconds.
+     */
+    public long getNanoseconds(int level) {
+        return get(level, NANOSECONDS);
+    }
+
+    /**
+     * Returns the total wall-clock time of building the subtrees of the nodes
+     * at level {@code level}, excluding the nested subtrees.
+     *
+     * @param level the level.
+     * @return the time in nanoseconds.
+     */
+    public long getSelfNanoseconds(int level) {
+        return get(level, SELF_NANOSECONDS);
+    }
+
+    /**
+     * Returns the total number of bytes allocated while building the subtrees
+     * of the nodes at level {@code level}, including the deeper levels, or
+     * zero if the allocations are not measured.
+     *
+     * @param level the level.
+     * @return the number of allocated bytes.
+     */
+    public long getAllocatedBytes(int level) {
+        return get(level, ALLOCATED_BYTES);
+    }
+
+    /**
+     * Returns the total number of bytes allocated while building the subtrees
+     * of the nodes at level {@code level}, excluding the nested subtrees, or
+     * zero if the allocations are not measured.
+     *
+     * @param level the level.
+     * @return the number of allocated bytes.
+     */
+    public long getSelfAllocatedBytes(int level) {
+        return get(level, SELF_ALLOCATED_BYTES);
+    }
+
+    /**
+     * Clears all the counters.
+     */
+    public synchronized void reset() {
+        levelCounters.clear();
+        estimatedNumberOfNodes = 0L;
+        estimatedWorkPerNode = 0L;
+    }
+
+    /**
+     * Returns the report of the counters as a table with a row per level and
+     * a row of totals. The times and the allocations of the levels exclude
+     * the nested subtrees.
+     *
+     * @return the report.
+     */
+    public synchronized String getReport() {
+        StringBuilder stringBuilder = new StringBuilder();
+        String format = "%5s %10s %10s %12s %10s %10s %12s %10s %10s %10s%n";
+        stringBuilder.append(String.format(format,
+                                           "level",
+                                           "created",
+                                           "pruned",
+                                           "partitions",
+                                           "merges",
+                                           "accepted",
+                                           "rows",
+                                           "histograms",
+                                           "self ms",
+                                           "self MiB"));
+        long[] totals = new long[NUMBER_OF_COUNTERS];
+
+        for (int level = 0; level < levelCounters.size(); level++) {
+            long[] counters = levelCounters.get(level);
+
+            for (int i = 0; i < NUMBER_OF_COUNTERS; i++) {
+                totals[i] += counters[i];
+            }
+
+            appendRow(stringBuilder,
+                      format,
+                      Integer.toString(level),
+                      counters);
+        }
+
+        appendRow(stringBuilder, format, "total", totals);
+
+        if (estimatedNumberOfNodes > 0L) {
+            stringBuilder.append("Estimated nodes: ")
+                         .append(estimatedNumberOfNodes)
+                         .append(", estimated work per node: ")
+                         .append(estimatedWorkPerNode)
+                         .append(String.format("%n"));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getReport();
+    }
+
+    private static void appendRow(StringBuilder stringBuilder,
+                                  String format,
+                                  String level,
+                                  long[] counters) {
+        stringBuilder.append(
+                String.format(format,
+                              level,
+                              counters[NODES_CREATED],
+                              counters[NODES_PRUNED],
+                              counters[PARTITIONS_EVALUATED],
+                              counters[MERGES_ATTEMPTED],
+                              counters[MERGES_ACCEPTED],
+                              counters[ROWS_SCANNED],
+                              counters[HISTOGRAMS_BUILT],
+                              String.format("%.3f",
+                                            counters[SELF_NANOSECONDS] / 1e6),
+                              String.format("%.3f",
+                                            counters[SELF_ALLOCATED_BYTES] /
+                                            1048576.0)));
+    }
+
+    private synchronized void add(int level, int counter, long count) {
+        getCounters(level)[counter] += count;
+    }
+
+    private synchronized long get(int level, int counter) {
+        return level < levelCounters.size() ?
+               levelCounters.get(level)[counter] :
+               0L;
+    }
+
+    private synchronized long getTotal(int counter) {
+        long total = 0L;
+
+        for (long[] counters : levelCounters) {
+            total += counters[counter];
+        }
+
+        return total;
+    }
+
+    private long[] getCounters(int level) {
+        while (levelCounters.size() <= level) {
+            levelCounters.add(new long[NUMBER_OF_COUNTERS]);
+        }
+
+        return levelCounters.get(level);
+    }
+
+    private static long getAllocatedBytes() {
+        return ALLOCATION_MEASURED ?
+               ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+                       .getThreadAllocatedBytes(
+                               Thread.currentThread().getId()) :
+               0L;
+    }
+}
@@ -0,0 +1,156 @@
+package net.coderodde.msc;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class bounds the learning of a tree by a deadline and a cancellation
+ * flag, and receives the progress reports of the learners. A learner checks
+ * {@link #shouldStop()} while learning, and once it returns {@code true}, the
+ * learner stops searching and returns the best complete tree it can build
+ * without further search: the exact learners keep the best partitions found
+ * so far and give the nodes not yet reached the single child labelled with
+ * the whole alphabet, the heuristic learners stop merging, and the random
+ * search learners return their best tree so far. Since a stopped learner
+ * still builds a complete tree, it returns shortly after the deadline, and
+ * the caller may check {@link #shouldStop()} afterwards to tell whether the
+ * tree may be suboptimal.
+ * <p>
+ * The deadline is fixed at the creation of the context, so a context is
+ * meant for a single request. The learners learning on several threads share
+ * the context of the learner they are called from.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class LearningContext {
+
+    /**
+     * This interface defines the callback of the progress reports.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Reports that {@code workDone} units of {@code totalWork} are done.
+         * The units depend on the learner, such as the subtrees of the
+         * children of the root or the candidate trees of random search.
+         *
+         * @param workDone  the number of units done.
+         * @param totalWork the total number of units, or -1 if unknown.
+         */
+        public void onProgress(long workDone, long totalWork);
+    }
+
+    private static final ProgressListener NO_PROGRESS_LISTENER =
+            (workDone, totalWork) -> {};
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final LearningContext parent;
+    private volatile boolean cancelled;
+    private volatile ProgressListener progressListener = NO_PROGRESS_LISTENER;
+
+    /**
+     * Creates a context without a deadline.
+     */
+    public LearningContext() {
+        this.deadline = 0L;
+        this.hasDeadline = false;
+        this.parent = null;
+    }
+
+    /**
+     * Creates a context whose deadline is {@code timeout} units of time from
+     * now.
+     *
+     * @param timeout the non-negative timeout.
+     * @param unit    the unit of the timeout.
+     */
+    public LearningContext(long timeout, TimeUnit unit) {
+        Objects.requireNonNull(unit, "The time unit is null.");
+
+        if (timeout < 0L) {
+            throw new IllegalArgumentException(
+                    "The timeout is negative: " + timeout);
+        }
+
+        this.deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.hasDeadline = true;
+        this.parent = null;
+    }
+
+    /**
+     * Creates a context with the deadline of {@code parent} that stops when
+     * {@code parent} is cancelled. Cancelling the new context does not cancel
+     * {@code parent}, so a learner may give up a part of its work without
+     * stopping the rest. The progress is not reported to {@code parent}.
+     *
+     * @param parent the parent context.
+     */
+    public LearningContext(LearningContext parent) {
+        this.parent = Objects.requireNonNull(parent,
+                                             "The parent context is null.");
+        this.deadline = parent.deadline;
+        this.hasDeadline = parent.hasDeadline;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * Returns the time left until the deadline, zero if the deadline has
+     * passed, or {@link Long#MAX_VALUE} if there is no deadline.
+     *
+     * @return the remaining time in nanoseconds.
+     */
+    public long getRemainingNanoseconds() {
+        return hasDeadline ?
+               Math.max(0L, deadline - System.nanoTime()) :
+               Long.MAX_VALUE;
+    }
+
+    /**
+     * Asks the learners using this context to stop and return their best
+     * tree so far.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || parent != null && parent.isCancelled();
+    }
+
+    public boolean isDeadlineExceeded() {
+        return hasDeadline && System.nanoTime() - deadline >= 0L;
+    }
+
+    /**
+     * Returns {@code true} if the learning should stop, either because the
+     * context is cancelled or because the deadline has passed. Once this
+     * method returns {@code true}, it keeps returning {@code true}.
+     *
+     * @return {@code true} if the learning should stop.
+     */
+    public boolean shouldStop() {
+        return isCancelled() || isDeadlineExceeded();
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener =
+                Objects.requireNonNull(progressListener,
+                                       "The progress listener is null.");
+    }
+
+    /**
+     * Reports the progress of a learner to the progress listener.
+     *
+     * @param workDone  the number of units done.
+     * @param totalWork the total number of units, or -1 if unknown.
+     */
+    public void reportProgress(long workDone, long totalWork) {
+        progressListener.onProgress(workDone, totalWork);
+    }
+}
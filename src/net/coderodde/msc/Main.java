@@ -2,16 +2,39 @@ package net.coderodde.msc;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
+import net.coderodde.msc.cluster.ShardWorker;
+import net.coderodde.msc.cluster.ShardWorkerProcesses;
+import net.coderodde.msc.cluster.ShardedParsimoniousContextTreeLearner;
+import net.coderodde.msc.io.CharacterCodec;
+import net.coderodde.msc.io.ExternalContextCounter;
+import net.coderodde.msc.io.LearnedTreeCache;
+import net.coderodde.msc.io.ParsimoniousContextTreeReader;
+import net.coderodde.msc.io.ParsimoniousContextTreeWriter;
+import net.coderodde.msc.jfr.DataLoadedEvent;
+import net.coderodde.msc.serving.ModelRegistry;
+import net.coderodde.msc.serving.PredictionServer;
 import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.BeamSearchParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.CheckpointingParsimoniousContextTreeLearner;
 import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
 import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
 import net.coderodde.msc.support.IndependenceModelParsimoniousContextTreeLearner;
@@ -19,8 +42,13 @@ import net.coderodde.msc.support.IterativeRandomParsimoniousContextTreeLearner;
 import net.coderodde.msc.support.IterativeRandomParsimoniousContextTreeLearner2;
 import net.coderodde.msc.support.IterativeRandomParsimoniousContextTreeLearner3B;
 import net.coderodde.msc.support.IterativeRandomParsimoniousContextTreeLearner3;
+import net.coderodde.msc.support.LearnerPlanner;
+import net.coderodde.msc.support.LocalSearchParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.NearestNeighborChainParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.OnlineParsimoniousContextTreeLearner;
 import net.coderodde.msc.support.RandomParsimoniousContextTreeLearnerV1;
 import net.coderodde.msc.support.RandomParsimoniousContextTreeLearnerV2;
+import net.coderodde.msc.support.SketchParsimoniousContextTreeLearner;
 
 public class Main {
     
@@ -30,10 +58,17 @@ public class Main {
     private static final int DEPTH_BENCHMARK_DATA_SET_LINE_LENGTH = 7;
     private static final int DEPTH_BENCHMARK_DATA_SET_SIZE = 1000;
     
+    private static final String SERVED_MODEL_NAME = "default";
+    
     private static final String SEPARATION_BAR;
     private static final Character SEPARATION_BAR_CHARACTER = '-';
     private static final int SEPARATION_BAR_LENGTH = 80;
     
+    /**
+     * The cache of the baseline trees, opened on first use.
+     */
+    private static LearnedTreeCache<Character> baselineCache;
+    
     static {
         SEPARATION_BAR = createSeparationBar(SEPARATION_BAR_LENGTH);
     }
@@ -71,6 +106,49 @@ public class Main {
     // -------------------------------------------------------------------------
     // Running benchmarks:
     // run-benchmarks: Runs all the relevant benchmarks.
+    // -------------------------------------------------------------------------
+    // Serving:
+    // serve <file> <start> <depth> <port>: Learns a PCT from the data file and
+    //                                      serves its predictions on the
+    //                                      loopback interface. See
+    //                                      PredictionProtocol.
+    // learn <file> <start> <depth> <model file>: Learns a PCT from the data
+    //                                            file and saves it with its
+    //                                            leaf distributions to the
+    //                                            model file.
+    // serve-model <model file> <port>: Serves the predictions of a saved PCT.
+    // -------------------------------------------------------------------------
+    // Learning at scale:
+    // learn-incremental <state file> <file> <start> <depth> <model file>: Adds
+    //     the rows of the data file to the learner state in the state file,
+    //     creating it if missing, relearns only the parts of the PCT the new
+    //     rows reach and saves the state and the PCT.
+    // learn-external <file> <start> <depth> <model file> <memory MiB>
+    //     <temporary directory>: Learns a PCT from a data file too large for
+    //     the heap by counting its contexts through sorted runs on disk.
+    // sketch-drift <file> <start> <depth> <epsilon>: Learns a PCT from exact
+    //     counts and from count-min sketches with the relative error bound
+    //     epsilon, and reports how much the scores and the trees differ.
+    // shard-worker <port>: Runs a shard worker learning subtrees for
+    //     learn-sharded.
+    // learn-sharded <file> <start> <depth> <model file> <optimal|hybrid>
+    //     <workers>: Learns a PCT through shard workers, given either as the
+    //     number of worker JVMs to launch or as a comma-separated list of
+    //     HOST:PORT addresses of running workers.
+    // learn-checkpointed <file> <start> <depth> <model file>
+    //     <checkpoint directory>: Learns the optimal PCT, saving the subtrees
+    //     of the children of the root to the checkpoint directory, so that a
+    //     rerun on the same data skips the saved subtrees.
+    // -------------------------------------------------------------------------
+    // Profiling:
+    // profile <file> <start> <depth>
+    //     <basic|heuristic|hybrid|beam|local|nnchain>: Learns a PCT and prints
+    //     the nodes, partitions, merges, rows, histograms, time and
+    //     allocation of each tree level.
+    // plan <file> <start> <depth> <seconds> <quality>: Chooses the learner of
+    //     at least the quality (INDEPENDENCE_MODEL, RANDOM_SEARCH, HEURISTIC,
+    //     HYBRID or OPTIMAL) learning the data within the seconds, prints the
+    //     estimates of all the learners and learns a PCT with the chosen one.
     public static void main(String[] args) {
 //        findDebugTree();
 //        System.exit(0);
@@ -151,6 +229,145 @@ public class Main {
             return;
         }
 
+        if (args.length == 5 && args[0].equals("serve")) {
+            try {
+                serve(args[1], // data file name
+                      args[2], // start
+                      args[3], // depth
+                      args[4]); // port
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 5 && args[0].equals("learn")) {
+            try {
+                learnModel(args[1], // data file name
+                           args[2], // start
+                           args[3], // depth
+                           args[4]); // model file name
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 5 && args[0].equals("sketch-drift")) {
+            reportSketchDrift(args[1], // data file name
+                              args[2], // start
+                              args[3], // depth
+                              args[4]); // epsilon
+            return;
+        }
+
+        if (args.length == 3 && args[0].equals("serve-model")) {
+            try {
+                serveModel(args[1], // model file name
+                           args[2]); // port
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 7 && args[0].equals("learn-external")) {
+            try {
+                learnModelExternally(args[1], // data file name
+                                     args[2], // start
+                                     args[3], // depth
+                                     args[4], // model file name
+                                     args[5], // memory limit in MiB
+                                     args[6]); // temporary directory
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 2 && args[0].equals("shard-worker")) {
+            try {
+                ShardWorker.main(new String[]{ args[1] }); // port
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 7 && args[0].equals("learn-sharded")) {
+            try {
+                learnModelSharded(args[1], // data file name
+                                  args[2], // start
+                                  args[3], // depth
+                                  args[4], // model file name
+                                  args[5], // optimal or hybrid
+                                  args[6]); // workers
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 6 && args[0].equals("learn-checkpointed")) {
+            try {
+                learnModelCheckpointed(args[1], // data file name
+                                       args[2], // start
+                                       args[3], // depth
+                                       args[4], // model file name
+                                       args[5]); // checkpoint directory
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
+        if (args.length == 5 && args[0].equals("profile")) {
+            profileLearner(args[1], // data file name
+                           args[2], // start
+                           args[3], // depth
+                           args[4]); // basic, heuristic, hybrid, beam,
+                                     // local or nnchain
+            return;
+        }
+
+        if (args.length == 6 && args[0].equals("plan")) {
+            planLearner(args[1], // data file name
+                        args[2], // start
+                        args[3], // depth
+                        args[4], // time budget in seconds
+                        args[5]); // quality target
+            return;
+        }
+
+        if (args.length == 6 && args[0].equals("learn-incremental")) {
+            try {
+                learnModelIncrementally(args[1], // state file name
+                                        args[2], // data file name
+                                        args[3], // start
+                                        args[4], // depth
+                                        args[5]); // model file name
+            } catch (IOException ex) {
+                ex.printStackTrace(System.err);
+                System.exit(1);
+            }
+
+            return;
+        }
+
         if (args.length == 6) {
             if (args[0].equals("datagen-mc")) {
                 generateDataViaMC(args[1], // text file name
@@ -238,27 +455,7 @@ public class Main {
         }
 
         File file = new File(args[0]);
-        checkFile(file);
-        List<DataRow<Character>> dataRows = new ArrayList<>();
-
-        try (Scanner scanner = new Scanner(file, "ISO-8859-1")) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim().toLowerCase();
-                Character[] arr = new Character[line.length()];
-
-                int i = 0;
-
-                for (char c : line.toCharArray()) {
-                    arr[i++] = c;
-                }
-
-                dataRows.add(new DataRow<Character>(arr, start, depth));
-            }
-        } catch (FileNotFoundException ex) {
-            ex.printStackTrace(System.err);
-            System.err.println("File not found!");
-            System.exit(0);
-        }
+        List<DataRow<Character>> dataRows = loadDataRows(file, start, depth);
 
 //        benchmark1(dataRows, getLargeAlphabetRows(start, depth));
 //        System.exit(0);
@@ -324,15 +521,17 @@ public class Main {
         
         //// Faster optimal learner:
         System.out.println("--- " + basicPCTLearnerV2.getClass().getSimpleName() + " ---");
+        int numberOfHits = getBaselineCache().getNumberOfHits();
         startTime = System.currentTimeMillis();
         
         ParsimoniousContextTree<Character> basicPCTTree2 = 
-                basicPCTLearnerV2.learn(dataRows);
+                learnBaseline(basicPCTLearnerV2, dataRows);
         
         endTime = System.currentTimeMillis();
         
         System.out.println(basicPCTTree2);
-        System.out.println("Time: " + (endTime - startTime) + " milliseconds.");
+        System.out.println("Time: " + (endTime - startTime) + " milliseconds" +
+                           getBaselineSource(numberOfHits) + ".");
         
         double optimalScore = basicPCTTree2.getScore();
         System.out.println("Optimal score: " + optimalScore);
@@ -340,15 +539,17 @@ public class Main {
 
         //// Independence model learner:
         System.out.println("--- " + indepenendenceModelPCTLearner.getClass().getSimpleName() + " ---");
+        numberOfHits = getBaselineCache().getNumberOfHits();
         startTime = System.currentTimeMillis();
 
         ParsimoniousContextTree<Character> independenceModel = 
-                indepenendenceModelPCTLearner.learn(dataRows);
+                learnBaseline(indepenendenceModelPCTLearner, dataRows);
 
         endTime = System.currentTimeMillis();
 
         System.out.println(independenceModel);
-        System.out.println("Time: " + (endTime - startTime) + " milliseconds.");
+        System.out.println("Time: " + (endTime - startTime) + " milliseconds" +
+                           getBaselineSource(numberOfHits) + ".");
         double independenceModelScore = independenceModel.getScore();
         System.out.println("Baseline score: " + independenceModel.getScore());
         System.out.println();
@@ -493,6 +694,526 @@ public class Main {
                                      iterativeRandomPCTTree3BScore));
     }
 
+    private static List<DataRow<Character>> loadDataRows(File file,
+                                                          int start,
+                                                          int depth) {
+        checkFile(file);
+        DataLoadedEvent event = new DataLoadedEvent();
+        event.begin();
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        try (Scanner scanner = new Scanner(file, "ISO-8859-1")) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim().toLowerCase();
+                Character[] arr = new Character[line.length()];
+
+                int i = 0;
+
+                for (char c : line.toCharArray()) {
+                    arr[i++] = c;
+                }
+
+                dataRows.add(new DataRow<Character>(arr, start, depth));
+            }
+        } catch (FileNotFoundException ex) {
+            ex.printStackTrace(System.err);
+            System.err.println("File not found!");
+            System.exit(0);
+        }
+
+        event.commit(file.getPath(), depth, -1, dataRows.size());
+        return dataRows;
+    }
+
+    /**
+     * Learns a PCT from the data file, compiles it to a predictor and serves
+     * it on the loopback interface.
+     */
+    private static void serve(String fileName,
+                              String startString,
+                              String depthString,
+                              String portString) throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        int port = Integer.parseInt(portString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        ParsimoniousContextTree<Character> tree =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        PredictionServer<Character> server =
+                startServer(new ParsimoniousContextTreePredictor<>(tree,
+                                                                   dataRows),
+                            port);
+        System.out.println("Serving a PCT of score " + tree.getScore() +
+                           " on port " + server.getPort() + ".");
+    }
+
+    /**
+     * Learns a PCT from the data file, estimates its leaf distributions and
+     * writes it to the model file.
+     */
+    private static void learnModel(String fileName,
+                                   String startString,
+                                   String depthString,
+                                   String modelFileName) throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        CompactParsimoniousContextTree<Character> tree =
+                new CompactParsimoniousContextTree<>(
+                        new HeuristicParsimoniousContextTreeLearner<Character>()
+                                .learn(dataRows));
+        tree = tree.withLeafDistributions(
+                new EncodedDataSet<>(dataRows, tree.getAlphabet()),
+                ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+        new ParsimoniousContextTreeWriter<>(CharacterCodec.forCharacters())
+                .write(tree, Paths.get(modelFileName));
+        System.out.println("Saved a PCT of score " + tree.getScore() +
+                           " with " + tree.size() + " nodes to \"" +
+                           modelFileName + "\".");
+    }
+
+    /**
+     * Learns a PCT from a data file too large for the heap by counting its
+     * contexts through sorted runs in the temporary directory, and writes the
+     * PCT with its leaf distributions to the model file.
+     */
+    private static void learnModelExternally(String fileName,
+                                             String startString,
+                                             String depthString,
+                                             String modelFileName,
+                                             String memoryLimitString,
+                                             String temporaryDirectoryName)
+    throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        long memoryLimit = Long.parseLong(memoryLimitString) << 20;
+        Path dataPath = Paths.get(fileName);
+        checkFile(dataPath.toFile());
+        ExternalContextCounter counter =
+                new ExternalContextCounter(
+                        ExternalContextCounter.scanAlphabet(dataPath,
+                                                            start,
+                                                            depth),
+                        depth);
+        counter.setMemoryLimit(memoryLimit);
+        counter.setTemporaryDirectory(Paths.get(temporaryDirectoryName));
+        OnlineParsimoniousContextTreeLearner<Character> learner =
+                new OnlineParsimoniousContextTreeLearner<>(
+                        counter.count(dataPath, start),
+                        OnlineParsimoniousContextTreeLearner.Strategy
+                                                            .HEURISTIC);
+        CompactParsimoniousContextTree<Character> tree =
+                new CompactParsimoniousContextTree<>(
+                        learner.getTree(
+                                ParsimoniousContextTreePredictor
+                                        .DEFAULT_PSEUDO_COUNT),
+                        learner.getAlphabet());
+        new ParsimoniousContextTreeWriter<>(CharacterCodec.forCharacters())
+                .write(tree, Paths.get(modelFileName));
+        System.out.println("Counted " + learner.getNumberOfRows() +
+                           " rows with " + counter.getNumberOfSpilledRuns() +
+                           " spilled runs, saved a PCT of score " +
+                           tree.getScore() + " with " + tree.size() +
+                           " nodes to \"" + modelFileName + "\".");
+    }
+
+    /**
+     * Learns a PCT with the optimal or the hybrid learner through shard
+     * workers, and writes the PCT with its leaf distributions to the model
+     * file. The workers are either a number of worker JVMs to launch, or a
+     * comma-separated list of HOST:PORT addresses of running workers.
+     */
+    private static void learnModelSharded(String fileName,
+                                          String startString,
+                                          String depthString,
+                                          String modelFileName,
+                                          String strategyString,
+                                          String workersString)
+    throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        ShardedParsimoniousContextTreeLearner.Strategy strategy =
+                ShardedParsimoniousContextTreeLearner.Strategy.valueOf(
+                        strategyString.toUpperCase());
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        ShardWorkerProcesses processes = null;
+        List<InetSocketAddress> addresses = new ArrayList<>();
+
+        if (workersString.contains(":")) {
+            for (String address : workersString.split(",")) {
+                int colon = address.lastIndexOf(':');
+                addresses.add(new InetSocketAddress(
+                        address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1))));
+            }
+        } else {
+            processes = ShardWorkerProcesses.launch(
+                    Integer.parseInt(workersString));
+            addresses.addAll(processes.getAddresses());
+        }
+
+        try {
+            long startTime = System.nanoTime();
+            CompactParsimoniousContextTree<Character> tree =
+                    new CompactParsimoniousContextTree<>(
+                            new ShardedParsimoniousContextTreeLearner<
+                                    Character>(addresses, strategy)
+                                    .learn(dataRows));
+            long duration = (System.nanoTime() - startTime) / 1_000_000L;
+            tree = tree.withLeafDistributions(
+                    new EncodedDataSet<>(dataRows, tree.getAlphabet()),
+                    ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+            new ParsimoniousContextTreeWriter<>(CharacterCodec.forCharacters())
+                    .write(tree, Paths.get(modelFileName));
+            System.out.println("Learned a PCT of score " + tree.getScore() +
+                               " on " + addresses.size() + " workers in " +
+                               duration + " ms, saved it with " +
+                               tree.size() + " nodes to \"" +
+                               modelFileName + "\".");
+        } finally {
+            if (processes != null) {
+                processes.close();
+            }
+        }
+    }
+
+    /**
+     * Learns the optimal PCT of the data file, saving the learned subtrees of
+     * the children of the root to the checkpoint directory, and writes the PCT
+     * with its leaf distributions to the model file. Running the command
+     * again on the same data skips the subtrees saved by the previous runs.
+     */
+    private static void learnModelCheckpointed(String fileName,
+                                               String startString,
+                                               String depthString,
+                                               String modelFileName,
+                                               String checkpointDirectoryName)
+    throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                new CheckpointingParsimoniousContextTreeLearner<>(
+                        Paths.get(checkpointDirectoryName));
+        CompactParsimoniousContextTree<Character> tree =
+                new CompactParsimoniousContextTree<>(learner.learn(dataRows));
+        tree = tree.withLeafDistributions(
+                new EncodedDataSet<>(dataRows, tree.getAlphabet()),
+                ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+        new ParsimoniousContextTreeWriter<>(CharacterCodec.forCharacters())
+                .write(tree, Paths.get(modelFileName));
+        System.out.println("Resumed " + learner.getNumberOfResumedSubtrees() +
+                           " and learned " +
+                           learner.getNumberOfLearnedSubtrees() +
+                           " subtrees, saved a PCT of score " +
+                           tree.getScore() + " with " + tree.size() +
+                           " nodes to \"" + modelFileName + "\".");
+    }
+
+    /**
+     * Learns a PCT from the data file with the learner of the given name and
+     * prints the work the learner reported, level by level.
+     */
+    private static void profileLearner(String fileName,
+                                       String startString,
+                                       String depthString,
+                                       String learnerName) {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        AbstractParsimoniousContextTreeLearner<Character> learner;
+
+        switch (learnerName) {
+            case "basic":
+                learner = new BasicParsimoniousContextTreeLearner<>();
+                break;
+
+            case "heuristic":
+                learner = new HeuristicParsimoniousContextTreeLearner<>();
+                break;
+
+            case "hybrid":
+                learner =
+                        new HybridHeuristicParsimoniousContextTreeLearnerV1<>();
+                break;
+
+            case "beam":
+                learner = new BeamSearchParsimoniousContextTreeLearner<>();
+                break;
+
+            case "local":
+                learner = new LocalSearchParsimoniousContextTreeLearner<>();
+                break;
+
+            case "nnchain":
+                learner =
+                        new NearestNeighborChainParsimoniousContextTreeLearner<
+                                Character>();
+                break;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown learner: " + learnerName);
+        }
+
+        LearnerMetrics metrics = new LearnerMetrics();
+        learner.setListener(metrics);
+        long startTime = System.currentTimeMillis();
+        double score = learner.learn(dataRows).getScore();
+        long endTime = System.currentTimeMillis();
+        System.out.println("Learned a PCT of score " + score + " in " +
+                           (endTime - startTime) + " milliseconds.");
+        System.out.print(metrics.getReport());
+    }
+
+    /**
+     * Plans the learning of the data file within the time budget, prints the
+     * plan and learns a PCT with the chosen learner.
+     */
+    private static void planLearner(String fileName,
+                                    String startString,
+                                    String depthString,
+                                    String secondsString,
+                                    String qualityName) {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setTimeBudget(Long.parseLong(secondsString), TimeUnit.SECONDS);
+        planner.setQualityTarget(LearnerPlanner.Quality.valueOf(qualityName));
+        LearnerPlanner.Plan plan = planner.plan(dataRows);
+        System.out.println(plan.getExplanation());
+
+        AbstractParsimoniousContextTreeLearner<Character> learner =
+                plan.createLearner();
+        learner.setContext(new LearningContext(Long.parseLong(secondsString),
+                                               TimeUnit.SECONDS));
+        long startTime = System.currentTimeMillis();
+        double score = learner.learn(dataRows).getScore();
+        long endTime = System.currentTimeMillis();
+        System.out.println("Learned a PCT of score " + score + " in " +
+                           (endTime - startTime) + " milliseconds.");
+    }
+
+    /**
+     * Adds the rows of the data file to the learner state in the state file,
+     * creating the state if the file does not exist, and writes the updated
+     * state and the PCT of all the rows added so far. Only the parts of the
+     * tree reached by the new rows are learned again, and the tree is the
+     * same as the one learned from all the rows at once.
+     */
+    private static void learnModelIncrementally(String stateFileName,
+                                                String fileName,
+                                                String startString,
+                                                String depthString,
+                                                String modelFileName)
+    throws IOException {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        Path statePath = Paths.get(stateFileName);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        OnlineParsimoniousContextTreeLearner<Character> learner;
+
+        if (Files.exists(statePath)) {
+            learner = OnlineParsimoniousContextTreeLearner.load(
+                    statePath,
+                    CharacterCodec.forCharacters());
+
+            if (learner.getDepth() != depth) {
+                System.err.println("The state file \"" + stateFileName +
+                                   "\" has depth " + learner.getDepth() +
+                                   ", not " + depth + ".");
+                System.exit(1);
+            }
+        } else {
+            // The alphabet of a new state is that of the first data file:
+            learner = new OnlineParsimoniousContextTreeLearner<>(
+                    getAlphabet(dataRows),
+                    depth);
+            learner.setRefreshThreshold(0.0);
+        }
+
+        long selections = learner.getNumberOfPartitionSelections();
+        learner.addAll(dataRows);
+        CompactParsimoniousContextTree<Character> tree =
+                new CompactParsimoniousContextTree<>(
+                        learner.getTree(
+                                ParsimoniousContextTreePredictor
+                                        .DEFAULT_PSEUDO_COUNT),
+                        learner.getAlphabet());
+        learner.save(statePath, CharacterCodec.forCharacters());
+        new ParsimoniousContextTreeWriter<>(CharacterCodec.forCharacters())
+                .write(tree, Paths.get(modelFileName));
+        System.out.println("Added " + dataRows.size() + " rows (" +
+                           learner.getNumberOfRows() + " in total) with " +
+                           (learner.getNumberOfPartitionSelections() -
+                            selections) + " partition selections, saved a " +
+                           "PCT of score " + tree.getScore() + " with " +
+                           tree.size() + " nodes to \"" + modelFileName +
+                           "\".");
+    }
+
+    /**
+     * Learns a PCT from the data file both from exact counts and from
+     * count-min sketches with the relative error bound {@code epsilon}, and
+     * reports how much the scores and the sizes of the trees differ.
+     */
+    private static void reportSketchDrift(String fileName,
+                                          String startString,
+                                          String depthString,
+                                          String epsilonString) {
+        int start = Integer.parseInt(startString);
+        int depth = Integer.parseInt(depthString);
+        double epsilon = Double.parseDouble(epsilonString);
+        List<DataRow<Character>> dataRows =
+                loadDataRows(new File(fileName), start, depth);
+        Alphabet<Character> alphabet = getAlphabet(dataRows);
+        EncodedDataSet<Character> dataSet =
+                new EncodedDataSet<>(dataRows, alphabet);
+        ContextCountTrie<Character> trie =
+                new ContextCountTrie<>(alphabet, depth);
+
+        for (int row = 0; row < dataSet.size(); row++) {
+            trie.add(dataSet, row);
+        }
+
+        CompactParsimoniousContextTree<Character> exactTree =
+                new CompactParsimoniousContextTree<>(
+                        new OnlineParsimoniousContextTreeLearner<>(
+                                trie,
+                                OnlineParsimoniousContextTreeLearner.Strategy
+                                                                    .HEURISTIC)
+                                .getTree(),
+                        alphabet);
+        System.out.println("Exact counts: " + trie.size() + " trie nodes " +
+                           "(" + (long) trie.size() * alphabet.size() *
+                                 (Integer.BYTES + Long.BYTES) +
+                           " bytes), score " + exactTree.getScore() + ", " +
+                           exactTree.size() + " tree nodes.");
+
+        for (boolean conservative : new boolean[]{ false, true }) {
+            ContextCountSketch<Character> sketch =
+                    new ContextCountSketch<>(
+                            alphabet,
+                            depth,
+                            epsilon,
+                            SketchParsimoniousContextTreeLearner.DEFAULT_DELTA,
+                            conservative);
+
+            for (int row = 0; row < dataSet.size(); row++) {
+                sketch.add(dataSet, row);
+            }
+
+            CompactParsimoniousContextTree<Character> sketchTree =
+                    new CompactParsimoniousContextTree<>(
+                            new SketchParsimoniousContextTreeLearner<>(sketch)
+                                    .getTree(),
+                            alphabet);
+            // The sketch scores leave out the rarest contexts, so the tree
+            // is scored again with the exact counts:
+            double score = sketchTree.computeScore(dataSet);
+            System.out.printf(
+                    "%s sketch: %d bytes, score %f (drift %f, %.4f%%), %d " +
+                    "tree nodes.\n",
+                    conservative ? "Conservative" : "Plain",
+                    sketch.getMemoryUsage(),
+                    score,
+                    exactTree.getScore() - score,
+                    100.0 * (exactTree.getScore() - score) /
+                            Math.abs(exactTree.getScore()),
+                    sketchTree.size());
+        }
+    }
+
+    private static Alphabet<Character>
+        getAlphabet(List<DataRow<Character>> dataRows) {
+        Set<Character> characters = new LinkedHashSet<>();
+
+        for (DataRow<Character> dataRow : dataRows) {
+            characters.addAll(dataRow.getAllExplantoryVariables());
+            characters.add(dataRow.getResponseVariable());
+        }
+
+        return new Alphabet<>(characters.toArray(new Character[0]));
+    }
+
+    /**
+     * Loads a PCT saved by {@link #learnModel} and serves it on the loopback
+     * interface.
+     */
+    private static void serveModel(String modelFileName, String portString)
+    throws IOException {
+        int port = Integer.parseInt(portString);
+        CompactParsimoniousContextTree<Character> tree =
+                new ParsimoniousContextTreeReader<>(
+                        CharacterCodec.forCharacters())
+                        .read(Paths.get(modelFileName));
+        PredictionServer<Character> server =
+                startServer(new ParsimoniousContextTreePredictor<>(tree), port);
+        System.out.println("Serving a PCT of score " + tree.getScore() +
+                           " on port " + server.getPort() + ".");
+    }
+
+    private static PredictionServer<Character>
+        startServer(ParsimoniousContextTreePredictor<Character> predictor,
+                    int port) throws IOException {
+        ModelRegistry<Character> registry = new ModelRegistry<>();
+        registry.publish(SERVED_MODEL_NAME, predictor);
+        PredictionServer<Character> server =
+                new PredictionServer<>(
+                        registry.getHandle(SERVED_MODEL_NAME),
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                              port));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Learns a baseline tree through the default {@link LearnedTreeCache}, so
+     * that comparing the learners on the same data again skips the
+     * baselines.
+     */
+    private static ParsimoniousContextTree<Character> learnBaseline(
+            AbstractParsimoniousContextTreeLearner<Character> learner,
+            List<DataRow<Character>> dataRows) {
+        return getBaselineCache().getOrLearn(dataRows, learner, "")
+                                 .toParsimoniousContextTree();
+    }
+
+    /**
+     * Returns the cache of the baseline trees, opening it on first use.
+     */
+    private static LearnedTreeCache<Character> getBaselineCache() {
+        if (baselineCache == null) {
+            try {
+                baselineCache = LearnedTreeCache.openDefault(
+                        CharacterCodec.forCharacters());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        return baselineCache;
+    }
+
+    /**
+     * Tells whether the last baseline was read from the cache or learned, so
+     * that the time of a cache hit is not mistaken for a learning time.
+     */
+    private static String getBaselineSource(int numberOfHits) {
+        return getBaselineCache().getNumberOfHits() > numberOfHits ?
+               " (cache hit)" :
+               " (cache miss, learned)";
+    }
+
     private static void checkFile(File file) {
         if (!file.exists()) {
             System.err.println("The file \"" + file.getAbsolutePath() + "\" "
@@ -52,7 +52,7 @@ public final class ParsimoniousContextTreeNode<C> {
         this.responseVariableDistribution = responseVariableDistribution;
     }
         
-    public ResponseVariableDistribution getResponseVariableDistribution() {
+    public ResponseVariableDistribution<C> getResponseVariableDistribution() {
         return this.responseVariableDistribution;
     }
     
@@ -0,0 +1,471 @@
+package net.coderodde.msc;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements an immutable next-symbol predictor compiled from a
+ * parsimonious context tree. Each internal node becomes a row of a lookup
+ * table mapping each character index to the child whose label contains the
+ * character, and each leaf holds a dense array of the natural logarithms of
+ * the response probabilities. An entry of the lookup table is either the row
+ * of an internal child or the bitwise complement {@code ~leaf} of a leaf
+ * index, so that following a context costs one array load per level.
+ * <p>
+ * The response probabilities of a leaf are estimated from the training rows
+ * reaching the leaf as {@code (N_c + a) / (N + a * alphabetSize)}, where
+ * {@code a} is the pseudo count.
+ * <p>
+ * The contexts are given in reading order: the last character of a context
+ * immediately precedes the predicted character, and only the last
+ * {@link #getContextLength()} characters are looked at. Encoded contexts hold
+ * the character indices of the {@link Alphabet} of the predictor.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ParsimoniousContextTreePredictor<C> {
+
+    /**
+     * The default pseudo count, corresponding to the Krichevsky-Trofimov
+     * estimator.
+     */
+    public static final double DEFAULT_PSEUDO_COUNT = 0.5;
+
+    /**
+     * The number of rows scored by a single task of the parallel batch
+     * scoring.
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+
+    private final Alphabet<C> alphabet;
+    private final int alphabetSize;
+    private final int contextLength;
+
+    /**
+     * The root code: the row of the root, or {@code ~0} if the root is a leaf.
+     */
+    private final int rootCode;
+
+    /**
+     * The child codes of the internal nodes, {@code alphabetSize} per row.
+     */
+    private final int[] childTable;
+
+    /**
+     * The response log-probabilities, {@code alphabetSize} per leaf.
+     */
+    private final double[] logProbabilities;
+
+    /**
+     * Compiles {@code tree} and estimates the leaf distributions from
+     * {@code trainingDataRows} with the default pseudo count.
+     *
+     * @param tree             the tree to compile.
+     * @param trainingDataRows the training data rows.
+     */
+    public ParsimoniousContextTreePredictor(
+            ParsimoniousContextTree<C> tree,
+            List<DataRow<C>> trainingDataRows) {
+        this(new CompactParsimoniousContextTree<>(tree),
+             trainingDataRows,
+             DEFAULT_PSEUDO_COUNT);
+    }
+
+    /**
+     * Compiles {@code tree} and estimates the leaf distributions from
+     * {@code trainingDataRows}.
+     *
+     * @param tree             the tree to compile.
+     * @param trainingDataRows the training data rows.
+     * @param pseudoCount      the pseudo count added to each response count.
+     */
+    public ParsimoniousContextTreePredictor(
+            CompactParsimoniousContextTree<C> tree,
+            List<DataRow<C>> trainingDataRows,
+            double pseudoCount) {
+        this(tree,
+             new EncodedDataSet<>(
+                     Objects.requireNonNull(trainingDataRows,
+                                            "The data row list is null."),
+                     tree.getAlphabet()),
+             pseudoCount);
+    }
+
+    /**
+     * Compiles {@code tree} and estimates the leaf distributions from
+     * {@code trainingDataSet}, which must be encoded with an alphabet having
+     * the same characters in the same order as the alphabet of the tree.
+     *
+     * @param tree            the tree to compile.
+     * @param trainingDataSet the encoded training data set.
+     * @param pseudoCount     the pseudo count added to each response count.
+     */
+    public ParsimoniousContextTreePredictor(
+            CompactParsimoniousContextTree<C> tree,
+            EncodedDataSet<C> trainingDataSet,
+            double pseudoCount) {
+        this(Objects.requireNonNull(tree, "The input tree is null.")
+                    .withLeafDistributions(trainingDataSet, pseudoCount));
+    }
+
+    /**
+     * Compiles {@code tree} using the response distributions stored in its
+     * leaves, for example in a tree read from a file.
+     *
+     * @param tree the tree to compile.
+     */
+    public ParsimoniousContextTreePredictor(
+            CompactParsimoniousContextTree<C> tree) {
+        Objects.requireNonNull(tree, "The input tree is null.");
+
+        this.alphabet = tree.getAlphabet();
+        this.alphabetSize = alphabet.size();
+        this.contextLength = tree.getDepth();
+
+        int[] codes = new int[tree.size()];
+        int numberOfRows = 0;
+        int numberOfLeaves = 0;
+
+        for (int node = 0; node < tree.size(); node++) {
+            codes[node] = tree.isLeaf(node) ?
+                          ~numberOfLeaves++ :
+                          numberOfRows++;
+        }
+
+        this.rootCode = codes[CompactParsimoniousContextTree.ROOT];
+        this.childTable = new int[numberOfRows * alphabetSize];
+        this.logProbabilities = new double[numberOfLeaves * alphabetSize];
+
+        for (int node = 0; node < tree.size(); node++) {
+            if (tree.isLeaf(node)) {
+                continue;
+            }
+
+            int rowOffset = codes[node] * alphabetSize;
+            long coveredCharacters = 0L;
+
+            for (int i = 0; i < tree.getChildCount(node); i++) {
+                int child = tree.getFirstChild(node) + i;
+                long mask = tree.getLabelMask(child);
+                coveredCharacters |= mask;
+
+                while (mask != 0L) {
+                    childTable[rowOffset + Long.numberOfTrailingZeros(mask)] =
+                            codes[child];
+                    mask &= mask - 1L;
+                }
+            }
+
+            if (Long.bitCount(coveredCharacters) != alphabetSize) {
+                throw new IllegalArgumentException(
+                        "The children of the node " + node + " do not " +
+                        "cover the alphabet.");
+            }
+        }
+
+        for (int node = 0; node < tree.size(); node++) {
+            if (!tree.isLeaf(node)) {
+                continue;
+            }
+
+            if (tree.getResponseOffset(node) ==
+                    CompactParsimoniousContextTree.NONE) {
+                throw new IllegalArgumentException(
+                        "The leaf " + node + " has no response " +
+                        "distribution.");
+            }
+
+            int offset = ~codes[node] * alphabetSize;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                logProbabilities[offset + c] =
+                        Math.log(tree.getResponseProbability(node, c));
+            }
+        }
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the number of preceding characters the predictions depend on.
+     *
+     * @return the context length.
+     */
+    public int getContextLength() {
+        return contextLength;
+    }
+
+    /**
+     * Encodes {@code characters} as character indices.
+     *
+     * @param characters the characters to encode.
+     * @return the encoded characters.
+     */
+    public byte[] encode(List<C> characters) {
+        byte[] encoded = new byte[characters.size()];
+
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) alphabet.getIndexOf(characters.get(i));
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Returns the natural logarithm of the probability of {@code response}
+     * following the {@code context}.
+     *
+     * @param context  the context in reading order.
+     * @param response the predicted character.
+     * @return the log-probability.
+     */
+    public double getLogProbability(List<C> context, C response) {
+        return getLogProbability(encode(context),
+                                 context.size(),
+                                 alphabet.getIndexOf(response));
+    }
+
+    /**
+     * Returns the probability of {@code response} following the
+     * {@code context}.
+     *
+     * @param context  the context in reading order.
+     * @param response the predicted character.
+     * @return the probability.
+     */
+    public double getProbability(List<C> context, C response) {
+        return Math.exp(getLogProbability(context, response));
+    }
+
+    /**
+     * Returns the natural logarithm of the probability of the response of
+     * {@code dataRow} following its explanatory variables.
+     *
+     * @param dataRow the data row.
+     * @return the log-probability.
+     */
+    public double getLogProbability(DataRow<C> dataRow) {
+        return getLogProbability(dataRow.getAllExplantoryVariables(),
+                                 dataRow.getResponseVariable());
+    }
+
+    /**
+     * Returns the natural logarithm of the probability of the character with
+     * the index {@code response} following the characters
+     * {@code context[0], ..., context[end - 1]}.
+     *
+     * @param context  the encoded context in reading order.
+     * @param end      the end of the context, exclusive.
+     * @param response the index of the predicted character.
+     * @return the log-probability.
+     */
+    public double getLogProbability(byte[] context, int end, int response) {
+        checkContext(context, end);
+        return logProbabilities[findLeaf(context, end) * alphabetSize +
+                                response];
+    }
+
+    /**
+     * Writes into {@code probabilities} the probability of each character
+     * following the characters {@code context[0], ..., context[end - 1]}.
+     *
+     * @param context       the encoded context in reading order.
+     * @param end           the end of the context, exclusive.
+     * @param probabilities the array of length at least the alphabet size to
+     *                      write the probabilities into.
+     */
+    public void getNextSymbolProbabilities(byte[] context,
+                                           int end,
+                                           double[] probabilities) {
+        checkContext(context, end);
+        int offset = findLeaf(context, end) * alphabetSize;
+
+        for (int c = 0; c < alphabetSize; c++) {
+            probabilities[c] = Math.exp(logProbabilities[offset + c]);
+        }
+    }
+
+    /**
+     * Returns the probability of each character following the
+     * {@code context}, indexed by the character indices of the alphabet.
+     *
+     * @param context the context in reading order.
+     * @return the next-symbol probabilities.
+     */
+    public double[] getNextSymbolProbabilities(List<C> context) {
+        double[] probabilities = new double[alphabetSize];
+        getNextSymbolProbabilities(encode(context),
+                                   context.size(),
+                                   probabilities);
+        return probabilities;
+    }
+
+    /**
+     * Returns the log-likelihood of the characters
+     * {@code sequence[from], ..., sequence[to - 1]}, each predicted from the
+     * characters preceding it. The positions with a shorter preceding context
+     * than {@link #getContextLength()} are skipped.
+     *
+     * @param sequence the encoded sequence.
+     * @param from     the first predicted position.
+     * @param to       the end of the predicted positions, exclusive.
+     * @return the log-likelihood.
+     */
+    public double computeSequenceLogLikelihood(byte[] sequence,
+                                               int from,
+                                               int to) {
+        checkRange(from, to, sequence.length);
+        double logLikelihood = 0.0;
+
+        for (int i = Math.max(from, contextLength); i < to; i++) {
+            logLikelihood +=
+                    logProbabilities[findLeaf(sequence, i) * alphabetSize +
+                                     sequence[i]];
+        }
+
+        return logLikelihood;
+    }
+
+    /**
+     * Returns the log-likelihood of the rows of {@code dataSet}, which must be
+     * encoded with the alphabet of this predictor and have at least
+     * {@link #getContextLength()} explanatory variables.
+     *
+     * @param dataSet the encoded data set.
+     * @return the log-likelihood.
+     */
+    public double computeLogLikelihood(EncodedDataSet<C> dataSet) {
+        return computeLogLikelihood(dataSet, 0, dataSet.size());
+    }
+
+    /**
+     * Returns the log-likelihood of the rows {@code from, ..., to - 1} of
+     * {@code dataSet}.
+     *
+     * @param dataSet the encoded data set.
+     * @param from    the first row.
+     * @param to      the end of the rows, exclusive.
+     * @return the log-likelihood.
+     */
+    public double computeLogLikelihood(EncodedDataSet<C> dataSet,
+                                       int from,
+                                       int to) {
+        checkDataSet(dataSet);
+        checkRange(from, to, dataSet.size());
+        byte[][] columns = new byte[contextLength][];
+
+        for (int d = 0; d < contextLength; d++) {
+            columns[d] = dataSet.getExplanatoryColumn(d);
+        }
+
+        byte[] responses = dataSet.getResponseColumn();
+        double logLikelihood = 0.0;
+
+        for (int row = from; row < to; row++) {
+            int code = rootCode;
+
+            for (int d = 0; code >= 0; d++) {
+                code = childTable[code * alphabetSize + columns[d][row]];
+            }
+
+            logLikelihood += logProbabilities[~code * alphabetSize +
+                                              responses[row]];
+        }
+
+        return logLikelihood;
+    }
+
+    /**
+     * Returns the log-likelihood of the rows of {@code dataSet}, scoring the
+     * rows in parallel in the common fork/join pool. The partial sums are added
+     * in a fixed order, so the result does not depend on the scheduling.
+     *
+     * @param dataSet the encoded data set.
+     * @return the log-likelihood.
+     */
+    public double computeLogLikelihoodInParallel(EncodedDataSet<C> dataSet) {
+        checkDataSet(dataSet);
+        int size = dataSet.size();
+        int chunks = (size + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        double[] partialSums =
+                IntStream.range(0, chunks)
+                         .parallel()
+                         .mapToDouble(chunk -> computeLogLikelihood(
+                                 dataSet,
+                                 chunk * PARALLEL_CHUNK_SIZE,
+                                 Math.min(size,
+                                          (chunk + 1) * PARALLEL_CHUNK_SIZE)))
+                         .toArray();
+        double logLikelihood = 0.0;
+
+        for (double partialSum : partialSums) {
+            logLikelihood += partialSum;
+        }
+
+        return logLikelihood;
+    }
+
+    /**
+     * Returns the average negative log-likelihood per row of {@code dataSet}
+     * in nats.
+     *
+     * @param dataSet the encoded data set.
+     * @return the log-loss.
+     */
+    public double computeLogLoss(EncodedDataSet<C> dataSet) {
+        if (dataSet.size() == 0) {
+            throw new IllegalArgumentException("The data set is empty.");
+        }
+
+        return -computeLogLikelihoodInParallel(dataSet) / dataSet.size();
+    }
+
+    private int findLeaf(byte[] context, int end) {
+        int code = rootCode;
+
+        for (int d = 0; code >= 0; d++) {
+            code = childTable[code * alphabetSize + context[end - 1 - d]];
+        }
+
+        return ~code;
+    }
+
+    private void checkContext(byte[] context, int end) {
+        if (end < contextLength || end > context.length) {
+            throw new IllegalArgumentException(
+                    "The context must have at least " + contextLength +
+                    " characters, end = " + end + ", length = " +
+                    context.length + ".");
+        }
+    }
+
+    private void checkDataSet(EncodedDataSet<C> dataSet) {
+        if (dataSet.getAlphabet() != alphabet &&
+                !dataSet.getAlphabet().getCharacters()
+                        .equals(alphabet.getCharacters())) {
+            throw new IllegalArgumentException(
+                    "The data set is encoded with a different alphabet.");
+        }
+
+        if (dataSet.size() > 0 &&
+                dataSet.getNumberOfExplanatoryVariables() < contextLength) {
+            throw new IllegalArgumentException(
+                    "The data set has too few explanatory variables: " +
+                    dataSet.getNumberOfExplanatoryVariables() + ", must " +
+                    "be at least " + contextLength + ".");
+        }
+    }
+
+    private static void checkRange(int from, int to, int length) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException(
+                    "from = " + from + ", to = " + to + ", length = " +
+                    length + ".");
+        }
+    }
+}
@@ -39,7 +39,8 @@ public final class ResponseVariableDistribution<C> {
     }
     
     /**
-     * Retrieves the probability of a given character.
+     * Retrieves the probability of a given character. The characters never
+     * associated with a probability have probability zero.
      * 
      * @param character the character whose probability to return.
      * @return the requested probability.
@@ -47,7 +48,7 @@ public final class ResponseVariableDistribution<C> {
     public double getResponseVariableProbability(C character) {
         Objects.requireNonNull(character, "The input character is null.");
         checkProbabilitySumEqualsOne();
-        return distributionMap.get(character);
+        return distributionMap.getOrDefault(character, 0.0);
     }
     
     private void validateProbability(double probability) {
@@ -73,7 +74,7 @@ public final class ResponseVariableDistribution<C> {
     }
 
     private void checkProbabilitySumEqualsOne() {
-        if (Math.abs(probabilitySum - 1.0) < EPSILON) {
+        if (Math.abs(probabilitySum - 1.0) >= EPSILON) {
             throw new IllegalStateException(
                     "The sum of probabilities is not sufficiently close to " +
                     "1.0");
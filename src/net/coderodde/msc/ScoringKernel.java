@@ -0,0 +1,287 @@
+package net.coderodde.msc;
+
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.msc.util.ScoringBackend;
+import net.coderodde.msc.util.support.ScalarScoringBackend;
+import net.coderodde.msc.util.support.UnrolledScoringBackend;
+
+/**
+ * This class implements the scoring kernel shared by all the PCT learners. The
+ * BIC score of a leaf node is
+ * <code>sum_c N_c log(N_c / N) - k = sum_c N_c log N_c - N log N - k</code>,
+ * where {@code N_c} is the number of data rows with response {@code c} in the
+ * leaf, {@code N} is the total number of data rows in the leaf and {@code k} is
+ * the leaf penalty. The counts are kept in plain {@code int} histograms indexed
+ * by the character index in the {@link Alphabet}, and the values
+ * {@code n log n} are looked up from a lazily grown table, so that scoring a
+ * node does not evaluate any logarithms.
+ * <p>
+ * Since the logarithms are no longer evaluated as {@code log(N_c / N)}, the
+ * scores may differ from the textbook formula in the last few bits. Since the
+ * two large sums cancel each other, the relative difference is of the order
+ * of {@code 1e-11} in the worst case, and the learners resolve ties between
+ * the scores exactly as before whenever the scores differ by more than that.
+ * <p>
+ * The {@code n log n} sums of the {@code int} histograms run in a
+ * {@link ScoringBackend} chosen once at startup from the system property
+ * {@value #BACKEND_PROPERTY}: {@code scalar}, the default, selects
+ * {@link ScalarScoringBackend}, and {@code unrolled} selects
+ * {@link UnrolledScoringBackend}, whose scores may differ from the default
+ * ones in the last bits. Unknown values fall back to the scalar backend.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ScoringKernel {
+
+    /**
+     * The name of the system property selecting the scoring backend.
+     */
+    public static final String BACKEND_PROPERTY =
+            "net.coderodde.msc.scoring.backend";
+
+    /**
+     * The scoring backend in use.
+     */
+    private static final ScoringBackend BACKEND =
+            createBackend(System.getProperty(BACKEND_PROPERTY, "scalar"));
+
+    /**
+     * The initial number of entries in the {@code n log n} table.
+     */
+    private static final int INITIAL_TABLE_LENGTH = 1 << 12;
+
+    /**
+     * The number of entries beyond which the {@code n log n} table is not
+     * grown. The larger values are computed directly.
+     */
+    private static final int MAXIMUM_TABLE_LENGTH = 1 << 24;
+
+    /**
+     * Maps each {@code n} to {@code n log n}. The table is only replaced by a
+     * longer one, never modified in place, so readers need no locking.
+     */
+    private static volatile double[] nLogNTable =
+            computeNLogNTable(new double[0], INITIAL_TABLE_LENGTH);
+
+    private ScoringKernel() {}
+
+    /**
+     * Returns the scoring backend selected at startup.
+     *
+     * @return the scoring backend.
+     */
+    public static ScoringBackend getBackend() {
+        return BACKEND;
+    }
+
+    /**
+     * Returns {@code n log n}, or zero if {@code n} is zero.
+     *
+     * @param n the non-negative integer.
+     * @return {@code n log n}.
+     */
+    public static double nLogN(int n) {
+        double[] table = nLogNTable;
+
+        if (n < table.length) {
+            return table[n];
+        }
+
+        if (n >= MAXIMUM_TABLE_LENGTH) {
+            return n * Math.log(n);
+        }
+
+        return growTable(n)[n];
+    }
+
+    /**
+     * Returns {@code n log n}, or zero if {@code n} is zero. The values beyond
+     * {@code 1 << 24} are computed directly instead of growing the table, so
+     * that the counts of long streams do not blow up the table.
+     *
+     * @param n the non-negative integer.
+     * @return {@code n log n}.
+     */
+    public static double nLogN(long n) {
+        if (n < MAXIMUM_TABLE_LENGTH) {
+            return nLogN((int) n);
+        }
+
+        return n * Math.log(n);
+    }
+
+    /**
+     * Computes the leaf penalty {@code k} used in the BIC scores.
+     *
+     * @param alphabetSize     the alphabet size.
+     * @param numberOfDataRows the total number of data rows.
+     * @return the leaf penalty.
+     */
+    public static double computeLeafPenalty(int alphabetSize,
+                                            int numberOfDataRows) {
+        return 0.5 * (alphabetSize - 1) * Math.log(numberOfDataRows);
+    }
+
+    /**
+     * Computes the leaf penalty {@code k} used in the BIC scores of a data set
+     * that may have more than {@code Integer.MAX_VALUE} rows.
+     *
+     * @param alphabetSize     the alphabet size.
+     * @param numberOfDataRows the total number of data rows.
+     * @return the leaf penalty.
+     */
+    public static double computeLeafPenalty(int alphabetSize,
+                                            long numberOfDataRows) {
+        return 0.5 * (alphabetSize - 1) * Math.log(numberOfDataRows);
+    }
+
+    /**
+     * Computes the BIC score of a leaf whose response counts are in
+     * {@code histogram}.
+     *
+     * @param histogram the response counts.
+     * @param total     the sum of all counts in {@code histogram}.
+     * @param k         the leaf penalty.
+     * @return the BIC score.
+     */
+    public static double computeScore(int[] histogram, int total, double k) {
+        if (total >= MAXIMUM_TABLE_LENGTH) {
+            // The counts are too large for the table:
+            double sum = 0.0;
+
+            for (int count : histogram) {
+                sum += nLogN(count);
+            }
+
+            return sum - nLogN(total) - k;
+        }
+
+        double[] table = nLogNTable;
+
+        if (total >= table.length) {
+            table = growTable(total);
+        }
+
+        return BACKEND.sumTableValues(histogram, table) - table[total] - k;
+    }
+
+    /**
+     * Computes the BIC score of a leaf whose response counts are in
+     * {@code histogram}.
+     *
+     * @param histogram the response counts.
+     * @param k         the leaf penalty.
+     * @return the BIC score.
+     */
+    public static double computeScore(int[] histogram, double k) {
+        int total = 0;
+
+        for (int count : histogram) {
+            total += count;
+        }
+
+        return computeScore(histogram, total, k);
+    }
+
+    /**
+     * Computes the BIC score of a leaf whose response counts are in the
+     * {@code long} histogram {@code histogram}.
+     *
+     * @param histogram the response counts.
+     * @param k         the leaf penalty.
+     * @return the BIC score.
+     */
+    public static double computeScore(long[] histogram, double k) {
+        long total = 0L;
+        double sum = 0.0;
+
+        for (long count : histogram) {
+            total += count;
+            sum += nLogN(count);
+        }
+
+        return sum - nLogN(total) - k;
+    }
+
+    /**
+     * Counts the responses of {@code dataRows} into {@code histogram}. The
+     * histogram is not cleared before counting.
+     *
+     * @param <C>       the character type.
+     * @param dataRows  the data rows.
+     * @param alphabet  the alphabet to index the responses with.
+     * @param histogram the histogram to count into.
+     */
+    public static <C> void countResponses(Iterable<DataRow<C>> dataRows,
+                                          Alphabet<C> alphabet,
+                                          int[] histogram) {
+        for (DataRow<C> dataRow : dataRows) {
+            histogram[alphabet.getIndexOf(dataRow.getResponseVariable())]++;
+        }
+    }
+
+    /**
+     * Computes the BIC score of a leaf holding {@code dataRows}.
+     *
+     * @param <C>       the character type.
+     * @param dataRows  the data rows of the leaf.
+     * @param alphabet  the alphabet to index the responses with.
+     * @param histogram the scratch histogram of length
+     *                  {@code alphabet.size()}.
+     * @param k         the leaf penalty.
+     * @return the BIC score.
+     */
+    public static <C> double computeScore(List<DataRow<C>> dataRows,
+                                          Alphabet<C> alphabet,
+                                          int[] histogram,
+                                          double k) {
+        Arrays.fill(histogram, 0);
+        countResponses(dataRows, alphabet, histogram);
+        return computeScore(histogram, dataRows.size(), k);
+    }
+
+    private static ScoringBackend createBackend(String name) {
+        switch (name) {
+            case "unrolled":
+                return new UnrolledScoringBackend();
+
+            default:
+                return new ScalarScoringBackend();
+        }
+    }
+
+    /**
+     * Grows the table to cover {@code n}, which must be less than
+     * {@link #MAXIMUM_TABLE_LENGTH}.
+     */
+    private static synchronized double[] growTable(int n) {
+        double[] table = nLogNTable;
+
+        if (n < table.length) {
+            // Somebody else grew the table meanwhile.
+            return table;
+        }
+
+        int length = table.length;
+
+        while (length <= n) {
+            length = Math.min(length << 1, MAXIMUM_TABLE_LENGTH);
+        }
+
+        table = computeNLogNTable(table, length);
+        nLogNTable = table;
+        return table;
+    }
+
+    private static double[] computeNLogNTable(double[] oldTable, int length) {
+        double[] table = Arrays.copyOf(oldTable, length);
+
+        for (int n = Math.max(1, oldTable.length); n < length; n++) {
+            table[n] = n * Math.log(n);
+        }
+
+        return table;
+    }
+}
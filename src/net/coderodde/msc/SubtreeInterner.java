@@ -0,0 +1,220 @@
+package net.coderodde.msc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class hash-conses the child lists of a parsimonious context tree into
+ * the arrays of a {@link CompactParsimoniousContextTree}. The child lists are
+ * offered bottom-up, and a child list equal to an earlier one, node by node,
+ * is stored only once and shared by all its parents. Two nodes are equal if
+ * their label masks, scores and response distributions are equal and their
+ * child lists are the same shared list, so that comparing two nodes takes
+ * constant time regardless of the size of their subtrees.
+ * <p>
+ * The nodes are stored in post-order, a parent after its children, and the
+ * arrays are reversed by {@link #build(Alphabet, Node)}, so that the root
+ * becomes the node {@code 0} and every parent precedes its children.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+final class SubtreeInterner {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Maps each distinct child list to the post-order index of its first
+     * node.
+     */
+    private final Map<List<Node>, Integer> internedChildLists =
+            new HashMap<>();
+
+    private long[] labelMasks = new long[INITIAL_CAPACITY];
+    private int[] childLists = new int[INITIAL_CAPACITY];
+    private int[] childCounts = new int[INITIAL_CAPACITY];
+    private double[] scores = new double[INITIAL_CAPACITY];
+    private double[][] distributions = new double[INITIAL_CAPACITY][];
+    private int size;
+
+    /**
+     * Interns a child list sorted by the label masks.
+     *
+     * @param children the children.
+     * @return the handle of the child list to pass to {@link Node}.
+     */
+    int intern(List<Node> children) {
+        Integer handle = internedChildLists.get(children);
+
+        if (handle != null) {
+            return handle;
+        }
+
+        // In reverse, so that the list is in order after build() reverses the
+        // arrays:
+        for (int i = children.size() - 1; i >= 0; i--) {
+            append(children.get(i));
+        }
+
+        handle = size - 1;
+        internedChildLists.put(children, handle);
+        return handle;
+    }
+
+    /**
+     * Returns the number of nodes stored so far.
+     *
+     * @return the number of nodes.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Stores {@code root} and builds the tree.
+     *
+     * @param <C>      the character type.
+     * @param alphabet the alphabet indexing the label masks.
+     * @param root     the root.
+     * @return the tree.
+     */
+    <C> CompactParsimoniousContextTree<C> build(Alphabet<C> alphabet,
+                                                Node root) {
+        append(root);
+
+        int alphabetSize = alphabet.size();
+        int numberOfDistributions = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (distributions[i] != null) {
+                numberOfDistributions++;
+            }
+        }
+
+        long[] newLabelMasks = new long[size];
+        int[] newFirstChildren = new int[size];
+        int[] newChildCounts = new int[size];
+        double[] newScores = new double[size];
+        int[] newResponseOffsets = new int[size];
+        double[] newResponseProbabilities =
+                new double[numberOfDistributions * alphabetSize];
+        int nextOffset = 0;
+
+        for (int node = 0; node < size; node++) {
+            int i = size - 1 - node;
+            newLabelMasks[node] = labelMasks[i];
+            newChildCounts[node] = childCounts[i];
+            newFirstChildren[node] =
+                    childCounts[i] == 0 ?
+                    CompactParsimoniousContextTree.NONE :
+                    size - 1 - childLists[i];
+            newScores[node] = scores[i];
+
+            if (distributions[i] == null) {
+                newResponseOffsets[node] = CompactParsimoniousContextTree.NONE;
+            } else {
+                newResponseOffsets[node] = nextOffset;
+                System.arraycopy(distributions[i],
+                                 0,
+                                 newResponseProbabilities,
+                                 nextOffset,
+                                 alphabetSize);
+                nextOffset += alphabetSize;
+            }
+        }
+
+        return CompactParsimoniousContextTree.fromArrays(
+                alphabet,
+                newLabelMasks,
+                newFirstChildren,
+                newChildCounts,
+                newScores,
+                newResponseOffsets,
+                newResponseProbabilities);
+    }
+
+    private void append(Node node) {
+        if (size == labelMasks.length) {
+            int capacity = 2 * size;
+            labelMasks = Arrays.copyOf(labelMasks, capacity);
+            childLists = Arrays.copyOf(childLists, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            distributions = Arrays.copyOf(distributions, capacity);
+        }
+
+        labelMasks[size] = node.labelMask;
+        childLists[size] = node.childList;
+        childCounts[size] = node.childCount;
+        scores[size] = node.score;
+        distributions[size] = node.distribution;
+        size++;
+    }
+
+    /**
+     * This class describes a node whose child list is already interned.
+     */
+    static final class Node {
+
+        private final long labelMask;
+        private final double score;
+        private final double[] distribution;
+        private final int childList;
+        private final int childCount;
+        private final int hashCode;
+
+        /**
+         * Constructs a node description.
+         *
+         * @param labelMask    the label mask.
+         * @param score        the score.
+         * @param distribution the response probabilities, or {@code null}.
+         * @param childList    the handle of the interned child list, ignored
+         *                     if there are no children.
+         * @param childCount   the number of children.
+         */
+        Node(long labelMask,
+             double score,
+             double[] distribution,
+             int childList,
+             int childCount) {
+            this.labelMask = labelMask;
+            this.score = score;
+            this.distribution = distribution;
+            this.childList = childCount == 0 ? -1 : childList;
+            this.childCount = childCount;
+
+            int hash = Long.hashCode(labelMask);
+            hash = 31 * hash + Double.hashCode(score);
+            hash = 31 * hash + Arrays.hashCode(distribution);
+            hash = 31 * hash + this.childList;
+            this.hashCode = 31 * hash + childCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Node)) {
+                return false;
+            }
+
+            Node other = (Node) o;
+            return hashCode == other.hashCode &&
+                   labelMask == other.labelMask &&
+                   Double.compare(score, other.score) == 0 &&
+                   childList == other.childList &&
+                   childCount == other.childCount &&
+                   Arrays.equals(distribution, other.distribution);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
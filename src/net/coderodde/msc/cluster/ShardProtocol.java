@@ -0,0 +1,53 @@
+package net.coderodde.msc.cluster;
+
+/**
+ * This class defines the binary protocol between
+ * {@link ShardedParsimoniousContextTreeLearner} and {@link ShardWorker}. All
+ * integers are big-endian. A connection carries one request at a time: a
+ * request is an opcode byte followed by its payload, and a response is a
+ * status byte followed by its payload. The payloads by opcode are:
+ * <ul>
+ * <li>{@link #OPCODE_LOAD}: the request payload is the strategy as a byte,
+ * the alphabet size, the depth and the number of rows as {@code int}s, the
+ * leaf penalty as a {@code double}, and for each row the character indices of
+ * the explanatory variables {@code 0, 1, ..., depth - 1} followed by that of
+ * the response, one byte each. The response has no payload. The loaded rows
+ * replace the ones loaded before on the same connection.</li>
+ * <li>{@link #OPCODE_LEARN}: the request payload is the label mask of a child
+ * of the root as a {@code long}. The worker learns the subtree of the child
+ * from the loaded rows whose explanatory variable {@code 0} is in the label.
+ * The response payload is the subtree in pre-order, each node as its label
+ * mask as a {@code long}, its score as a {@code double} and its number of
+ * children as an {@code int}.</li>
+ * <li>{@link #OPCODE_SHUTDOWN}: no payload. The worker closes the connection
+ * and stops without responding.</li>
+ * </ul>
+ * If the status is {@link #STATUS_ERROR}, the response payload is an error
+ * message written by {@link java.io.DataOutput#writeUTF(String)}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ShardProtocol {
+
+    public static final byte OPCODE_LOAD = 0;
+    public static final byte OPCODE_LEARN = 1;
+    public static final byte OPCODE_SHUTDOWN = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    /**
+     * The maximum number of rows in a load request.
+     */
+    public static final int MAXIMUM_NUMBER_OF_ROWS = 1 << 28;
+
+    /**
+     * The prefix of the line a worker started by {@link ShardWorker#main}
+     * prints to the standard output, followed by its port.
+     */
+    public static final String READY_LINE_PREFIX = "Shard worker listening " +
+                                                   "on port ";
+
+    private ShardProtocol() {}
+}
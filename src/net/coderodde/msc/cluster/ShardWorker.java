@@ -0,0 +1,368 @@
+package net.coderodde.msc.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
+
+/**
+ * This class implements a worker learning the subtrees of the children of the
+ * root for {@link ShardedParsimoniousContextTreeLearner}, speaking
+ * {@link ShardProtocol}. The connections are served one at a time, so a
+ * worker works for one learner at a time. The rows are held with the
+ * character indices as the characters, which gives the same trees as the
+ * original characters since the learners only compare characters for
+ * equality.
+ * <p>
+ * A worker runs either in its own JVM through {@link #main(String[])}, or in
+ * the current one on a thread started by {@link #start()}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ShardWorker implements AutoCloseable {
+
+    private static final int MAXIMUM_ALPHABET_SIZE =
+            HybridHeuristicParsimoniousContextTreeLearnerV1
+                    .MAXIMUM_ALPHABET_SIZE;
+
+    private final ServerSocket serverSocket;
+    private final Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Constructs a worker bound to {@code address}.
+     *
+     * @param address the address to bind to. Port zero picks a free port.
+     * @throws IOException if binding fails.
+     */
+    public ShardWorker(InetSocketAddress address) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(address);
+        this.thread = new Thread(this::runQuietly, "shard-worker");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Returns the port the worker is bound to.
+     *
+     * @return the local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts serving on a daemon thread.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Serves the connections on the calling thread until a shutdown request
+     * arrives or the worker is closed.
+     *
+     * @throws IOException if accepting a connection fails.
+     */
+    public void serve() throws IOException {
+        running = true;
+
+        try {
+            while (running) {
+                Socket socket;
+
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException ex) {
+                    if (!running) {
+                        return;
+                    }
+
+                    throw ex;
+                }
+
+                try (Socket s = socket) {
+                    s.setTcpNoDelay(true);
+
+                    if (!new Connection(s).serve()) {
+                        running = false;
+                    }
+                } catch (IOException ex) {
+                    // The learner went away; wait for the next one.
+                }
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+
+        if (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs a worker on the loopback interface. The only argument is the port,
+     * zero picking a free one. The first line printed to the standard output
+     * is {@link ShardProtocol#READY_LINE_PREFIX} followed by the port.
+     *
+     * @param args the command line arguments.
+     * @throws IOException if binding or accepting fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java " + ShardWorker.class.getName() +
+                               " PORT");
+            System.exit(1);
+        }
+
+        ShardWorker worker =
+                new ShardWorker(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                              Integer.parseInt(args[0])));
+        System.out.println(ShardProtocol.READY_LINE_PREFIX + worker.getPort());
+        System.out.flush();
+        worker.serve();
+    }
+
+    private void runQuietly() {
+        try {
+            serve();
+        } catch (IOException ex) {
+            if (running) {
+                ex.printStackTrace(System.err);
+            }
+        }
+    }
+
+    /**
+     * This inner class holds the rows loaded by a learner.
+     */
+    private static final class Connection {
+
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private ShardedParsimoniousContextTreeLearner.Strategy strategy;
+        private Alphabet<Integer> alphabet;
+        private int depth;
+        private double k;
+
+        /**
+         * The loaded rows by the character of their explanatory variable
+         * {@code 0}.
+         */
+        private List<List<DataRow<Integer>>> rowsByFirstCharacter;
+
+        Connection(Socket socket) throws IOException {
+            this.in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Answers the requests until the learner closes the connection or
+         * asks for a shutdown.
+         *
+         * @return {@code false} if the worker should stop.
+         */
+        boolean serve() throws IOException {
+            while (true) {
+                int opcode = in.read();
+
+                if (opcode == -1) {
+                    return true;
+                }
+
+                try {
+                    switch (opcode) {
+                        case ShardProtocol.OPCODE_LOAD:
+                            load();
+                            out.writeByte(ShardProtocol.STATUS_OK);
+                            break;
+
+                        case ShardProtocol.OPCODE_LEARN:
+                            long labelMask = in.readLong();
+                            ParsimoniousContextTreeNode<Integer> node =
+                                    learn(labelMask);
+                            out.writeByte(ShardProtocol.STATUS_OK);
+                            writeSubtree(node, labelMask);
+                            break;
+
+                        case ShardProtocol.OPCODE_SHUTDOWN:
+                            return false;
+
+                        default:
+                            throw new IOException(
+                                    "Unknown opcode: " + opcode);
+                    }
+                } catch (EOFException ex) {
+                    throw ex;
+                } catch (IOException | RuntimeException ex) {
+                    out.writeByte(ShardProtocol.STATUS_ERROR);
+                    out.writeUTF(String.valueOf(ex.getMessage()));
+
+                    if (ex instanceof IOException) {
+                        // The request may not have been read to the end.
+                        out.flush();
+                        throw (IOException) ex;
+                    }
+                }
+
+                out.flush();
+            }
+        }
+
+        private void load() throws IOException {
+            int strategyOrdinal = in.readByte();
+            int alphabetSize = in.readInt();
+            int depth = in.readInt();
+            int numberOfRows = in.readInt();
+            double k = in.readDouble();
+            ShardedParsimoniousContextTreeLearner.Strategy[] strategies =
+                    ShardedParsimoniousContextTreeLearner.Strategy.values();
+
+            if (strategyOrdinal < 0 || strategyOrdinal >= strategies.length) {
+                throw new IOException("Unknown strategy: " + strategyOrdinal);
+            }
+
+            if (alphabetSize < 1 || alphabetSize > MAXIMUM_ALPHABET_SIZE) {
+                throw new IOException("Invalid alphabet size: " +
+                                      alphabetSize);
+            }
+
+            if (depth < 1) {
+                throw new IOException("Invalid depth: " + depth);
+            }
+
+            if (numberOfRows < 0 ||
+                    numberOfRows > ShardProtocol.MAXIMUM_NUMBER_OF_ROWS) {
+                throw new IOException("Invalid number of rows: " +
+                                      numberOfRows);
+            }
+
+            Integer[] characters = new Integer[alphabetSize];
+
+            for (int c = 0; c < alphabetSize; c++) {
+                characters[c] = c;
+            }
+
+            List<List<DataRow<Integer>>> rowsByFirstCharacter =
+                    new ArrayList<>(alphabetSize);
+
+            for (int c = 0; c < alphabetSize; c++) {
+                rowsByFirstCharacter.add(new ArrayList<>());
+            }
+
+            byte[] row = new byte[depth + 1];
+
+            for (int i = 0; i < numberOfRows; i++) {
+                in.readFully(row);
+                Integer[] variables = new Integer[depth + 1];
+
+                for (int j = 0; j <= depth; j++) {
+                    if (row[j] < 0 || row[j] >= alphabetSize) {
+                        throw new IOException(
+                                "Invalid character index in row " + i +
+                                ": " + row[j]);
+                    }
+
+                    // The last explanatory variable comes first:
+                    variables[j == depth ? depth : depth - 1 - j] =
+                            characters[row[j]];
+                }
+
+                rowsByFirstCharacter.get(row[0])
+                                    .add(new DataRow<>(variables));
+            }
+
+            this.strategy = strategies[strategyOrdinal];
+            this.alphabet = new Alphabet<>(characters);
+            this.depth = depth;
+            this.k = k;
+            this.rowsByFirstCharacter = rowsByFirstCharacter;
+        }
+
+        private ParsimoniousContextTreeNode<Integer> learn(long labelMask) {
+            if (rowsByFirstCharacter == null) {
+                throw new IllegalStateException("No rows are loaded.");
+            }
+
+            if (labelMask == 0L ||
+                    (labelMask >>> alphabet.size()) != 0L) {
+                throw new IllegalArgumentException(
+                        "Invalid label mask: " + Long.toHexString(labelMask));
+            }
+
+            List<DataRow<Integer>> dataRows = new ArrayList<>();
+
+            for (long mask = labelMask; mask != 0L; mask &= mask - 1L) {
+                dataRows.addAll(rowsByFirstCharacter.get(
+                        Long.numberOfTrailingZeros(mask)));
+            }
+
+            switch (strategy) {
+                case OPTIMAL:
+                    return new BasicParsimoniousContextTreeLearner<Integer>()
+                            .learnSubtree(dataRows, alphabet, k, depth, 1);
+
+                case HYBRID:
+                    return new HybridHeuristicParsimoniousContextTreeLearnerV1
+                                       <Integer>()
+                            .learnSubtree(dataRows, alphabet, k, depth, 1);
+
+                default:
+                    throw new IllegalStateException(
+                            "Unknown strategy: " + strategy);
+            }
+        }
+
+        private void writeSubtree(ParsimoniousContextTreeNode<Integer> node,
+                                  long labelMask) throws IOException {
+            Set<ParsimoniousContextTreeNode<Integer>> children =
+                    node.getChildren();
+            out.writeLong(labelMask);
+            out.writeDouble(node.getScore());
+            out.writeInt(children == null ? 0 : children.size());
+
+            if (children != null) {
+                for (ParsimoniousContextTreeNode<Integer> child : children) {
+                    long childLabelMask = 0L;
+
+                    for (Integer c : child.getLabel()) {
+                        childLabelMask |= 1L << c;
+                    }
+
+                    writeSubtree(child, childLabelMask);
+                }
+            }
+        }
+    }
+}
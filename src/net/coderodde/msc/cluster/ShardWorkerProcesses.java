@@ -0,0 +1,134 @@
+package net.coderodde.msc.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class launches {@link ShardWorker}s in JVMs of their own on the local
+ * machine, with the class path of the current JVM. Closing the launched
+ * workers destroys their processes.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ShardWorkerProcesses implements AutoCloseable {
+
+    private final List<Process> processes;
+    private final List<InetSocketAddress> addresses;
+
+    private ShardWorkerProcesses(List<Process> processes,
+                                 List<InetSocketAddress> addresses) {
+        this.processes = processes;
+        this.addresses = Collections.unmodifiableList(addresses);
+    }
+
+    /**
+     * Launches {@code numberOfWorkers} workers, each listening on a free
+     * loopback port, and waits until they all listen.
+     *
+     * @param numberOfWorkers the number of workers to launch.
+     * @param jvmOptions      the options of the worker JVMs, such as
+     *                        {@code -Xmx4g}.
+     * @return the launched workers.
+     * @throws IOException if a worker fails to start.
+     */
+    public static ShardWorkerProcesses launch(int numberOfWorkers,
+                                              String... jvmOptions)
+    throws IOException {
+        if (numberOfWorkers < 1) {
+            throw new IllegalArgumentException(
+                    "The number of workers must be positive: " +
+                    numberOfWorkers);
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+                         .toString());
+        Collections.addAll(command, jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add("0");
+
+        List<Process> processes = new ArrayList<>(numberOfWorkers);
+        List<InetSocketAddress> addresses = new ArrayList<>(numberOfWorkers);
+
+        try {
+            // Start all the JVMs before waiting for any of them:
+            for (int i = 0; i < numberOfWorkers; i++) {
+                processes.add(
+                        new ProcessBuilder(command)
+                                .redirectError(
+                                        ProcessBuilder.Redirect.INHERIT)
+                                .start());
+            }
+
+            for (Process process : processes) {
+                addresses.add(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                              readPort(process)));
+            }
+        } catch (IOException | RuntimeException ex) {
+            for (Process process : processes) {
+                process.destroy();
+            }
+
+            throw ex;
+        }
+
+        return new ShardWorkerProcesses(processes, addresses);
+    }
+
+    public List<InetSocketAddress> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * Destroys the worker processes and waits for them to exit.
+     */
+    @Override
+    public void close() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+
+        for (Process process : processes) {
+            try {
+                process.waitFor();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static int readPort(Process process) throws IOException {
+        // The worker prints nothing after the first line, so the reader is
+        // not needed afterwards.
+        BufferedReader reader =
+                new BufferedReader(
+                        new InputStreamReader(process.getInputStream(),
+                                              StandardCharsets.UTF_8));
+        String line = reader.readLine();
+
+        if (line == null ||
+                !line.startsWith(ShardProtocol.READY_LINE_PREFIX)) {
+            throw new IOException("A worker failed to start: " + line);
+        }
+
+        try {
+            return Integer.parseInt(
+                    line.substring(ShardProtocol.READY_LINE_PREFIX.length()));
+        } catch (NumberFormatException ex) {
+            throw new IOException("A worker failed to start: " + line, ex);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package net.coderodde.msc.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
+
+/**
+ * This class learns the trees of {@link BasicParsimoniousContextTreeLearner}
+ * or {@link HybridHeuristicParsimoniousContextTreeLearnerV1} by sending the
+ * subtrees of the children of the root to {@link ShardWorker}s. The subtree of
+ * a child depends only on the rows whose explanatory variable {@code 0} is in
+ * the label of the child, so the subtrees are learned independently, and only
+ * the partition of the root is left to this learner: for the optimal
+ * strategy, the subtree of every nonempty label is learned and the best
+ * partition is selected from their scores, and for the hybrid strategy, the
+ * partition is selected here as the hybrid learner does before sending the
+ * subtrees of the children.
+ * <p>
+ * The subtrees are assigned to the workers before sending, the largest first
+ * to the least loaded worker, and each worker receives only the rows reaching
+ * its subtrees. Trees of depth at most one and alphabets too large for the
+ * hybrid learner are learned locally.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ShardedParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The learner whose trees are learned.
+     */
+    public enum Strategy {
+
+        /**
+         * {@link BasicParsimoniousContextTreeLearner}.
+         */
+        OPTIMAL,
+
+        /**
+         * {@link HybridHeuristicParsimoniousContextTreeLearnerV1}.
+         */
+        HYBRID
+    }
+
+    private static final int MAXIMUM_ALPHABET_SIZE =
+            HybridHeuristicParsimoniousContextTreeLearnerV1
+                    .MAXIMUM_ALPHABET_SIZE;
+
+    private final List<InetSocketAddress> workerAddresses;
+    private final Strategy strategy;
+
+    /**
+     * Constructs a learner sending the subtrees to the workers listening on
+     * {@code workerAddresses}.
+     *
+     * @param workerAddresses the addresses of the workers.
+     * @param strategy        the learner whose trees to learn.
+     */
+    public ShardedParsimoniousContextTreeLearner(
+            List<InetSocketAddress> workerAddresses,
+            Strategy strategy) {
+        Objects.requireNonNull(workerAddresses,
+                               "The list of worker addresses is null.");
+
+        if (workerAddresses.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "There are no worker addresses.");
+        }
+
+        this.workerAddresses = new ArrayList<>(workerAddresses);
+        this.strategy = Objects.requireNonNull(strategy,
+                                               "The strategy is null.");
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Learns a tree through the workers.
+     *
+     * @param dataRows the list of data rows.
+     * @return a parsimonious context tree.
+     * @throws UncheckedIOException if a worker cannot be reached or fails.
+     * @throws IllegalArgumentException if the optimal strategy is requested
+     *                                  for an alphabet too large for the
+     *                                  hybrid learner.
+     */
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> dataRows) {
+        Objects.requireNonNull(dataRows);
+        checkDataRowListNotEmpty(dataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(dataRows);
+
+        Alphabet<C> alphabet = getAlphabet(dataRows);
+        int depth = dataRows.get(0).getNumberOfExplanatoryVariables();
+
+        if (alphabet.size() > MAXIMUM_ALPHABET_SIZE) {
+            if (strategy == Strategy.OPTIMAL) {
+                throw new IllegalArgumentException(
+                        "The alphabet is too large for optimal search (" +
+                        alphabet.size() + "), must be at most " +
+                        MAXIMUM_ALPHABET_SIZE + ".");
+            }
+
+            // This is what the hybrid learner does:
+            return new HeuristicParsimoniousContextTreeLearner<C>()
+                    .learn(dataRows);
+        }
+
+        if (depth <= 1) {
+            return strategy == Strategy.OPTIMAL ?
+                   new BasicParsimoniousContextTreeLearner<C>()
+                           .learn(dataRows) :
+                   new HybridHeuristicParsimoniousContextTreeLearnerV1<C>()
+                           .learn(dataRows);
+        }
+
+        double k = ScoringKernel.computeLeafPenalty(alphabet.size(),
+                                                   dataRows.size());
+        EncodedDataSet<C> dataSet = new EncodedDataSet<>(dataRows, alphabet);
+        long[] labelMasks = getTopLevelLabelMasks(dataRows, dataSet, k);
+        Map<Long, ParsimoniousContextTreeNode<C>> subtrees =
+                learnSubtrees(dataSet, labelMasks, k);
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        root.setLabel(Collections.<C>emptySet());
+        Set<ParsimoniousContextTreeNode<C>> children = new HashSet<>();
+        double score = 0.0;
+
+        if (strategy == Strategy.OPTIMAL) {
+            double[] labelScores = new double[labelMasks.length + 1];
+
+            for (long labelMask : labelMasks) {
+                labelScores[(int) labelMask] =
+                        subtrees.get(labelMask).getScore();
+            }
+
+            labelMasks = BasicParsimoniousContextTreeLearner
+                    .selectBestPartition(labelScores);
+        }
+
+        for (long labelMask : labelMasks) {
+            ParsimoniousContextTreeNode<C> child = subtrees.get(labelMask);
+            children.add(child);
+            score += child.getScore();
+        }
+
+        root.setChildren(children);
+        root.setScore(score);
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    private long[] getTopLevelLabelMasks(List<DataRow<C>> dataRows,
+                                         EncodedDataSet<C> dataSet,
+                                         double k) {
+        if (strategy == Strategy.OPTIMAL) {
+            long[] labelMasks = new long[(1 << dataSet.getAlphabet()
+                                                      .size()) - 1];
+
+            for (int i = 0; i < labelMasks.length; i++) {
+                labelMasks[i] = i + 1;
+            }
+
+            return labelMasks;
+        }
+
+        List<Set<C>> partition =
+                new HybridHeuristicParsimoniousContextTreeLearnerV1<C>()
+                        .selectTopLevelPartition(dataRows,
+                                                 dataSet.getAlphabet(),
+                                                 k);
+        long[] labelMasks = new long[partition.size()];
+
+        for (int i = 0; i < labelMasks.length; i++) {
+            labelMasks[i] = dataSet.getLabelMask(partition.get(i));
+        }
+
+        return labelMasks;
+    }
+
+    private Map<Long, ParsimoniousContextTreeNode<C>>
+        learnSubtrees(EncodedDataSet<C> dataSet, long[] labelMasks, double k) {
+        int alphabetSize = dataSet.getAlphabet().size();
+        byte[] firstColumn = dataSet.getExplanatoryColumn(0);
+        long[] characterCounts = new long[alphabetSize];
+
+        for (byte c : firstColumn) {
+            characterCounts[c]++;
+        }
+
+        // Assign the subtrees, the ones having the most rows first, each to
+        // the worker with the fewest rows to learn from so far:
+        Long[] sortedLabelMasks = new Long[labelMasks.length];
+        Map<Long, Long> labelMaskToNumberOfRows = new HashMap<>();
+
+        for (int i = 0; i < labelMasks.length; i++) {
+            long numberOfRows = 0L;
+
+            for (long mask = labelMasks[i]; mask != 0L; mask &= mask - 1L) {
+                numberOfRows +=
+                        characterCounts[Long.numberOfTrailingZeros(mask)];
+            }
+
+            sortedLabelMasks[i] = labelMasks[i];
+            labelMaskToNumberOfRows.put(labelMasks[i], numberOfRows);
+        }
+
+        Arrays.sort(sortedLabelMasks,
+                    (a, b) -> Long.compare(labelMaskToNumberOfRows.get(b),
+                                           labelMaskToNumberOfRows.get(a)));
+
+        int numberOfWorkers = Math.min(workerAddresses.size(),
+                                       labelMasks.length);
+        List<List<Long>> assignments = new ArrayList<>(numberOfWorkers);
+        long[] loads = new long[numberOfWorkers];
+
+        for (int i = 0; i < numberOfWorkers; i++) {
+            assignments.add(new ArrayList<>());
+        }
+
+        for (Long labelMask : sortedLabelMasks) {
+            int worker = 0;
+
+            for (int i = 1; i < numberOfWorkers; i++) {
+                if (loads[i] < loads[worker]) {
+                    worker = i;
+                }
+            }
+
+            assignments.get(worker).add(labelMask);
+            // Every subtree has its fixed overhead:
+            loads[worker] += labelMaskToNumberOfRows.get(labelMask) + 1L;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                numberOfWorkers);
+        List<Future<List<ParsimoniousContextTreeNode<C>>>> futures =
+                new ArrayList<>(numberOfWorkers);
+
+        try {
+            for (int i = 0; i < numberOfWorkers; i++) {
+                InetSocketAddress address = workerAddresses.get(i);
+                List<Long> assignment = assignments.get(i);
+                futures.add(executor.submit(
+                        () -> learnSubtrees(address, dataSet, assignment, k)));
+            }
+
+            Map<Long, ParsimoniousContextTreeNode<C>> subtrees =
+                    new HashMap<>(labelMasks.length);
+
+            for (int i = 0; i < numberOfWorkers; i++) {
+                List<Long> assignment = assignments.get(i);
+                List<ParsimoniousContextTreeNode<C>> nodes =
+                        futures.get(i).get();
+
+                for (int j = 0; j < nodes.size(); j++) {
+                    subtrees.put(assignment.get(j), nodes.get(j));
+                }
+            }
+
+            return subtrees;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the rows reaching the subtrees of {@code labelMasks} to the
+     * worker at {@code address}, and learns the subtrees one by one.
+     */
+    private List<ParsimoniousContextTreeNode<C>>
+        learnSubtrees(InetSocketAddress address,
+                      EncodedDataSet<C> dataSet,
+                      List<Long> labelMasks,
+                      double k) throws IOException {
+        long unionMask = 0L;
+
+        for (long labelMask : labelMasks) {
+            unionMask |= labelMask;
+        }
+
+        int depth = dataSet.getNumberOfExplanatoryVariables();
+        byte[][] columns = new byte[depth + 1][];
+
+        for (int d = 0; d < depth; d++) {
+            columns[d] = dataSet.getExplanatoryColumn(d);
+        }
+
+        columns[depth] = dataSet.getResponseColumn();
+        int numberOfRows = 0;
+
+        for (byte c : columns[0]) {
+            if ((unionMask & (1L << c)) != 0L) {
+                numberOfRows++;
+            }
+        }
+
+        try (Socket socket = new Socket(address.getAddress(),
+                                        address.getPort())) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+
+            out.writeByte(ShardProtocol.OPCODE_LOAD);
+            out.writeByte(strategy.ordinal());
+            out.writeInt(dataSet.getAlphabet().size());
+            out.writeInt(depth);
+            out.writeInt(numberOfRows);
+            out.writeDouble(k);
+
+            for (int row = 0; row < dataSet.size(); row++) {
+                if ((unionMask & (1L << columns[0][row])) == 0L) {
+                    continue;
+                }
+
+                for (byte[] column : columns) {
+                    out.writeByte(column[row]);
+                }
+            }
+
+            out.flush();
+            readStatus(in, address);
+            List<ParsimoniousContextTreeNode<C>> subtrees =
+                    new ArrayList<>(labelMasks.size());
+
+            for (long labelMask : labelMasks) {
+                out.writeByte(ShardProtocol.OPCODE_LEARN);
+                out.writeLong(labelMask);
+                out.flush();
+                readStatus(in, address);
+                subtrees.add(readSubtree(in,
+                                         dataSet.getAlphabet(),
+                                         depth - 1));
+            }
+
+            return subtrees;
+        }
+    }
+
+    private static void readStatus(DataInputStream in,
+                                   InetSocketAddress address)
+    throws IOException {
+        byte status = in.readByte();
+
+        if (status == ShardProtocol.STATUS_ERROR) {
+            throw new IOException("The worker at " + address + " failed: " +
+                                  in.readUTF());
+        }
+
+        if (status != ShardProtocol.STATUS_OK) {
+            throw new IOException("Unknown status from the worker at " +
+                                  address + ": " + status);
+        }
+    }
+
+    /**
+     * Reads a subtree of {@link ShardProtocol#OPCODE_LEARN} whose root has
+     * {@code height} levels below it.
+     */
+    private ParsimoniousContextTreeNode<C> readSubtree(DataInputStream in,
+                                                       Alphabet<C> alphabet,
+                                                       int height)
+    throws IOException {
+        long labelMask = in.readLong();
+        double score = in.readDouble();
+        int numberOfChildren = in.readInt();
+
+        if (labelMask == 0L || (labelMask >>> alphabet.size()) != 0L) {
+            throw new IOException("Invalid label mask from a worker: " +
+                                  Long.toHexString(labelMask));
+        }
+
+        if (numberOfChildren < 0 ||
+                numberOfChildren > alphabet.size() ||
+                (numberOfChildren > 0 && height == 0)) {
+            throw new IOException("Invalid number of children from a " +
+                                  "worker: " + numberOfChildren);
+        }
+
+        ParsimoniousContextTreeNode<C> node =
+                new ParsimoniousContextTreeNode<>();
+        Set<C> label = new HashSet<>();
+
+        for (long mask = labelMask; mask != 0L; mask &= mask - 1L) {
+            label.add(alphabet.get(Long.numberOfTrailingZeros(mask)));
+        }
+
+        node.setLabel(label);
+        node.setScore(score);
+
+        if (numberOfChildren > 0) {
+            Set<ParsimoniousContextTreeNode<C>> children =
+                    new HashSet<>(numberOfChildren);
+
+            for (int i = 0; i < numberOfChildren; i++) {
+                children.add(readSubtree(in, alphabet, height - 1));
+            }
+
+            node.setChildren(children);
+        }
+
+        return node;
+    }
+}
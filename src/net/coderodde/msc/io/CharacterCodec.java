@@ -0,0 +1,147 @@
+package net.coderodde.msc.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import net.coderodde.msc.Alphabet;
+
+/**
+ * This interface defines how the characters of an alphabet are stored in a
+ * tree file. Decoding an encoded character must give a character equal to the
+ * original one.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public interface CharacterCodec<C> {
+
+    /**
+     * Encodes {@code character} as a string.
+     *
+     * @param character the character to encode.
+     * @return the encoded character.
+     */
+    public String encode(C character);
+
+    /**
+     * Decodes a character encoded by {@link #encode(java.lang.Object)}.
+     *
+     * @param encodedCharacter the encoded character.
+     * @return the character.
+     * @throws IllegalArgumentException if the string does not encode a
+     *                                  character.
+     */
+    public C decode(String encodedCharacter);
+
+    /**
+     * Writes the characters of {@code alphabet} in index order, each as an
+     * unsigned {@code short} byte count followed by the UTF-8 bytes of the
+     * encoded character. The size of the alphabet is not written.
+     *
+     * @param alphabet the alphabet to write.
+     * @param out      the output to write to.
+     * @throws IOException if writing fails.
+     */
+    public default void writeAlphabet(Alphabet<C> alphabet, DataOutput out)
+    throws IOException {
+        for (C character : alphabet) {
+            byte[] bytes = encode(character).getBytes(StandardCharsets.UTF_8);
+
+            if (bytes.length > 0xffff) {
+                throw new IllegalArgumentException(
+                        "The encoded character is too long: " + bytes.length +
+                        " bytes.");
+            }
+
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads an alphabet written by
+     * {@link #writeAlphabet(net.coderodde.msc.Alphabet, java.io.DataOutput)}.
+     *
+     * @param in           the input to read from.
+     * @param alphabetSize the number of characters to read.
+     * @return the alphabet.
+     * @throws IOException if reading fails or the alphabet is not valid.
+     */
+    public default Alphabet<C> readAlphabet(DataInput in, int alphabetSize)
+    throws IOException {
+        if (alphabetSize < 1 || alphabetSize > Long.SIZE) {
+            throw new IOException("Invalid alphabet size " + alphabetSize +
+                                  ".");
+        }
+
+        @SuppressWarnings("unchecked")
+        C[] characters = (C[]) new Object[alphabetSize];
+
+        for (int c = 0; c < alphabetSize; c++) {
+            byte[] bytes = new byte[in.readUnsignedShort()];
+            in.readFully(bytes);
+
+            try {
+                characters[c] = decode(new String(bytes,
+                                                  StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        Alphabet<C> alphabet = new Alphabet<>(characters);
+
+        if (alphabet.size() != alphabetSize) {
+            throw new IOException("The alphabet has duplicate characters.");
+        }
+
+        return alphabet;
+    }
+
+    /**
+     * Returns the codec of {@code Character}s.
+     *
+     * @return the codec of characters.
+     */
+    public static CharacterCodec<Character> forCharacters() {
+        return new CharacterCodec<Character>() {
+
+            @Override
+            public String encode(Character character) {
+                return String.valueOf(character);
+            }
+
+            @Override
+            public Character decode(String encodedCharacter) {
+                if (encodedCharacter.length() != 1) {
+                    throw new IllegalArgumentException(
+                            "Not a character: \"" + encodedCharacter + "\".");
+                }
+
+                return encodedCharacter.charAt(0);
+            }
+        };
+    }
+
+    /**
+     * Returns the codec of {@code Integer}s.
+     *
+     * @return the codec of integers.
+     */
+    public static CharacterCodec<Integer> forIntegers() {
+        return new CharacterCodec<Integer>() {
+
+            @Override
+            public String encode(Integer character) {
+                return String.valueOf(character);
+            }
+
+            @Override
+            public Integer decode(String encodedCharacter) {
+                return Integer.valueOf(encodedCharacter);
+            }
+        };
+    }
+}
@@ -0,0 +1,570 @@
+package net.coderodde.msc.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ContextCountTrie;
+
+/**
+ * This class counts the contexts of a data file too large to be loaded into
+ * the heap. The file is read line by line, each line giving one data row as in
+ * {@link net.coderodde.msc.DataRow#DataRow(Object[], int, int)}, after being
+ * trimmed and converted to lower case as {@link net.coderodde.msc.Main} does.
+ * <p>
+ * The context and the response of a row are packed into a {@code long} key,
+ * and the keys are counted in an open-addressing hash table bounded by the
+ * memory limit. Whenever the table fills up, its entries are sorted by key and
+ * spilled to a run file in the temporary directory. At the end, the runs are
+ * merged, at most {@link #getMaximumMergeFanIn()} at a time, and the merged
+ * counts are added to a {@link ContextCountTrie}. The size of the trie depends
+ * only on the number of distinct contexts, not on the number of rows, and the
+ * trie is all the learners need; see
+ * {@link net.coderodde.msc.support.OnlineParsimoniousContextTreeLearner}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ExternalContextCounter {
+
+    /**
+     * The default number of bytes the hash table may use.
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+    /**
+     * The default maximum number of runs merged at a time.
+     */
+    public static final int DEFAULT_MAXIMUM_MERGE_FAN_IN = 64;
+
+    /**
+     * The smallest allowed memory limit.
+     */
+    public static final long MINIMUM_MEMORY_LIMIT = 1L << 10;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long EMPTY = -1L;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    private final Alphabet<Character> alphabet;
+    private final int depth;
+    private final int bitsPerCharacter;
+    private final long characterMask;
+
+    /**
+     * The encoded context of the key being added to the trie.
+     */
+    private final byte[] context;
+
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+    private Path temporaryDirectory =
+            Paths.get(System.getProperty("java.io.tmpdir"));
+    private int maximumMergeFanIn = DEFAULT_MAXIMUM_MERGE_FAN_IN;
+
+    /**
+     * The hash table of the keys and their counts.
+     */
+    private long[] keys;
+    private long[] counts;
+    private int tableSize;
+
+    private int numberOfSpilledRuns;
+    private int numberOfMergePasses;
+
+    public ExternalContextCounter(Alphabet<Character> alphabet, int depth) {
+        this.alphabet = Objects.requireNonNull(alphabet, "Alphabet is null.");
+
+        if (depth < 0) {
+            throw new IllegalArgumentException(
+                    "The depth must be non-negative: " + depth);
+        }
+
+        this.depth = depth;
+        this.context = new byte[depth];
+        this.bitsPerCharacter =
+                Math.max(1, Long.SIZE -
+                            Long.numberOfLeadingZeros(alphabet.size() - 1));
+        this.characterMask = (1L << bitsPerCharacter) - 1L;
+
+        if ((depth + 1) * bitsPerCharacter >= Long.SIZE) {
+            throw new IllegalArgumentException(
+                    "The contexts of depth " + depth + " over " +
+                    alphabet.size() + " characters do not fit in a key, " +
+                    "the depth must be at most " +
+                    ((Long.SIZE - 1) / bitsPerCharacter - 1) + ".");
+        }
+    }
+
+    /**
+     * Returns the alphabet of the data rows in the data file in the order of
+     * appearance, reading the file once.
+     *
+     * @param dataFile the data file.
+     * @param start    the index of the response in a line.
+     * @param depth    the number of explanatory variables.
+     * @return the alphabet.
+     * @throws IOException if reading fails or a line is too short.
+     */
+    public static Alphabet<Character> scanAlphabet(Path dataFile,
+                                                   int start,
+                                                   int depth)
+    throws IOException {
+        checkStart(start, depth);
+        Set<Character> characters = new LinkedHashSet<>();
+
+        try (BufferedReader reader = openReader(dataFile)) {
+            String line;
+            long lineNumber = 0L;
+
+            while ((line = reader.readLine()) != null) {
+                line = normalize(line);
+                checkLine(line, start, ++lineNumber);
+
+                for (int i = start - depth; i <= start; i++) {
+                    characters.add(line.charAt(i));
+                }
+            }
+        }
+
+        return new Alphabet<>(characters.toArray(new Character[0]));
+    }
+
+    /**
+     * Sets the number of bytes the hash table of the counts may use. The
+     * merge buffers and the returned trie are not included.
+     *
+     * @param memoryLimit the memory limit in bytes.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit < MINIMUM_MEMORY_LIMIT) {
+            throw new IllegalArgumentException(
+                    "The memory limit must be at least " +
+                    MINIMUM_MEMORY_LIMIT + " bytes: " + memoryLimit);
+        }
+
+        this.memoryLimit = memoryLimit;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Sets the directory of the run files, which are deleted before
+     * {@link #count(Path, int)} returns.
+     *
+     * @param temporaryDirectory the directory of the run files.
+     */
+    public void setTemporaryDirectory(Path temporaryDirectory) {
+        this.temporaryDirectory =
+                Objects.requireNonNull(temporaryDirectory,
+                                       "The temporary directory is null.");
+    }
+
+    public Path getTemporaryDirectory() {
+        return temporaryDirectory;
+    }
+
+    /**
+     * Sets the maximum number of runs merged at a time. If there are more
+     * runs, they are merged in several passes.
+     *
+     * @param maximumMergeFanIn the maximum merge fan-in, at least two.
+     */
+    public void setMaximumMergeFanIn(int maximumMergeFanIn) {
+        if (maximumMergeFanIn < 2) {
+            throw new IllegalArgumentException(
+                    "The maximum merge fan-in must be at least two: " +
+                    maximumMergeFanIn);
+        }
+
+        this.maximumMergeFanIn = maximumMergeFanIn;
+    }
+
+    public int getMaximumMergeFanIn() {
+        return maximumMergeFanIn;
+    }
+
+    /**
+     * Returns the number of runs spilled by the last call to
+     * {@link #count(Path, int)}.
+     *
+     * @return the number of spilled runs.
+     */
+    public int getNumberOfSpilledRuns() {
+        return numberOfSpilledRuns;
+    }
+
+    /**
+     * Returns the number of intermediate merge passes done by the last call to
+     * {@link #count(Path, int)}, not counting the final merge.
+     *
+     * @return the number of merge passes.
+     */
+    public int getNumberOfMergePasses() {
+        return numberOfMergePasses;
+    }
+
+    /**
+     * Counts the contexts of the data rows in {@code dataFile}.
+     *
+     * @param dataFile the data file.
+     * @param start    the index of the response in a line.
+     * @return the trie of the context counts.
+     * @throws IOException if reading or writing fails, or a line is too short
+     *                     or has a character not in the alphabet.
+     */
+    public ContextCountTrie<Character> count(Path dataFile, int start)
+    throws IOException {
+        checkStart(start, depth);
+        int capacity = Integer.highestOneBit(
+                (int) Math.min(1 << 30, memoryLimit / ENTRY_BYTES));
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        tableSize = 0;
+        numberOfSpilledRuns = 0;
+        numberOfMergePasses = 0;
+        List<Path> runs = new ArrayList<>();
+
+        try {
+            try (BufferedReader reader = openReader(dataFile)) {
+                String line;
+                long lineNumber = 0L;
+
+                while ((line = reader.readLine()) != null) {
+                    line = normalize(line);
+                    checkLine(line, start, ++lineNumber);
+                    increment(encode(line, start, lineNumber));
+
+                    // Keep the load factor at most 3/4:
+                    if (4 * tableSize >= 3 * capacity) {
+                        runs.add(spill());
+                    }
+                }
+            }
+
+            ContextCountTrie<Character> trie =
+                    new ContextCountTrie<>(alphabet, depth);
+
+            if (runs.isEmpty()) {
+                for (int i = 0; i < capacity; i++) {
+                    if (keys[i] != EMPTY) {
+                        add(trie, keys[i], counts[i]);
+                    }
+                }
+            } else {
+                if (tableSize > 0) {
+                    runs.add(spill());
+                }
+
+                keys = null;
+                counts = null;
+
+                while (runs.size() > maximumMergeFanIn) {
+                    List<Path> group =
+                            new ArrayList<>(runs.subList(0,
+                                                         maximumMergeFanIn));
+                    Path mergedRun = createRun();
+                    runs.add(mergedRun);
+
+                    try (DataOutputStream out = openRunForWriting(mergedRun)) {
+                        merge(group, (key, count) -> {
+                            out.writeLong(key);
+                            out.writeLong(count);
+                        });
+                    }
+
+                    runs.subList(0, maximumMergeFanIn).clear();
+                    deleteRuns(group);
+                    numberOfMergePasses++;
+                }
+
+                merge(runs, (key, count) -> add(trie, key, count));
+            }
+
+            return trie;
+        } finally {
+            keys = null;
+            counts = null;
+            deleteRuns(runs);
+        }
+    }
+
+    /**
+     * Packs the response of the line into the lowest bits of the key, followed
+     * by the explanatory variables {@code 0, 1, ..., depth - 1}.
+     */
+    private long encode(String line, int start, long lineNumber)
+    throws IOException {
+        long key = 0L;
+
+        for (int d = depth; d >= 0; d--) {
+            char character = line.charAt(start - d);
+
+            if (!alphabet.containsCharacter(character)) {
+                throw new IOException(
+                        "The character '" + character + "' on line " +
+                        lineNumber + " is not in the alphabet.");
+            }
+
+            key = (key << bitsPerCharacter) | alphabet.getIndexOf(character);
+        }
+
+        return key;
+    }
+
+    private void add(ContextCountTrie<Character> trie, long key, long count) {
+        int response = (int) (key & characterMask);
+
+        for (int d = 0; d < depth; d++) {
+            key >>>= bitsPerCharacter;
+            context[d] = (byte) (key & characterMask);
+        }
+
+        trie.add(context, response, count);
+    }
+
+    private void increment(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                counts[index]++;
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        counts[index] = 1L;
+        tableSize++;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9e3779b97f4a7c15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Writes the entries of the table in key order to a new run file and
+     * empties the table.
+     */
+    private Path spill() throws IOException {
+        // Move the entries to the front and sort them there:
+        int size = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                keys[size] = keys[i];
+                counts[size] = counts[i];
+                size++;
+            }
+        }
+
+        sort(keys, counts, size);
+        Path run = createRun();
+
+        try (DataOutputStream out = openRunForWriting(run)) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(keys[i]);
+                out.writeLong(counts[i]);
+            }
+        }
+
+        Arrays.fill(keys, EMPTY);
+        tableSize = 0;
+        numberOfSpilledRuns++;
+        return run;
+    }
+
+    /**
+     * Heap-sorts the first {@code size} keys, moving the counts along.
+     */
+    private static void sort(long[] keys, long[] counts, int size) {
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(keys, counts, i, size);
+        }
+
+        for (int end = size - 1; end > 0; end--) {
+            swap(keys, counts, 0, end);
+            siftDown(keys, counts, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] keys,
+                                 long[] counts,
+                                 int index,
+                                 int size) {
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                return;
+            }
+
+            if (child + 1 < size && keys[child] < keys[child + 1]) {
+                child++;
+            }
+
+            if (keys[index] >= keys[child]) {
+                return;
+            }
+
+            swap(keys, counts, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(long[] keys, long[] counts, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+
+    /**
+     * Merges the runs, passing each distinct key with its total count to
+     * {@code consumer} in key order.
+     */
+    private static void merge(List<Path> runs, EntryConsumer consumer)
+    throws IOException {
+        PriorityQueue<RunCursor> queue =
+                new PriorityQueue<>(runs.size(),
+                                    (a, b) -> Long.compare(a.key, b.key));
+        List<RunCursor> cursors = new ArrayList<>(runs.size());
+
+        try {
+            for (Path run : runs) {
+                RunCursor cursor = new RunCursor(run);
+                cursors.add(cursor);
+
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                long key = cursor.key;
+                long count = cursor.count;
+
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    cursor = queue.poll();
+                    count += cursor.count;
+
+                    if (cursor.next()) {
+                        queue.add(cursor);
+                    }
+                }
+
+                consumer.accept(key, count);
+            }
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.in.close();
+            }
+        }
+    }
+
+    private Path createRun() throws IOException {
+        return Files.createTempFile(temporaryDirectory, "pct-run-", ".bin");
+    }
+
+    private static DataOutputStream openRunForWriting(Path run)
+    throws IOException {
+        return new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run),
+                                         BUFFER_SIZE));
+    }
+
+    private static void deleteRuns(List<Path> runs) throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+    }
+
+    private static BufferedReader openReader(Path dataFile)
+    throws IOException {
+        return new BufferedReader(
+                Files.newBufferedReader(dataFile,
+                                        StandardCharsets.ISO_8859_1),
+                BUFFER_SIZE);
+    }
+
+    private static String normalize(String line) {
+        return line.trim().toLowerCase();
+    }
+
+    private static void checkStart(int start, int depth) {
+        if (start < depth) {
+            throw new IllegalArgumentException(
+                    "The start index " + start + " is less than the depth " +
+                    depth + ".");
+        }
+    }
+
+    private static void checkLine(String line, int start, long lineNumber)
+    throws IOException {
+        if (line.length() <= start) {
+            throw new IOException(
+                    "Line " + lineNumber + " is too short (" + line.length() +
+                    ") for the start index " + start + ".");
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(long key, long count) throws IOException;
+    }
+
+    /**
+     * This class reads the entries of a run one at a time.
+     */
+    private static final class RunCursor {
+
+        final DataInputStream in;
+        long key;
+        long count;
+
+        RunCursor(Path run) throws IOException {
+            this.in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(run),
+                                            BUFFER_SIZE));
+        }
+
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException ex) {
+                return false;
+            }
+
+            count = in.readLong();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package net.coderodde.msc.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.ParsimoniousContextTree;
+
+/**
+ * This class implements a persistent cache of learned trees, so that the
+ * trees of expensive learners, such as the optimal baseline, are learned only
+ * once per data set across runs. Each tree is kept in a file of its own in the
+ * format of {@link ParsimoniousContextTreeFormat}, named after its key, and is
+ * loaded through {@link ParsimoniousContextTreeReader}, which memory-maps the
+ * file.
+ * <p>
+ * The key of a tree is the fingerprint of the encoded data set, the class of
+ * the learner and a string of the learner parameters, as given by
+ * {@link EncodedDataSet#computeFingerprint(String)}. The cache is bounded by
+ * the total size of its files: whenever a new tree pushes the total over the
+ * bound, the least recently used trees are deleted. The recency of a tree is
+ * the modification time of its file, which is updated on every hit, so that
+ * it survives across runs.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class LearnedTreeCache<C> {
+
+    /**
+     * The name of the system property holding the directory of the default
+     * cache.
+     */
+    public static final String DIRECTORY_PROPERTY =
+            "net.coderodde.msc.cache.directory";
+
+    /**
+     * The name of the system property holding the maximum size of the default
+     * cache in bytes.
+     */
+    public static final String MAXIMUM_SIZE_PROPERTY =
+            "net.coderodde.msc.cache.maximumSize";
+
+    /**
+     * The default maximum size of the cache in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 256L << 20;
+
+    private static final String TREE_FILE_SUFFIX = ".pct";
+
+    private final Path directory;
+    private final long maximumSize;
+    private final ParsimoniousContextTreeReader<C> reader;
+    private final ParsimoniousContextTreeWriter<C> writer;
+
+    /**
+     * Maps the keys of the trees in the cache to their file sizes, the least
+     * recently used key first.
+     */
+    private final LinkedHashMap<String, Long> fileSizeMap =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize;
+    private int numberOfHits;
+    private int numberOfMisses;
+
+    /**
+     * Opens the cache in {@code directory}, creating the directory if it does
+     * not exist, and deletes the least recently used trees if the directory
+     * holds more than {@code maximumSize} bytes.
+     *
+     * @param directory   the cache directory.
+     * @param codec       the codec of the characters.
+     * @param maximumSize the maximum total size of the tree files in bytes.
+     * @throws IOException if the directory cannot be read.
+     */
+    public LearnedTreeCache(Path directory,
+                            CharacterCodec<C> codec,
+                            long maximumSize) throws IOException {
+        this.directory = Objects.requireNonNull(directory,
+                                                "The directory is null.");
+
+        if (maximumSize < 0L) {
+            throw new IllegalArgumentException(
+                    "The maximum size is negative: " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+        this.reader = new ParsimoniousContextTreeReader<>(codec);
+        this.writer = new ParsimoniousContextTreeWriter<>(codec);
+
+        Files.createDirectories(directory);
+        List<Path> paths = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributeMap = new LinkedHashMap<>();
+
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, "*" + TREE_FILE_SUFFIX)) {
+            for (Path path : stream) {
+                try {
+                    attributeMap.put(path,
+                                     Files.readAttributes(
+                                             path,
+                                             BasicFileAttributes.class));
+                    paths.add(path);
+                } catch (NoSuchFileException ex) {
+                    // Evicted by another process in the meantime.
+                }
+            }
+        }
+
+        paths.sort(Comparator.comparing(
+                path -> attributeMap.get(path).lastModifiedTime()));
+
+        for (Path path : paths) {
+            long size = attributeMap.get(path).size();
+            fileSizeMap.put(getKey(path), size);
+            totalSize += size;
+        }
+
+        evict();
+    }
+
+    /**
+     * Opens the cache in the directory of the system property
+     * {@value #DIRECTORY_PROPERTY}, by default {@code .pct-cache} in the home
+     * directory of the user, bounded by the system property
+     * {@value #MAXIMUM_SIZE_PROPERTY}, by default
+     * {@value #DEFAULT_MAXIMUM_SIZE} bytes.
+     *
+     * @param <C>   the character type.
+     * @param codec the codec of the characters.
+     * @return the default cache.
+     * @throws IOException if the directory cannot be read.
+     */
+    public static <C> LearnedTreeCache<C> openDefault(CharacterCodec<C> codec)
+    throws IOException {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        Path path = directory != null ?
+                    Paths.get(directory) :
+                    Paths.get(System.getProperty("user.home"), ".pct-cache");
+
+        return new LearnedTreeCache<>(
+                path,
+                codec,
+                Long.getLong(MAXIMUM_SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public synchronized int size() {
+        return fileSizeMap.size();
+    }
+
+    public synchronized int getNumberOfHits() {
+        return numberOfHits;
+    }
+
+    public synchronized int getNumberOfMisses() {
+        return numberOfMisses;
+    }
+
+    /**
+     * Computes the key of the tree learned by {@code learner} from
+     * {@code dataRows}.
+     *
+     * @param dataRows   the list of data rows.
+     * @param learner    the learner.
+     * @param parameters the parameters of the learner affecting the tree,
+     *                   such as its beta or its seed.
+     * @return the key.
+     */
+    public static <C> String computeKey(
+            List<DataRow<C>> dataRows,
+            AbstractParsimoniousContextTreeLearner<C> learner,
+            String parameters) {
+        return new EncodedDataSet<>(dataRows, createAlphabet(dataRows))
+                .computeFingerprint(learner.getClass().getName() + " " +
+                                    parameters);
+    }
+
+    /**
+     * Returns the tree of {@code key}, or {@code null} if the cache holds no
+     * valid tree of the key.
+     *
+     * @param key the key of the tree.
+     * @return the tree or {@code null}.
+     * @throws UncheckedIOException if accessing the cache directory fails.
+     */
+    public synchronized CompactParsimoniousContextTree<C> get(String key) {
+        Path path = getPath(key);
+
+        if (!fileSizeMap.containsKey(key)) {
+            numberOfMisses++;
+            return null;
+        }
+
+        try {
+            CompactParsimoniousContextTree<C> tree = reader.read(path);
+            Files.setLastModifiedTime(
+                    path,
+                    FileTime.fromMillis(System.currentTimeMillis()));
+            // Move the key to the most recently used end:
+            fileSizeMap.get(key);
+            numberOfHits++;
+            return tree;
+        } catch (NoSuchFileException ex) {
+            // Evicted by another process.
+            totalSize -= fileSizeMap.remove(key);
+        } catch (IOException ex) {
+            // A corrupted file is dropped and relearned.
+            totalSize -= fileSizeMap.remove(key);
+            delete(path);
+        }
+
+        numberOfMisses++;
+        return null;
+    }
+
+    /**
+     * Stores {@code tree} under {@code key} and evicts the least recently used
+     * trees if the cache grows over its maximum size.
+     *
+     * @param key  the key of the tree.
+     * @param tree the tree to store.
+     * @throws UncheckedIOException if writing the tree fails.
+     */
+    public synchronized void put(String key,
+                                 CompactParsimoniousContextTree<C> tree) {
+        Objects.requireNonNull(tree, "The input tree is null.");
+        Path path = getPath(key);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            writer.write(tree, temporaryPath);
+            Files.move(temporaryPath,
+                       path,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            Long previousSize = fileSizeMap.put(key, Files.size(path));
+            totalSize += fileSizeMap.get(key) -
+                         (previousSize == null ? 0L : previousSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        evict();
+    }
+
+    /**
+     * Returns the cached tree learned by {@code learner} from
+     * {@code dataRows}, learning and caching it on a miss. A tree learned
+     * after the context of the learner stops the learning is returned but not
+     * cached, since it may have been cut short.
+     *
+     * @param dataRows   the list of data rows.
+     * @param learner    the learner.
+     * @param parameters the parameters of the learner affecting the tree.
+     * @return the tree.
+     * @throws UncheckedIOException if accessing the cache directory fails.
+     */
+    public CompactParsimoniousContextTree<C> getOrLearn(
+            List<DataRow<C>> dataRows,
+            AbstractParsimoniousContextTreeLearner<C> learner,
+            String parameters) {
+        String key = computeKey(dataRows, learner, parameters);
+        CompactParsimoniousContextTree<C> tree = get(key);
+
+        if (tree == null) {
+            ParsimoniousContextTree<C> learnedTree = learner.learn(dataRows);
+            tree = new CompactParsimoniousContextTree<>(
+                    learnedTree,
+                    createAlphabet(dataRows));
+
+            if (!learner.getContext().shouldStop()) {
+                put(key, tree);
+            }
+        }
+
+        return tree;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator =
+                fileSizeMap.entrySet().iterator();
+
+        while (totalSize > maximumSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            delete(getPath(entry.getKey()));
+            totalSize -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key + TREE_FILE_SUFFIX);
+    }
+
+    private static String getKey(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.substring(0,
+                                  fileName.length() -
+                                  TREE_FILE_SUFFIX.length());
+    }
+
+    /**
+     * Creates the alphabet of {@code dataRows} in the order of the first
+     * occurrences of the characters, so that the same rows always give the
+     * same key.
+     */
+    private static <C> Alphabet<C> createAlphabet(List<DataRow<C>> dataRows) {
+        Set<C> characters = new LinkedHashSet<>();
+
+        for (DataRow<C> dataRow : dataRows) {
+            characters.addAll(dataRow.getAllExplantoryVariables());
+            characters.add(dataRow.getResponseVariable());
+        }
+
+        @SuppressWarnings("unchecked")
+        C[] array = (C[]) characters.toArray();
+        return new Alphabet<>(array);
+    }
+}
@@ -0,0 +1,62 @@
+package net.coderodde.msc.io;
+
+/**
+ * This class defines the binary file format of
+ * {@link net.coderodde.msc.CompactParsimoniousContextTree}. All numbers are
+ * big-endian. A file is
+ * <pre>
+ *   int      magic                 ({@link #MAGIC})
+ *   int      formatVersion         ({@link #FORMAT_VERSION})
+ *   int      alphabetSize          (sigma)
+ *   int      numberOfNodes         (n)
+ *   int      numberOfDistributions (m)
+ *   int      reserved              (zero)
+ *   sigma x  unsigned short byte count and the UTF-8 bytes of a character
+ *            encoded by a {@link CharacterCodec}, in index order
+ *   ...      zero bytes up to a multiple of eight bytes from the start
+ *   long[n]  labelMasks
+ *   double[n]           scores
+ *   double[m * sigma]   responseProbabilities
+ *   int[n]   firstChildren
+ *   int[n]   childCounts
+ *   int[n]   responseOffsets
+ * </pre>
+ * The node arrays are those of the compact tree, except that the response
+ * offsets are renumbered so that the distributions appear in node order. In
+ * particular, the child ranges shared by several parents in a tree returned
+ * by {@link net.coderodde.msc.CompactParsimoniousContextTree#share()} stay
+ * shared in the file. The arrays of eight-byte values come first, so that
+ * every array is aligned to its element size in a memory-mapped file.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ParsimoniousContextTreeFormat {
+
+    /**
+     * The first four bytes of a tree file, "PCTB" in ASCII.
+     */
+    public static final int MAGIC = 0x50435442;
+
+    /**
+     * The version of the format written by
+     * {@link ParsimoniousContextTreeWriter}.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * The number of bytes in the fixed part of the header.
+     */
+    static final int FIXED_HEADER_LENGTH = 6 * Integer.BYTES;
+
+    /**
+     * The alignment of the arrays from the start of the file.
+     */
+    static final int ALIGNMENT = Long.BYTES;
+
+    private ParsimoniousContextTreeFormat() {}
+
+    static int computePadding(long position) {
+        return (int) ((ALIGNMENT - position % ALIGNMENT) % ALIGNMENT);
+    }
+}
@@ -0,0 +1,165 @@
+package net.coderodde.msc.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+
+/**
+ * This class reads parsimonious context trees in the format of
+ * {@link ParsimoniousContextTreeFormat}. A file is memory-mapped and its
+ * arrays are bulk-copied into the compact tree, so that loading costs about
+ * as much as copying the file from the page cache, with no parsing per node.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ParsimoniousContextTreeReader<C> {
+
+    private final CharacterCodec<C> codec;
+
+    public ParsimoniousContextTreeReader(CharacterCodec<C> codec) {
+        this.codec = Objects.requireNonNull(codec, "The codec is null.");
+    }
+
+    /**
+     * Reads the tree in the file {@code path}.
+     *
+     * @param path the path of the file.
+     * @return the tree.
+     * @throws IOException if reading fails or the file is not a valid tree
+     *                     file.
+     */
+    public CompactParsimoniousContextTree<C> read(Path path)
+    throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(
+                        "The tree file is too large: " + channel.size() +
+                        " bytes.");
+            }
+
+            return read(channel.map(FileChannel.MapMode.READ_ONLY,
+                                    0L,
+                                    channel.size()));
+        }
+    }
+
+    /**
+     * Reads a tree from {@code buffer}, starting at its position. The position
+     * of the buffer is moved past the tree.
+     *
+     * @param buffer the buffer to read from.
+     * @return the tree.
+     * @throws IOException if the buffer does not hold a valid tree.
+     */
+    public CompactParsimoniousContextTree<C> read(ByteBuffer buffer)
+    throws IOException {
+        ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+
+        try {
+            CompactParsimoniousContextTree<C> tree = readTree(in);
+            buffer.position(buffer.position() + in.position());
+            return tree;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("The tree file is truncated.", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(
+                    "The tree file is corrupted: " + ex.getMessage(), ex);
+        }
+    }
+
+    private CompactParsimoniousContextTree<C> readTree(ByteBuffer in)
+    throws IOException {
+        if (in.getInt() != ParsimoniousContextTreeFormat.MAGIC) {
+            throw new IOException("Not a tree file.");
+        }
+
+        int formatVersion = in.getInt();
+
+        if (formatVersion != ParsimoniousContextTreeFormat.FORMAT_VERSION) {
+            throw new IOException(
+                    "Unsupported tree file format version " + formatVersion +
+                    ".");
+        }
+
+        int alphabetSize = in.getInt();
+        int size = in.getInt();
+        int numberOfDistributions = in.getInt();
+        in.getInt();
+
+        if (alphabetSize < 1 || alphabetSize > Long.SIZE ||
+                size < 1 || numberOfDistributions < 0) {
+            throw new IOException("Invalid tree file header.");
+        }
+
+        long arrayBytes =
+                (long) size * (2 * Long.BYTES + 3 * Integer.BYTES) +
+                (long) numberOfDistributions * alphabetSize * Double.BYTES;
+
+        if (arrayBytes > in.remaining()) {
+            throw new IOException("The tree file is truncated.");
+        }
+
+        @SuppressWarnings("unchecked")
+        C[] characters = (C[]) new Object[alphabetSize];
+
+        for (int c = 0; c < alphabetSize; c++) {
+            byte[] bytes = new byte[in.getShort() & 0xffff];
+            in.get(bytes);
+            characters[c] = codec.decode(new String(bytes,
+                                                    StandardCharsets.UTF_8));
+        }
+
+        Alphabet<C> alphabet = new Alphabet<>(characters);
+
+        if (alphabet.size() != alphabetSize) {
+            throw new IOException(
+                    "The tree file has duplicate alphabet characters.");
+        }
+
+        in.position(in.position() +
+                    ParsimoniousContextTreeFormat.computePadding(
+                            in.position()));
+
+        long[] labelMasks = new long[size];
+        double[] scores = new double[size];
+        double[] responseProbabilities =
+                new double[numberOfDistributions * alphabetSize];
+        int[] firstChildren = new int[size];
+        int[] childCounts = new int[size];
+        int[] responseOffsets = new int[size];
+
+        // The views share the content but not the position of the buffer:
+        in.asLongBuffer().get(labelMasks);
+        in.position(in.position() + size * Long.BYTES);
+        in.asDoubleBuffer().get(scores);
+        in.position(in.position() + size * Double.BYTES);
+        in.asDoubleBuffer().get(responseProbabilities);
+        in.position(in.position() +
+                    responseProbabilities.length * Double.BYTES);
+        in.asIntBuffer().get(firstChildren);
+        in.position(in.position() + size * Integer.BYTES);
+        in.asIntBuffer().get(childCounts);
+        in.position(in.position() + size * Integer.BYTES);
+        in.asIntBuffer().get(responseOffsets);
+        in.position(in.position() + size * Integer.BYTES);
+
+        return CompactParsimoniousContextTree.fromArrays(alphabet,
+                                                         labelMasks,
+                                                         firstChildren,
+                                                         childCounts,
+                                                         scores,
+                                                         responseOffsets,
+                                                         responseProbabilities);
+    }
+}
@@ -0,0 +1,144 @@
+package net.coderodde.msc.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTree;
+
+/**
+ * This class writes parsimonious context trees in the format of
+ * {@link ParsimoniousContextTreeFormat}. The arrays are streamed one at a
+ * time through a buffer straight from the compact tree, so that writing
+ * needs no memory in proportion to the size of the tree.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ParsimoniousContextTreeWriter<C> {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CharacterCodec<C> codec;
+
+    public ParsimoniousContextTreeWriter(CharacterCodec<C> codec) {
+        this.codec = Objects.requireNonNull(codec, "The codec is null.");
+    }
+
+    /**
+     * Converts {@code tree} to the compact representation and writes it to
+     * the file {@code path}.
+     *
+     * @param tree     the tree to write.
+     * @param alphabet the alphabet indexing the label masks.
+     * @param path     the path of the file.
+     * @throws IOException if writing fails.
+     */
+    public void write(ParsimoniousContextTree<C> tree,
+                      Alphabet<C> alphabet,
+                      Path path) throws IOException {
+        write(new CompactParsimoniousContextTree<>(tree, alphabet), path);
+    }
+
+    /**
+     * Writes {@code tree} to the file {@code path}, replacing the file if it
+     * exists.
+     *
+     * @param tree the tree to write.
+     * @param path the path of the file.
+     * @throws IOException if writing fails.
+     */
+    public void write(CompactParsimoniousContextTree<C> tree, Path path)
+    throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(tree, out);
+        }
+    }
+
+    /**
+     * Writes {@code tree} to {@code out}. The stream is flushed but not
+     * closed.
+     *
+     * @param tree the tree to write.
+     * @param out  the stream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void write(CompactParsimoniousContextTree<C> tree,
+                      OutputStream out) throws IOException {
+        Objects.requireNonNull(tree, "The input tree is null.");
+        DataOutputStream dataOut =
+                new DataOutputStream(new BufferedOutputStream(out,
+                                                              BUFFER_SIZE));
+        Alphabet<C> alphabet = tree.getAlphabet();
+        int size = tree.size();
+        int numberOfDistributions = 0;
+
+        for (int node = 0; node < size; node++) {
+            if (tree.getResponseOffset(node) !=
+                    CompactParsimoniousContextTree.NONE) {
+                numberOfDistributions++;
+            }
+        }
+
+        dataOut.writeInt(ParsimoniousContextTreeFormat.MAGIC);
+        dataOut.writeInt(ParsimoniousContextTreeFormat.FORMAT_VERSION);
+        dataOut.writeInt(alphabet.size());
+        dataOut.writeInt(size);
+        dataOut.writeInt(numberOfDistributions);
+        dataOut.writeInt(0);
+
+        codec.writeAlphabet(alphabet, dataOut);
+
+        int padding =
+                ParsimoniousContextTreeFormat.computePadding(dataOut.size());
+
+        for (int i = 0; i < padding; i++) {
+            dataOut.writeByte(0);
+        }
+
+        for (int node = 0; node < size; node++) {
+            dataOut.writeLong(tree.getLabelMask(node));
+        }
+
+        for (int node = 0; node < size; node++) {
+            dataOut.writeDouble(tree.getScore(node));
+        }
+
+        for (int node = 0; node < size; node++) {
+            if (tree.getResponseOffset(node) !=
+                    CompactParsimoniousContextTree.NONE) {
+                for (int c = 0; c < alphabet.size(); c++) {
+                    dataOut.writeDouble(tree.getResponseProbability(node, c));
+                }
+            }
+        }
+
+        for (int node = 0; node < size; node++) {
+            dataOut.writeInt(tree.getFirstChild(node));
+        }
+
+        for (int node = 0; node < size; node++) {
+            dataOut.writeInt(tree.getChildCount(node));
+        }
+
+        int nextOffset = 0;
+
+        for (int node = 0; node < size; node++) {
+            if (tree.getResponseOffset(node) ==
+                    CompactParsimoniousContextTree.NONE) {
+                dataOut.writeInt(CompactParsimoniousContextTree.NONE);
+            } else {
+                dataOut.writeInt(nextOffset);
+                nextOffset += alphabet.size();
+            }
+        }
+
+        dataOut.flush();
+    }
+}
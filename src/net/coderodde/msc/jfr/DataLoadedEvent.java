@@ -0,0 +1,59 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event spans loading the data rows of a data file, or encoding a list
+ * of data rows as an {@link net.coderodde.msc.EncodedDataSet}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.DataLoaded")
+@Label("Data Loaded")
+@Category({ "PCT", "Data" })
+@Description("Loading the data rows of a file or encoding a data set.")
+public final class DataLoadedEvent extends Event {
+
+    @Label("Source")
+    @Description("The data file, or \"encoded\" for an encoded data set.")
+    private String source;
+
+    @Label("Depth")
+    @Description("The number of explanatory variables.")
+    private int depth;
+
+    @Label("Alphabet Size")
+    @Description("The alphabet size, or -1 if not known.")
+    private int alphabetSize;
+
+    @Label("Row Count")
+    private int rowCount;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param source       the data file or {@code "encoded"}.
+     * @param depth        the number of explanatory variables.
+     * @param alphabetSize the alphabet size, or -1 if not known.
+     * @param rowCount     the number of data rows.
+     */
+    public void commit(String source,
+                       int depth,
+                       int alphabetSize,
+                       int rowCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.source = source;
+            this.depth = depth;
+            this.alphabetSize = alphabetSize;
+            this.rowCount = rowCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event spans the decision of the hybrid learner whether to search the
+ * children of a node exactly after merging them greedily, including the
+ * exact search if there is one. Since there is a decision per inner node, the
+ * event is disabled by default.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.HybridDecision")
+@Label("Hybrid Decision")
+@Category({ "PCT", "Learning" })
+@Description("Deciding whether to search the children of a node exactly " +
+             "after merging them greedily.")
+@Enabled(false)
+@StackTrace(false)
+public final class HybridDecisionEvent extends Event {
+
+    @Label("Level")
+    @Description("The distance of the node from the root.")
+    private int level;
+
+    @Label("Alphabet Size")
+    @Description("The number of characters in the rows of the node.")
+    private int alphabetSize;
+
+    @Label("Row Count")
+    @Description("The number of data rows reaching the node.")
+    private int rowCount;
+
+    @Label("Estimated Work")
+    @Description("The estimated work of the exact search.")
+    private long estimatedWork;
+
+    @Label("Gain Bound")
+    @Description("The upper bound of the gain of the exact search over the " +
+                 "greedy merges.")
+    private double gainBound;
+
+    @Label("Decision")
+    private String decision;
+
+    @Label("Concurrent")
+    @Description("Whether the exact search ran alongside the greedy merges.")
+    private boolean concurrent;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param level         the level of the node.
+     * @param alphabetSize  the number of characters in the rows of the node.
+     * @param rowCount      the number of data rows reaching the node.
+     * @param estimatedWork the estimated work of the exact search.
+     * @param gainBound     the upper bound of the gain of the exact search.
+     * @param decision      the decision.
+     * @param concurrent    whether the exact search ran concurrently.
+     */
+    public void commit(int level,
+                       int alphabetSize,
+                       int rowCount,
+                       long estimatedWork,
+                       double gainBound,
+                       String decision,
+                       boolean concurrent) {
+        end();
+
+        if (shouldCommit()) {
+            this.level = level;
+            this.alphabetSize = alphabetSize;
+            this.rowCount = rowCount;
+            this.estimatedWork = estimatedWork;
+            this.gainBound = gainBound;
+            this.decision = decision;
+            this.concurrent = concurrent;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event spans a step of merging the children of a node greedily: scoring
+ * the merges of all the pairs of children and merging the best pair. Since
+ * there are many steps per tree, the event is disabled by default, and the
+ * steps of a node reuse one event, begun again after each commit.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.MergeStep")
+@Label("Greedy Merge Step")
+@Category({ "PCT", "Learning" })
+@Description("Scoring the merges of the pairs of children of a node and " +
+             "merging the best pair.")
+@Enabled(false)
+@StackTrace(false)
+public final class MergeStepEvent extends Event {
+
+    @Label("Learner")
+    private Class<?> learner;
+
+    @Label("Level")
+    @Description("The distance of the node from the root.")
+    private int level;
+
+    @Label("Alphabet Size")
+    private int alphabetSize;
+
+    @Label("Row Count")
+    @Description("The number of data rows reaching the node.")
+    private int rowCount;
+
+    @Label("Candidate Count")
+    @Description("The number of pairs of children scored.")
+    private int candidateCount;
+
+    @Label("Child Count")
+    @Description("The number of children after the merge.")
+    private int childCount;
+
+    @Label("Score Delta")
+    @Description("The change of the score of the node by the merge.")
+    private double scoreDelta;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param learner        the class of the learner.
+     * @param level          the level of the node.
+     * @param alphabetSize   the alphabet size.
+     * @param rowCount       the number of data rows reaching the node.
+     * @param candidateCount the number of pairs of children scored.
+     * @param childCount     the number of children after the merge.
+     * @param scoreDelta     the change of the score of the node.
+     */
+    public void commit(Class<?> learner,
+                       int level,
+                       int alphabetSize,
+                       int rowCount,
+                       int candidateCount,
+                       int childCount,
+                       double scoreDelta) {
+        end();
+
+        if (shouldCommit()) {
+            this.learner = learner;
+            this.level = level;
+            this.alphabetSize = alphabetSize;
+            this.rowCount = rowCount;
+            this.candidateCount = candidateCount;
+            this.childCount = childCount;
+            this.scoreDelta = scoreDelta;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This event spans scoring all the partitions of the alphabet for the children
+ * of a node and selecting the best one. By default, only the sweeps taking at
+ * least 10 milliseconds are recorded.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.PartitionSweep")
+@Label("Partition Sweep")
+@Category({ "PCT", "Learning" })
+@Description("Scoring the partitions of the alphabet for the children of a " +
+             "node.")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class PartitionSweepEvent extends Event {
+
+    @Label("Learner")
+    private Class<?> learner;
+
+    @Label("Level")
+    @Description("The distance of the node from the root.")
+    private int level;
+
+    @Label("Alphabet Size")
+    private int alphabetSize;
+
+    @Label("Row Count")
+    @Description("The number of data rows reaching the node.")
+    private int rowCount;
+
+    @Label("Candidate Count")
+    @Description("The number of partitions scored.")
+    private int candidateCount;
+
+    @Label("Best Score")
+    private double bestScore;
+
+    @Label("Score Delta")
+    @Description("The score of the best partition minus the score of the " +
+                 "partition of a single label.")
+    private double scoreDelta;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param learner        the class of the learner.
+     * @param level          the level of the node.
+     * @param alphabetSize   the alphabet size.
+     * @param rowCount       the number of data rows reaching the node.
+     * @param candidateCount the number of partitions scored.
+     * @param bestScore      the score of the best partition.
+     * @param scoreDelta     the score of the best partition minus the score
+     *                       of the partition of a single label.
+     */
+    public void commit(Class<?> learner,
+                       int level,
+                       int alphabetSize,
+                       int rowCount,
+                       int candidateCount,
+                       double bestScore,
+                       double scoreDelta) {
+        end();
+
+        if (shouldCommit()) {
+            this.learner = learner;
+            this.level = level;
+            this.alphabetSize = alphabetSize;
+            this.rowCount = rowCount;
+            this.candidateCount = candidateCount;
+            this.bestScore = bestScore;
+            this.scoreDelta = scoreDelta;
+            commit();
+        }
+    }
+}
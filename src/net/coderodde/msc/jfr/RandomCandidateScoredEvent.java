@@ -0,0 +1,76 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event spans learning and scoring a random candidate tree in the search
+ * of a random learner. Since the searches score many candidates, the event is
+ * disabled by default.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.RandomCandidateScored")
+@Label("Random Candidate Scored")
+@Category({ "PCT", "Learning" })
+@Description("Learning and scoring a random candidate tree.")
+@Enabled(false)
+@StackTrace(false)
+public final class RandomCandidateScoredEvent extends Event {
+
+    @Label("Learner")
+    private Class<?> learner;
+
+    @Label("Iteration")
+    @Description("The number of candidates scored before this one.")
+    private int iteration;
+
+    @Label("Depth")
+    @Description("The depth of the tree.")
+    private int depth;
+
+    @Label("Row Count")
+    private int rowCount;
+
+    @Label("Score")
+    private double score;
+
+    @Label("Score Delta")
+    @Description("The score of the candidate minus the best score so far.")
+    private double scoreDelta;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param learner   the class of the learner.
+     * @param iteration the number of candidates scored before this one.
+     * @param depth     the depth of the tree.
+     * @param rowCount  the number of data rows.
+     * @param score     the score of the candidate.
+     * @param bestScore the best score so far.
+     */
+    public void commit(Class<?> learner,
+                       int iteration,
+                       int depth,
+                       int rowCount,
+                       double score,
+                       double bestScore) {
+        end();
+
+        if (shouldCommit()) {
+            this.learner = learner;
+            this.iteration = iteration;
+            this.depth = depth;
+            this.rowCount = rowCount;
+            this.score = score;
+            this.scoreDelta = score - bestScore;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package net.coderodde.msc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This event spans building the subtree of an inner node of a tree level. By
+ * default, only the subtrees taking at least 10 milliseconds are recorded.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+@Name("net.coderodde.msc.SubtreeBuilt")
+@Label("Subtree Built")
+@Category({ "PCT", "Learning" })
+@Description("Building the subtree of an inner node of a tree level.")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class SubtreeBuiltEvent extends Event {
+
+    @Label("Learner")
+    private Class<?> learner;
+
+    @Label("Level")
+    @Description("The distance of the node from the root.")
+    private int level;
+
+    @Label("Depth")
+    @Description("The depth of the tree.")
+    private int depth;
+
+    @Label("Alphabet Size")
+    private int alphabetSize;
+
+    @Label("Row Count")
+    @Description("The number of data rows reaching the node.")
+    private int rowCount;
+
+    @Label("Child Count")
+    @Description("The number of children selected for the node.")
+    private int childCount;
+
+    /**
+     * Ends and commits this event if it is recorded.
+     *
+     * @param learner      the class of the learner.
+     * @param level        the level of the node.
+     * @param depth        the depth of the tree.
+     * @param alphabetSize the alphabet size.
+     * @param rowCount     the number of data rows reaching the node.
+     * @param childCount   the number of children of the node.
+     */
+    public void commit(Class<?> learner,
+                       int level,
+                       int depth,
+                       int alphabetSize,
+                       int rowCount,
+                       int childCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.learner = learner;
+            this.level = level;
+            this.depth = depth;
+            this.alphabetSize = alphabetSize;
+            this.rowCount = rowCount;
+            this.childCount = childCount;
+            commit();
+        }
+    }
+}
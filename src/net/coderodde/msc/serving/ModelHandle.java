@@ -0,0 +1,145 @@
+package net.coderodde.msc.serving;
+
+import java.util.concurrent.atomic.AtomicReference;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+
+/**
+ * This class is the entry point of the request threads to a served model. The
+ * current version is held in an atomic reference: a query loads it once and
+ * answers from that version, so the queries never take locks and a version
+ * published concurrently is picked up by the next query. The request threads
+ * should look the handle up once from the {@link ModelRegistry} and keep it,
+ * since a handle stays valid over all the versions of its model.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ModelHandle<C> {
+
+    private final String modelName;
+    private final AtomicReference<ModelVersion<C>> currentVersion =
+            new AtomicReference<>();
+    private final ModelStatistics statistics = new ModelStatistics();
+    private long lastVersionNumber;
+
+    ModelHandle(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Returns the current version, or {@code null} if no version is published.
+     *
+     * @return the current version.
+     */
+    public ModelVersion<C> getCurrentVersion() {
+        return currentVersion.get();
+    }
+
+    public ModelStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the natural logarithm of the probability of the character with
+     * the index {@code response} following the encoded context.
+     *
+     * @param context  the encoded context in reading order.
+     * @param end      the end of the context, exclusive.
+     * @param response the index of the predicted character.
+     * @return the log-probability.
+     * @see ParsimoniousContextTreePredictor#getLogProbability(byte[], int, int)
+     */
+    public double getLogProbability(byte[] context, int end, int response) {
+        long startTime = System.nanoTime();
+        double logProbability = getPredictor().getLogProbability(context,
+                                                                 end,
+                                                                 response);
+        statistics.recordQuery(System.nanoTime() - startTime);
+        return logProbability;
+    }
+
+    /**
+     * Writes the next-symbol probabilities of the encoded context into
+     * {@code probabilities}.
+     *
+     * @param context       the encoded context in reading order.
+     * @param end           the end of the context, exclusive.
+     * @param probabilities the array to write the probabilities into.
+     * @see ParsimoniousContextTreePredictor#getNextSymbolProbabilities(byte[], int, double[])
+     */
+    public void getNextSymbolProbabilities(byte[] context,
+                                           int end,
+                                           double[] probabilities) {
+        long startTime = System.nanoTime();
+        getPredictor().getNextSymbolProbabilities(context, end, probabilities);
+        statistics.recordQuery(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the log-likelihood of the encoded sequence.
+     *
+     * @param sequence the encoded sequence.
+     * @param from     the first predicted position.
+     * @param to       the end of the predicted positions, exclusive.
+     * @return the log-likelihood.
+     * @see ParsimoniousContextTreePredictor#computeSequenceLogLikelihood(byte[], int, int)
+     */
+    public double computeSequenceLogLikelihood(byte[] sequence,
+                                               int from,
+                                               int to) {
+        long startTime = System.nanoTime();
+        double logLikelihood =
+                getPredictor().computeSequenceLogLikelihood(sequence, from, to);
+        statistics.recordQuery(System.nanoTime() - startTime);
+        return logLikelihood;
+    }
+
+    /**
+     * Publishes a new version and retires the previous one.
+     *
+     * @param predictor the predictor of the new version.
+     * @return the retired version, or {@code null} if there was none.
+     */
+    synchronized ModelVersion<C>
+        publish(ParsimoniousContextTreePredictor<C> predictor) {
+        ModelVersion<C> version = new ModelVersion<>(modelName,
+                                                     ++lastVersionNumber,
+                                                     predictor);
+        statistics.recordPublication();
+        return retire(currentVersion.getAndSet(version));
+    }
+
+    /**
+     * Withdraws the current version and retires it.
+     *
+     * @return the retired version, or {@code null} if there was none.
+     */
+    synchronized ModelVersion<C> withdraw() {
+        return retire(currentVersion.getAndSet(null));
+    }
+
+    private ParsimoniousContextTreePredictor<C> getPredictor() {
+        ModelVersion<C> version = currentVersion.get();
+
+        if (version == null) {
+            throw new IllegalStateException(
+                    "No version of the model '" + modelName + "' is " +
+                    "published.");
+        }
+
+        return version.getPredictor();
+    }
+
+    private static <C> ModelVersion<C> retire(ModelVersion<C> version) {
+        if (version != null) {
+            version.retire();
+        }
+
+        return version;
+    }
+}
@@ -0,0 +1,100 @@
+package net.coderodde.msc.serving;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+
+/**
+ * This class implements a registry of served models. Each model name maps to a
+ * {@link ModelHandle} holding the current {@link ModelVersion} of the model. A
+ * retrained model is published with a single atomic reference swap, after
+ * which the previous version is retired: the queries already running on it
+ * finish on the old predictor, and all later queries see the new one. Only
+ * the publications of the same model serialize among each other.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ModelRegistry<C> {
+
+    private final ConcurrentMap<String, ModelHandle<C>> handleMap =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the handle of the model {@code modelName}, creating an empty
+     * handle if the model is not known yet.
+     *
+     * @param modelName the name of the model.
+     * @return the handle of the model.
+     */
+    public ModelHandle<C> getHandle(String modelName) {
+        Objects.requireNonNull(modelName, "The model name is null.");
+        ModelHandle<C> handle = handleMap.get(modelName);
+
+        if (handle != null) {
+            return handle;
+        }
+
+        return handleMap.computeIfAbsent(modelName, ModelHandle::new);
+    }
+
+    /**
+     * Publishes {@code predictor} as the new version of the model
+     * {@code modelName}.
+     *
+     * @param modelName the name of the model.
+     * @param predictor the predictor to publish.
+     * @return the retired previous version, or {@code null} if there was none.
+     */
+    public ModelVersion<C>
+        publish(String modelName,
+                ParsimoniousContextTreePredictor<C> predictor) {
+        Objects.requireNonNull(predictor, "The predictor is null.");
+        return getHandle(modelName).publish(predictor);
+    }
+
+    /**
+     * Withdraws the current version of the model {@code modelName}. The handle
+     * and its statistics are kept.
+     *
+     * @param modelName the name of the model.
+     * @return the retired version, or {@code null} if there was none.
+     */
+    public ModelVersion<C> withdraw(String modelName) {
+        ModelHandle<C> handle = handleMap.get(modelName);
+        return handle == null ? null : handle.withdraw();
+    }
+
+    /**
+     * Returns the current version of the model {@code modelName}, or
+     * {@code null} if there is none.
+     *
+     * @param modelName the name of the model.
+     * @return the current version.
+     */
+    public ModelVersion<C> getCurrentVersion(String modelName) {
+        ModelHandle<C> handle = handleMap.get(modelName);
+        return handle == null ? null : handle.getCurrentVersion();
+    }
+
+    /**
+     * Returns the names of the models having a published version.
+     *
+     * @return the names of the published models.
+     */
+    public List<String> getPublishedModelNames() {
+        List<String> modelNames = new ArrayList<>();
+
+        for (ModelHandle<C> handle : handleMap.values()) {
+            if (handle.getCurrentVersion() != null) {
+                modelNames.add(handle.getModelName());
+            }
+        }
+
+        return modelNames;
+    }
+}
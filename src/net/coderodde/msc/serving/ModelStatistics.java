@@ -0,0 +1,78 @@
+package net.coderodde.msc.serving;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class holds the counters of a served model over all its versions. The
+ * counters are striped, so that concurrent request threads do not contend on
+ * a single cache line.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ModelStatistics {
+
+    private final LongAdder numberOfQueries = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maximumLatencyNanos =
+            new LongAccumulator(Math::max, 0L);
+    private final LongAdder numberOfPublications = new LongAdder();
+
+    void recordQuery(long latencyNanos) {
+        numberOfQueries.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maximumLatencyNanos.accumulate(latencyNanos);
+    }
+
+    /**
+     * Records a batch of queries answered together. The batch latency is
+     * spread evenly over the queries in the total, and counts as a whole
+     * towards the maximum latency.
+     */
+    void recordQueries(int queries, long batchLatencyNanos) {
+        numberOfQueries.add(queries);
+        totalLatencyNanos.add(batchLatencyNanos);
+        maximumLatencyNanos.accumulate(batchLatencyNanos);
+    }
+
+    void recordPublication() {
+        numberOfPublications.increment();
+    }
+
+    public long getNumberOfQueries() {
+        return numberOfQueries.sum();
+    }
+
+    public long getTotalLatencyNanos() {
+        return totalLatencyNanos.sum();
+    }
+
+    public long getMaximumLatencyNanos() {
+        return maximumLatencyNanos.get();
+    }
+
+    /**
+     * Returns the average latency of the queries served so far, or zero if no
+     * queries have been served.
+     *
+     * @return the average latency in nanoseconds.
+     */
+    public double getAverageLatencyNanos() {
+        long queries = getNumberOfQueries();
+        return queries == 0L ? 0.0 : (double) getTotalLatencyNanos() / queries;
+    }
+
+    public long getNumberOfPublications() {
+        return numberOfPublications.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "queries: " + getNumberOfQueries() +
+               ", average latency: " +
+               String.format("%.1f", getAverageLatencyNanos()) + " ns" +
+               ", maximum latency: " + getMaximumLatencyNanos() + " ns" +
+               ", publications: " + getNumberOfPublications();
+    }
+}
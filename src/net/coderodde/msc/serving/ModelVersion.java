@@ -0,0 +1,72 @@
+package net.coderodde.msc.serving;
+
+import java.util.Objects;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+
+/**
+ * This class holds one published version of a served model. The predictor is
+ * immutable, so a request that has loaded a version may keep using it after a
+ * newer version has been published and this one retired.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class ModelVersion<C> {
+
+    private final String modelName;
+    private final long versionNumber;
+    private final ParsimoniousContextTreePredictor<C> predictor;
+    private final long publicationTimeMillis;
+    private volatile boolean retired;
+
+    ModelVersion(String modelName,
+                 long versionNumber,
+                 ParsimoniousContextTreePredictor<C> predictor) {
+        this.modelName = modelName;
+        this.versionNumber = versionNumber;
+        this.predictor = Objects.requireNonNull(predictor,
+                                                "The predictor is null.");
+        this.publicationTimeMillis = System.currentTimeMillis();
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Returns the version number. The first published version of a model has
+     * the number one, and each publication increments it.
+     *
+     * @return the version number.
+     */
+    public long getVersionNumber() {
+        return versionNumber;
+    }
+
+    public ParsimoniousContextTreePredictor<C> getPredictor() {
+        return predictor;
+    }
+
+    public long getPublicationTimeMillis() {
+        return publicationTimeMillis;
+    }
+
+    /**
+     * Returns {@code true} if this version has been replaced or removed.
+     *
+     * @return {@code true} if this version is retired.
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    void retire() {
+        retired = true;
+    }
+
+    @Override
+    public String toString() {
+        return modelName + " v" + versionNumber + (retired ? " (retired)" : "");
+    }
+}
@@ -0,0 +1,216 @@
+package net.coderodde.msc.serving;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements a blocking client of {@link PredictionServer}. The
+ * {@code send} methods only buffer a request, so that any number of requests
+ * may be pipelined before calling {@link #flush()} and reading the responses
+ * in request order. The other query methods send one request and wait for its
+ * response.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class PredictionClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int nextRequestId;
+
+    public PredictionClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Buffers an info request.
+     *
+     * @return the request ID.
+     * @throws IOException if writing fails.
+     */
+    public int sendInfoRequest() throws IOException {
+        return sendRequest(PredictionProtocol.OPCODE_INFO, new byte[0]);
+    }
+
+    /**
+     * Buffers a next-symbol request.
+     *
+     * @param context the encoded context in reading order.
+     * @return the request ID.
+     * @throws IOException if writing fails.
+     */
+    public int sendNextSymbolRequest(byte[] context) throws IOException {
+        return sendRequest(PredictionProtocol.OPCODE_NEXT_SYMBOL, context);
+    }
+
+    /**
+     * Buffers a sequence log-likelihood request.
+     *
+     * @param sequence the encoded sequence.
+     * @return the request ID.
+     * @throws IOException if writing fails.
+     */
+    public int sendSequenceLogLikelihoodRequest(byte[] sequence)
+    throws IOException {
+        return sendRequest(PredictionProtocol.OPCODE_SEQUENCE_LOG_LIKELIHOOD,
+                           sequence);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Reads the next response.
+     *
+     * @return the response.
+     * @throws IOException if reading fails.
+     */
+    public Response readResponse() throws IOException {
+        int length = in.readInt();
+
+        if (length < PredictionProtocol.RESPONSE_HEADER_LENGTH ||
+                length > PredictionProtocol.MAXIMUM_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length " + length + ".");
+        }
+
+        int requestId = in.readInt();
+        byte status = in.readByte();
+        byte[] payload =
+                new byte[length - PredictionProtocol.RESPONSE_HEADER_LENGTH];
+        in.readFully(payload);
+        return new Response(requestId, status, payload);
+    }
+
+    public Response getInfo() throws IOException {
+        sendInfoRequest();
+        flush();
+        return readResponse();
+    }
+
+    public double[] getNextSymbolProbabilities(byte[] context)
+    throws IOException {
+        sendNextSymbolRequest(context);
+        flush();
+        return readResponse().getProbabilities();
+    }
+
+    public double computeSequenceLogLikelihood(byte[] sequence)
+    throws IOException {
+        sendSequenceLogLikelihoodRequest(sequence);
+        flush();
+        return readResponse().getLogLikelihood();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private int sendRequest(byte opcode, byte[] payload) throws IOException {
+        int requestId = nextRequestId++;
+        out.writeInt(PredictionProtocol.REQUEST_HEADER_LENGTH + payload.length);
+        out.writeByte(opcode);
+        out.writeInt(requestId);
+        out.write(payload);
+        return requestId;
+    }
+
+    /**
+     * This class holds a response of the server.
+     */
+    public static final class Response {
+
+        private final int requestId;
+        private final byte status;
+        private final byte[] payload;
+
+        Response(int requestId, byte status, byte[] payload) {
+            this.requestId = requestId;
+            this.status = status;
+            this.payload = payload;
+        }
+
+        public int getRequestId() {
+            return requestId;
+        }
+
+        public boolean isOk() {
+            return status == PredictionProtocol.STATUS_OK;
+        }
+
+        public String getErrorMessage() {
+            return isOk() ? null : new String(payload, StandardCharsets.UTF_8);
+        }
+
+        public double[] getProbabilities() throws IOException {
+            DataInputStream payloadIn = openPayload();
+            double[] probabilities = new double[payloadIn.readInt()];
+
+            for (int c = 0; c < probabilities.length; c++) {
+                probabilities[c] = payloadIn.readDouble();
+            }
+
+            return probabilities;
+        }
+
+        public double getLogLikelihood() throws IOException {
+            return openPayload().readDouble();
+        }
+
+        public long getVersionNumber() throws IOException {
+            return openPayload().readLong();
+        }
+
+        public int getContextLength() throws IOException {
+            DataInputStream payloadIn = openPayload();
+            payloadIn.readLong();
+            return payloadIn.readInt();
+        }
+
+        /**
+         * Returns the alphabet characters of an info response in index order.
+         *
+         * @return the alphabet characters.
+         * @throws IOException if this is not an info response.
+         */
+        public List<String> getCharacters() throws IOException {
+            DataInputStream payloadIn = openPayload();
+            payloadIn.readLong();
+            payloadIn.readInt();
+            int alphabetSize = payloadIn.readInt();
+            List<String> characters = new ArrayList<>(alphabetSize);
+
+            for (int c = 0; c < alphabetSize; c++) {
+                byte[] bytes = new byte[payloadIn.readUnsignedShort()];
+                payloadIn.readFully(bytes);
+                characters.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            return characters;
+        }
+
+        private DataInputStream openPayload() throws IOException {
+            if (!isOk()) {
+                throw new IOException(getErrorMessage());
+            }
+
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.coderodde.msc.serving;
+
+/**
+ * This class defines the binary protocol of {@link PredictionServer}. All
+ * integers are big-endian. A request frame is
+ * <pre>
+ *   int  length      (the number of bytes following this field)
+ *   byte opcode
+ *   int  requestId
+ *   ...  payload
+ * </pre>
+ * and a response frame is
+ * <pre>
+ *   int  length      (the number of bytes following this field)
+ *   int  requestId   (copied from the request)
+ *   byte status
+ *   ...  payload
+ * </pre>
+ * The payloads by opcode are:
+ * <ul>
+ * <li>{@link #OPCODE_INFO}: no request payload. The response payload is the
+ * version number as a {@code long}, the context length and the alphabet size
+ * as {@code int}s, and the alphabet characters in index order, each as an
+ * unsigned {@code short} byte count followed by the UTF-8 bytes of
+ * {@code String.valueOf(character)}.</li>
+ * <li>{@link #OPCODE_NEXT_SYMBOL}: the request payload is an encoded context
+ * in reading order, at least as long as the context length. The response
+ * payload is the alphabet size as an {@code int} followed by the next-symbol
+ * probabilities as {@code double}s.</li>
+ * <li>{@link #OPCODE_SEQUENCE_LOG_LIKELIHOOD}: the request payload is an
+ * encoded sequence. The response payload is the log-likelihood of the
+ * sequence as a {@code double}, the positions shorter than the context length
+ * from the beginning not predicted.</li>
+ * </ul>
+ * If the status is {@link #STATUS_ERROR}, the response payload is an error
+ * message in UTF-8. A client may send any number of requests without waiting
+ * for the responses; the responses of a connection arrive in request order.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class PredictionProtocol {
+
+    public static final byte OPCODE_INFO = 0;
+    public static final byte OPCODE_NEXT_SYMBOL = 1;
+    public static final byte OPCODE_SEQUENCE_LOG_LIKELIHOOD = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    /**
+     * The number of bytes in a request header following the length field.
+     */
+    public static final int REQUEST_HEADER_LENGTH = 1 + 4;
+
+    /**
+     * The number of bytes in a response header following the length field.
+     */
+    public static final int RESPONSE_HEADER_LENGTH = 4 + 1;
+
+    /**
+     * The maximum value of the length field of a frame.
+     */
+    public static final int MAXIMUM_FRAME_LENGTH = 1 << 20;
+
+    private PredictionProtocol() {}
+}
@@ -0,0 +1,498 @@
+package net.coderodde.msc.serving;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+
+/**
+ * This class implements a single-threaded NIO server answering the requests of
+ * {@link PredictionProtocol} from the current version of a served model.
+ * <p>
+ * Each selector wakeup is handled as a micro-batch: first, all the readable
+ * connections are drained into their input buffers, after which the current
+ * model version is loaded once and every complete request frame of every
+ * drained connection is answered from it, and finally the output buffers are
+ * flushed. A connection may pipeline any number of requests; the frames are
+ * answered directly from the input buffer without copying. A connection whose
+ * pending output grows too large is not read from until the client catches
+ * up.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class PredictionServer<C> implements AutoCloseable {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 1 << 16;
+
+    /**
+     * The number of pending output bytes after which a connection is not read
+     * from.
+     */
+    private static final int OUTPUT_HIGH_WATER_MARK = 1 << 22;
+
+    private final ModelHandle<C> handle;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    private final List<Connection> drainedConnections = new ArrayList<>();
+    private volatile boolean running;
+
+    /**
+     * Constructs a server bound to {@code address}. The server does not accept
+     * connections before {@link #start()} is called.
+     *
+     * @param handle  the handle of the served model.
+     * @param address the address to bind to. Port zero picks a free port.
+     * @throws IOException if binding fails.
+     */
+    public PredictionServer(ModelHandle<C> handle, InetSocketAddress address)
+    throws IOException {
+        this.handle = Objects.requireNonNull(handle,
+                                             "The model handle is null.");
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = new Thread(this::run, "prediction-server");
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void start() {
+        running = true;
+        selectorThread.start();
+    }
+
+    /**
+     * Stops the server and closes all the connections.
+     *
+     * @throws IOException if closing the selector fails.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+
+        try {
+            selectorThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+
+        selector.close();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> iterator =
+                        selector.selectedKeys().iterator();
+
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    // Only the connections of this server are attached:
+                    @SuppressWarnings("unchecked")
+                    Connection connection = (Connection) key.attachment();
+
+                    if (key.isWritable()) {
+                        connection.flush();
+                    }
+
+                    if (key.isValid() &&
+                            key.isReadable() &&
+                            connection.read()) {
+                        drainedConnections.add(connection);
+                    }
+                }
+
+                answerDrainedConnections();
+            }
+        } catch (IOException ex) {
+            if (running) {
+                ex.printStackTrace(System.err);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void answerDrainedConnections() {
+        if (drainedConnections.isEmpty()) {
+            return;
+        }
+
+        ModelVersion<C> version = handle.getCurrentVersion();
+        long startTime = System.nanoTime();
+        int queries = 0;
+
+        for (Connection connection : drainedConnections) {
+            queries += connection.answerFrames(version);
+        }
+
+        if (queries > 0) {
+            handle.getStatistics()
+                  .recordQueries(queries, System.nanoTime() - startTime);
+        }
+
+        for (Connection connection : drainedConnections) {
+            connection.flush();
+        }
+
+        drainedConnections.clear();
+    }
+
+    /**
+     * This inner class holds the buffers of a client connection. Both buffers
+     * are kept in write mode between the calls.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+        private ByteBuffer output =
+                ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+        private final double[] probabilities = new double[Long.SIZE];
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Reads the available bytes.
+         *
+         * @return {@code true} if some bytes were read.
+         */
+        boolean read() {
+            try {
+                int bytes = channel.read(input);
+
+                if (bytes == -1) {
+                    close();
+                    return false;
+                }
+
+                return bytes > 0;
+            } catch (IOException ex) {
+                close();
+                return false;
+            }
+        }
+
+        /**
+         * Answers all the complete request frames in the input buffer.
+         *
+         * @return the number of answered requests.
+         */
+        int answerFrames(ModelVersion<C> version) {
+            if (!channel.isOpen()) {
+                return 0;
+            }
+
+            input.flip();
+            int requests = 0;
+
+            while (input.remaining() >= Integer.BYTES) {
+                int length = input.getInt(input.position());
+
+                if (length < PredictionProtocol.REQUEST_HEADER_LENGTH ||
+                        length > PredictionProtocol.MAXIMUM_FRAME_LENGTH) {
+                    close();
+                    return requests;
+                }
+
+                if (input.remaining() < Integer.BYTES + length) {
+                    break;
+                }
+
+                input.position(input.position() + Integer.BYTES);
+                byte opcode = input.get();
+                int requestId = input.getInt();
+                int payloadStart = input.arrayOffset() + input.position();
+                int payloadLength =
+                        length - PredictionProtocol.REQUEST_HEADER_LENGTH;
+
+                answer(version,
+                       opcode,
+                       requestId,
+                       input.array(),
+                       payloadStart,
+                       payloadStart + payloadLength);
+
+                input.position(input.position() + payloadLength);
+                requests++;
+            }
+
+            int pendingFrameLength = input.remaining() >= Integer.BYTES ?
+                                     Integer.BYTES +
+                                     input.getInt(input.position()) :
+                                     0;
+            input.compact();
+
+            if (pendingFrameLength > input.capacity()) {
+                input = grow(input, pendingFrameLength);
+            }
+
+            return requests;
+        }
+
+        void flush() {
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            output.flip();
+
+            try {
+                channel.write(output);
+            } catch (IOException ex) {
+                close();
+                return;
+            }
+
+            output.compact();
+            int interestOps = 0;
+
+            if (output.position() < OUTPUT_HIGH_WATER_MARK) {
+                interestOps |= SelectionKey.OP_READ;
+            }
+
+            if (output.position() > 0) {
+                interestOps |= SelectionKey.OP_WRITE;
+            }
+
+            key.interestOps(interestOps);
+        }
+
+        private void answer(ModelVersion<C> version,
+                            byte opcode,
+                            int requestId,
+                            byte[] payload,
+                            int from,
+                            int to) {
+            if (version == null) {
+                writeError(requestId, "No model is published.");
+                return;
+            }
+
+            ParsimoniousContextTreePredictor<C> predictor =
+                    version.getPredictor();
+            int alphabetSize = predictor.getAlphabet().size();
+            int contextLength = predictor.getContextLength();
+
+            switch (opcode) {
+                case PredictionProtocol.OPCODE_INFO:
+                    writeInfo(requestId, version);
+                    return;
+
+                case PredictionProtocol.OPCODE_NEXT_SYMBOL:
+                    if (!checkSymbols(requestId,
+                                      payload,
+                                      from,
+                                      to,
+                                      alphabetSize)) {
+                        return;
+                    }
+
+                    if (to - from < contextLength) {
+                        writeError(requestId,
+                                   "The context must have at least " +
+                                   contextLength + " characters.");
+                        return;
+                    }
+
+                    predictor.getNextSymbolProbabilities(payload,
+                                                         to,
+                                                         probabilities);
+                    ensureOutputCapacity(Integer.BYTES +
+                                         alphabetSize * Double.BYTES);
+                    int lengthPosition = writeHeader(requestId,
+                                                     PredictionProtocol
+                                                             .STATUS_OK);
+                    output.putInt(alphabetSize);
+
+                    for (int c = 0; c < alphabetSize; c++) {
+                        output.putDouble(probabilities[c]);
+                    }
+
+                    finishFrame(lengthPosition);
+                    return;
+
+                case PredictionProtocol.OPCODE_SEQUENCE_LOG_LIKELIHOOD:
+                    if (!checkSymbols(requestId,
+                                      payload,
+                                      from,
+                                      to,
+                                      alphabetSize)) {
+                        return;
+                    }
+
+                    double logLikelihood =
+                            to - from <= contextLength ?
+                            0.0 :
+                            predictor.computeSequenceLogLikelihood(
+                                    payload,
+                                    from + contextLength,
+                                    to);
+                    ensureOutputCapacity(Double.BYTES);
+                    lengthPosition = writeHeader(requestId,
+                                                 PredictionProtocol.STATUS_OK);
+                    output.putDouble(logLikelihood);
+                    finishFrame(lengthPosition);
+                    return;
+
+                default:
+                    writeError(requestId, "Unknown opcode " + opcode + ".");
+            }
+        }
+
+        private boolean checkSymbols(int requestId,
+                                     byte[] payload,
+                                     int from,
+                                     int to,
+                                     int alphabetSize) {
+            for (int i = from; i < to; i++) {
+                if (payload[i] < 0 || payload[i] >= alphabetSize) {
+                    writeError(requestId,
+                               "Invalid character index " + payload[i] +
+                               " at " + (i - from) + ".");
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void writeInfo(int requestId, ModelVersion<C> version) {
+            ParsimoniousContextTreePredictor<C> predictor =
+                    version.getPredictor();
+            Alphabet<C> alphabet = predictor.getAlphabet();
+            List<byte[]> characters = new ArrayList<>(alphabet.size());
+            int payloadLength = Long.BYTES + 2 * Integer.BYTES;
+
+            for (C character : alphabet.getCharacters()) {
+                byte[] bytes = String.valueOf(character)
+                                     .getBytes(StandardCharsets.UTF_8);
+                characters.add(bytes);
+                payloadLength += Short.BYTES + bytes.length;
+            }
+
+            ensureOutputCapacity(payloadLength);
+            int lengthPosition = writeHeader(requestId,
+                                             PredictionProtocol.STATUS_OK);
+            output.putLong(version.getVersionNumber());
+            output.putInt(predictor.getContextLength());
+            output.putInt(alphabet.size());
+
+            for (byte[] bytes : characters) {
+                output.putShort((short) bytes.length);
+                output.put(bytes);
+            }
+
+            finishFrame(lengthPosition);
+        }
+
+        private void writeError(int requestId, String message) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            ensureOutputCapacity(bytes.length);
+            int lengthPosition = writeHeader(requestId,
+                                             PredictionProtocol.STATUS_ERROR);
+            output.put(bytes);
+            finishFrame(lengthPosition);
+        }
+
+        private int writeHeader(int requestId, byte status) {
+            int lengthPosition = output.position();
+            output.putInt(0);
+            output.putInt(requestId);
+            output.put(status);
+            return lengthPosition;
+        }
+
+        private void finishFrame(int lengthPosition) {
+            output.putInt(lengthPosition,
+                          output.position() - lengthPosition - Integer.BYTES);
+        }
+
+        private void ensureOutputCapacity(int payloadLength) {
+            int frameLength = Integer.BYTES +
+                              PredictionProtocol.RESPONSE_HEADER_LENGTH +
+                              payloadLength;
+
+            if (output.remaining() < frameLength) {
+                output = grow(output, output.position() + frameLength);
+            }
+        }
+
+        private void close() {
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // Nothing to do: the connection is gone anyway.
+            }
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int minimumCapacity) {
+        int capacity = buffer.capacity();
+
+        while (capacity < minimumCapacity) {
+            capacity <<= 1;
+        }
+
+        ByteBuffer grownBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grownBuffer.put(buffer);
+        return grownBuffer;
+    }
+}
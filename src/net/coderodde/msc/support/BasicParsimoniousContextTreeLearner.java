@@ -1,6 +1,7 @@
 package net.coderodde.msc.support;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -11,8 +12,12 @@ import java.util.Set;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.PartitionSweepEvent;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
 
 /**
  * This class implements a basic algorithm for learning parsimonious context 
@@ -29,7 +34,7 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * Specifies the maximum alphabet size at which the algorithm can switch to
      * optimal search.
      */
-    private static final int MAXIMUM_ALPHABET_SIZE = 13;
+    public static final int MAXIMUM_ALPHABET_SIZE = 13;
     
     /**
      * Maps an index to a corresponding Bell number.
@@ -55,9 +60,15 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     }
     
     /**
-     * Maps a single character to its absolute frequency.
+     * The number of partitions evaluated between the checks of the learning
+     * context.
      */
-    private Map<C, Integer> characterCountMap;
+    static final int PARTITIONS_PER_CONTEXT_CHECK = 1024;
+    
+    /**
+     * Maps the index of a single character to its absolute frequency.
+     */
+    private int[] characterCountHistogram;
     
     /**
      * Holds all possible node labels (proper and improper subsets of the 
@@ -65,6 +76,11 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      */
     private List<Set<C>> listOfAllPossibleNodeLabels;
     
+    /**
+     * The label holding the whole alphabet.
+     */
+    private Set<C> alphabetLabel;
+    
     /**
      * The root node of the resulting tree.
      */
@@ -99,6 +115,9 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 new BasicParsimoniousContextTreeLearner<>();
         
         state.alphabet = getAlphabet(listOfDataRows);
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
         
         checkDataRowListNotEmpty(listOfDataRows);
         checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
@@ -106,27 +125,129 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         state.listOfAllPossibleNodeLabels =
                 state.alphabet.getAllPossibleLabels();
         
-        state.characterCountMap = new HashMap<>();
+        state.characterCountHistogram = new int[state.alphabet.size()];
         state.mapPartitionToScore = new HashMap<>();
         state.root = new ParsimoniousContextTreeNode<>();
         state.root.setLabel(Collections.<C>emptySet());
-        state.k = 0.5 * (state.alphabet.size() - 1) * 
-                         Math.log(listOfDataRows.size());
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
         state.generateAllAlphabetPartitions();
         int depth = listOfDataRows.get(0).getNumberOfExplanatoryVariables();
         
-        state.buildTree(state.root, depth, depth, listOfDataRows);
-        
-        long nodes = getNumberOfNodesInTree(depth, state.alphabet.size());
-        long workEstimatePerNode = getNodeWorkEstimate(MAXIMUM_ALPHABET_SIZE);
-        
-//        System.out.println("DEBUG: nodes = " + nodes);
-//        System.out.println("DEBUG: work estimate = " + workEstimatePerNode);
-//        System.out.println("DEBUG: total work  = " + nodes * workEstimatePerNode);
+        getListener().onWorkEstimated(
+                getNumberOfNodesInTree(depth, state.alphabet.size()),
+                getNodeWorkEstimate(state.alphabet.size()));
         
+        state.buildTree(state.root, depth, depth, listOfDataRows);
         return new ParsimoniousContextTree<>(state.root);
     }
-        
+
+    /**
+     * Learns the optimal subtree of a node at the level {@code level} of a
+     * tree of depth {@code depth}. The alphabet and the leaf penalty are the
+     * ones of the whole data set, so that the subtrees of the children of the
+     * root may be learned separately and combined into the tree returned by
+     * {@link #learn(List)}. The label of the returned node is not set.
+     *
+     * @param dataRows the data rows reaching the node. May be empty.
+     * @param alphabet the alphabet of the whole data set.
+     * @param k        the leaf penalty of the whole data set.
+     * @param depth    the depth of the tree.
+     * @param level    the level of the node, at most {@code depth}.
+     * @return the root of the subtree.
+     */
+    public ParsimoniousContextTreeNode<C>
+        learnSubtree(List<DataRow<C>> dataRows,
+                     Alphabet<C> alphabet,
+                     double k,
+                     int depth,
+                     int level) {
+        if (level < 0 || level > depth) {
+            throw new IllegalArgumentException(
+                    "The level must be within [0, " + depth + "]: " + level);
+        }
+
+        BasicParsimoniousContextTreeLearner<C> state =
+                new BasicParsimoniousContextTreeLearner<>();
+
+        state.alphabet = alphabet;
+        state.alphabetLabel = new HashSet<>(alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
+        state.listOfAllPossibleNodeLabels = alphabet.getAllPossibleLabels();
+        state.characterCountHistogram = new int[alphabet.size()];
+        state.mapPartitionToScore = new HashMap<>();
+        state.k = k;
+        state.generateAllAlphabetPartitions();
+
+        ParsimoniousContextTreeNode<C> node =
+                new ParsimoniousContextTreeNode<>();
+        state.buildTree(node, depth - level, depth, dataRows);
+        return node;
+    }
+
+    /**
+     * Returns the label masks of the partition of the alphabet maximizing the
+     * sum of the scores of its labels. This is the partition
+     * {@link #learn(List)} selects for a node whose children of all the
+     * nonempty labels have the given scores, found without enumerating the
+     * partitions: the best partition of a subset of the alphabet is the best
+     * label containing the lowest character of the subset, plus the best
+     * partition of the rest.
+     *
+     * @param labelScores the score of each label, indexed by the label mask.
+     *                    The length must be {@code 2^n}, where {@code n} is
+     *                    the alphabet size.
+     * @return the label masks of the best partition.
+     */
+    public static long[] selectBestPartition(double[] labelScores) {
+        int numberOfSubsets = labelScores.length;
+
+        if (numberOfSubsets < 2 || Integer.bitCount(numberOfSubsets) != 1) {
+            throw new IllegalArgumentException(
+                    "The number of label scores must be a power of two " +
+                    "greater than one: " + numberOfSubsets);
+        }
+
+        double[] bestScores = new double[numberOfSubsets];
+        int[] bestLabels = new int[numberOfSubsets];
+
+        for (int subset = 1; subset < numberOfSubsets; subset++) {
+            int lowestCharacter = subset & -subset;
+            int rest = subset ^ lowestCharacter;
+            bestScores[subset] = Double.NEGATIVE_INFINITY;
+
+            // Iterate over the subsets of 'rest', each added to the lowest
+            // character to form a label:
+            for (int other = rest; ; other = (other - 1) & rest) {
+                int label = other | lowestCharacter;
+                double score = labelScores[label] +
+                               bestScores[subset ^ label];
+
+                if (bestScores[subset] < score) {
+                    bestScores[subset] = score;
+                    bestLabels[subset] = label;
+                }
+
+                if (other == 0) {
+                    break;
+                }
+            }
+        }
+
+        long[] labelMasks =
+                new long[Integer.numberOfTrailingZeros(numberOfSubsets)];
+        int size = 0;
+
+        for (int subset = numberOfSubsets - 1;
+                subset != 0;
+                subset ^= bestLabels[subset]) {
+            labelMasks[size++] = bestLabels[subset];
+        }
+
+        return Arrays.copyOf(labelMasks, size);
+    }
+
     private void generateAllAlphabetPartitions() {
         this.listOfAllAlphabetPartitions = new ArrayList<>();
         
@@ -142,33 +263,42 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     }
         
     private double computeScore(List<DataRow<C>> dataRows) {
-        double score = -k;
-        characterCountMap.clear();
-        
-        for (DataRow<C> dataRow : dataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            characterCountMap.put(
-                    responseVariable, 
-                    characterCountMap.getOrDefault(responseVariable, 0) + 1);
-        }
-        
-        for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-            score += entry.getValue() * 
-                     Math.log((1.0 * entry.getValue()) / dataRows.size());
-        }
-        
-        return score;
+        return ScoringKernel.computeScore(dataRows, 
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
     }
     
     private void buildTree(ParsimoniousContextTreeNode<C> node, 
                            int currentDepth,
                            int totalDepth,
                            List<DataRow<C>> dataRows) {
+        LearnerListener listener = getListener();
+        int level = totalDepth - currentDepth;
+        listener.onSubtreeStarted(level);
+        
         if (currentDepth == 0) {
             node.setScore(computeScore(dataRows));
+            listener.onRowsScanned(level, dataRows.size());
+            listener.onHistogramsBuilt(level, 1);
+            listener.onSubtreeFinished(level);
             return;
         }
         
+        if (getContext().shouldStop()) {
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(node,
+                                             alphabetLabel,
+                                             currentDepth,
+                                             computeScore(dataRows));
+            listener.onRowsScanned(level, dataRows.size());
+            listener.onHistogramsBuilt(level, 1);
+            listener.onSubtreeFinished(level);
+            return;
+        }
+        
+        SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+        subtreeEvent.begin();
         Set<ParsimoniousContextTreeNode<C>> children = 
                 new HashSet<>(this.alphabet
                                   .getNumberOfNonemptyCharacterCombinations());
@@ -192,6 +322,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             nodeToDataMap.put(childNode, new ArrayList<>());
         }
         
+        listener.onNodesCreated(level + 1, children.size());
+        
         // Maps each alphabet character to the list of PCT nodes whose labels
         // contain the character in question:
         Map<C, List<ParsimoniousContextTreeNode<C>>> mapCharToNodes = 
@@ -222,28 +354,56 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             }
         }
         
+        listener.onRowsScanned(level, dataRows.size());
+        
+        int numberOfChildrenBuilt = 0;
+        
         // Recur to build each child node:
         for (ParsimoniousContextTreeNode<C> child : children) {
             buildTree(child, 
                       currentDepth - 1,
                       totalDepth, 
                       nodeToDataMap.get(child));
+            
+            if (level == 0) {
+                getContext().reportProgress(++numberOfChildrenBuilt,
+                                            children.size());
+            }
         }
         
+        PartitionSweepEvent sweepEvent = new PartitionSweepEvent();
+        sweepEvent.begin();
         this.mapPartitionToScore.clear();
+        double singleLabelScore = Double.NaN;
+        int numberOfPartitionsEvaluated = 0;
         // Enumerate all valid partitions and compute the score of each 
-        // partition. Runs in \sigma B_\sigma time.
+        // partition. Runs in \sigma B_\sigma time. Once the context stops
+        // the learning, the best partition evaluated so far is selected.
         for (List<Set<C>> alphabetPartition :
                 this.listOfAllAlphabetPartitions) {
+            if (numberOfPartitionsEvaluated > 0 &&
+                    numberOfPartitionsEvaluated %
+                    PARTITIONS_PER_CONTEXT_CHECK == 0 &&
+                    getContext().shouldStop()) {
+                break;
+            }
+            
+            numberOfPartitionsEvaluated++;
             double score = 0.0;
             
             for (Set<C> label : alphabetPartition) {
                 score += nodeMap.get(label).getScore();
             }
             
+            if (alphabetPartition.size() == 1) {
+                singleLabelScore = score;
+            }
+            
             this.mapPartitionToScore.put(alphabetPartition, score);
         }
         
+        listener.onPartitionsEvaluated(level, numberOfPartitionsEvaluated);
+        
         double bestScore = Double.NEGATIVE_INFINITY;
         List<Set<C>> bestPartition = null;
         
@@ -256,6 +416,13 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         }   
         
         node.setScore(bestScore);
+        sweepEvent.commit(getClass(),
+                          level,
+                          alphabet.size(),
+                          dataRows.size(),
+                          numberOfPartitionsEvaluated,
+                          bestScore,
+                          bestScore - singleLabelScore);
         
         Set<Set<C>> bestPartitionAsSet = new HashSet<>(bestPartition);
         Iterator<ParsimoniousContextTreeNode<C>> iterator =
@@ -268,30 +435,76 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 iterator.remove();
             }
         }
+        
+        listener.onNodesPruned(level + 1,
+                               nodeMap.size() - node.getChildren().size());
+        listener.onSubtreeFinished(level);
+        subtreeEvent.commit(getClass(),
+                            level,
+                            totalDepth,
+                            alphabet.size(),
+                            dataRows.size(),
+                            node.getChildren().size());
     }
     
+    /**
+     * Returns the number of nodes built for a tree of depth {@code depth}, or
+     * {@link Long#MAX_VALUE} if the number does not fit in a {@code long}.
+     */
     private static long getNumberOfNodesInTree(int depth, int alphabetSize) {
         long numberOfAlphabetCombinations = myPow(2, alphabetSize) - 1;
-        long tmp = myPow(numberOfAlphabetCombinations, depth + 1);
-        return (1 - tmp) / (1 - numberOfAlphabetCombinations);
+        long numberOfNodes = 0L;
+        long numberOfLevelNodes = 1L;
+        
+        // Sum the nodes level by level, since the closed form of the geometric
+        // series overflows first and divides by zero for a single character:
+        for (int level = 0; level <= depth; level++) {
+            numberOfNodes = saturatedAdd(numberOfNodes, numberOfLevelNodes);
+            numberOfLevelNodes =
+                    saturatedMultiply(numberOfLevelNodes,
+                                      numberOfAlphabetCombinations);
+        }
+        
+        return numberOfNodes;
     }
     
+    /**
+     * Returns the work of building an inner node, or {@link Long#MAX_VALUE}
+     * for the alphabets too large for optimal search.
+     */
     private static long getNodeWorkEstimate(int alphabetSize) {
+        if (alphabetSize > MAXIMUM_ALPHABET_SIZE) {
+            return Long.MAX_VALUE;
+        }
+        
         return alphabetSize * BELL_NUMBERS[alphabetSize] + 
                alphabetSize * myPow(2, alphabetSize) +
                myPow(2, alphabetSize);
     }
     
     private static long myPow(long base, int exponent) {
-        int result = 1;
+        long result = 1L;
         
         for (int i = 0; i < exponent; i++)  {
-            result *= base;
+            result = saturatedMultiply(result, base);
         }
         
         return result;
     }
     
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0L ? Long.MAX_VALUE : sum;
+    }
+    
+    private static long saturatedMultiply(long a, long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
     public static void main(String[] args) {
         List<DataRow<Integer>> dataRows = new ArrayList<>();
         dataRows.add(new DataRow<>(1, 2, 3));
@@ -0,0 +1,520 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.MergeStepEvent;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
+
+/**
+ * This class implements a beam search PCT learner. Like
+ * {@link HeuristicParsimoniousContextTreeLearner}, it selects the children of
+ * each node by merging the children of the single characters pairwise, but
+ * instead of the single best partition, it keeps the {@code B} best
+ * partitions of each number of children, and merges down to a single child,
+ * selecting the best partition seen. The merges are scored from the response
+ * histograms of the children in {@code O(s)} time, and the partitions reached
+ * by different merge orders are kept only once. At the beam width of one,
+ * the learner follows the greedy merges past the point where the heuristic
+ * learner stops, so its partition of each node is never worse; at the beam
+ * width of the largest Stirling number of the second kind of the alphabet
+ * size, it considers all the partitions like
+ * {@link BasicParsimoniousContextTreeLearner} does for a tree of depth one.
+ * The memory of the search is proportional to {@code B} times the square of
+ * the alphabet size, and its time to {@code B} times the fourth power of the
+ * alphabet size per node, unless cut short by the time budget of a node.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class BeamSearchParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The largest alphabet size, at which the labels of the children still
+     * fit in a {@code long} mask.
+     */
+    public static final int MAXIMUM_ALPHABET_SIZE = Long.SIZE;
+
+    public static final int DEFAULT_BEAM_WIDTH = 8;
+
+    private int beamWidth = DEFAULT_BEAM_WIDTH;
+
+    /**
+     * The time the search of the partition of a node may take in
+     * nanoseconds.
+     */
+    private long nodeTimeBudget = Long.MAX_VALUE;
+
+    private Alphabet<C> alphabet;
+    private Set<C> alphabetLabel;
+    private int depth;
+    private double k;
+    private int[] characterCountHistogram;
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * Sets the number of partitions kept for each number of children.
+     *
+     * @param beamWidth the positive beam width.
+     */
+    public void setBeamWidth(int beamWidth) {
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException(
+                    "The beam width must be positive: " + beamWidth);
+        }
+
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Returns the time budget of a node in nanoseconds, or
+     * {@link Long#MAX_VALUE} if there is none.
+     *
+     * @return the time budget of a node.
+     */
+    public long getNodeTimeBudget() {
+        return nodeTimeBudget;
+    }
+
+    /**
+     * Sets the time the search of the partition of a node may take. Once the
+     * time is up, the best partition seen so far is selected. There is no
+     * limit by default.
+     *
+     * @param nodeTimeBudget the non-negative time budget.
+     * @param unit           the unit of the budget.
+     */
+    public void setNodeTimeBudget(long nodeTimeBudget, TimeUnit unit) {
+        Objects.requireNonNull(unit, "The time unit is null.");
+
+        if (nodeTimeBudget < 0L) {
+            throw new IllegalArgumentException(
+                    "The time budget is negative: " + nodeTimeBudget);
+        }
+
+        this.nodeTimeBudget = unit.toNanos(nodeTimeBudget);
+    }
+
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
+        Objects.requireNonNull(listOfDataRows);
+        checkDataRowListNotEmpty(listOfDataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
+
+        BeamSearchParsimoniousContextTreeLearner<C> state =
+                new BeamSearchParsimoniousContextTreeLearner<>();
+
+        state.alphabet = getAlphabet(listOfDataRows);
+
+        if (state.alphabet.size() > MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet has more than " + MAXIMUM_ALPHABET_SIZE +
+                    " characters: " + state.alphabet.size());
+        }
+
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
+        state.beamWidth = beamWidth;
+        state.nodeTimeBudget = nodeTimeBudget;
+        state.depth = listOfDataRows.get(0).getNumberOfExplanatoryVariables();
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        root.setLabel(Collections.emptySet());
+        state.build(root, state.depth, listOfDataRows);
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    private void build(ParsimoniousContextTreeNode<C> node,
+                       int currentDepth,
+                       List<DataRow<C>> dataRows) {
+        LearnerListener listener = getListener();
+        int level = depth - currentDepth;
+
+        if (currentDepth == 0) {
+            node.setScore(computeScore(dataRows));
+            listener.onRowsScanned(level, dataRows.size());
+            listener.onHistogramsBuilt(level, 1);
+            return;
+        }
+
+        listener.onSubtreeStarted(level);
+
+        if (getContext().shouldStop()) {
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(node,
+                                             alphabetLabel,
+                                             currentDepth,
+                                             computeScore(dataRows));
+            listener.onSubtreeFinished(level);
+            return;
+        }
+
+        SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+        subtreeEvent.begin();
+        int alphabetSize = alphabet.size();
+        long[][] characterHistograms = new long[alphabetSize][alphabetSize];
+
+        for (DataRow<C> dataRow : dataRows) {
+            characterHistograms
+                    [alphabet.getIndexOf(dataRow.getExplanatoryVariable(level))]
+                    [alphabet.getIndexOf(dataRow.getResponseVariable())]++;
+        }
+
+        listener.onRowsScanned(level, dataRows.size());
+        listener.onHistogramsBuilt(level, alphabetSize);
+        long[] labelMasks = selectPartition(characterHistograms,
+                                            level,
+                                            dataRows.size());
+
+        // Split the rows among the children:
+        List<ParsimoniousContextTreeNode<C>> children =
+                new ArrayList<>(labelMasks.length);
+        List<List<DataRow<C>>> childDataRows =
+                new ArrayList<>(labelMasks.length);
+        int[] characterToChild = new int[alphabetSize];
+
+        for (int i = 0; i < labelMasks.length; i++) {
+            Set<C> label = new HashSet<>();
+
+            for (int c = 0; c < alphabetSize; c++) {
+                if ((labelMasks[i] & (1L << c)) != 0L) {
+                    label.add(alphabet.get(c));
+                    characterToChild[c] = i;
+                }
+            }
+
+            ParsimoniousContextTreeNode<C> child =
+                    new ParsimoniousContextTreeNode<>();
+            child.setLabel(label);
+            children.add(child);
+            childDataRows.add(new ArrayList<>());
+        }
+
+        listener.onNodesCreated(level + 1, children.size());
+
+        for (DataRow<C> dataRow : dataRows) {
+            int c = alphabet.getIndexOf(dataRow.getExplanatoryVariable(level));
+            childDataRows.get(characterToChild[c]).add(dataRow);
+        }
+
+        listener.onRowsScanned(level, dataRows.size());
+        double score = 0.0;
+
+        for (int i = 0; i < children.size(); i++) {
+            build(children.get(i), currentDepth - 1, childDataRows.get(i));
+            score += children.get(i).getScore();
+
+            if (level == 0) {
+                getContext().reportProgress(i + 1, children.size());
+            }
+        }
+
+        node.setChildren(new HashSet<>(children));
+        node.setScore(score);
+        listener.onSubtreeFinished(level);
+        subtreeEvent.commit(getClass(),
+                            level,
+                            depth,
+                            alphabetSize,
+                            dataRows.size(),
+                            children.size());
+    }
+
+    /**
+     * Returns the label masks of the best partition found by the beam search
+     * from the response histograms of the rows of each character. The masks
+     * are ordered by their lowest character.
+     */
+    private long[] selectPartition(long[][] characterHistograms,
+                                   int level,
+                                   int rowCount) {
+        LearnerListener listener = getListener();
+        long deadline = nodeTimeBudget == Long.MAX_VALUE ?
+                        0L :
+                        System.nanoTime() + nodeTimeBudget;
+        int alphabetSize = characterHistograms.length;
+        Partition best = Partition.createSingletons(characterHistograms, k);
+        List<Partition> beam = Collections.singletonList(best);
+        long[] mergedHistogram = new long[alphabetSize];
+        MergeStepEvent mergeEvent = new MergeStepEvent();
+
+        // Each step merges a pair of children of the partitions in the beam:
+        for (int numberOfChildren = alphabetSize;
+                numberOfChildren > 1;
+                numberOfChildren--) {
+            if (getContext().shouldStop() ||
+                    (deadline != 0L && System.nanoTime() - deadline >= 0L)) {
+                break;
+            }
+
+            mergeEvent.begin();
+            Beam nextBeam = new Beam(beamWidth);
+            int numberOfCandidates = 0;
+
+            for (Partition partition : beam) {
+                for (int i = 0; i < numberOfChildren; i++) {
+                    for (int j = i + 1; j < numberOfChildren; j++) {
+                        for (int c = 0; c < alphabetSize; c++) {
+                            mergedHistogram[c] = partition.histograms[i][c] +
+                                                 partition.histograms[j][c];
+                        }
+
+                        double mergedLogLikelihood =
+                                ScoringKernel.computeScore(mergedHistogram,
+                                                           0.0);
+                        double score = partition.score + k +
+                                       mergedLogLikelihood -
+                                       partition.logLikelihoods[i] -
+                                       partition.logLikelihoods[j];
+                        nextBeam.offer(partition, i, j, score);
+                        numberOfCandidates++;
+                    }
+                }
+            }
+
+            listener.onMergesAttempted(level, numberOfCandidates);
+            beam = nextBeam.toPartitions();
+            double previousBestScore = best.score;
+
+            for (Partition partition : beam) {
+                if (best.score < partition.score) {
+                    best = partition;
+                }
+            }
+
+            mergeEvent.commit(getClass(),
+                              level,
+                              alphabetSize,
+                              rowCount,
+                              numberOfCandidates,
+                              numberOfChildren - 1,
+                              best.score - previousBestScore);
+        }
+
+        listener.onMergesAccepted(level,
+                                  alphabetSize - best.labelMasks.length);
+        return best.labelMasks;
+    }
+
+    private double computeScore(List<DataRow<C>> dataRows) {
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
+    }
+
+    /**
+     * A partition of the alphabet with the response histograms and the
+     * log-likelihoods of its blocks. The blocks are ordered by their lowest
+     * character, which makes the order of the label masks canonical.
+     */
+    private static final class Partition {
+
+        final long[] labelMasks;
+        final long[][] histograms;
+        final double[] logLikelihoods;
+        final double score;
+
+        Partition(long[] labelMasks,
+                  long[][] histograms,
+                  double[] logLikelihoods,
+                  double score) {
+            this.labelMasks = labelMasks;
+            this.histograms = histograms;
+            this.logLikelihoods = logLikelihoods;
+            this.score = score;
+        }
+
+        static Partition createSingletons(long[][] characterHistograms,
+                                          double k) {
+            int alphabetSize = characterHistograms.length;
+            long[] labelMasks = new long[alphabetSize];
+            double[] logLikelihoods = new double[alphabetSize];
+            double score = 0.0;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                labelMasks[c] = 1L << c;
+                logLikelihoods[c] =
+                        ScoringKernel.computeScore(characterHistograms[c],
+                                                   0.0);
+                score += logLikelihoods[c] - k;
+            }
+
+            return new Partition(labelMasks,
+                                 characterHistograms,
+                                 logLikelihoods,
+                                 score);
+        }
+
+        /**
+         * Returns the label masks of this partition with the blocks
+         * {@code i < j} merged. The merged block keeps the place of the block
+         * {@code i}, since it has the lower lowest character.
+         */
+        long[] getMergedLabelMasks(int i, int j) {
+            long[] mergedLabelMasks = new long[labelMasks.length - 1];
+            System.arraycopy(labelMasks, 0, mergedLabelMasks, 0, j);
+            System.arraycopy(labelMasks,
+                             j + 1,
+                             mergedLabelMasks,
+                             j,
+                             labelMasks.length - j - 1);
+            mergedLabelMasks[i] |= labelMasks[j];
+            return mergedLabelMasks;
+        }
+
+        /**
+         * Returns this partition with the blocks {@code i < j} merged.
+         */
+        Partition merge(int i, int j, double score) {
+            int length = labelMasks.length - 1;
+            long[][] mergedHistograms = new long[length][];
+            double[] mergedLogLikelihoods = new double[length];
+
+            for (int from = 0, to = 0; from < labelMasks.length; from++) {
+                if (from != j) {
+                    mergedHistograms[to] = histograms[from];
+                    mergedLogLikelihoods[to++] = logLikelihoods[from];
+                }
+            }
+
+            long[] mergedHistogram = histograms[i].clone();
+
+            for (int c = 0; c < mergedHistogram.length; c++) {
+                mergedHistogram[c] += histograms[j][c];
+            }
+
+            mergedHistograms[i] = mergedHistogram;
+            mergedLogLikelihoods[i] =
+                    ScoringKernel.computeScore(mergedHistogram, 0.0);
+            return new Partition(getMergedLabelMasks(i, j),
+                                 mergedHistograms,
+                                 mergedLogLikelihoods,
+                                 score);
+        }
+    }
+
+    /**
+     * A merge of the blocks {@code i < j} of a partition.
+     */
+    private static final class Candidate {
+
+        final Partition partition;
+        final int i;
+        final int j;
+        final double score;
+        final LabelMasks labelMasks;
+
+        Candidate(Partition partition,
+                  int i,
+                  int j,
+                  double score,
+                  LabelMasks labelMasks) {
+            this.partition = partition;
+            this.i = i;
+            this.j = j;
+            this.score = score;
+            this.labelMasks = labelMasks;
+        }
+    }
+
+    /**
+     * The canonical label masks of a partition as a hash key.
+     */
+    private static final class LabelMasks {
+
+        final long[] masks;
+        final int hashCode;
+
+        LabelMasks(long[] masks) {
+            this.masks = masks;
+            this.hashCode = Arrays.hashCode(masks);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LabelMasks &&
+                   Arrays.equals(masks, ((LabelMasks) o).masks);
+        }
+    }
+
+    /**
+     * Keeps the best distinct merges offered, at most the beam width of them.
+     * Of the merges with equal scores, the one offered first is kept.
+     */
+    private static final class Beam {
+
+        private final int width;
+        private final PriorityQueue<Candidate> queue;
+        private final Map<LabelMasks, Candidate> candidates = new HashMap<>();
+
+        Beam(int width) {
+            this.width = width;
+            this.queue = new PriorityQueue<>(
+                    (c1, c2) -> Double.compare(c1.score, c2.score));
+        }
+
+        void offer(Partition partition, int i, int j, double score) {
+            if (queue.size() == width && !(queue.peek().score < score)) {
+                return;
+            }
+
+            LabelMasks labelMasks =
+                    new LabelMasks(partition.getMergedLabelMasks(i, j));
+
+            if (candidates.containsKey(labelMasks)) {
+                return;
+            }
+
+            if (queue.size() == width) {
+                candidates.remove(queue.poll().labelMasks);
+            }
+
+            Candidate candidate =
+                    new Candidate(partition, i, j, score, labelMasks);
+            queue.add(candidate);
+            candidates.put(labelMasks, candidate);
+        }
+
+        List<Partition> toPartitions() {
+            List<Partition> partitions = new ArrayList<>(queue.size());
+
+            for (Candidate candidate : queue) {
+                partitions.add(candidate.partition.merge(candidate.i,
+                                                         candidate.j,
+                                                         candidate.score));
+            }
+
+            return partitions;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package net.coderodde.msc.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.LearningContext;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+
+/**
+ * This class learns the trees of {@link BasicParsimoniousContextTreeLearner}
+ * while saving the subtree of each label of the children of the root to a
+ * checkpoint directory as soon as it is learned, so that a run interrupted by
+ * a crash or preemption may be resumed by learning again from the same data.
+ * The subtrees are learned on a pool of threads, and the checkpoint files are
+ * written by a thread of their own, so that the writes do not stall the
+ * learning.
+ * <p>
+ * The checkpoint files of a data set are kept in a subdirectory named after
+ * the fingerprint of the data set, which is a SHA-256 hash of the rows, the
+ * alphabet and the learner configuration, as given by
+ * {@link EncodedDataSet#computeFingerprint(String)}. A learner resumed with
+ * the same fingerprint only learns the subtrees having no valid checkpoint
+ * file. Each file is written under a temporary name and then renamed, so an
+ * interrupted write never leaves a partial file behind.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class CheckpointingParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The magic number of a checkpoint file, "PCTC" in ASCII.
+     */
+    public static final int CHECKPOINT_MAGIC = 0x50435443;
+
+    public static final int CHECKPOINT_FORMAT_VERSION = 1;
+
+    private static final String CHECKPOINT_FILE_SUFFIX = ".subtree";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path checkpointDirectory;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+    private volatile int numberOfResumedSubtrees;
+    private volatile int numberOfLearnedSubtrees;
+
+    public CheckpointingParsimoniousContextTreeLearner(
+            Path checkpointDirectory) {
+        this.checkpointDirectory =
+                Objects.requireNonNull(checkpointDirectory,
+                                       "The checkpoint directory is null.");
+    }
+
+    public Path getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " +
+                    numberOfThreads);
+        }
+
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Returns the number of subtrees read from the checkpoint files during the
+     * last call to {@link #learn(List)}.
+     *
+     * @return the number of resumed subtrees.
+     */
+    public int getNumberOfResumedSubtrees() {
+        return numberOfResumedSubtrees;
+    }
+
+    /**
+     * Returns the number of subtrees learned during the last call to
+     * {@link #learn(List)}.
+     *
+     * @return the number of learned subtrees.
+     */
+    public int getNumberOfLearnedSubtrees() {
+        return numberOfLearnedSubtrees;
+    }
+
+    /**
+     * Learns the tree of {@link BasicParsimoniousContextTreeLearner}, resuming
+     * from the checkpoint files of the same data set. All the checkpoint
+     * files are written before returning. The subtrees finished after the
+     * context of this learner stops the learning are not written, since they
+     * may not be optimal.
+     *
+     * @param dataRows the list of data rows.
+     * @return a parsimonious context tree.
+     * @throws UncheckedIOException if accessing the checkpoint directory
+     *                              fails.
+     */
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> dataRows) {
+        Objects.requireNonNull(dataRows);
+        checkDataRowListNotEmpty(dataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(dataRows);
+        numberOfResumedSubtrees = 0;
+        numberOfLearnedSubtrees = 0;
+
+        Alphabet<C> alphabet = getAlphabet(dataRows);
+        int alphabetSize = alphabet.size();
+        int depth = dataRows.get(0).getNumberOfExplanatoryVariables();
+
+        if (alphabetSize >
+                BasicParsimoniousContextTreeLearner.MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large for optimal search (" +
+                    alphabetSize + "), must be at most " +
+                    BasicParsimoniousContextTreeLearner.MAXIMUM_ALPHABET_SIZE +
+                    ".");
+        }
+
+        if (depth == 0) {
+            BasicParsimoniousContextTreeLearner<C> learner =
+                    new BasicParsimoniousContextTreeLearner<>();
+            learner.setContext(getContext());
+            return learner.learn(dataRows);
+        }
+
+        double k = ScoringKernel.computeLeafPenalty(alphabetSize,
+                                                   dataRows.size());
+        EncodedDataSet<C> dataSet = new EncodedDataSet<>(dataRows, alphabet);
+        String fingerprint = dataSet.computeFingerprint(
+                BasicParsimoniousContextTreeLearner.class.getName() +
+                " k=" + Double.toHexString(k));
+        Path directory = checkpointDirectory.resolve(fingerprint);
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        List<List<DataRow<C>>> rowsByFirstCharacter =
+                new ArrayList<>(alphabetSize);
+
+        for (int c = 0; c < alphabetSize; c++) {
+            rowsByFirstCharacter.add(new ArrayList<>());
+        }
+
+        for (DataRow<C> dataRow : dataRows) {
+            rowsByFirstCharacter.get(alphabet.getIndexOf(
+                    dataRow.getExplanatoryVariable(0))).add(dataRow);
+        }
+
+        int numberOfLabels = 1 << alphabetSize;
+        ParsimoniousContextTreeNode<C>[] subtrees =
+                createSubtreeArray(numberOfLabels);
+        List<Integer> missingLabelMasks = new ArrayList<>();
+
+        for (int labelMask = 1; labelMask < numberOfLabels; labelMask++) {
+            subtrees[labelMask] = readCheckpoint(directory,
+                                                 fingerprint,
+                                                 labelMask,
+                                                 alphabet,
+                                                 depth);
+
+            if (subtrees[labelMask] == null) {
+                missingLabelMasks.add(labelMask);
+            }
+        }
+
+        numberOfResumedSubtrees = numberOfLabels - 1 -
+                                  missingLabelMasks.size();
+
+        // Learn the subtrees having the most rows first:
+        int[] numbersOfRows = new int[numberOfLabels];
+
+        for (int labelMask = 1; labelMask < numberOfLabels; labelMask++) {
+            for (int c = 0; c < alphabetSize; c++) {
+                if ((labelMask & (1 << c)) != 0) {
+                    numbersOfRows[labelMask] +=
+                            rowsByFirstCharacter.get(c).size();
+                }
+            }
+        }
+
+        missingLabelMasks.sort((a, b) -> Integer.compare(numbersOfRows[b],
+                                                         numbersOfRows[a]));
+        learnSubtrees(missingLabelMasks,
+                      subtrees,
+                      rowsByFirstCharacter,
+                      alphabet,
+                      k,
+                      depth,
+                      directory,
+                      fingerprint);
+
+        double[] labelScores = new double[numberOfLabels];
+
+        for (int labelMask = 1; labelMask < numberOfLabels; labelMask++) {
+            labelScores[labelMask] = subtrees[labelMask].getScore();
+        }
+
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        Set<ParsimoniousContextTreeNode<C>> children = new HashSet<>();
+        double score = 0.0;
+
+        for (long labelMask :
+                BasicParsimoniousContextTreeLearner
+                        .selectBestPartition(labelScores)) {
+            children.add(subtrees[(int) labelMask]);
+            score += labelScores[(int) labelMask];
+        }
+
+        root.setLabel(Collections.<C>emptySet());
+        root.setChildren(children);
+        root.setScore(score);
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    private void learnSubtrees(List<Integer> labelMasks,
+                               ParsimoniousContextTreeNode<C>[] subtrees,
+                               List<List<DataRow<C>>> rowsByFirstCharacter,
+                               Alphabet<C> alphabet,
+                               double k,
+                               int depth,
+                               Path directory,
+                               String fingerprint) {
+        ExecutorService learnerExecutor =
+                Executors.newFixedThreadPool(numberOfThreads);
+        ExecutorService writerExecutor = Executors.newSingleThreadExecutor();
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        AtomicInteger numberOfSubtreesDone = new AtomicInteger();
+        LearningContext context = getContext();
+        List<Future<?>> futures = new ArrayList<>(labelMasks.size());
+
+        try {
+            for (int labelMask : labelMasks) {
+                futures.add(learnerExecutor.submit(() -> {
+                    List<DataRow<C>> dataRows = new ArrayList<>();
+
+                    for (int c = 0; c < alphabet.size(); c++) {
+                        if ((labelMask & (1 << c)) != 0) {
+                            dataRows.addAll(rowsByFirstCharacter.get(c));
+                        }
+                    }
+
+                    BasicParsimoniousContextTreeLearner<C> learner =
+                            new BasicParsimoniousContextTreeLearner<>();
+                    learner.setContext(context);
+                    ParsimoniousContextTreeNode<C> subtree =
+                            learner.learnSubtree(dataRows,
+                                                 alphabet,
+                                                 k,
+                                                 depth,
+                                                 1);
+                    subtree.setLabel(getLabel(labelMask, alphabet));
+                    subtrees[labelMask] = subtree;
+                    context.reportProgress(
+                            numberOfSubtreesDone.incrementAndGet(),
+                            labelMasks.size());
+
+                    if (context.shouldStop()) {
+                        // The subtree may have been cut short by the
+                        // context, so it is not saved:
+                        return;
+                    }
+
+                    writerExecutor.execute(() -> {
+                        try {
+                            writeCheckpoint(directory,
+                                            fingerprint,
+                                            labelMask,
+                                            subtree,
+                                            alphabet);
+                        } catch (IOException ex) {
+                            writeFailure.compareAndSet(null, ex);
+                        }
+                    });
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            numberOfLearnedSubtrees = labelMasks.size();
+            writerExecutor.shutdown();
+
+            while (!writerExecutor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                // Wait for the pending checkpoint writes.
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            learnerExecutor.shutdownNow();
+            writerExecutor.shutdown();
+        }
+
+        if (writeFailure.get() != null) {
+            throw new UncheckedIOException(writeFailure.get());
+        }
+    }
+
+    // The array holds only the subtrees of this learner and is never exposed:
+    @SuppressWarnings("unchecked")
+    private static <C> ParsimoniousContextTreeNode<C>[] createSubtreeArray(
+            int length) {
+        return (ParsimoniousContextTreeNode<C>[])
+                new ParsimoniousContextTreeNode<?>[length];
+    }
+
+    private static Path getCheckpointPath(Path directory, int labelMask) {
+        return directory.resolve(Integer.toHexString(labelMask) +
+                                 CHECKPOINT_FILE_SUFFIX);
+    }
+
+    private static <C> void writeCheckpoint(
+            Path directory,
+            String fingerprint,
+            int labelMask,
+            ParsimoniousContextTreeNode<C> subtree,
+            Alphabet<C> alphabet) throws IOException {
+        Path path = getCheckpointPath(directory, labelMask);
+        Path temporaryPath =
+                path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(temporaryPath),
+                                BUFFER_SIZE))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            writeNode(subtree, alphabet, out);
+        }
+
+        Files.move(temporaryPath,
+                   path,
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the subtree of {@code node} in pre-order, each node as its label
+     * mask, score and number of children.
+     */
+    private static <C> void writeNode(ParsimoniousContextTreeNode<C> node,
+                                      Alphabet<C> alphabet,
+                                      DataOutputStream out)
+    throws IOException {
+        long labelMask = 0L;
+
+        for (C character : node.getLabel()) {
+            labelMask |= 1L << alphabet.getIndexOf(character);
+        }
+
+        Set<ParsimoniousContextTreeNode<C>> children = node.getChildren();
+        out.writeLong(labelMask);
+        out.writeDouble(node.getScore());
+        out.writeInt(children == null ? 0 : children.size());
+
+        if (children != null) {
+            for (ParsimoniousContextTreeNode<C> child : children) {
+                writeNode(child, alphabet, out);
+            }
+        }
+    }
+
+    /**
+     * Reads the checkpoint file of the label {@code labelMask}, returning
+     * {@code null} if there is no valid file of the fingerprint.
+     */
+    private static <C> ParsimoniousContextTreeNode<C>
+        readCheckpoint(Path directory,
+                       String fingerprint,
+                       int labelMask,
+                       Alphabet<C> alphabet,
+                       int depth) {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                Files.newInputStream(
+                                        getCheckpointPath(directory,
+                                                          labelMask)),
+                                BUFFER_SIZE))) {
+            if (in.readInt() != CHECKPOINT_MAGIC ||
+                    in.readInt() != CHECKPOINT_FORMAT_VERSION) {
+                return null;
+            }
+
+            if (!fingerprint.equals(in.readUTF())) {
+                return null;
+            }
+
+            ParsimoniousContextTreeNode<C> subtree =
+                    readNode(in, alphabet, depth - 1);
+
+            if (subtree == null ||
+                    !subtree.getLabel().equals(getLabel(labelMask, alphabet)) ||
+                    in.read() != -1) {
+                return null;
+            }
+
+            return subtree;
+        } catch (NoSuchFileException | EOFException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads a subtree written by {@link #writeNode} whose root has
+     * {@code height} levels below it, returning {@code null} if the subtree
+     * is not valid.
+     */
+    private static <C> ParsimoniousContextTreeNode<C>
+        readNode(DataInputStream in, Alphabet<C> alphabet, int height)
+    throws IOException {
+        long labelMask = in.readLong();
+        double score = in.readDouble();
+        int numberOfChildren = in.readInt();
+
+        if (labelMask == 0L ||
+                (labelMask >>> alphabet.size()) != 0L ||
+                numberOfChildren < 0 ||
+                numberOfChildren > alphabet.size() ||
+                (numberOfChildren == 0) != (height == 0)) {
+            return null;
+        }
+
+        ParsimoniousContextTreeNode<C> node =
+                new ParsimoniousContextTreeNode<>();
+        node.setLabel(getLabel((int) labelMask, alphabet));
+        node.setScore(score);
+
+        if (numberOfChildren > 0) {
+            Set<ParsimoniousContextTreeNode<C>> children =
+                    new HashSet<>(numberOfChildren);
+
+            for (int i = 0; i < numberOfChildren; i++) {
+                ParsimoniousContextTreeNode<C> child =
+                        readNode(in, alphabet, height - 1);
+
+                if (child == null) {
+                    return null;
+                }
+
+                children.add(child);
+            }
+
+            node.setChildren(children);
+        }
+
+        return node;
+    }
+
+    private static <C> Set<C> getLabel(int labelMask, Alphabet<C> alphabet) {
+        Set<C> label = new HashSet<>();
+
+        for (int c = 0; c < alphabet.size(); c++) {
+            if ((labelMask & (1 << c)) != 0) {
+                label.add(alphabet.get(c));
+            }
+        }
+
+        return label;
+    }
+}
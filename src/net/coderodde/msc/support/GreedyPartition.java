@@ -0,0 +1,141 @@
+package net.coderodde.msc.support;
+
+import java.util.Arrays;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.MergeStepEvent;
+
+/**
+ * This class selects the partition of the children of a node greedily as
+ * {@link HeuristicParsimoniousContextTreeLearner} does: starting from one
+ * child per character, the pair of children losing the least log-likelihood
+ * is merged as long as the loss is less than the leaf penalty saved by the
+ * merge. Since the order of the merges does not depend on the penalty, only
+ * the number of merges does, the range of penalties for which the partition
+ * stays the same is returned along with it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+final class GreedyPartition {
+
+    /**
+     * The label masks of the children.
+     */
+    final long[] labelMasks;
+
+    /**
+     * The partition is the same for the leaf penalties greater than
+     * {@code minimumPenalty} and at most {@code maximumPenalty}.
+     */
+    final double minimumPenalty;
+    final double maximumPenalty;
+
+    private GreedyPartition(long[] labelMasks,
+                            double minimumPenalty,
+                            double maximumPenalty) {
+        this.labelMasks = labelMasks;
+        this.minimumPenalty = minimumPenalty;
+        this.maximumPenalty = maximumPenalty;
+    }
+
+    /**
+     * Selects the partition for the leaf penalty {@code k}.
+     *
+     * @param characterHistograms the response histogram of the rows for each
+     *                            character of the next explanatory variable.
+     * @param k                   the leaf penalty.
+     * @param level               the level of the node, for the
+     *                            {@link MergeStepEvent}s.
+     * @return the partition.
+     */
+    static GreedyPartition select(long[][] characterHistograms,
+                                  double k,
+                                  int level) {
+        int alphabetSize = characterHistograms.length;
+        int numberOfChildren = alphabetSize;
+        long[] labelMasks = new long[numberOfChildren];
+        long[][] histograms = new long[numberOfChildren][];
+        double[] logLikelihoods = new double[numberOfChildren];
+
+        for (int c = 0; c < numberOfChildren; c++) {
+            labelMasks[c] = 1L << c;
+            histograms[c] = characterHistograms[c].clone();
+            logLikelihoods[c] = ScoringKernel.computeScore(histograms[c], 0.0);
+        }
+
+        double minimumPenalty = Double.NEGATIVE_INFINITY;
+        double maximumPenalty = Double.POSITIVE_INFINITY;
+        long[] mergedHistogram = new long[alphabetSize];
+        long rowCount = 0L;
+
+        for (long[] histogram : characterHistograms) {
+            for (long count : histogram) {
+                rowCount += count;
+            }
+        }
+
+        MergeStepEvent mergeEvent = new MergeStepEvent();
+
+        while (numberOfChildren > 1) {
+            mergeEvent.begin();
+            int bestChild1 = -1;
+            int bestChild2 = -1;
+            double bestGain = Double.NEGATIVE_INFINITY;
+            double bestMergedLogLikelihood = Double.NaN;
+
+            for (int i = 0; i < numberOfChildren; i++) {
+                for (int j = i + 1; j < numberOfChildren; j++) {
+                    for (int c = 0; c < alphabetSize; c++) {
+                        mergedHistogram[c] = histograms[i][c] +
+                                             histograms[j][c];
+                    }
+
+                    double mergedLogLikelihood =
+                            ScoringKernel.computeScore(mergedHistogram, 0.0);
+                    double gain = mergedLogLikelihood - logLikelihoods[i]
+                                                      - logLikelihoods[j];
+
+                    if (bestChild1 == -1 || bestGain < gain) {
+                        bestGain = gain;
+                        bestMergedLogLikelihood = mergedLogLikelihood;
+                        bestChild1 = i;
+                        bestChild2 = j;
+                    }
+                }
+            }
+
+            // The merge improves the score iff gain + k > 0:
+            if (!(k > -bestGain)) {
+                maximumPenalty = -bestGain;
+                break;
+            }
+
+            minimumPenalty = Math.max(minimumPenalty, -bestGain);
+            labelMasks[bestChild1] |= labelMasks[bestChild2];
+            logLikelihoods[bestChild1] = bestMergedLogLikelihood;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                histograms[bestChild1][c] += histograms[bestChild2][c];
+            }
+
+            numberOfChildren--;
+            mergeEvent.commit(GreedyPartition.class,
+                              level,
+                              alphabetSize,
+                              (int) Math.min(rowCount, Integer.MAX_VALUE),
+                              (numberOfChildren + 1) * numberOfChildren / 2,
+                              numberOfChildren,
+                              bestGain + k);
+
+            for (int i = bestChild2; i < numberOfChildren; i++) {
+                labelMasks[i] = labelMasks[i + 1];
+                histograms[i] = histograms[i + 1];
+                logLikelihoods[i] = logLikelihoods[i + 1];
+            }
+        }
+
+        return new GreedyPartition(Arrays.copyOf(labelMasks, numberOfChildren),
+                                   minimumPenalty,
+                                   maximumPenalty);
+    }
+}
@@ -1,6 +1,7 @@
 package net.coderodde.msc.support;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,8 +13,12 @@ import java.util.Set;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.MergeStepEvent;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
 
 /**
  * This class implements a heuristic PCT learner.
@@ -26,10 +31,11 @@ public final class HeuristicParsimoniousContextTreeLearner<C>
 extends AbstractParsimoniousContextTreeLearner<C> {
 
     private Alphabet<C> alphabet;
+    private Set<C> alphabetLabel;
     private List<DataRow<C>> dataRows;
     private double k;
     private ParsimoniousContextTreeNode<C> root;
-    private final Map<C, Integer> characterCountMap = new HashMap<>();
+    private int[] characterCountHistogram;
     
     @Override
     public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
@@ -41,9 +47,13 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 new HeuristicParsimoniousContextTreeLearner<>();
         
         state.alphabet = getAlphabet(listOfDataRows);
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
         state.dataRows = listOfDataRows;
-        state.k = 0.5 * (state.alphabet.size() - 1) * 
-                         Math.log(listOfDataRows.size());
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
         state.build();
         return new ParsimoniousContextTree<>(state.root);
     }
@@ -92,48 +102,28 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 - currentDepth;
         
         // Compute the scores for the children:
-        Map<C, Map<C, Integer>> mapCharToCounterMap = new HashMap<>();
-        Map<C, ParsimoniousContextTreeNode<C>> mapCharToNode = new HashMap<>();
-        
-        // Map each single character label to corresponding PCT node:
-        for (ParsimoniousContextTreeNode<C> child : parentNode.getChildren()) {
-            mapCharToNode.put(child.getLabel().iterator().next(), child);
-        }
+        Map<C, int[]> mapCharToHistogram = new HashMap<>();
         
         // Initialize all the character counts for each alphabet character:
         for (C character : alphabet.getCharacters()) {
-            mapCharToCounterMap.put(character, new HashMap<>());
+            mapCharToHistogram.put(character, new int[alphabet.size()]);
         }
         
         // Do the actual counting:
         for (DataRow<C> dataRow : dataRows) {
             C currentCharacter = dataRow.getExplanatoryVariable(characterIndex);
-            Map<C, Integer> characterMap = 
-                    mapCharToCounterMap.get(currentCharacter);
-            C responseCharacter = dataRow.getResponseVariable();
-            characterMap.put(responseCharacter,
-                             characterMap
-                                     .getOrDefault(responseCharacter, 0) + 1);
+            int[] histogram = mapCharToHistogram.get(currentCharacter);
+            histogram[alphabet.getIndexOf(dataRow.getResponseVariable())]++;
         }
         
+        getListener().onRowsScanned(characterIndex, dataRows.size());
+        getListener().onHistogramsBuilt(characterIndex, alphabet.size());
+        
         // Build the actual child node scores:
         for (ParsimoniousContextTreeNode<C> child : parentNode.getChildren()) {
-            Map<C, Integer> characterCountMap = 
-                    mapCharToCounterMap.get(child.getLabel().iterator().next());
-            
-            double score = -k;
-            int count = 0;
-            
-            for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                count += entry.getValue();
-            }
-            
-            for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                score += entry.getValue() * 
-                         Math.log(((double) entry.getValue()) / count);
-            }
-            
-            child.setScore(score);
+            int[] histogram = 
+                    mapCharToHistogram.get(child.getLabel().iterator().next());
+            child.setScore(ScoringKernel.computeScore(histogram, k));
         }
         
         // Set the parent node score:
@@ -149,8 +139,28 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     private void build(ParsimoniousContextTreeNode<C> parent,
                        int currentDepth,
                        List<DataRow<C>> dataRows) {
+        LearnerListener listener = getListener();
+        int level = dataRows.get(0).getNumberOfExplanatoryVariables()
+                    - currentDepth;
+        listener.onSubtreeStarted(level);
+        
+        if (getContext().shouldStop()) {
+            // The scores are computed at the end:
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(parent,
+                                             alphabetLabel,
+                                             currentDepth,
+                                             0.0);
+            listener.onSubtreeFinished(level);
+            return;
+        }
+        
+        SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+        subtreeEvent.begin();
+        
         // Create the children list for the parent node.
         List<ParsimoniousContextTreeNode<C>> childrenList = createChildren();
+        listener.onNodesCreated(level + 1, childrenList.size());
         parent.setChildren(new HashSet<>(childrenList)); 
         computeInitialScores(currentDepth, dataRows, parent);
         ParsimoniousContextTreeNode<C> bestChild1 = null;
@@ -173,13 +183,19 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             mapCharToDataRows.get(currentCharacter).add(dataRow);
         }
         
+        listener.onRowsScanned(level, dataRows.size());
         double bestParentScore = parent.getScore();
         double bestMergedScore = Double.NaN;
+        MergeStepEvent mergeEvent = new MergeStepEvent();
         
         while (true) {
+            mergeEvent.begin();
             boolean improved = false;
+            // Once the context stops the learning, keep the merges done so
+            // far:
+            boolean stopped = getContext().shouldStop();
             // Try pairwise merging.
-            for (int i = 0; i < childrenList.size(); i++) {
+            for (int i = 0; i < childrenList.size() && !stopped; i++) {
                 child1 = childrenList.get(i);
                 
                 for (int j = i + 1; j < childrenList.size(); j++) {
@@ -188,6 +204,7 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                                                          mapCharToDataRows,
                                                          child1,
                                                          child2);
+                    listener.onMergesAttempted(level, 1);
                     double candidateScore = 
                             parent.getScore() + mergedScore
                                               - child1.getScore()
@@ -206,6 +223,13 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             if (!improved) {
                 if (currentDepth == 1) {
                     // Don't build any deeper:
+                    listener.onSubtreeFinished(level);
+                    subtreeEvent.commit(getClass(),
+                                        level,
+                                        level + currentDepth,
+                                        alphabet.size(),
+                                        dataRows.size(),
+                                        parent.getChildren().size());
                     return;
                 }
                 
@@ -239,13 +263,30 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                     childDataRows.add(dataRow);
                 }
                 
+                listener.onRowsScanned(level, dataRows.size());
+                
+                int numberOfChildrenBuilt = 0;
+                
                 for (ParsimoniousContextTreeNode<C> child 
                         : parent.getChildren()) {
                     build(child, 
                           currentDepth - 1, 
                           nodeToDataRowsMap.get(child));
+                    
+                    if (level == 0) {
+                        getContext().reportProgress(
+                                ++numberOfChildrenBuilt,
+                                parent.getChildren().size());
+                    }
                 }
                 
+                listener.onSubtreeFinished(level);
+                subtreeEvent.commit(getClass(),
+                                    level,
+                                    level + currentDepth,
+                                    alphabet.size(),
+                                    dataRows.size(),
+                                    parent.getChildren().size());
                 return;
             } else {
                 // Merge:
@@ -254,6 +295,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 // Reuse bestChild1:
                 bestChild1.getLabel().addAll(bestChild2.getLabel());
                 bestChild1.setScore(bestMergedScore);
+                listener.onMergesAccepted(level, 1);
+                listener.onNodesPruned(level + 1, 1);
                 
                 // Update the parent score:
                 double parentScore = 0.0; 
@@ -263,6 +306,14 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                     parentScore += child.getScore();
                 }
                 
+                mergeEvent.commit(getClass(),
+                                  level,
+                                  alphabet.size(),
+                                  dataRows.size(),
+                                  (childrenList.size() + 1) *
+                                  childrenList.size() / 2,
+                                  childrenList.size(),
+                                  parentScore - parent.getScore());
                 parent.setScore(parentScore);
             }
         }
@@ -276,45 +327,30 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         int charIndex = 
                 dataRows.get(0).getNumberOfExplanatoryVariables() - depth;
         int count = 0;
-        double score = -k;
-        characterCountMap.clear();
-        
-        // Get the data row count:
-        for (C character : node1.getLabel()) {
-            count += mapCharacterToDataRows.get(character).size();
-        }
-        
-        for (C character : node2.getLabel()) {
-            count += mapCharacterToDataRows.get(character).size();
-        }
+        Arrays.fill(characterCountHistogram, 0);
         
         // Build the N_{V_a} values:
         for (C character : node1.getLabel()) {
-            for (DataRow<C> dataRow : mapCharacterToDataRows.get(character)) {
-                C responseVariable = dataRow.getResponseVariable();
-                characterCountMap.put(responseVariable, 
-                                      characterCountMap
-                                              .getOrDefault(responseVariable, 0) 
-                                              + 1);
-            }
+            List<DataRow<C>> characterDataRows =
+                    mapCharacterToDataRows.get(character);
+            count += characterDataRows.size();
+            ScoringKernel.countResponses(characterDataRows,
+                                         alphabet, 
+                                         characterCountHistogram);
         }
         
         for (C character : node2.getLabel()) {
-            for (DataRow<C> dataRow : mapCharacterToDataRows.get(character)) {
-                C responseVariable = dataRow.getResponseVariable();
-                characterCountMap.put(responseVariable, 
-                                      characterCountMap
-                                              .getOrDefault(responseVariable, 0) 
-                                              + 1);
-            }
+            List<DataRow<C>> characterDataRows =
+                    mapCharacterToDataRows.get(character);
+            count += characterDataRows.size();
+            ScoringKernel.countResponses(characterDataRows,
+                                         alphabet, 
+                                         characterCountHistogram);
         }
         
-        for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-            score += entry.getValue() *
-                     Math.log(((double) entry.getValue()) / count);
-        }
-        
-        return score;
+        getListener().onRowsScanned(charIndex, count);
+        getListener().onHistogramsBuilt(charIndex, 1);
+        return ScoringKernel.computeScore(characterCountHistogram, count, k);
     }
     
     private void computeScores() {
@@ -326,23 +362,16 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     private void computeScores(ParsimoniousContextTreeNode<C> node,
                                  List<DataRow<C>> data,
                                  int depth) {
+        int level = dataRows.get(0).getNumberOfExplanatoryVariables() - depth;
+        getListener().onRowsScanned(level, data.size());
+        
         if (depth == 0) {
-            Map<C, Integer> map = new HashMap<>();
-            
-            for (DataRow<C> dataRow : data) {
-                C responseVariable = dataRow.getResponseVariable();
-                map.put(responseVariable, 
-                        map.getOrDefault(responseVariable, 0) + 1);
-            }
-            
-            double score = -this.k;
-            
-            for (Map.Entry<C, Integer> entry : map.entrySet()) {
-                score += entry.getValue() *
-                         Math.log((1.0 * entry.getValue()) / data.size());
-            }
-            
+            double score = ScoringKernel.computeScore(data,
+                                                      alphabet,
+                                                      characterCountHistogram,
+                                                      k);
             node.setScore(score);
+            getListener().onHistogramsBuilt(level, 1);
             return;
         }
         
@@ -1,6 +1,7 @@
 package net.coderodde.msc.support;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,17 +9,42 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
+import net.coderodde.msc.LearningContext;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.HybridDecisionEvent;
+import net.coderodde.msc.jfr.MergeStepEvent;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
 
 /**
  * This class implements a simple hybrid heuristic PCT learner. For each new 
  * PCT node, this learner continues it with both heuristic and optimal 
  * algorithms, then it compares the two partial solutions and uses the better 
  * one to continue the new node.
+ * <p>
+ * The optimal search of a node is scheduled by its cost: since a finer
+ * partition of the rows never lowers their log-likelihood, the score of any
+ * partition is bounded by the score of the node as a single leaf and by the
+ * log-likelihood of the leaves of the single characters less two leaf
+ * penalties. If the greedy children reach this bound, the optimal search
+ * cannot do better and is skipped. Otherwise, the search is run only if the
+ * bound of its gain is at least {@link #setMinimumGainPerWorkUnit(double)}
+ * times its estimated work, which grows with the number of rows of the node
+ * and the number of characters in them. The optimal search may also run on
+ * another thread while the children are merged greedily. The decisions are
+ * counted by {@link #getNumberOfDecisions(Decision)} and recorded as
+ * {@link HybridDecisionEvent}s.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Apr 21, 2018)
@@ -30,7 +56,7 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * Specifies the maximum alphabet size at which the algorithm can switch to
      * optimal search.
      */
-    private static final int MAXIMUM_ALPHABET_SIZE = 13;
+    public static final int MAXIMUM_ALPHABET_SIZE = 13;
     
     /**
      * The alphabet of the data set.
@@ -57,6 +83,138 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      */
     private List<DataRow<C>> dataRows;
     
+    /**
+     * The decisions about the optimal search of a node after merging its
+     * children greedily.
+     */
+    public enum Decision {
+        
+        /**
+         * The greedy children reach the bound of the score of any partition,
+         * so the optimal search is skipped.
+         */
+        HEURISTIC_OPTIMAL,
+        
+        /**
+         * The bound of the gain of the optimal search is too small for its
+         * estimated work, so the search is skipped.
+         */
+        NOT_WORTH_THE_WORK,
+        
+        /**
+         * The optimal search ran and did not beat the greedy children.
+         */
+        SEARCHED_WITHOUT_GAIN,
+        
+        /**
+         * The optimal search ran and replaced the greedy children.
+         */
+        SEARCHED_WITH_GAIN
+    }
+    
+    /**
+     * The least estimated work of an optimal search run on another thread
+     * while merging greedily. Smaller searches are run after the merges.
+     */
+    static final long MINIMUM_CONCURRENT_WORK = 1L << 16;
+    
+    /**
+     * The default least gain per unit of estimated work for which an optimal
+     * search is run. On the benchmark data, it skips the searches of the 
+     * nodes with many rows or characters without changing the learned trees.
+     */
+    public static final double DEFAULT_MINIMUM_GAIN_PER_WORK_UNIT = 1e-5;
+    
+    /**
+     * The least gain per unit of estimated work for which an optimal search
+     * is run.
+     */
+    private double minimumGainPerWorkUnit = 
+            DEFAULT_MINIMUM_GAIN_PER_WORK_UNIT;
+    
+    /**
+     * Whether the optimal searches may run on another thread.
+     */
+    private boolean concurrentSearch;
+    
+    private final AtomicLongArray decisionCounts =
+            new AtomicLongArray(Decision.values().length);
+    
+    private final AtomicLong numberOfConcurrentSearches = new AtomicLong();
+    
+    public double getMinimumGainPerWorkUnit() {
+        return minimumGainPerWorkUnit;
+    }
+    
+    /**
+     * Sets the least bound of the gain of the optimal search of a node per
+     * unit of its estimated work for which the search is run. A unit of work
+     * is about copying a row or scoring a block of a partition. At zero, the
+     * search is skipped only if it cannot beat the greedy children, and the
+     * learned tree does not depend on the schedule. The default is
+     * {@link #DEFAULT_MINIMUM_GAIN_PER_WORK_UNIT}.
+     *
+     * @param minimumGainPerWorkUnit the non-negative gain per unit of work.
+     */
+    public void setMinimumGainPerWorkUnit(double minimumGainPerWorkUnit) {
+        if (!(minimumGainPerWorkUnit >= 0.0) ||
+                Double.isInfinite(minimumGainPerWorkUnit)) {
+            throw new IllegalArgumentException(
+                    "The minimum gain per work unit must be non-negative " +
+                    "and finite: " + minimumGainPerWorkUnit);
+        }
+        
+        this.minimumGainPerWorkUnit = minimumGainPerWorkUnit;
+    }
+    
+    public boolean isConcurrentSearch() {
+        return concurrentSearch;
+    }
+    
+    /**
+     * Sets whether the optimal search of a node may run on another thread
+     * while the children of the node are merged greedily, which pays off on
+     * machines with a spare processor. The search is run concurrently for
+     * the nodes whose estimated work is at least
+     * {@link #MINIMUM_CONCURRENT_WORK}, and is abandoned once the greedy
+     * children show it cannot pay off.
+     *
+     * @param concurrentSearch whether to search concurrently.
+     */
+    public void setConcurrentSearch(boolean concurrentSearch) {
+        this.concurrentSearch = concurrentSearch;
+    }
+    
+    /**
+     * Returns the number of times the decision {@code decision} was made
+     * since the creation of this learner or the last call to
+     * {@link #resetDecisionCounts()}.
+     *
+     * @param decision the decision.
+     * @return the number of decisions.
+     */
+    public long getNumberOfDecisions(Decision decision) {
+        return decisionCounts.get(decision.ordinal());
+    }
+    
+    /**
+     * Returns the number of optimal searches started on another thread,
+     * including the ones abandoned.
+     *
+     * @return the number of concurrent searches.
+     */
+    public long getNumberOfConcurrentSearches() {
+        return numberOfConcurrentSearches.get();
+    }
+    
+    public void resetDecisionCounts() {
+        for (int i = 0; i < decisionCounts.length(); i++) {
+            decisionCounts.set(i, 0L);
+        }
+        
+        numberOfConcurrentSearches.set(0L);
+    }
+    
     @Override
     public ParsimoniousContextTree<C> learn(List<DataRow<C>> dataRows) {
         this.alphabet = getAlphabet(dataRows);
@@ -65,27 +223,195 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         // If the alphabet too large for computing all the alphabet partitions,
         // then:
         if  (alphabetSize > MAXIMUM_ALPHABET_SIZE) {
-            return new HeuristicParsimoniousContextTreeLearner<C>()
-                       .learn(dataRows);
+            HeuristicParsimoniousContextTreeLearner<C> learner =
+                    new HeuristicParsimoniousContextTreeLearner<>();
+            learner.setListener(getListener());
+            learner.setContext(getContext());
+            return learner.learn(dataRows);
         }
         
-        return new InternalHeuristicParsimoniousContextTreeLearner<C>()
-                  .learn(dataRows);
+        InternalHeuristicParsimoniousContextTreeLearner<C> learner = 
+                new InternalHeuristicParsimoniousContextTreeLearner<>();
+        ExecutorService executor = createExecutor();
+        configure(learner, executor);
+        
+        try {
+            return learner.learn(dataRows);
+        } finally {
+            shutdown(executor);
+        }
+    }
+    
+    /**
+     * Selects the children of the root as {@link #learn(List)} does, for an
+     * alphabet of at most {@link #MAXIMUM_ALPHABET_SIZE} characters. The
+     * subtrees of the children may then be learned separately with
+     * {@link #learnSubtree}.
+     *
+     * @param dataRows the data rows.
+     * @param alphabet the alphabet of the data rows.
+     * @param k        the leaf penalty of the data rows.
+     * @return the labels of the children of the root.
+     */
+    public List<Set<C>> selectTopLevelPartition(List<DataRow<C>> dataRows,
+                                                Alphabet<C> alphabet,
+                                                double k) {
+        checkDataRowListNotEmpty(dataRows);
+        int depth = dataRows.get(0).getNumberOfExplanatoryVariables();
+        List<Set<C>> partition = new ArrayList<>();
+
+        if (depth == 0) {
+            return partition;
+        }
+
+        InternalHeuristicParsimoniousContextTreeLearner<C> state =
+                InternalHeuristicParsimoniousContextTreeLearner
+                        .createState(dataRows, alphabet, k, depth);
+        ExecutorService executor = createExecutor();
+        configure(state, executor);
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        
+        try {
+            state.selectChildren(root, depth, dataRows);
+        } finally {
+            shutdown(executor);
+        }
+
+        for (ParsimoniousContextTreeNode<C> child : root.getChildren()) {
+            partition.add(child.getLabel());
+        }
+
+        return partition;
+    }
+
+    /**
+     * Learns the subtree of a node at the level {@code level} of a tree of
+     * depth {@code depth} as {@link #learn(List)} does, with the alphabet and
+     * the leaf penalty of the whole data set. The label of the returned node
+     * is not set.
+     *
+     * @param dataRows the non-empty list of data rows reaching the node.
+     * @param alphabet the alphabet of the whole data set.
+     * @param k        the leaf penalty of the whole data set.
+     * @param depth    the depth of the tree.
+     * @param level    the level of the node, at most {@code depth}.
+     * @return the root of the subtree.
+     */
+    public ParsimoniousContextTreeNode<C>
+        learnSubtree(List<DataRow<C>> dataRows,
+                     Alphabet<C> alphabet,
+                     double k,
+                     int depth,
+                     int level) {
+        checkDataRowListNotEmpty(dataRows);
+
+        if (level < 0 || level > depth) {
+            throw new IllegalArgumentException(
+                    "The level must be within [0, " + depth + "]: " + level);
+        }
+
+        InternalHeuristicParsimoniousContextTreeLearner<C> state =
+                InternalHeuristicParsimoniousContextTreeLearner
+                        .createState(dataRows, alphabet, k, depth);
+        ExecutorService executor = createExecutor();
+        configure(state, executor);
+        ParsimoniousContextTreeNode<C> node =
+                new ParsimoniousContextTreeNode<>();
+
+        try {
+            if (level < depth) {
+                state.build(node, depth - level, dataRows);
+            }
+        } finally {
+            shutdown(executor);
+        }
+
+        state.computeScores(node, dataRows, depth - level);
+        return node;
+    }
+    
+    private void configure(
+            InternalHeuristicParsimoniousContextTreeLearner<C> state,
+            ExecutorService executor) {
+        state.setListener(getListener());
+        state.setContext(getContext());
+        state.owner = this;
+        state.executor = executor;
     }
     
+    /**
+     * Returns the executor of the concurrent optimal searches, or 
+     * {@code null} if the searches are run after the greedy merges.
+     */
+    private ExecutorService createExecutor() {
+        if (!concurrentSearch) {
+            return null;
+        }
+        
+        return Executors.newSingleThreadExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "hybrid-optimal-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private static void shutdown(ExecutorService executor) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Holds the plan of the optimal search of a node.
+     */
+    private static final class OptimalSearch<C> {
+        
+        final HybridDecisionEvent event = new HybridDecisionEvent();
+        int level;
+        int alphabetSize;
+        int rowCount;
+        long work;
+        
+        /**
+         * The upper bound of the score of the optimal children.
+         */
+        double scoreBound;
+        
+        /**
+         * The context and the result of the search running on another
+         * thread, or {@code null}.
+         */
+        LearningContext context;
+        Future<ParsimoniousContextTree<C>> future;
+        
+        /**
+         * Abandons the search running on another thread.
+         */
+        void cancel() {
+            if (future != null) {
+                context.cancel();
+                future.cancel(false);
+            }
+        }
+    }
+
     private static final class 
             InternalHeuristicParsimoniousContextTreeLearner<C> 
     extends AbstractParsimoniousContextTreeLearner<C> {
 
         private Alphabet<C> alphabet;
+        private Set<C> alphabetLabel;
         private List<DataRow<C>> dataRows;
         private double k;
         private ParsimoniousContextTreeNode<C> root;
         private int totalDepth;
-        private final Map<C, Integer> characterCountMap = new HashMap<>();
+        private int[] characterCountHistogram;
         private final PartialBasicParsimoniousContextTreeLearner<C> 
                 optimalLearner = 
                 new PartialBasicParsimoniousContextTreeLearner<>();
+        private HybridHeuristicParsimoniousContextTreeLearnerV1<C> owner;
+        private ExecutorService executor;
         
         @Override
         public ParsimoniousContextTree<C> learn(List<DataRow<C>> dataRows) {
@@ -93,21 +419,41 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             checkDataRowListNotEmpty(dataRows);
             checkDataRowListHasConstantNumberOfExplanatoryVariables(dataRows);
 
+            Alphabet<C> alphabet = getAlphabet(dataRows);
+            InternalHeuristicParsimoniousContextTreeLearner<C> state = 
+                    createState(dataRows,
+                                alphabet,
+                                ScoringKernel.computeLeafPenalty(
+                                        alphabet.size(),
+                                        dataRows.size()),
+                                dataRows.get(0)
+                                        .getNumberOfExplanatoryVariables());
+            
+            state.setListener(getListener());
+            state.setContext(getContext());
+            state.owner = owner;
+            state.executor = executor;
+            state.build();
+            return new ParsimoniousContextTree<>(state.root);    
+        }
+
+        private static <C> InternalHeuristicParsimoniousContextTreeLearner<C>
+            createState(List<DataRow<C>> dataRows,
+                        Alphabet<C> alphabet,
+                        double k,
+                        int totalDepth) {
             InternalHeuristicParsimoniousContextTreeLearner<C> state = 
                     new InternalHeuristicParsimoniousContextTreeLearner<>();
 
-            state.alphabet = getAlphabet(dataRows);
+            state.alphabet = alphabet;
+            state.alphabetLabel = new HashSet<>(alphabet.getCharacters());
             state.dataRows = dataRows;
-            state.k = 0.5 * (state.alphabet.size() - 1) * 
-                             Math.log(dataRows.size());
+            state.k = k;
+            state.characterCountHistogram = new int[alphabet.size()];
             // In this hybrid learner we build only one step further:
             state.optimalLearner.setRequestedTreeDepth(1);
-            state.totalDepth = 
-                    dataRows.get(0)
-                            .getNumberOfExplanatoryVariables();
-            
-            state.build();
-            return new ParsimoniousContextTree<>(state.root);    
+            state.totalDepth = totalDepth;
+            return state;
         }
     
         private void build() {
@@ -140,9 +486,106 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         private void build(ParsimoniousContextTreeNode<C> parent,
                            int currentDepth,
                            List<DataRow<C>> dataRows) {
+            LearnerListener listener = getListener();
+            int level = totalDepth - currentDepth;
+            listener.onSubtreeStarted(level);
+
+            if (getContext().shouldStop()) {
+                // The scores are computed at the end:
+                IndependenceModelParsimoniousContextTreeLearner
+                        .appendIndependenceModel(parent,
+                                                 alphabetLabel,
+                                                 currentDepth,
+                                                 0.0);
+                listener.onSubtreeFinished(level);
+                return;
+            }
+
+            SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+            subtreeEvent.begin();
+
+            if (!selectChildren(parent, currentDepth, dataRows)) {
+                listener.onSubtreeFinished(level);
+                subtreeEvent.commit(getClass(),
+                                    level,
+                                    level + currentDepth,
+                                    alphabet.size(),
+                                    dataRows.size(),
+                                    parent.getChildren().size());
+                return;
+            }
+
+            Map<ParsimoniousContextTreeNode<C>, 
+                List<DataRow<C>>> nodeToDataRowsMap = new HashMap<>();
+            Map<C, ParsimoniousContextTreeNode<C>> charToNodeMap = 
+                    new HashMap<>();
+
+            // Build the children.
+            // First split the data row list.
+            for (ParsimoniousContextTreeNode<C> node 
+                    : parent.getChildren()) {
+                nodeToDataRowsMap.put(node, new ArrayList<>());
+            }
+
+            for (ParsimoniousContextTreeNode<C> node 
+                    : parent.getChildren()) {
+                for (C ch : node.getLabel()) {
+                    charToNodeMap.put(ch, node);
+                }
+            }
+
+            // TODO: Use totalDepth.
+            int charIndex = totalDepth - currentDepth;
+
+            for (DataRow<C> dataRow : dataRows) {
+                C ch = dataRow.getExplanatoryVariable(charIndex);
+                ParsimoniousContextTreeNode<C> child =
+                        charToNodeMap.get(ch);
+                List<DataRow<C>> childDataRows = 
+                        nodeToDataRowsMap.get(child);
+                childDataRows.add(dataRow);
+            }
+
+            listener.onRowsScanned(level, dataRows.size());
+
+            int numberOfChildrenBuilt = 0;
+
+            for (ParsimoniousContextTreeNode<C> child 
+                    : parent.getChildren()) {
+                build(child, 
+                      currentDepth - 1, 
+                      nodeToDataRowsMap.get(child));
+
+                if (level == 0) {
+                    getContext().reportProgress(++numberOfChildrenBuilt,
+                                                parent.getChildren().size());
+                }
+            }
+
+            listener.onSubtreeFinished(level);
+            subtreeEvent.commit(getClass(),
+                                level,
+                                level + currentDepth,
+                                alphabet.size(),
+                                dataRows.size(),
+                                parent.getChildren().size());
+        }
+
+        /**
+         * Selects the children of {@code parent} by merging them greedily, or
+         * by the optimal learner if it does better. Returns {@code false} if
+         * the children are leaves.
+         */
+        private boolean selectChildren(ParsimoniousContextTreeNode<C> parent,
+                                       int currentDepth,
+                                       List<DataRow<C>> dataRows) {
+            LearnerListener listener = getListener();
+            int level = totalDepth - currentDepth;
+
             // Create the children list for the parent node.
             List<ParsimoniousContextTreeNode<C>> childrenList = 
                     createChildren();
+            listener.onNodesCreated(level + 1, childrenList.size());
             
             //TODO: Why createChildren() returns a list and not a set.
             parent.setChildren(new HashSet<>(childrenList)); 
@@ -167,13 +610,24 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 mapCharToDataRows.get(currentCharacter).add(dataRow);
             }
 
+            listener.onRowsScanned(level, dataRows.size());
             double bestParentScore = parent.getScore();
             double bestMergedScore = Double.NaN;
+            OptimalSearch<C> optimalSearch = 
+                    currentDepth > 1 && !getContext().shouldStop() ?
+                    planOptimalSearch(level, dataRows, parent.getScore()) :
+                    null;
+
+            MergeStepEvent mergeEvent = new MergeStepEvent();
 
             while (true) {
+                mergeEvent.begin();
                 boolean improved = false;
+                // Once the context stops the learning, keep the merges done
+                // so far:
+                boolean stopped = getContext().shouldStop();
                 // Try pairwise merging.
-                for (int i = 0; i < childrenList.size(); i++) {
+                for (int i = 0; i < childrenList.size() && !stopped; i++) {
                     child1 = childrenList.get(i);
 
                     for (int j = i + 1; j < childrenList.size(); j++) {
@@ -182,6 +636,7 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                                                              mapCharToDataRows,
                                                              child1,
                                                              child2);
+                        listener.onMergesAttempted(level, 1);
                         double candidateScore = 
                                 parent.getScore() + mergedScore
                                                   - child1.getScore()
@@ -200,18 +655,45 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 if (!improved) {
                     if (currentDepth == 1) {
                         // Don't build any deeper:
-                        return;
+                        return false;
+                    }
+                    
+                    if (stopped || optimalSearch == null) {
+                        // Fall back to the heuristic children:
+                        if (optimalSearch != null) {
+                            optimalSearch.cancel();
+                        }
+                        
+                        return true;
+                    }
+                    
+                    double gainBound = 
+                            optimalSearch.scoreBound - bestParentScore;
+                    
+                    if (gainBound <= 0.0) {
+                        optimalSearch.cancel();
+                        recordDecision(optimalSearch,
+                                       gainBound,
+                                       Decision.HEURISTIC_OPTIMAL);
+                        return true;
+                    }
+                    
+                    if (gainBound < owner.minimumGainPerWorkUnit * 
+                                    optimalSearch.work) {
+                        optimalSearch.cancel();
+                        recordDecision(optimalSearch,
+                                       gainBound,
+                                       Decision.NOT_WORTH_THE_WORK);
+                        return true;
                     }
                     
                     // Try to extend the 'parent' via optimal learner.
                     // 'requestedStartDepthLevel' becomes larger as we go down
                     // the tree.
-                    optimalLearner
-                            .setRequestedStartDepthLevel(
-                                    totalDepth - currentDepth);
-                    
                     ParsimoniousContextTree<C> optimalTree = 
-                            optimalLearner.learn(dataRows);
+                            runOptimalSearch(optimalSearch, 
+                                             currentDepth,
+                                             dataRows);
                     
                     ParsimoniousContextTreeNode<C> optimalTreeRoot = 
                             optimalTree.getRoot();
@@ -221,9 +703,14 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                     if (bestParentScore < optimalTreeRootScore) {
                         // Once here, we better extend 'parent' with 
                         // 'optimalTree'.
-                        // TODO: Debug this.
-                        // System.out.println("Yeah!");
                         parent.setChildren(optimalTreeRoot.getChildren());
+                        recordDecision(optimalSearch,
+                                       gainBound,
+                                       Decision.SEARCHED_WITH_GAIN);
+                    } else {
+                        recordDecision(optimalSearch,
+                                       gainBound,
+                                       Decision.SEARCHED_WITHOUT_GAIN);
                     }
 
 //                    if (parent.getChildren().size() > 2) {
@@ -237,45 +724,7 @@ extends AbstractParsimoniousContextTreeLearner<C> {
 //                        System.out.println("Parent score: " + parent.getScore());
 //                    }
 
-                    Map<ParsimoniousContextTreeNode<C>, 
-                        List<DataRow<C>>> nodeToDataRowsMap = new HashMap<>();
-                    Map<C, ParsimoniousContextTreeNode<C>> charToNodeMap = 
-                            new HashMap<>();
-
-                    // Build the children.
-                    // First split the data row list.
-                    for (ParsimoniousContextTreeNode<C> node 
-                            : parent.getChildren()) {
-                        nodeToDataRowsMap.put(node, new ArrayList<>());
-                    }
-
-                    for (ParsimoniousContextTreeNode<C> node 
-                            : parent.getChildren()) {
-                        for (C ch : node.getLabel()) {
-                            charToNodeMap.put(ch, node);
-                        }
-                    }
-
-                    // TODO: Use totalDepth.
-                    int charIndex = totalDepth - currentDepth;
-
-                    for (DataRow<C> dataRow : dataRows) {
-                        C ch = dataRow.getExplanatoryVariable(charIndex);
-                        ParsimoniousContextTreeNode<C> child =
-                                charToNodeMap.get(ch);
-                        List<DataRow<C>> childDataRows = 
-                                nodeToDataRowsMap.get(child);
-                        childDataRows.add(dataRow);
-                    }
-
-                    for (ParsimoniousContextTreeNode<C> child 
-                            : parent.getChildren()) {
-                        build(child, 
-                              currentDepth - 1, 
-                              nodeToDataRowsMap.get(child));
-                    }
-
-                    return;
+                    return true;
                 } else {
                     // Merge:
                     parent.getChildren().remove(bestChild2);
@@ -283,6 +732,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                     // Reuse bestChild1:
                     bestChild1.getLabel().addAll(bestChild2.getLabel());
                     bestChild1.setScore(bestMergedScore);
+                    listener.onMergesAccepted(level, 1);
+                    listener.onNodesPruned(level + 1, 1);
 
                     // Update the parent score:
                     double parentScore = 0.0; 
@@ -292,31 +743,146 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                         parentScore += child.getScore();
                     }
 
+                    mergeEvent.commit(getClass(),
+                                      level,
+                                      alphabet.size(),
+                                      dataRows.size(),
+                                      (childrenList.size() + 1) *
+                                      childrenList.size() / 2,
+                                      childrenList.size(),
+                                      parentScore - parent.getScore());
                     parent.setScore(parentScore);
                 }
             }
         }
 
+        /**
+         * Bounds the score and estimates the work of the optimal search of
+         * the children of a node, and starts the search on another thread if
+         * it may pay off. The optimal learner scores the rows with their own
+         * alphabet and leaf penalty, so the bound is computed with them too.
+         */
+        private OptimalSearch<C> planOptimalSearch(int level,
+                                                   List<DataRow<C>> dataRows,
+                                                   double initialScore) {
+            OptimalSearch<C> optimalSearch = new OptimalSearch<>();
+            optimalSearch.event.begin();
+            optimalSearch.level = level;
+            optimalSearch.rowCount = dataRows.size();
+            optimalSearch.alphabetSize = getAlphabet(dataRows).size();
+            double localK = 
+                    ScoringKernel.computeLeafPenalty(
+                            optimalSearch.alphabetSize,
+                            dataRows.size());
+            // The log-likelihood of the node as a single leaf, and of the
+            // leaves of the single characters, which bounds the 
+            // log-likelihood of any partition:
+            double singleLeafLogLikelihood = 
+                    ScoringKernel.computeScore(dataRows,
+                                               alphabet,
+                                               characterCountHistogram,
+                                               0.0);
+            double characterLeafLogLikelihood = 
+                    initialScore + alphabet.size() * k;
+            optimalSearch.scoreBound = 
+                    Math.max(singleLeafLogLikelihood - localK,
+                             characterLeafLogLikelihood - 2.0 * localK);
+            
+            // Copying the rows to the children of all the labels, and scoring
+            // the blocks of all the partitions:
+            int labelCount = (1 << optimalSearch.alphabetSize) - 1;
+            double work = 
+                    (double) dataRows.size() * ((labelCount + 1) / 2) +
+                    optimalSearch.alphabetSize * 
+                    (LearnerPlanner.getBellNumber(optimalSearch.alphabetSize) +
+                     labelCount);
+            optimalSearch.work = (long) work;
+            double gainBound = optimalSearch.scoreBound - initialScore;
+            
+            // The greedy merges only raise the score, so the bound of the gain
+            // over the initial children bounds the gain over the merged ones:
+            if (executor != null &&
+                    optimalSearch.work >= MINIMUM_CONCURRENT_WORK &&
+                    gainBound > 0.0 &&
+                    gainBound >= owner.minimumGainPerWorkUnit * 
+                                 optimalSearch.work) {
+                optimalSearch.context = new LearningContext(getContext());
+                PartialBasicParsimoniousContextTreeLearner<C> learner =
+                        createOptimalLearner(level, optimalSearch.context);
+                optimalSearch.future = 
+                        executor.submit(() -> learner.learn(dataRows));
+                owner.numberOfConcurrentSearches.incrementAndGet();
+            }
+            
+            return optimalSearch;
+        }
+        
+        /**
+         * Returns the tree of the optimal search, waiting for it if it runs
+         * on another thread.
+         */
+        private ParsimoniousContextTree<C> 
+            runOptimalSearch(OptimalSearch<C> optimalSearch,
+                             int currentDepth,
+                             List<DataRow<C>> dataRows) {
+            if (optimalSearch.future == null) {
+                optimalLearner.setContext(getContext());
+                optimalLearner.setRequestedStartDepthLevel(
+                        totalDepth - currentDepth);
+                return optimalLearner.learn(dataRows);
+            }
+            
+            try {
+                return optimalSearch.future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted.", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+        
+        private PartialBasicParsimoniousContextTreeLearner<C> 
+            createOptimalLearner(int level, LearningContext context) {
+            PartialBasicParsimoniousContextTreeLearner<C> learner =
+                    new PartialBasicParsimoniousContextTreeLearner<>();
+            learner.setRequestedTreeDepth(1);
+            learner.setRequestedStartDepthLevel(level);
+            learner.setContext(context);
+            return learner;
+        }
+        
+        private void recordDecision(OptimalSearch<C> optimalSearch,
+                                    double gainBound,
+                                    Decision decision) {
+            owner.decisionCounts.incrementAndGet(decision.ordinal());
+            optimalSearch.event.commit(optimalSearch.level,
+                                       optimalSearch.alphabetSize,
+                                       optimalSearch.rowCount,
+                                       optimalSearch.work,
+                                       gainBound,
+                                       decision.name(),
+                                       optimalSearch.future != null);
+        }
+
         private void computeScores(ParsimoniousContextTreeNode<C> node,
                                      List<DataRow<C>> data,
                                      int depth) {
-            if (depth == 0) {
-                Map<C, Integer> map = new HashMap<>();
-
-                for (DataRow<C> dataRow : data) {
-                    C responseVariable = dataRow.getResponseVariable();
-                    map.put(responseVariable, 
-                            map.getOrDefault(responseVariable, 0) + 1);
-                }
-
-                double score = -this.k;
-
-                for (Map.Entry<C, Integer> entry : map.entrySet()) {
-                    score += entry.getValue() *
-                             Math.log((1.0 * entry.getValue()) / data.size());
-                }
+            int level = totalDepth - depth;
+            getListener().onRowsScanned(level, data.size());
 
+            if (depth == 0) {
+                double score = 
+                        ScoringKernel.computeScore(data,
+                                                   alphabet,
+                                                   characterCountHistogram,
+                                                   k);
                 node.setScore(score);
+                getListener().onHistogramsBuilt(level, 1);
                 return;
             }
 
@@ -374,48 +940,28 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                     - currentDepth;
 
             // Compute the scores for the children:
-            Map<C, Map<C, Integer>> mapCharToCounterMap = new HashMap<>();
-            Map<C, ParsimoniousContextTreeNode<C>> mapCharToNode = new HashMap<>();
-
-            // Map each single character label to corresponding PCT node:
-            for (ParsimoniousContextTreeNode<C> child : parentNode.getChildren()) {
-                mapCharToNode.put(child.getLabel().iterator().next(), child);
-            }
+            Map<C, int[]> mapCharToHistogram = new HashMap<>();
 
             // Initialize all the character counts for each alphabet character:
             for (C character : alphabet.getCharacters()) {
-                mapCharToCounterMap.put(character, new HashMap<>());
+                mapCharToHistogram.put(character, new int[alphabet.size()]);
             }
 
             // Do the actual counting:
             for (DataRow<C> dataRow : dataRows) {
                 C currentCharacter = dataRow.getExplanatoryVariable(characterIndex);
-                Map<C, Integer> characterMap = 
-                        mapCharToCounterMap.get(currentCharacter);
-                C responseCharacter = dataRow.getResponseVariable();
-                characterMap.put(responseCharacter,
-                                 characterMap
-                                         .getOrDefault(responseCharacter, 0) + 1);
+                int[] histogram = mapCharToHistogram.get(currentCharacter);
+                histogram[alphabet.getIndexOf(dataRow.getResponseVariable())]++;
             }
 
+            getListener().onRowsScanned(characterIndex, dataRows.size());
+            getListener().onHistogramsBuilt(characterIndex, alphabet.size());
+
             // Build the actual child node scores:
             for (ParsimoniousContextTreeNode<C> child : parentNode.getChildren()) {
-                Map<C, Integer> characterCountMap = 
-                        mapCharToCounterMap.get(child.getLabel().iterator().next());
-
-                double score = -k;
-                int count = 0;
-
-                for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                    count += entry.getValue();
-                }
-
-                for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                    score += entry.getValue() * 
-                             Math.log(((double) entry.getValue()) / count);
-                }
-
-                child.setScore(score);
+                int[] histogram = 
+                        mapCharToHistogram.get(child.getLabel().iterator().next());
+                child.setScore(ScoringKernel.computeScore(histogram, k));
             }
 
             // Set the parent node score:
@@ -437,66 +983,37 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             int charIndex = 
                     dataRows.get(0).getNumberOfExplanatoryVariables() - depth;
             int count = 0;
-            double score = -k;
-            characterCountMap.clear();
-
-            // Get the data row count:
-            for (C character : node1.getLabel()) {
-                count += mapCharacterToDataRows.get(character).size();
-            }
-
-            for (C character : node2.getLabel()) {
-                count += mapCharacterToDataRows.get(character).size();
-            }
+            Arrays.fill(characterCountHistogram, 0);
 
             // Build the N_{V_a} values:
             for (C character : node1.getLabel()) {
-                for (DataRow<C> dataRow : mapCharacterToDataRows.get(character)) {
-                    C responseVariable = dataRow.getResponseVariable();
-                    characterCountMap.put(responseVariable, 
-                                          characterCountMap
-                                                  .getOrDefault(responseVariable, 0) 
-                                                  + 1);
-                }
+                List<DataRow<C>> characterDataRows =
+                        mapCharacterToDataRows.get(character);
+                count += characterDataRows.size();
+                ScoringKernel.countResponses(characterDataRows,
+                                             alphabet,
+                                             characterCountHistogram);
             }
 
             for (C character : node2.getLabel()) {
-                for (DataRow<C> dataRow : mapCharacterToDataRows.get(character)) {
-                    C responseVariable = dataRow.getResponseVariable();
-                    characterCountMap.put(responseVariable, 
-                                          characterCountMap
-                                                  .getOrDefault(responseVariable, 0) 
-                                                  + 1);
-                }
-            }
-
-            for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                score += entry.getValue() *
-                         Math.log(((double) entry.getValue()) / count);
+                List<DataRow<C>> characterDataRows =
+                        mapCharacterToDataRows.get(character);
+                count += characterDataRows.size();
+                ScoringKernel.countResponses(characterDataRows,
+                                             alphabet,
+                                             characterCountHistogram);
             }
 
-            return score;
+            getListener().onRowsScanned(charIndex, count);
+            getListener().onHistogramsBuilt(charIndex, 1);
+            return ScoringKernel.computeScore(characterCountHistogram, count, k);
         }
 
         private double findSingleChildScore(int depth, List<DataRow<C>> dataRows) {
-            int count = dataRows.size();
-            double score = -k;
-            characterCountMap.clear();
-
-            for (DataRow<C> dataRow : dataRows) {
-                C responseVariable = dataRow.getResponseVariable();
-                characterCountMap.put(responseVariable, 
-                                      characterCountMap
-                                              .getOrDefault(responseVariable, 0)
-                                              + 1);
-            }
-
-            for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-                score += entry.getValue() *
-                         Math.log(((double) entry.getValue()) / count);
-            }
-
-            return score;
+            return ScoringKernel.computeScore(dataRows,
+                                              alphabet,
+                                              characterCountHistogram,
+                                              k);
         }
     }
     
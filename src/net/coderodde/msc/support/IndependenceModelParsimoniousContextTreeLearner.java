@@ -1,10 +1,8 @@
 package net.coderodde.msc.support;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
@@ -12,6 +10,7 @@ import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
 
 /**
  * This class implements a simple parsimonious context tree learner that always
@@ -42,46 +41,47 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         state.root = new ParsimoniousContextTreeNode<>();
         state.root.setLabel(new HashSet<>());
         int depth = listOfDataRows.get(0).getNumberOfExplanatoryVariables();
-        ParsimoniousContextTreeNode<C> parentNode = state.root;
+        double score = 
+                ScoringKernel.computeScore(
+                        listOfDataRows,
+                        state.alphabet,
+                        new int[state.alphabet.size()],
+                        ScoringKernel.computeLeafPenalty(
+                                state.alphabet.size(),
+                                listOfDataRows.size()));
+        
+        appendIndependenceModel(state.root, label, depth, score);
+        return new ParsimoniousContextTree<>(state.root);
+    }
+    
+    /**
+     * Continues {@code node} with the subtree of the independence model of
+     * depth {@code depth}, which is a chain of nodes labelled with the whole
+     * alphabet. All the nodes of the chain, and {@code node} itself, get the
+     * score {@code score}, which is the score of the rows reaching
+     * {@code node} in a single leaf. The learners stopped by their
+     * {@link net.coderodde.msc.LearningContext} continue the nodes they have
+     * not reached in this way.
+     *
+     * @param node          the node to continue.
+     * @param alphabetLabel the label holding the whole alphabet.
+     * @param depth         the number of levels below {@code node}.
+     * @param score         the score of the rows reaching {@code node}.
+     */
+    static <C> void appendIndependenceModel(
+            ParsimoniousContextTreeNode<C> node,
+            Set<C> alphabetLabel,
+            int depth,
+            double score) {
+        node.setScore(score);
         
         for (int d = 0; d < depth; ++d) {
             ParsimoniousContextTreeNode<C> newNode = 
                     new ParsimoniousContextTreeNode<>();
-            newNode.setLabel(label);
-            parentNode.setChildren(new HashSet<>(Arrays.asList(newNode)));
-            parentNode = newNode;
-        }
-        
-        double score = -0.5 * (state.alphabet.size() - 1) *
-                               Math.log(listOfDataRows.size());
-        
-        Map<C, Integer> map = new HashMap<>();
-        final int n = listOfDataRows.size();
-        
-        for (DataRow<C> dataRow : listOfDataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            map.put(responseVariable, 
-                    map.getOrDefault(responseVariable, 0) + 1);
+            newNode.setLabel(alphabetLabel);
+            newNode.setScore(score);
+            node.setChildren(new HashSet<>(Arrays.asList(newNode)));
+            node = newNode;
         }
-        
-        for (Map.Entry<C, Integer> e : map.entrySet()) {
-            score += e.getValue() * Math.log((1.0 * e.getValue()) / n);
-        }
-        
-        ParsimoniousContextTreeNode<C> node = 
-                state.root.getChildren().iterator().next();
-        
-        while (node != null) {
-            node.setScore(score);
-            
-            if (node.getChildren() == null) {
-                node = null;
-            } else {
-                node = node.getChildren().iterator().next();
-            }
-        }
-        
-        state.root.setScore(score);
-        return new ParsimoniousContextTree<>(state.root);
     }
 }
@@ -5,6 +5,7 @@ import java.util.Random;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.jfr.RandomCandidateScoredEvent;
 
 public final class IterativeRandomParsimoniousContextTreeLearner2<C>
 extends AbstractParsimoniousContextTreeLearner<C>{
@@ -29,6 +30,7 @@ extends AbstractParsimoniousContextTreeLearner<C>{
     public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
         RandomParsimoniousContextTreeLearnerV2<C> learner = 
                 new RandomParsimoniousContextTreeLearnerV2<>();
+        learner.setContext(getContext());
         learner.setBeta(beta);
         learner.setRandom(random);
         
@@ -36,12 +38,28 @@ extends AbstractParsimoniousContextTreeLearner<C>{
         ParsimoniousContextTree<C> bestTree = null;
         
         for (int i = 0; i < iterations; ++i) {
+            if (bestTree != null && getContext().shouldStop()) {
+                break;
+            }
+            
+            RandomCandidateScoredEvent event =
+                    new RandomCandidateScoredEvent();
+            event.begin();
             ParsimoniousContextTree<C> tree = learner.learn(listOfDataRows);
+            event.commit(getClass(),
+                         i,
+                         listOfDataRows.get(0)
+                                       .getNumberOfExplanatoryVariables(),
+                         listOfDataRows.size(),
+                         tree.getScore(),
+                         bestScore);
             
             if (bestScore < tree.getScore()) {
                 bestScore = tree.getScore();
                 bestTree = tree;
             }
+            
+            getContext().reportProgress(i + 1, iterations);
         }
         
         return bestTree;
@@ -5,6 +5,7 @@ import java.util.Random;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.jfr.RandomCandidateScoredEvent;
 
 public final class IterativeRandomParsimoniousContextTreeLearner3B<C>
 extends AbstractParsimoniousContextTreeLearner<C>{
@@ -29,15 +30,31 @@ extends AbstractParsimoniousContextTreeLearner<C>{
     public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
         RandomParsimoniousContextTreeLearnerV3<C> learner = 
                 new RandomParsimoniousContextTreeLearnerV3<>();
+        learner.setContext(getContext());
         learner.setRandom(random);
         learner.setMaximumChildrenPerNode(maximumLabelsPerNode);
         
         double bestScore = Double.NEGATIVE_INFINITY;
         ParsimoniousContextTree<C> bestTree = null;
         int lastImproved = 0;
+        int iteration = 0;
         
         while (lastImproved <= k) {
+            if (bestTree != null && getContext().shouldStop()) {
+                break;
+            }
+            
+            RandomCandidateScoredEvent event =
+                    new RandomCandidateScoredEvent();
+            event.begin();
             ParsimoniousContextTree<C> tree = learner.learn(listOfDataRows);
+            event.commit(getClass(),
+                         iteration++,
+                         listOfDataRows.get(0)
+                                       .getNumberOfExplanatoryVariables(),
+                         listOfDataRows.size(),
+                         tree.getScore(),
+                         bestScore);
             
             if (bestScore < tree.getScore()) {
                 bestScore = tree.getScore();
@@ -46,6 +63,8 @@ extends AbstractParsimoniousContextTreeLearner<C>{
             } else {
                 lastImproved++;
             }
+            
+            getContext().reportProgress(iteration, -1);
         }
         
         return bestTree;
@@ -0,0 +1,784 @@
+package net.coderodde.msc.support;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.DataRow;
+
+/**
+ * This class chooses the learner of a data set from the shape of the data:
+ * the alphabet size {@code s}, the depth {@code d}, the number of rows
+ * {@code n} and the number of distinct contexts {@code D}. The work and the
+ * peak memory of each learner are estimated by a cost model of the learner,
+ * and the fastest learner of at least the requested quality fitting the time
+ * and the memory budgets is chosen. If no such learner exists, the learner of
+ * the highest quality fitting the budgets is chosen instead.
+ * <p>
+ * The cost model counts the following:
+ * <ul>
+ *   <li>{@link BasicParsimoniousContextTreeLearner} builds a child for each of
+ *   the {@code 2^s - 1} nonempty labels of every node regardless of the data,
+ *   copies each row to the {@code 2^(s - 1)} children whose labels contain
+ *   its character, and evaluates all the {@code B_s} partitions of the
+ *   alphabet at each inner node. It also keeps all the partitions in memory,
+ *   which dominates its memory from about 11 characters on.</li>
+ *   <li>{@link HeuristicParsimoniousContextTreeLearner} merges at most
+ *   {@code s - 1} times at each node, scanning the rows of the node for each
+ *   of the {@code s^2 / 2} pairs of children, and builds at most
+ *   {@code min(s^l, D)} nodes at level {@code l}.</li>
+ *   <li>{@link HybridHeuristicParsimoniousContextTreeLearnerV1} adds to the
+ *   heuristic learner a one-level optimal search at the inner nodes above
+ *   the last level, which generates and evaluates the {@code B_s} partitions
+ *   each time.</li>
+ *   <li>{@link IterativeRandomParsimoniousContextTreeLearner} builds and
+ *   scores a number of random trees.</li>
+ *   <li>{@link IndependenceModelParsimoniousContextTreeLearner} scans the rows
+ *   once.</li>
+ * </ul>
+ * The work is converted to time by a constant number of nanoseconds per unit
+ * of work, which may be calibrated with
+ * {@link #setNanosecondsPerWorkUnit(double)}. The optimal tree is learned on
+ * several threads by {@link CheckpointingParsimoniousContextTreeLearner} if a
+ * checkpoint directory is set; the number of threads is limited by the
+ * number of processors, the {@code 2^s - 1} subtrees of the root and the
+ * memory budget, since each thread keeps its own partitions.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class LearnerPlanner {
+
+    /**
+     * The levels of tree quality, from the lowest to the highest. Each level
+     * is the quality of the trees of a learner.
+     */
+    public enum Quality {
+
+        /**
+         * {@link IndependenceModelParsimoniousContextTreeLearner}.
+         */
+        INDEPENDENCE_MODEL,
+
+        /**
+         * {@link IterativeRandomParsimoniousContextTreeLearner}.
+         */
+        RANDOM_SEARCH,
+
+        /**
+         * {@link HeuristicParsimoniousContextTreeLearner}.
+         */
+        HEURISTIC,
+
+        /**
+         * {@link HybridHeuristicParsimoniousContextTreeLearnerV1}.
+         */
+        HYBRID,
+
+        /**
+         * {@link BasicParsimoniousContextTreeLearner}.
+         */
+        OPTIMAL
+    }
+
+    /**
+     * The default number of nanoseconds per unit of work, measured on the
+     * basic, heuristic and hybrid learners.
+     */
+    public static final double DEFAULT_NANOSECONDS_PER_WORK_UNIT = 20.0;
+
+    /**
+     * The default number of random trees of random search.
+     */
+    public static final int DEFAULT_RANDOM_SEARCH_ITERATIONS = 100;
+
+    /**
+     * The estimated size of a tree node with its label and children sets.
+     */
+    private static final double NODE_BYTES = 200.0;
+
+    /**
+     * The estimated size of a row reference in a list.
+     */
+    private static final double REFERENCE_BYTES = 8.0;
+
+    private long timeBudget = Long.MAX_VALUE;
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 2L;
+    private Quality qualityTarget = Quality.HEURISTIC;
+    private int maximumNumberOfThreads =
+            Runtime.getRuntime().availableProcessors();
+    private Path checkpointDirectory;
+    private double nanosecondsPerWorkUnit = DEFAULT_NANOSECONDS_PER_WORK_UNIT;
+    private int randomSearchIterations = DEFAULT_RANDOM_SEARCH_ITERATIONS;
+
+    /**
+     * Sets the time the learning may take. There is no limit by default.
+     *
+     * @param timeBudget the non-negative time budget.
+     * @param unit       the unit of the budget.
+     */
+    public void setTimeBudget(long timeBudget, TimeUnit unit) {
+        Objects.requireNonNull(unit, "The time unit is null.");
+
+        if (timeBudget < 0L) {
+            throw new IllegalArgumentException(
+                    "The time budget is negative: " + timeBudget);
+        }
+
+        this.timeBudget = unit.toNanos(timeBudget);
+    }
+
+    /**
+     * Returns the time budget in nanoseconds.
+     *
+     * @return the time budget.
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * Sets the memory the learning may take in bytes, by default a half of
+     * the maximum heap size, leaving the other half to the data.
+     *
+     * @param memoryBudget the non-negative memory budget.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0L) {
+            throw new IllegalArgumentException(
+                    "The memory budget is negative: " + memoryBudget);
+        }
+
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the lowest acceptable quality of the tree, by default
+     * {@link Quality#HEURISTIC}.
+     *
+     * @param qualityTarget the quality target.
+     */
+    public void setQualityTarget(Quality qualityTarget) {
+        this.qualityTarget = Objects.requireNonNull(qualityTarget,
+                                                    "The quality is null.");
+    }
+
+    public Quality getQualityTarget() {
+        return qualityTarget;
+    }
+
+    public void setMaximumNumberOfThreads(int maximumNumberOfThreads) {
+        if (maximumNumberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of threads must be positive: " +
+                    maximumNumberOfThreads);
+        }
+
+        this.maximumNumberOfThreads = maximumNumberOfThreads;
+    }
+
+    public int getMaximumNumberOfThreads() {
+        return maximumNumberOfThreads;
+    }
+
+    /**
+     * Sets the checkpoint directory of
+     * {@link CheckpointingParsimoniousContextTreeLearner}, which learns the
+     * optimal tree on several threads. Without a directory, the optimal tree
+     * is learned on a single thread.
+     *
+     * @param checkpointDirectory the checkpoint directory or {@code null}.
+     */
+    public void setCheckpointDirectory(Path checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    public Path getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    /**
+     * Sets the number of nanoseconds a unit of work of the cost model takes
+     * on this machine.
+     *
+     * @param nanosecondsPerWorkUnit the positive number of nanoseconds.
+     */
+    public void setNanosecondsPerWorkUnit(double nanosecondsPerWorkUnit) {
+        if (!(nanosecondsPerWorkUnit > 0.0) ||
+                Double.isInfinite(nanosecondsPerWorkUnit)) {
+            throw new IllegalArgumentException(
+                    "The number of nanoseconds per work unit must be " +
+                    "positive: " + nanosecondsPerWorkUnit);
+        }
+
+        this.nanosecondsPerWorkUnit = nanosecondsPerWorkUnit;
+    }
+
+    public double getNanosecondsPerWorkUnit() {
+        return nanosecondsPerWorkUnit;
+    }
+
+    public void setRandomSearchIterations(int randomSearchIterations) {
+        if (randomSearchIterations < 1) {
+            throw new IllegalArgumentException(
+                    "The number of random search iterations must be " +
+                    "positive: " + randomSearchIterations);
+        }
+
+        this.randomSearchIterations = randomSearchIterations;
+    }
+
+    public int getRandomSearchIterations() {
+        return randomSearchIterations;
+    }
+
+    /**
+     * Plans the learning of {@code dataRows}.
+     *
+     * @param <C>      the character type.
+     * @param dataRows the non-empty list of data rows.
+     * @return the plan.
+     */
+    public <C> Plan plan(List<DataRow<C>> dataRows) {
+        Objects.requireNonNull(dataRows, "The data row list is null.");
+
+        if (dataRows.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "There is no data rows in the list.");
+        }
+
+        Set<C> alphabet = new HashSet<>();
+        Set<List<C>> contexts = new HashSet<>();
+
+        for (DataRow<C> dataRow : dataRows) {
+            List<C> context = dataRow.getAllExplantoryVariables();
+            alphabet.addAll(context);
+            alphabet.add(dataRow.getResponseVariable());
+            contexts.add(context);
+        }
+
+        return plan(alphabet.size(),
+                    dataRows.get(0).getNumberOfExplanatoryVariables(),
+                    dataRows.size(),
+                    contexts.size());
+    }
+
+    /**
+     * Plans the learning of a data set of the given shape.
+     *
+     * @param alphabetSize             the alphabet size.
+     * @param depth                    the depth of the tree.
+     * @param numberOfRows             the number of rows.
+     * @param numberOfDistinctContexts the number of distinct contexts, that
+     *                                 is, the distinct sequences of the
+     *                                 explanatory variables of the rows.
+     * @return the plan.
+     */
+    public Plan plan(int alphabetSize,
+                     int depth,
+                     long numberOfRows,
+                     long numberOfDistinctContexts) {
+        if (alphabetSize < 1) {
+            throw new IllegalArgumentException(
+                    "The alphabet size must be positive: " + alphabetSize);
+        }
+
+        if (depth < 0) {
+            throw new IllegalArgumentException(
+                    "The depth is negative: " + depth);
+        }
+
+        if (numberOfRows < 1L) {
+            throw new IllegalArgumentException(
+                    "The number of rows must be positive: " + numberOfRows);
+        }
+
+        if (numberOfDistinctContexts < 1L ||
+                numberOfDistinctContexts > numberOfRows) {
+            throw new IllegalArgumentException(
+                    "The number of distinct contexts must be within [1, " +
+                    numberOfRows + "]: " + numberOfDistinctContexts);
+        }
+
+        Shape shape = new Shape(alphabetSize,
+                                depth,
+                                numberOfRows,
+                                numberOfDistinctContexts);
+        List<Estimate> estimates = new ArrayList<>();
+        estimates.add(estimateOptimal(shape));
+        estimates.add(estimateHybrid(shape));
+        estimates.add(estimateHeuristic(shape));
+        estimates.add(estimateRandomSearch(shape));
+        estimates.add(estimateIndependenceModel(shape));
+
+        Estimate chosen = null;
+
+        // The fastest learner meeting the quality target within the budgets:
+        for (Estimate estimate : estimates) {
+            if (estimate.isFeasible() &&
+                    estimate.quality.compareTo(qualityTarget) >= 0 &&
+                    (chosen == null ||
+                     estimate.nanoseconds < chosen.nanoseconds)) {
+                chosen = estimate;
+            }
+        }
+
+        boolean meetsQualityTarget = chosen != null;
+
+        if (chosen == null) {
+            // Otherwise the best learner within the budgets:
+            for (Estimate estimate : estimates) {
+                if (estimate.isFeasible()) {
+                    chosen = estimate;
+                    break;
+                }
+            }
+        }
+
+        if (chosen == null) {
+            // Otherwise the cheapest learner there is:
+            chosen = estimates.get(estimates.size() - 1);
+        }
+
+        return new Plan(shape, chosen, estimates, meetsQualityTarget);
+    }
+
+    private Estimate estimateOptimal(Shape shape) {
+        Estimate estimate = new Estimate(Quality.OPTIMAL);
+        int s = shape.alphabetSize;
+        double labels = Math.pow(2.0, s) - 1.0;
+        double rowCopies = Math.pow(2.0, s - 1);
+        double bell = getBellNumber(s);
+        double innerNodes = 0.0;
+        double rowWork = 0.0;
+
+        for (int level = 0; level < shape.depth; level++) {
+            innerNodes += Math.pow(labels, level);
+            rowWork += shape.numberOfRows * Math.pow(rowCopies, level + 1);
+        }
+
+        double nodeWork = s * bell + (s + 1) * Math.pow(2.0, s);
+        double work = innerNodes * nodeWork + 2.0 * rowWork + s * bell;
+        double partitionBytes = bell * (128.0 + 48.0 * s);
+        double threadBytes =
+                partitionBytes +
+                2.0 * shape.numberOfRows * rowCopies * REFERENCE_BYTES +
+                shape.depth * labels * NODE_BYTES *
+                getNumberOfDataNodes(shape, shape.depth);
+        int threads = 1;
+
+        if (shape.depth > 0 && checkpointDirectory != null) {
+            threads = (int) Math.min(Math.min(maximumNumberOfThreads,
+                                              labels),
+                                     Math.max(1.0,
+                                              memoryBudget / threadBytes));
+        }
+
+        estimate.threads = threads;
+        estimate.work = work;
+        // The subtrees of the root are learned in parallel, the largest
+        // first:
+        estimate.nanoseconds = work * nanosecondsPerWorkUnit / threads;
+        estimate.bytes = threads * threadBytes;
+
+        if (s > BasicParsimoniousContextTreeLearner.MAXIMUM_ALPHABET_SIZE) {
+            estimate.infeasibility = "alphabet over " +
+                    BasicParsimoniousContextTreeLearner.MAXIMUM_ALPHABET_SIZE;
+        } else if (threads == 1 && checkpointDirectory == null &&
+                Math.min(maximumNumberOfThreads, labels) > 1.0) {
+            estimate.note = "single thread, no checkpoint directory";
+        }
+
+        return estimate;
+    }
+
+    private Estimate estimateHybrid(Shape shape) {
+        Estimate estimate = estimateHeuristic(shape);
+        estimate.quality = Quality.HYBRID;
+        int s = shape.alphabetSize;
+
+        if (s > HybridHeuristicParsimoniousContextTreeLearnerV1
+                        .MAXIMUM_ALPHABET_SIZE) {
+            estimate.infeasibility = "same as heuristic for alphabet over " +
+                    HybridHeuristicParsimoniousContextTreeLearnerV1
+                            .MAXIMUM_ALPHABET_SIZE;
+            return estimate;
+        }
+
+        double rowCopies = Math.pow(2.0, s - 1);
+        double bell = getBellNumber(s);
+        double optimalWork = 0.0;
+
+        // The one-level optimal search at the nodes above the last level:
+        for (int level = 0; level < shape.depth - 1; level++) {
+            optimalWork += 5.0 * shape.numberOfRows * rowCopies +
+                           getNumberOfDataNodes(shape, level) *
+                           (3.0 * s * bell + (s + 1) * Math.pow(2.0, s));
+        }
+
+        estimate.work += optimalWork;
+        estimate.nanoseconds = estimate.work * nanosecondsPerWorkUnit;
+        estimate.bytes += bell * (128.0 + 48.0 * s) +
+                          shape.numberOfRows * rowCopies * REFERENCE_BYTES;
+        return estimate;
+    }
+
+    private Estimate estimateHeuristic(Shape shape) {
+        Estimate estimate = new Estimate(Quality.HEURISTIC);
+        int s = shape.alphabetSize;
+        double innerNodes = 0.0;
+
+        for (int level = 0; level < shape.depth; level++) {
+            innerNodes += getNumberOfDataNodes(shape, level);
+        }
+
+        estimate.work = shape.depth * shape.numberOfRows *
+                        (16.0 + s * s / 8.0) +
+                        innerNodes * Math.pow(s, 3);
+        estimate.nanoseconds = estimate.work * nanosecondsPerWorkUnit;
+        estimate.bytes = 4.0 * shape.numberOfRows * REFERENCE_BYTES +
+                         innerNodes * s * NODE_BYTES;
+        return estimate;
+    }
+
+    private Estimate estimateRandomSearch(Shape shape) {
+        Estimate estimate = new Estimate(Quality.RANDOM_SEARCH);
+        int s = shape.alphabetSize;
+        double children = (s + 1) / 2.0;
+        double nodes = 0.0;
+
+        // The random trees do not depend on the data:
+        for (int level = 0; level <= shape.depth; level++) {
+            nodes += Math.pow(children, level);
+        }
+
+        double candidateWork = 4.0 * nodes * s +
+                               3.0 * shape.depth * shape.numberOfRows;
+        estimate.work = randomSearchIterations * candidateWork;
+        estimate.nanoseconds = estimate.work * nanosecondsPerWorkUnit;
+        estimate.bytes = 2.0 * nodes * NODE_BYTES +
+                         2.0 * shape.numberOfRows * REFERENCE_BYTES;
+        return estimate;
+    }
+
+    private Estimate estimateIndependenceModel(Shape shape) {
+        Estimate estimate = new Estimate(Quality.INDEPENDENCE_MODEL);
+        estimate.work = 3.0 * shape.numberOfRows + shape.depth;
+        estimate.nanoseconds = estimate.work * nanosecondsPerWorkUnit;
+        estimate.bytes = (shape.depth + 1) * NODE_BYTES;
+        return estimate;
+    }
+
+    /**
+     * Returns the largest number of nodes at the level {@code level} of a
+     * tree learned from the data, which is at most the number of distinct
+     * contexts.
+     */
+    private static double getNumberOfDataNodes(Shape shape, int level) {
+        return Math.min(Math.pow(shape.alphabetSize, level),
+                        shape.numberOfDistinctContexts);
+    }
+
+    /**
+     * Returns the Bell number {@code B_n}, the number of partitions of a set
+     * of {@code n} elements, computed by the Bell triangle.
+     *
+     * @param n the number of elements.
+     * @return the Bell number.
+     */
+    static double getBellNumber(int n) {
+        double[] row = { 1.0 };
+
+        for (int i = 0; i < n; i++) {
+            double[] nextRow = new double[row.length + 1];
+            nextRow[0] = row[row.length - 1];
+
+            for (int j = 0; j < row.length; j++) {
+                nextRow[j + 1] = nextRow[j] + row[j];
+            }
+
+            row = nextRow;
+        }
+
+        return row[0];
+    }
+
+    private final class Estimate {
+
+        Quality quality;
+        double work;
+        double nanoseconds;
+        double bytes;
+        int threads = 1;
+        String infeasibility;
+        String note;
+
+        Estimate(Quality quality) {
+            this.quality = quality;
+        }
+
+        boolean isFeasible() {
+            return getRejection() == null;
+        }
+
+        /**
+         * Returns the reason for rejecting the learner, or {@code null} if
+         * the learner fits the budgets.
+         */
+        String getRejection() {
+            if (infeasibility != null) {
+                return infeasibility;
+            }
+
+            if (bytes > memoryBudget) {
+                return "over memory budget";
+            }
+
+            if (nanoseconds > timeBudget) {
+                return "over time budget";
+            }
+
+            return null;
+        }
+    }
+
+    private static final class Shape {
+
+        final int alphabetSize;
+        final int depth;
+        final long numberOfRows;
+        final long numberOfDistinctContexts;
+
+        Shape(int alphabetSize,
+              int depth,
+              long numberOfRows,
+              long numberOfDistinctContexts) {
+            this.alphabetSize = alphabetSize;
+            this.depth = depth;
+            this.numberOfRows = numberOfRows;
+            this.numberOfDistinctContexts = numberOfDistinctContexts;
+        }
+    }
+
+    /**
+     * This class holds the learner chosen by the planner together with its
+     * estimates and the explanation of the choice.
+     */
+    public final class Plan {
+
+        private final Quality quality;
+        private final int numberOfThreads;
+        private final long estimatedNanoseconds;
+        private final long estimatedBytes;
+        private final boolean meetsQualityTarget;
+        private final boolean withinBudgets;
+        private final String explanation;
+
+        private Plan(Shape shape,
+                     Estimate chosen,
+                     List<Estimate> estimates,
+                     boolean meetsQualityTarget) {
+            this.quality = chosen.quality;
+            this.numberOfThreads = chosen.threads;
+            this.estimatedNanoseconds = toLong(chosen.nanoseconds);
+            this.estimatedBytes = toLong(chosen.bytes);
+            this.meetsQualityTarget = meetsQualityTarget;
+            this.withinBudgets = chosen.isFeasible();
+            this.explanation = explain(shape, chosen, estimates);
+        }
+
+        public Quality getQuality() {
+            return quality;
+        }
+
+        public int getNumberOfThreads() {
+            return numberOfThreads;
+        }
+
+        public long getEstimatedNanoseconds() {
+            return estimatedNanoseconds;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Returns {@code true} if the chosen learner is of at least the
+         * quality target.
+         *
+         * @return {@code true} if the quality target is met.
+         */
+        public boolean meetsQualityTarget() {
+            return meetsQualityTarget;
+        }
+
+        /**
+         * Returns {@code true} if the chosen learner fits the time and the
+         * memory budgets.
+         *
+         * @return {@code true} if the budgets are met.
+         */
+        public boolean isWithinBudgets() {
+            return withinBudgets;
+        }
+
+        /**
+         * Returns the explanation of the choice, listing the estimates of
+         * all the learners.
+         *
+         * @return the explanation.
+         */
+        public String getExplanation() {
+            return explanation;
+        }
+
+        /**
+         * Creates the chosen learner, configured with the number of threads.
+         *
+         * @param <C> the character type.
+         * @return the learner.
+         */
+        public <C> AbstractParsimoniousContextTreeLearner<C> createLearner() {
+            if (quality == Quality.OPTIMAL && numberOfThreads > 1) {
+                CheckpointingParsimoniousContextTreeLearner<C> learner =
+                        new CheckpointingParsimoniousContextTreeLearner<>(
+                                checkpointDirectory);
+                learner.setNumberOfThreads(numberOfThreads);
+                return learner;
+            }
+
+            if (quality == Quality.RANDOM_SEARCH) {
+                IterativeRandomParsimoniousContextTreeLearner<C> learner =
+                        new IterativeRandomParsimoniousContextTreeLearner<>();
+                learner.setRandom(new Random());
+                learner.setIterations(randomSearchIterations);
+                return learner;
+            }
+
+            switch (quality) {
+                case OPTIMAL:
+                    return new BasicParsimoniousContextTreeLearner<>();
+
+                case HYBRID:
+                    return new
+                        HybridHeuristicParsimoniousContextTreeLearnerV1<>();
+
+                case HEURISTIC:
+                    return new HeuristicParsimoniousContextTreeLearner<>();
+
+                default:
+                    return new
+                        IndependenceModelParsimoniousContextTreeLearner<>();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return explanation;
+        }
+    }
+
+    private String explain(Shape shape,
+                           Estimate chosen,
+                           List<Estimate> estimates) {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(String.format(
+                "Data: alphabet %d, depth %d, %d rows, %d distinct " +
+                "contexts%n",
+                shape.alphabetSize,
+                shape.depth,
+                shape.numberOfRows,
+                shape.numberOfDistinctContexts));
+        stringBuilder.append(String.format(
+                "Budget: %s, %s, quality at least %s, at most %d " +
+                "threads%n",
+                timeBudget == Long.MAX_VALUE ?
+                        "no time limit" :
+                        formatNanoseconds(timeBudget),
+                memoryBudget == Long.MAX_VALUE ?
+                        "no memory limit" :
+                        formatBytes(memoryBudget),
+                qualityTarget,
+                maximumNumberOfThreads));
+
+        for (Estimate estimate : estimates) {
+            String rejection = estimate.getRejection();
+            String remark = rejection != null ?
+                            rejection :
+                            estimate.quality.compareTo(qualityTarget) < 0 ?
+                            "below quality target" :
+                            "fits";
+
+            if (estimate.note != null) {
+                remark += ", " + estimate.note;
+            }
+
+            stringBuilder.append(String.format(
+                    "%s %-18s %12s %12s %3d thread%s  %s%n",
+                    estimate == chosen ? "*" : " ",
+                    estimate.quality,
+                    formatNanoseconds(estimate.nanoseconds),
+                    formatBytes(estimate.bytes),
+                    estimate.threads,
+                    estimate.threads == 1 ? " " : "s",
+                    remark));
+        }
+
+        if (chosen.isFeasible() &&
+                chosen.quality.compareTo(qualityTarget) >= 0) {
+            stringBuilder.append("Chose ")
+                         .append(chosen.quality)
+                         .append(", the fastest learner of the quality " +
+                                 "target within the budgets.");
+        } else if (chosen.isFeasible()) {
+            stringBuilder.append("Chose ")
+                         .append(chosen.quality)
+                         .append(", the best learner within the budgets, " +
+                                 "since no learner of the quality target " +
+                                 "fits them.");
+        } else {
+            stringBuilder.append("Chose ")
+                         .append(chosen.quality)
+                         .append(", the cheapest learner, since no learner " +
+                                 "fits the budgets.");
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static String formatNanoseconds(double nanoseconds) {
+        double seconds = nanoseconds / 1e9;
+
+        if (seconds < 1.0) {
+            return String.format("%.1f ms", seconds * 1e3);
+        } else if (seconds < 3600.0) {
+            return String.format("%.1f s", seconds);
+        } else if (seconds < 86400.0 * 365.0) {
+            return String.format("%.1f h", seconds / 3600.0);
+        }
+
+        return String.format("%.1e y", seconds / (86400.0 * 365.0));
+    }
+
+    private static String formatBytes(double bytes) {
+        if (bytes < 1024.0 * 1024.0 * 1024.0) {
+            return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+        }
+
+        return String.format("%.1f GiB", bytes / (1024.0 * 1024.0 * 1024.0));
+    }
+
+    private static long toLong(double value) {
+        return value >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) value;
+    }
+}
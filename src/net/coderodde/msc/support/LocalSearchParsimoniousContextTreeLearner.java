@@ -0,0 +1,757 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
+
+/**
+ * This class implements a PCT learner improving the partition of the children
+ * of each node selected by {@link HeuristicParsimoniousContextTreeLearner}
+ * with a tabu search. The moves of the search are moving a character to
+ * another child, splitting a character off to a child of its own and
+ * swapping two characters of different children. The score change of a move
+ * is computed from the response histograms of the characters and the
+ * children in {@code O(s)} time, so that an iteration evaluating all the
+ * moves takes {@code O(s^3)} time. A character moved stays put for the tabu
+ * tenure, unless moving it again gives the best partition seen. The search
+ * of a node stops after a number of iterations without improvement or once
+ * the time budget of the node is spent, and the best partition seen is
+ * selected, so the partition of a node is never worse than the greedy one.
+ * <p>
+ * The nodes of each level are searched in parallel, the level below starting
+ * once all the nodes of the level are done. Since the search is
+ * deterministic, the tree does not depend on the number of threads, unless
+ * the time budgets cut the searches short.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class LocalSearchParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The largest alphabet size, at which the greedy partitions the search
+     * starts from still fit in {@code long} masks.
+     */
+    public static final int MAXIMUM_ALPHABET_SIZE = Long.SIZE;
+
+    public static final int DEFAULT_TABU_TENURE = 7;
+
+    public static final int DEFAULT_MAXIMUM_ITERATIONS_WITHOUT_IMPROVEMENT =
+            20;
+
+    /**
+     * The least score change counted as an improvement, keeping the rounding
+     * errors of the incremental scores from extending the search.
+     */
+    private static final double MINIMUM_IMPROVEMENT = 1e-9;
+
+    private int tabuTenure = DEFAULT_TABU_TENURE;
+    private int maximumIterationsWithoutImprovement =
+            DEFAULT_MAXIMUM_ITERATIONS_WITHOUT_IMPROVEMENT;
+    private long nodeTimeBudget = Long.MAX_VALUE;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+    private Alphabet<C> alphabet;
+    private Set<C> alphabetLabel;
+    private int depth;
+    private double k;
+
+    public int getTabuTenure() {
+        return tabuTenure;
+    }
+
+    /**
+     * Sets the number of iterations a moved character may not be moved again,
+     * unless the move gives the best partition seen.
+     *
+     * @param tabuTenure the non-negative tabu tenure.
+     */
+    public void setTabuTenure(int tabuTenure) {
+        if (tabuTenure < 0) {
+            throw new IllegalArgumentException(
+                    "The tabu tenure is negative: " + tabuTenure);
+        }
+
+        this.tabuTenure = tabuTenure;
+    }
+
+    public int getMaximumIterationsWithoutImprovement() {
+        return maximumIterationsWithoutImprovement;
+    }
+
+    /**
+     * Sets the number of iterations after which the search of a node stops if
+     * none of them improved the best partition seen.
+     *
+     * @param maximumIterationsWithoutImprovement the non-negative number of
+     *                                            iterations.
+     */
+    public void setMaximumIterationsWithoutImprovement(
+            int maximumIterationsWithoutImprovement) {
+        if (maximumIterationsWithoutImprovement < 0) {
+            throw new IllegalArgumentException(
+                    "The number of iterations is negative: " +
+                    maximumIterationsWithoutImprovement);
+        }
+
+        this.maximumIterationsWithoutImprovement =
+                maximumIterationsWithoutImprovement;
+    }
+
+    /**
+     * Returns the time budget of a node in nanoseconds, or
+     * {@link Long#MAX_VALUE} if there is none.
+     *
+     * @return the time budget of a node.
+     */
+    public long getNodeTimeBudget() {
+        return nodeTimeBudget;
+    }
+
+    /**
+     * Sets the time the search of the partition of a node may take. There is
+     * no limit by default.
+     *
+     * @param nodeTimeBudget the non-negative time budget.
+     * @param unit           the unit of the budget.
+     */
+    public void setNodeTimeBudget(long nodeTimeBudget, TimeUnit unit) {
+        Objects.requireNonNull(unit, "The time unit is null.");
+
+        if (nodeTimeBudget < 0L) {
+            throw new IllegalArgumentException(
+                    "The time budget is negative: " + nodeTimeBudget);
+        }
+
+        this.nodeTimeBudget = unit.toNanos(nodeTimeBudget);
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " +
+                    numberOfThreads);
+        }
+
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
+        Objects.requireNonNull(listOfDataRows);
+        checkDataRowListNotEmpty(listOfDataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
+
+        LocalSearchParsimoniousContextTreeLearner<C> state =
+                new LocalSearchParsimoniousContextTreeLearner<>();
+
+        state.alphabet = getAlphabet(listOfDataRows);
+
+        if (state.alphabet.size() > MAXIMUM_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet has more than " + MAXIMUM_ALPHABET_SIZE +
+                    " characters: " + state.alphabet.size());
+        }
+
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
+        state.tabuTenure = tabuTenure;
+        state.maximumIterationsWithoutImprovement =
+                maximumIterationsWithoutImprovement;
+        state.nodeTimeBudget = nodeTimeBudget;
+        state.depth = listOfDataRows.get(0).getNumberOfExplanatoryVariables();
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        root.setLabel(Collections.emptySet());
+        NodeTask<C> rootTask = new NodeTask<>(root, listOfDataRows);
+        state.build(rootTask, numberOfThreads);
+        computeScores(rootTask);
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    /**
+     * Builds the tree level by level, building the nodes of a level on the
+     * pool of threads.
+     */
+    private void build(NodeTask<C> rootTask, int numberOfThreads) {
+        ExecutorService executor = numberOfThreads == 1 ?
+                                   null :
+                                   Executors.newFixedThreadPool(
+                                           numberOfThreads);
+        List<NodeTask<C>> tasks = Collections.singletonList(rootTask);
+
+        try {
+            for (int level = 0; level <= depth; level++) {
+                List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+
+                for (NodeTask<C> task : tasks) {
+                    int currentDepth = depth - level;
+                    callables.add(() -> {
+                        buildNode(task, currentDepth);
+                        return null;
+                    });
+                }
+
+                if (executor == null) {
+                    for (Callable<Void> callable : callables) {
+                        callable.call();
+                    }
+                } else {
+                    for (Future<Void> future : executor.invokeAll(callables)) {
+                        future.get();
+                    }
+                }
+
+                List<NodeTask<C>> nextTasks = new ArrayList<>();
+
+                for (NodeTask<C> task : tasks) {
+                    if (task.children != null) {
+                        nextTasks.addAll(task.children);
+                    }
+                }
+
+                tasks = nextTasks;
+                getContext().reportProgress(level + 1, depth + 1);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Selects the children of the node of the task and splits its rows among
+     * them, or scores the node if it is a leaf.
+     */
+    private void buildNode(NodeTask<C> task, int currentDepth) {
+        LearnerListener listener = getListener();
+        int level = depth - currentDepth;
+        List<DataRow<C>> dataRows = task.dataRows;
+
+        // The finished tasks are kept until the scores are summed, so they
+        // must not keep the rows of their nodes reachable:
+        task.dataRows = null;
+
+        if (currentDepth == 0) {
+            task.node.setScore(computeScore(dataRows));
+            listener.onRowsScanned(level, dataRows.size());
+            listener.onHistogramsBuilt(level, 1);
+            return;
+        }
+
+        listener.onSubtreeStarted(level);
+
+        if (getContext().shouldStop()) {
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(task.node,
+                                             alphabetLabel,
+                                             currentDepth,
+                                             computeScore(dataRows));
+            listener.onSubtreeFinished(level);
+            return;
+        }
+
+        SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+        subtreeEvent.begin();
+        int alphabetSize = alphabet.size();
+        long[][] characterHistograms = new long[alphabetSize][alphabetSize];
+
+        for (DataRow<C> dataRow : dataRows) {
+            characterHistograms
+                    [alphabet.getIndexOf(dataRow.getExplanatoryVariable(level))]
+                    [alphabet.getIndexOf(dataRow.getResponseVariable())]++;
+        }
+
+        listener.onRowsScanned(level, dataRows.size());
+        listener.onHistogramsBuilt(level, alphabetSize);
+        int[] childOfCharacter = search(characterHistograms, level);
+        int numberOfChildren = 0;
+
+        for (int child : childOfCharacter) {
+            numberOfChildren = Math.max(numberOfChildren, child + 1);
+        }
+
+        List<NodeTask<C>> children = new ArrayList<>(numberOfChildren);
+
+        for (int i = 0; i < numberOfChildren; i++) {
+            Set<C> label = new HashSet<>();
+
+            for (int c = 0; c < alphabetSize; c++) {
+                if (childOfCharacter[c] == i) {
+                    label.add(alphabet.get(c));
+                }
+            }
+
+            ParsimoniousContextTreeNode<C> child =
+                    new ParsimoniousContextTreeNode<>();
+            child.setLabel(label);
+            children.add(new NodeTask<>(child, new ArrayList<>()));
+        }
+
+        listener.onNodesCreated(level + 1, numberOfChildren);
+
+        for (DataRow<C> dataRow : dataRows) {
+            int c = alphabet.getIndexOf(dataRow.getExplanatoryVariable(level));
+            children.get(childOfCharacter[c]).dataRows.add(dataRow);
+        }
+
+        listener.onRowsScanned(level, dataRows.size());
+        Set<ParsimoniousContextTreeNode<C>> childNodes = new HashSet<>();
+
+        for (NodeTask<C> child : children) {
+            childNodes.add(child.node);
+        }
+
+        task.node.setChildren(childNodes);
+        task.children = children;
+        listener.onSubtreeFinished(level);
+        subtreeEvent.commit(getClass(),
+                            level,
+                            depth,
+                            alphabetSize,
+                            dataRows.size(),
+                            numberOfChildren);
+    }
+
+    /**
+     * Searches the partition of the children of a node starting from the
+     * greedy one, and returns the child of each character. The children are
+     * numbered from zero by their lowest character.
+     */
+    private int[] search(long[][] characterHistograms, int level) {
+        long deadline = nodeTimeBudget == Long.MAX_VALUE ?
+                        0L :
+                        System.nanoTime() + nodeTimeBudget;
+        Partition partition = new Partition(
+                characterHistograms,
+                GreedyPartition.select(characterHistograms, k, level)
+                               .labelMasks,
+                k);
+        int[] best = partition.childOfCharacter.clone();
+        double bestScore = partition.score;
+        int[] tabuUntil = new int[characterHistograms.length];
+        int iterationsWithoutImprovement = 0;
+        long numberOfMovesEvaluated = 0L;
+
+        for (int iteration = 1;
+                iterationsWithoutImprovement <
+                        maximumIterationsWithoutImprovement;
+                iteration++) {
+            if (getContext().shouldStop() ||
+                    (deadline != 0L && System.nanoTime() - deadline >= 0L)) {
+                break;
+            }
+
+            Move move = partition.findBestMove(tabuUntil, iteration, bestScore);
+            numberOfMovesEvaluated += partition.getNumberOfMoves();
+
+            if (move == null) {
+                // All the moves are tabu:
+                break;
+            }
+
+            partition.apply(move);
+            tabuUntil[move.character1] = iteration + tabuTenure;
+
+            if (move.character2 >= 0) {
+                tabuUntil[move.character2] = iteration + tabuTenure;
+            }
+
+            if (partition.score > bestScore + MINIMUM_IMPROVEMENT) {
+                best = partition.childOfCharacter.clone();
+                bestScore = partition.score;
+                iterationsWithoutImprovement = 0;
+            } else {
+                iterationsWithoutImprovement++;
+            }
+        }
+
+        getListener().onPartitionsEvaluated(
+                level,
+                (int) Math.min(numberOfMovesEvaluated, Integer.MAX_VALUE));
+        return renumber(best);
+    }
+
+    private double computeScore(List<DataRow<C>> dataRows) {
+        // The nodes are scored on several threads, so each gets a histogram:
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          new int[alphabet.size()],
+                                          k);
+    }
+
+    /**
+     * Numbers the children from zero in the order of their lowest character.
+     */
+    private static int[] renumber(int[] childOfCharacter) {
+        int[] newChild = new int[childOfCharacter.length];
+        int[] renumbered = new int[childOfCharacter.length];
+        int numberOfChildren = 0;
+        Arrays.fill(newChild, -1);
+
+        for (int c = 0; c < childOfCharacter.length; c++) {
+            if (newChild[childOfCharacter[c]] == -1) {
+                newChild[childOfCharacter[c]] = numberOfChildren++;
+            }
+
+            renumbered[c] = newChild[childOfCharacter[c]];
+        }
+
+        return renumbered;
+    }
+
+    /**
+     * Sets the score of each inner node built by this learner to the sum of
+     * the scores of its children.
+     */
+    private static <C> double computeScores(NodeTask<C> task) {
+        if (task.children == null) {
+            return task.node.getScore();
+        }
+
+        double score = 0.0;
+
+        for (NodeTask<C> child : task.children) {
+            score += computeScores(child);
+        }
+
+        task.node.setScore(score);
+        return score;
+    }
+
+    /**
+     * A node with the rows reaching it until it is built, and the tasks of its
+     * children once they are selected.
+     */
+    private static final class NodeTask<C> {
+
+        final ParsimoniousContextTreeNode<C> node;
+        List<DataRow<C>> dataRows;
+        List<NodeTask<C>> children;
+
+        NodeTask(ParsimoniousContextTreeNode<C> node,
+                 List<DataRow<C>> dataRows) {
+            this.node = node;
+            this.dataRows = dataRows;
+        }
+    }
+
+    /**
+     * Moves {@code character1} to the child {@code child}, or swaps it with
+     * {@code character2} if that is not negative.
+     */
+    private static final class Move {
+
+        final int character1;
+        final int character2;
+        final int child;
+        final double scoreDelta;
+
+        Move(int character1, int character2, int child, double scoreDelta) {
+            this.character1 = character1;
+            this.character2 = character2;
+            this.child = child;
+            this.scoreDelta = scoreDelta;
+        }
+    }
+
+    /**
+     * A partition of the alphabet with the response histograms, the sizes and
+     * the log-likelihoods of its children. The children are kept at the
+     * indices below {@code numberOfChildren}.
+     */
+    private static final class Partition {
+
+        final long[][] characterHistograms;
+        final int[] childOfCharacter;
+        final long[][] histograms;
+        final int[] sizes;
+        final double[] logLikelihoods;
+        final double[] characterLogLikelihoods;
+        final double k;
+        final long[] histogram;
+        int numberOfChildren;
+        double score;
+
+        // The best move of the current iteration, and the best score seen in
+        // the search, which a tabu move must beat:
+        private int bestCharacter1;
+        private int bestCharacter2;
+        private int bestChild;
+        private double bestScoreDelta;
+        private double bestScore;
+
+        Partition(long[][] characterHistograms, long[] labelMasks, double k) {
+            int alphabetSize = characterHistograms.length;
+            this.characterHistograms = characterHistograms;
+            this.childOfCharacter = new int[alphabetSize];
+            this.histograms = new long[alphabetSize][alphabetSize];
+            this.sizes = new int[alphabetSize];
+            this.logLikelihoods = new double[alphabetSize];
+            this.characterLogLikelihoods = new double[alphabetSize];
+            this.k = k;
+            this.histogram = new long[alphabetSize];
+            this.numberOfChildren = labelMasks.length;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                characterLogLikelihoods[c] =
+                        ScoringKernel.computeScore(characterHistograms[c],
+                                                   0.0);
+            }
+
+            for (int i = 0; i < labelMasks.length; i++) {
+                for (int c = 0; c < alphabetSize; c++) {
+                    if ((labelMasks[i] & (1L << c)) != 0L) {
+                        childOfCharacter[c] = i;
+                        sizes[i]++;
+                        add(histograms[i], characterHistograms[c], 1);
+                    }
+                }
+
+                logLikelihoods[i] = ScoringKernel.computeScore(histograms[i],
+                                                               0.0);
+                score += logLikelihoods[i] - k;
+            }
+        }
+
+        /**
+         * Returns the number of moves evaluated by
+         * {@link #findBestMove(int[], int, double)}.
+         */
+        long getNumberOfMoves() {
+            long alphabetSize = childOfCharacter.length;
+            return alphabetSize * numberOfChildren +
+                   alphabetSize * (alphabetSize - 1) / 2;
+        }
+
+        /**
+         * Returns the best move not tabu, or a tabu move giving a score better
+         * than {@code bestScore}, or {@code null} if there is neither.
+         */
+        Move findBestMove(int[] tabuUntil, int iteration, double bestScore) {
+            int alphabetSize = childOfCharacter.length;
+            this.bestScore = bestScore;
+            bestCharacter1 = -1;
+
+            // Moving a character to another child, or to a child of its own:
+            for (int c = 0; c < alphabetSize; c++) {
+                int from = childOfCharacter[c];
+                boolean tabu = tabuUntil[c] > iteration;
+                copyAndAdd(histograms[from], characterHistograms[c], -1);
+                double removalDelta =
+                        ScoringKernel.computeScore(histogram, 0.0) -
+                        logLikelihoods[from];
+
+                if (sizes[from] == 1) {
+                    // The child of the character becomes empty:
+                    removalDelta += k;
+                } else {
+                    offer(c,
+                          -1,
+                          numberOfChildren,
+                          removalDelta + characterLogLikelihoods[c] - k,
+                          tabu);
+                }
+
+                for (int to = 0; to < numberOfChildren; to++) {
+                    if (to == from) {
+                        continue;
+                    }
+
+                    copyAndAdd(histograms[to], characterHistograms[c], 1);
+                    double delta = removalDelta +
+                                   ScoringKernel.computeScore(histogram, 0.0) -
+                                   logLikelihoods[to];
+                    offer(c, -1, to, delta, tabu);
+                }
+            }
+
+            // Swapping two characters of different children:
+            for (int c1 = 0; c1 < alphabetSize; c1++) {
+                int child1 = childOfCharacter[c1];
+
+                for (int c2 = c1 + 1; c2 < alphabetSize; c2++) {
+                    int child2 = childOfCharacter[c2];
+
+                    if (child1 == child2) {
+                        continue;
+                    }
+
+                    copyAndAdd(histograms[child1], characterHistograms[c1], -1);
+                    add(histogram, characterHistograms[c2], 1);
+                    double delta = ScoringKernel.computeScore(histogram, 0.0) -
+                                   logLikelihoods[child1];
+                    copyAndAdd(histograms[child2], characterHistograms[c2], -1);
+                    add(histogram, characterHistograms[c1], 1);
+                    delta += ScoringKernel.computeScore(histogram, 0.0) -
+                             logLikelihoods[child2];
+                    offer(c1,
+                          c2,
+                          child2,
+                          delta,
+                          tabuUntil[c1] > iteration ||
+                          tabuUntil[c2] > iteration);
+                }
+            }
+
+            return bestCharacter1 == -1 ?
+                   null :
+                   new Move(bestCharacter1,
+                            bestCharacter2,
+                            bestChild,
+                            bestScoreDelta);
+        }
+
+        /**
+         * Keeps the move as the best one of the current iteration if it is
+         * admissible and better than the best one so far. The moves are kept
+         * in fields, since they are evaluated in the innermost loops.
+         */
+        private void offer(int character1,
+                           int character2,
+                           int child,
+                           double scoreDelta,
+                           boolean tabu) {
+            if (tabu && !(score + scoreDelta >
+                          bestScore + MINIMUM_IMPROVEMENT)) {
+                return;
+            }
+
+            if (bestCharacter1 == -1 || bestScoreDelta < scoreDelta) {
+                bestCharacter1 = character1;
+                bestCharacter2 = character2;
+                bestChild = child;
+                bestScoreDelta = scoreDelta;
+            }
+        }
+
+        void apply(Move move) {
+            if (move.character2 >= 0) {
+                swapCharacters(move.character1, move.character2);
+            } else {
+                if (move.child == numberOfChildren) {
+                    numberOfChildren++;
+                    score -= k;
+                }
+
+                moveCharacter(move.character1, move.child);
+            }
+        }
+
+        /**
+         * Swaps the characters of different children. Unlike two moves, a swap
+         * never empties a child.
+         */
+        private void swapCharacters(int c1, int c2) {
+            int child1 = childOfCharacter[c1];
+            int child2 = childOfCharacter[c2];
+            add(histograms[child1], characterHistograms[c1], -1);
+            add(histograms[child1], characterHistograms[c2], 1);
+            add(histograms[child2], characterHistograms[c2], -1);
+            add(histograms[child2], characterHistograms[c1], 1);
+            childOfCharacter[c1] = child2;
+            childOfCharacter[c2] = child1;
+            updateLogLikelihood(child1);
+            updateLogLikelihood(child2);
+        }
+
+        private void moveCharacter(int c, int to) {
+            int from = childOfCharacter[c];
+            add(histograms[from], characterHistograms[c], -1);
+            add(histograms[to], characterHistograms[c], 1);
+            sizes[from]--;
+            sizes[to]++;
+            childOfCharacter[c] = to;
+            updateLogLikelihood(from);
+            updateLogLikelihood(to);
+
+            if (sizes[from] == 0) {
+                removeChild(from);
+            }
+        }
+
+        private void updateLogLikelihood(int child) {
+            double logLikelihood =
+                    ScoringKernel.computeScore(histograms[child], 0.0);
+            score += logLikelihood - logLikelihoods[child];
+            logLikelihoods[child] = logLikelihood;
+        }
+
+        /**
+         * Removes the empty child by moving the last child in its place.
+         */
+        private void removeChild(int child) {
+            int last = --numberOfChildren;
+            score += k;
+
+            if (child != last) {
+                long[] emptyHistogram = histograms[child];
+                histograms[child] = histograms[last];
+                histograms[last] = emptyHistogram;
+                sizes[child] = sizes[last];
+                sizes[last] = 0;
+                logLikelihoods[child] = logLikelihoods[last];
+
+                for (int c = 0; c < childOfCharacter.length; c++) {
+                    if (childOfCharacter[c] == last) {
+                        childOfCharacter[c] = child;
+                    }
+                }
+            }
+
+            logLikelihoods[last] = 0.0;
+        }
+
+        private void copyAndAdd(long[] source, long[] counts, int sign) {
+            System.arraycopy(source, 0, histogram, 0, histogram.length);
+            add(histogram, counts, sign);
+        }
+
+        private static void add(long[] target, long[] counts, int sign) {
+            for (int c = 0; c < target.length; c++) {
+                target[c] += sign * counts[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearnerListener;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.jfr.MergeStepEvent;
+import net.coderodde.msc.jfr.SubtreeBuiltEvent;
+
+/**
+ * This class implements a heuristic PCT learner merging the children of each
+ * node agglomeratively like {@link HeuristicParsimoniousContextTreeLearner},
+ * but finding the merges with the nearest-neighbor chain algorithm instead of
+ * evaluating all the pairs of children after each merge. The distance of two
+ * children is the log-likelihood lost by merging them, and a merge is
+ * accepted if the distance is less than the leaf penalty it saves. The chain
+ * starts from any child and repeatedly appends the nearest neighbor of its
+ * last child until two children are the nearest neighbors of each other;
+ * those are merged, or if their distance is at least the leaf penalty, left
+ * unmerged for good, and the chain continues from what remains of it.
+ * <p>
+ * If the distance is reducible, that is, the distance of a merged child to
+ * any other child is at least the smaller distance of its parts to it, the
+ * merges are those of the greedy learner, and otherwise close to them. All
+ * the merges of a node evaluate {@code O(s^2)} distances in total instead of
+ * {@code O(s^3)}, which together with the labels not being bit masks makes
+ * alphabets of hundreds of characters feasible.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class NearestNeighborChainParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    private Alphabet<C> alphabet;
+    private Set<C> alphabetLabel;
+    private int depth;
+    private double k;
+    private int[] characterCountHistogram;
+
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
+        Objects.requireNonNull(listOfDataRows);
+        checkDataRowListNotEmpty(listOfDataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
+
+        NearestNeighborChainParsimoniousContextTreeLearner<C> state =
+                new NearestNeighborChainParsimoniousContextTreeLearner<>();
+
+        state.alphabet = getAlphabet(listOfDataRows);
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setListener(getListener());
+        state.setContext(getContext());
+        state.depth = listOfDataRows.get(0).getNumberOfExplanatoryVariables();
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
+        ParsimoniousContextTreeNode<C> root =
+                new ParsimoniousContextTreeNode<>();
+        root.setLabel(Collections.emptySet());
+        state.build(root, state.depth, listOfDataRows);
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    private void build(ParsimoniousContextTreeNode<C> node,
+                       int currentDepth,
+                       List<DataRow<C>> dataRows) {
+        LearnerListener listener = getListener();
+        int level = depth - currentDepth;
+
+        if (currentDepth == 0) {
+            node.setScore(computeScore(dataRows));
+            listener.onRowsScanned(level, dataRows.size());
+            listener.onHistogramsBuilt(level, 1);
+            return;
+        }
+
+        listener.onSubtreeStarted(level);
+
+        if (getContext().shouldStop()) {
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(node,
+                                             alphabetLabel,
+                                             currentDepth,
+                                             computeScore(dataRows));
+            listener.onSubtreeFinished(level);
+            return;
+        }
+
+        SubtreeBuiltEvent subtreeEvent = new SubtreeBuiltEvent();
+        subtreeEvent.begin();
+        int alphabetSize = alphabet.size();
+        int[] explanatoryCharacters = new int[dataRows.size()];
+        long[][] characterHistograms = new long[alphabetSize][alphabetSize];
+
+        for (int i = 0; i < explanatoryCharacters.length; i++) {
+            DataRow<C> dataRow = dataRows.get(i);
+            explanatoryCharacters[i] =
+                    alphabet.getIndexOf(dataRow.getExplanatoryVariable(level));
+            characterHistograms[explanatoryCharacters[i]]
+                    [alphabet.getIndexOf(dataRow.getResponseVariable())]++;
+        }
+
+        listener.onRowsScanned(level, dataRows.size());
+        listener.onHistogramsBuilt(level, alphabetSize);
+        int[] childOfCharacter =
+                mergeChildren(characterHistograms, level, dataRows.size());
+        int numberOfChildren = 0;
+
+        for (int child : childOfCharacter) {
+            numberOfChildren = Math.max(numberOfChildren, child + 1);
+        }
+
+        List<ParsimoniousContextTreeNode<C>> children =
+                new ArrayList<>(numberOfChildren);
+        List<List<DataRow<C>>> childDataRows =
+                new ArrayList<>(numberOfChildren);
+
+        for (int i = 0; i < numberOfChildren; i++) {
+            ParsimoniousContextTreeNode<C> child =
+                    new ParsimoniousContextTreeNode<>();
+            child.setLabel(new HashSet<>());
+            children.add(child);
+            childDataRows.add(new ArrayList<>());
+        }
+
+        for (int c = 0; c < alphabetSize; c++) {
+            children.get(childOfCharacter[c]).getLabel().add(alphabet.get(c));
+        }
+
+        listener.onNodesCreated(level + 1, numberOfChildren);
+
+        for (int i = 0; i < explanatoryCharacters.length; i++) {
+            childDataRows.get(childOfCharacter[explanatoryCharacters[i]])
+                         .add(dataRows.get(i));
+        }
+
+        double score = 0.0;
+
+        for (int i = 0; i < numberOfChildren; i++) {
+            build(children.get(i), currentDepth - 1, childDataRows.get(i));
+            score += children.get(i).getScore();
+
+            if (level == 0) {
+                getContext().reportProgress(i + 1, numberOfChildren);
+            }
+        }
+
+        node.setChildren(new HashSet<>(children));
+        node.setScore(score);
+        listener.onSubtreeFinished(level);
+        subtreeEvent.commit(getClass(),
+                            level,
+                            depth,
+                            alphabetSize,
+                            dataRows.size(),
+                            numberOfChildren);
+    }
+
+    /**
+     * Merges the children of the characters with the nearest-neighbor chain
+     * algorithm and returns the child of each character. The children are
+     * numbered from zero by their lowest character.
+     */
+    private int[] mergeChildren(long[][] characterHistograms,
+                                int level,
+                                int rowCount) {
+        LearnerListener listener = getListener();
+        int alphabetSize = characterHistograms.length;
+        long[][] histograms = new long[alphabetSize][];
+        double[] logLikelihoods = new double[alphabetSize];
+        int[] childOfCharacter = new int[alphabetSize];
+
+        // A child is merged if it is merged to another child, and final if
+        // it is left unmerged for good:
+        boolean[] merged = new boolean[alphabetSize];
+        boolean[] isFinal = new boolean[alphabetSize];
+        boolean[] inChain = new boolean[alphabetSize];
+        int[] chain = new int[alphabetSize];
+        int chainLength = 0;
+        int numberOfOpenChildren = alphabetSize;
+        int numberOfMerges = 0;
+        long numberOfDistances = 0L;
+        int numberOfDistancesSinceMerge = 0;
+        long[] mergedHistogram = new long[alphabetSize];
+        MergeStepEvent mergeEvent = new MergeStepEvent();
+        mergeEvent.begin();
+
+        for (int c = 0; c < alphabetSize; c++) {
+            histograms[c] = characterHistograms[c].clone();
+            logLikelihoods[c] = ScoringKernel.computeScore(histograms[c], 0.0);
+            childOfCharacter[c] = c;
+        }
+
+        while (numberOfOpenChildren > 1) {
+            if (chainLength == 0) {
+                for (int i = 0; i < alphabetSize; i++) {
+                    if (!merged[i] && !isFinal[i]) {
+                        chain[chainLength++] = i;
+                        inChain[i] = true;
+                        break;
+                    }
+                }
+            }
+
+            int last = chain[chainLength - 1];
+            int previous = chainLength > 1 ? chain[chainLength - 2] : -1;
+
+            // Find the nearest neighbor of the last child, preferring the
+            // previous child of the chain on ties:
+            int nearest = previous;
+            double nearestDistance = previous == -1 ?
+                    Double.POSITIVE_INFINITY :
+                    computeDistance(histograms,
+                                    logLikelihoods,
+                                    last,
+                                    previous,
+                                    mergedHistogram);
+
+            for (int i = 0; i < alphabetSize; i++) {
+                if (i == last || i == previous || merged[i] || isFinal[i]) {
+                    continue;
+                }
+
+                double distance = computeDistance(histograms,
+                                                  logLikelihoods,
+                                                  last,
+                                                  i,
+                                                  mergedHistogram);
+
+                if (nearest == -1 || distance < nearestDistance) {
+                    nearest = i;
+                    nearestDistance = distance;
+                }
+            }
+
+            numberOfDistances += numberOfOpenChildren - 1;
+            numberOfDistancesSinceMerge += numberOfOpenChildren - 1;
+
+            if (!inChain[nearest]) {
+                chain[chainLength++] = nearest;
+                inChain[nearest] = true;
+                continue;
+            }
+
+            // The last child and its nearest neighbor are the nearest
+            // neighbors of each other, or if the distance is not reducible,
+            // the nearest neighbor is further back in the chain, in which
+            // case the chain after it is dropped:
+            while (chainLength > 0) {
+                int child = chain[--chainLength];
+                inChain[child] = false;
+
+                if (child == nearest) {
+                    break;
+                }
+            }
+
+            if (!(nearestDistance < k)) {
+                // With a reducible distance, the two are further from any
+                // merged child, so neither is ever merged:
+                isFinal[last] = true;
+                isFinal[nearest] = true;
+                numberOfOpenChildren -= 2;
+                continue;
+            }
+
+            int child1 = Math.min(last, nearest);
+            int child2 = Math.max(last, nearest);
+
+            for (int c = 0; c < alphabetSize; c++) {
+                histograms[child1][c] += histograms[child2][c];
+
+                if (childOfCharacter[c] == child2) {
+                    childOfCharacter[c] = child1;
+                }
+            }
+
+            logLikelihoods[child1] =
+                    ScoringKernel.computeScore(histograms[child1], 0.0);
+            histograms[child2] = null;
+            merged[child2] = true;
+            numberOfOpenChildren--;
+            numberOfMerges++;
+            mergeEvent.commit(getClass(),
+                              level,
+                              alphabetSize,
+                              rowCount,
+                              numberOfDistancesSinceMerge,
+                              alphabetSize - numberOfMerges,
+                              k - nearestDistance);
+            numberOfDistancesSinceMerge = 0;
+            mergeEvent.begin();
+        }
+
+        listener.onMergesAttempted(
+                level,
+                (int) Math.min(numberOfDistances, Integer.MAX_VALUE));
+        listener.onMergesAccepted(level, numberOfMerges);
+        return renumber(childOfCharacter);
+    }
+
+    /**
+     * Returns the log-likelihood lost by merging the children {@code i} and
+     * {@code j}.
+     */
+    private static double computeDistance(long[][] histograms,
+                                          double[] logLikelihoods,
+                                          int i,
+                                          int j,
+                                          long[] mergedHistogram) {
+        for (int c = 0; c < mergedHistogram.length; c++) {
+            mergedHistogram[c] = histograms[i][c] + histograms[j][c];
+        }
+
+        return logLikelihoods[i] + logLikelihoods[j] -
+               ScoringKernel.computeScore(mergedHistogram, 0.0);
+    }
+
+    /**
+     * Numbers the children from zero in the order of their lowest character.
+     */
+    private static int[] renumber(int[] childOfCharacter) {
+        int[] newChild = new int[childOfCharacter.length];
+        int[] renumbered = new int[childOfCharacter.length];
+        int numberOfChildren = 0;
+
+        for (int c = 0; c < childOfCharacter.length; c++) {
+            newChild[c] = -1;
+        }
+
+        for (int c = 0; c < childOfCharacter.length; c++) {
+            if (newChild[childOfCharacter[c]] == -1) {
+                newChild[childOfCharacter[c]] = numberOfChildren++;
+            }
+
+            renumbered[c] = newChild[childOfCharacter[c]];
+        }
+
+        return renumbered;
+    }
+
+    private double computeScore(List<DataRow<C>> dataRows) {
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
+    }
+}
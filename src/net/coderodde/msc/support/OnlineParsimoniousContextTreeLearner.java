@@ -0,0 +1,942 @@
+package net.coderodde.msc.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ContextCountTrie;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ResponseVariableDistribution;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.io.CharacterCodec;
+
+/**
+ * This class implements a PCT learner consuming the data rows one at a time.
+ * The rows are counted into a {@link ContextCountTrie}, and the current tree
+ * is available at any moment through {@link #getTree()}. The tree is built
+ * either greedily as in {@link HeuristicParsimoniousContextTreeLearner} or
+ * optimally as in {@link BasicParsimoniousContextTreeLearner}, the latter
+ * being feasible only for small alphabets.
+ * <p>
+ * Each node of the current tree remembers how many rows reached it when its
+ * subtree was last optimized. When the tree is requested, only the subtrees
+ * whose row counts have grown by more than the refresh threshold are
+ * optimized again; the other nodes keep their partitions and only have their
+ * scores updated. Since the rows added since the last request reach only the
+ * nodes on their context paths, the cost of a request is proportional to the
+ * amount of new data rather than to the whole history.
+ * <p>
+ * With the threshold zero, the result is the tree the batch learner would
+ * build from all the rows added so far. A greedy node also remembers the
+ * range of leaf penalties for which its merges stay the same, so that only
+ * the nodes reached by new rows, and the nodes whose range no longer covers
+ * the penalty of the grown data set, select their partitions again. The
+ * optimal strategy has no such ranges, so a grown node optimizes its whole
+ * subtree again.
+ * <p>
+ * The state of a learner, that is, the counts and the current tree with its
+ * memoized partitions, is written by {@link #save(Path, CharacterCodec)} and
+ * read back by {@link #load(Path, CharacterCodec)}, so that a data set that
+ * grows over time can be learned by adding only the new rows to the saved
+ * state.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class OnlineParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The ways of optimizing a subtree.
+     */
+    public enum Strategy {
+
+        /**
+         * Merges the children greedily as
+         * {@link HeuristicParsimoniousContextTreeLearner}.
+         */
+        HEURISTIC,
+
+        /**
+         * Chooses the best partition of each node as
+         * {@link BasicParsimoniousContextTreeLearner}.
+         */
+        OPTIMAL
+    }
+
+    /**
+     * The default relative growth of the row count of a node that triggers
+     * the optimization of its subtree.
+     */
+    public static final double DEFAULT_REFRESH_THRESHOLD = 0.1;
+
+    /**
+     * The largest alphabet allowed with {@link Strategy#OPTIMAL}.
+     */
+    public static final int MAXIMUM_OPTIMAL_ALPHABET_SIZE = 8;
+
+    /**
+     * The first four bytes of a state file, "PCTS" in ASCII.
+     */
+    public static final int STATE_MAGIC = 0x50435453;
+
+    /**
+     * The version of the state file format.
+     */
+    public static final int STATE_FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Strategy strategy;
+    private final Alphabet<C> alphabet;
+    private final int alphabetSize;
+    private final int depth;
+    private final ContextCountTrie<C> trie;
+
+    /**
+     * The encoded context of the row being added.
+     */
+    private final byte[] context;
+
+    private double refreshThreshold = DEFAULT_REFRESH_THRESHOLD;
+    private long numberOfPartitionSelections;
+
+    /**
+     * The root of the current tree, or {@code null} before the first request.
+     */
+    private Node root;
+
+    /**
+     * The leaf penalty of the ongoing request.
+     */
+    private double k;
+
+    public OnlineParsimoniousContextTreeLearner(Alphabet<C> alphabet,
+                                                int depth) {
+        this(alphabet, depth, Strategy.HEURISTIC);
+    }
+
+    public OnlineParsimoniousContextTreeLearner(Alphabet<C> alphabet,
+                                                int depth,
+                                                Strategy strategy) {
+        this(new ContextCountTrie<>(
+                     Objects.requireNonNull(alphabet, "Alphabet is null."),
+                     depth),
+             strategy);
+    }
+
+    /**
+     * Constructs a learner starting from the counts in {@code trie}, for
+     * example those of {@link net.coderodde.msc.io.ExternalContextCounter}.
+     * The trie is taken over by this learner, which adds the new rows to it.
+     *
+     * @param trie     the context counts.
+     * @param strategy the strategy.
+     */
+    public OnlineParsimoniousContextTreeLearner(ContextCountTrie<C> trie,
+                                                Strategy strategy) {
+        this.trie = Objects.requireNonNull(trie, "The trie is null.");
+        this.alphabet = trie.getAlphabet();
+        this.strategy = Objects.requireNonNull(strategy, "Strategy is null.");
+        this.alphabetSize = alphabet.size();
+        this.depth = trie.getDepth();
+        this.context = new byte[depth];
+
+        if (strategy == Strategy.OPTIMAL &&
+                alphabetSize > MAXIMUM_OPTIMAL_ALPHABET_SIZE) {
+            throw new IllegalArgumentException(
+                    "The alphabet is too large for the optimal strategy (" +
+                    alphabetSize + "), must be at most " +
+                    MAXIMUM_OPTIMAL_ALPHABET_SIZE + ".");
+        }
+    }
+
+    /**
+     * Learns a tree from {@code listOfDataRows} in a fresh learner having the
+     * strategy of this learner. The state of this learner is not affected.
+     *
+     * @param listOfDataRows the list of data rows.
+     * @return a parsimonious context tree.
+     */
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
+        Objects.requireNonNull(listOfDataRows);
+        checkDataRowListNotEmpty(listOfDataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
+
+        OnlineParsimoniousContextTreeLearner<C> learner =
+                new OnlineParsimoniousContextTreeLearner<>(
+                        getAlphabet(listOfDataRows),
+                        listOfDataRows.get(0)
+                                      .getNumberOfExplanatoryVariables(),
+                        strategy);
+        learner.setContext(getContext());
+        learner.addAll(listOfDataRows);
+        return learner.getTree();
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public Alphabet<C> getAlphabet() {
+        return alphabet;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the relative growth of the row count of a node that triggers the
+     * optimization of its subtree on the next request.
+     *
+     * @param refreshThreshold the non-negative refresh threshold.
+     */
+    public void setRefreshThreshold(double refreshThreshold) {
+        if (Double.isNaN(refreshThreshold) || refreshThreshold < 0.0) {
+            throw new IllegalArgumentException(
+                    "The refresh threshold must be non-negative: " +
+                    refreshThreshold);
+        }
+
+        this.refreshThreshold = refreshThreshold;
+    }
+
+    public double getRefreshThreshold() {
+        return refreshThreshold;
+    }
+
+    public long getNumberOfRows() {
+        return trie.getNumberOfRows();
+    }
+
+    /**
+     * Adds the first {@code depth} explanatory variables and the response of
+     * {@code dataRow}.
+     *
+     * @param dataRow the data row to add.
+     */
+    public void add(DataRow<C> dataRow) {
+        if (dataRow.getNumberOfExplanatoryVariables() < depth) {
+            throw new IllegalArgumentException(
+                    "The data row has too few explanatory variables: " +
+                    dataRow.getNumberOfExplanatoryVariables() + ", must " +
+                    "be at least " + depth + ".");
+        }
+
+        for (int d = 0; d < depth; d++) {
+            context[d] = (byte) alphabet.getIndexOf(
+                    dataRow.getExplanatoryVariable(d));
+        }
+
+        add(alphabet.getIndexOf(dataRow.getResponseVariable()));
+    }
+
+    public void addAll(List<DataRow<C>> dataRows) {
+        for (DataRow<C> dataRow : dataRows) {
+            add(dataRow);
+        }
+    }
+
+    /**
+     * Adds all the rows of {@code dataSet}, which must be encoded with the
+     * alphabet of this learner.
+     *
+     * @param dataSet the encoded data set.
+     */
+    public void addAll(EncodedDataSet<C> dataSet) {
+        if (dataSet.size() > 0 &&
+                dataSet.getNumberOfExplanatoryVariables() < depth) {
+            throw new IllegalArgumentException(
+                    "The data set has too few explanatory variables: " +
+                    dataSet.getNumberOfExplanatoryVariables() + ", must " +
+                    "be at least " + depth + ".");
+        }
+
+        byte[] responses = dataSet.getResponseColumn();
+
+        for (int row = 0; row < dataSet.size(); row++) {
+            for (int d = 0; d < depth; d++) {
+                context[d] = dataSet.getExplanatoryColumn(d)[row];
+            }
+
+            add(responses[row]);
+        }
+    }
+
+    /**
+     * Returns the best tree for the rows added so far. Only the nodes whose
+     * row counts have grown by more than the refresh threshold, or whose
+     * partitions are not valid for the current leaf penalty, select their
+     * partitions again.
+     *
+     * @return the current tree.
+     */
+    public ParsimoniousContextTree<C> getTree() {
+        if (trie.getNumberOfRows() == 0L) {
+            throw new IllegalStateException("There is no data rows.");
+        }
+
+        k = ScoringKernel.computeLeafPenalty(alphabetSize,
+                                             trie.getNumberOfRows());
+
+        if (root == null) {
+            long[] histogram = new long[alphabetSize];
+            trie.addResponseCounts(ContextCountTrie.ROOT, histogram);
+            root = new Node(0L, histogram);
+        }
+
+        refresh(root, new int[]{ ContextCountTrie.ROOT }, 0);
+        computeScores(root);
+        ParsimoniousContextTreeNode<C> treeRoot = convert(root);
+        treeRoot.setLabel(Collections.<C>emptySet());
+        return new ParsimoniousContextTree<>(treeRoot);
+    }
+
+    /**
+     * Returns the current tree with the response distributions of its leaves
+     * estimated from the rows reaching them as {@code (N_c + a) / (N + a
+     * sigma)}, where {@code a} is {@code pseudoCount}.
+     *
+     * @param pseudoCount the non-negative pseudo count.
+     * @return the current tree with the leaf distributions.
+     */
+    public ParsimoniousContextTree<C> getTree(double pseudoCount) {
+        if (Double.isNaN(pseudoCount) || pseudoCount < 0.0) {
+            throw new IllegalArgumentException(
+                    "The pseudo count must be non-negative: " + pseudoCount);
+        }
+
+        ParsimoniousContextTree<C> tree = getTree();
+        setLeafDistributions(root, tree.getRoot(), pseudoCount);
+        return tree;
+    }
+
+    /**
+     * Writes the state of this learner to {@code path}. The file is first
+     * written next to {@code path} and then moved over it, so that a failed
+     * save leaves the previous state intact.
+     *
+     * @param path  the path of the state file.
+     * @param codec the codec of the alphabet characters.
+     * @throws IOException if writing fails.
+     */
+    public void save(Path path, CharacterCodec<C> codec) throws IOException {
+        Path temporaryPath =
+                path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(temporaryPath),
+                                BUFFER_SIZE))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(STATE_FORMAT_VERSION);
+            out.writeInt(alphabetSize);
+            codec.writeAlphabet(alphabet, out);
+            out.writeByte(strategy.ordinal());
+            out.writeDouble(refreshThreshold);
+            out.writeLong(numberOfPartitionSelections);
+            trie.write(out);
+            out.writeBoolean(root != null);
+
+            if (root != null) {
+                writeNode(root, out);
+            }
+        }
+
+        Files.move(temporaryPath,
+                   path,
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a learner saved by {@link #save(Path, CharacterCodec)}.
+     *
+     * @param <C>   the character type.
+     * @param path  the path of the state file.
+     * @param codec the codec of the alphabet characters.
+     * @return the learner.
+     * @throws IOException if reading fails or the file is not a valid state
+     *                     file.
+     */
+    public static <C> OnlineParsimoniousContextTreeLearner<C>
+            load(Path path, CharacterCodec<C> codec) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(path),
+                                                BUFFER_SIZE))) {
+            if (in.readInt() != STATE_MAGIC) {
+                throw new IOException("Not a learner state file: " + path);
+            }
+
+            int formatVersion = in.readInt();
+
+            if (formatVersion != STATE_FORMAT_VERSION) {
+                throw new IOException(
+                        "Unsupported learner state format version " +
+                        formatVersion + ".");
+            }
+
+            Alphabet<C> alphabet = codec.readAlphabet(in, in.readInt());
+            int strategyOrdinal = in.readByte();
+
+            if (strategyOrdinal < 0 ||
+                    strategyOrdinal >= Strategy.values().length) {
+                throw new IOException("Invalid strategy " + strategyOrdinal +
+                                      ".");
+            }
+
+            double refreshThreshold = in.readDouble();
+            long numberOfPartitionSelections = in.readLong();
+            ContextCountTrie<C> trie = ContextCountTrie.read(in, alphabet);
+            OnlineParsimoniousContextTreeLearner<C> learner;
+
+            try {
+                learner = new OnlineParsimoniousContextTreeLearner<>(
+                        trie,
+                        Strategy.values()[strategyOrdinal]);
+                learner.setRefreshThreshold(refreshThreshold);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+
+            learner.numberOfPartitionSelections = numberOfPartitionSelections;
+
+            if (in.readBoolean()) {
+                learner.root = learner.readNode(in, 0);
+            }
+
+            if (in.read() != -1) {
+                throw new IOException(
+                        "Trailing bytes in the learner state file.");
+            }
+
+            return learner;
+        } catch (EOFException ex) {
+            throw new IOException("The learner state file is truncated.", ex);
+        }
+    }
+
+    /**
+     * Returns the number of times a node has selected its partition, for
+     * measuring how much work the requests do.
+     *
+     * @return the number of partition selections.
+     */
+    public long getNumberOfPartitionSelections() {
+        return numberOfPartitionSelections;
+    }
+
+    private void add(int response) {
+        trie.add(context, response, 1L);
+
+        if (root == null) {
+            return;
+        }
+
+        // Route the row through the current tree:
+        Node node = root;
+
+        for (int d = 0; ; d++) {
+            node.histogram[response]++;
+            node.count++;
+
+            if (node.children == null) {
+                return;
+            }
+
+            long bit = 1L << context[d];
+
+            for (Node child : node.children) {
+                if ((child.labelMask & bit) != 0L) {
+                    node = child;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the subtree of {@code node}, whose rows are counted in the trie
+     * nodes {@code frontier} at the level {@code level}, up to date.
+     */
+    private void refresh(Node node, int[] frontier, int level) {
+        boolean countChanged =
+                node.count > node.optimizedCount * (1.0 + refreshThreshold);
+
+        if (level == depth) {
+            node.children = null;
+            node.optimizedCount = node.count;
+        } else if (strategy == Strategy.OPTIMAL &&
+                !getContext().shouldStop()) {
+            if (countChanged) {
+                node.children = findBestSubtree(node.labelMask,
+                                                frontier,
+                                                node.histogram,
+                                                level).children;
+                markOptimized(node);
+
+                if (!getContext().shouldStop()) {
+                    node.maximumPenalty = Double.POSITIVE_INFINITY;
+                    node.subtreeMaximumPenalty = Double.POSITIVE_INFINITY;
+                    return;
+                }
+
+                // The search was cut short by the context:
+                markGreedy(node);
+            }
+        } else if (countChanged || !node.isValidFor(k)) {
+            selectPartition(node, frontier, level);
+
+            if (strategy == Strategy.OPTIMAL) {
+                // Out of time, fall back to the greedy partition:
+                markGreedy(node);
+            }
+        }
+
+        node.subtreeMinimumPenalty = node.minimumPenalty;
+        node.subtreeMaximumPenalty = node.maximumPenalty;
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                if (child.count != child.refreshedCount ||
+                        !child.isSubtreeValidFor(k)) {
+                    refresh(child,
+                            expand(frontier, child.labelMask),
+                            level + 1);
+                }
+
+                node.subtreeMinimumPenalty =
+                        Math.max(node.subtreeMinimumPenalty,
+                                 child.subtreeMinimumPenalty);
+                node.subtreeMaximumPenalty =
+                        Math.min(node.subtreeMaximumPenalty,
+                                 child.subtreeMaximumPenalty);
+            }
+        }
+
+        node.refreshedCount = node.count;
+    }
+
+    /**
+     * Selects the partition of the children of {@code node} greedily,
+     * keeping the existing children whose labels stay the same.
+     */
+    private void selectPartition(Node node, int[] frontier, int level) {
+        numberOfPartitionSelections++;
+        node.optimizedCount = node.count;
+        long[][] histograms = countCharacterHistograms(frontier);
+        GreedyPartition partition = GreedyPartition.select(histograms,
+                                                           k,
+                                                           level);
+        long[] labelMasks = partition.labelMasks;
+        node.minimumPenalty = partition.minimumPenalty;
+        node.maximumPenalty = partition.maximumPenalty;
+        Node[] oldChildren = node.children;
+        node.children = new Node[labelMasks.length];
+
+        for (int i = 0; i < labelMasks.length; i++) {
+            node.children[i] = findChild(oldChildren, labelMasks[i]);
+
+            if (node.children[i] == null) {
+                node.children[i] =
+                        new Node(labelMasks[i],
+                                 sumHistograms(histograms, labelMasks[i]));
+            }
+        }
+    }
+
+    private static Node findChild(Node[] children, long labelMask) {
+        if (children != null) {
+            for (Node child : children) {
+                if (child.labelMask == labelMask) {
+                    return child;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the response histograms of the rows counted in the trie nodes
+     * {@code frontier} for each character of the next explanatory variable.
+     */
+    private long[][] countCharacterHistograms(int[] frontier) {
+        long[][] histograms = new long[alphabetSize][alphabetSize];
+
+        for (int f : frontier) {
+            for (int c = 0; c < alphabetSize; c++) {
+                int child = trie.getChild(f, c);
+
+                if (child != ContextCountTrie.NONE) {
+                    trie.addResponseCounts(child, histograms[c]);
+                }
+            }
+        }
+
+        return histograms;
+    }
+
+    /**
+     * Returns the best subtree for the rows counted in the trie nodes
+     * {@code frontier} at the level {@code level}. Every label is tried for
+     * every child, and the best partition of the alphabet into the labels of
+     * the children is found by dynamic programming over the subsets of the
+     * alphabet.
+     */
+    private Node findBestSubtree(long labelMask,
+                                 int[] frontier,
+                                 long[] histogram,
+                                 int level) {
+        Node node = new Node(labelMask, histogram);
+
+        if (level == depth) {
+            node.score = ScoringKernel.computeScore(histogram, k);
+            return node;
+        }
+
+        if (getContext().shouldStop()) {
+            // Out of time, continue greedily:
+            refresh(node, frontier, level);
+            computeScores(node);
+            return node;
+        }
+
+        long[][] histograms = countCharacterHistograms(frontier);
+        int fullMask = (1 << alphabetSize) - 1;
+        Node[] candidates = new Node[fullMask + 1];
+
+        for (int label = 1; label <= fullMask; label++) {
+            candidates[label] =
+                    findBestSubtree(label,
+                                    level + 1 == depth ?
+                                            null :
+                                            expand(frontier, label),
+                                    sumHistograms(histograms, label),
+                                    level + 1);
+        }
+
+        double[] bestScores = new double[fullMask + 1];
+        int[] bestFirstBlocks = new int[fullMask + 1];
+
+        for (int mask = 1; mask <= fullMask; mask++) {
+            int lowestBit = mask & -mask;
+            bestScores[mask] = Double.NEGATIVE_INFINITY;
+
+            // The block containing the lowest character of the mask:
+            for (int block = mask; block != 0; block = (block - 1) & mask) {
+                if ((block & lowestBit) == 0) {
+                    continue;
+                }
+
+                double score = candidates[block].score +
+                               bestScores[mask ^ block];
+
+                if (bestScores[mask] < score) {
+                    bestScores[mask] = score;
+                    bestFirstBlocks[mask] = block;
+                }
+            }
+        }
+
+        int numberOfChildren = 0;
+
+        for (int mask = fullMask; mask != 0; mask ^= bestFirstBlocks[mask]) {
+            numberOfChildren++;
+        }
+
+        node.children = new Node[numberOfChildren];
+        int i = 0;
+
+        for (int mask = fullMask; mask != 0; mask ^= bestFirstBlocks[mask]) {
+            node.children[i++] = candidates[bestFirstBlocks[mask]];
+        }
+
+        node.score = bestScores[fullMask];
+        return node;
+    }
+
+    /**
+     * Marks {@code node}, whose subtree is not optimal, as invalid for every
+     * leaf penalty, so that the next refresh optimizes the subtree again.
+     */
+    private static void markGreedy(Node node) {
+        node.optimizedCount = -1L;
+        node.maximumPenalty = Double.NEGATIVE_INFINITY;
+    }
+
+    private void markOptimized(Node node) {
+        node.optimizedCount = node.count;
+        node.refreshedCount = node.count;
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                markOptimized(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the children of the trie nodes {@code frontier} for the
+     * characters in {@code labelMask}.
+     */
+    private int[] expand(int[] frontier, long labelMask) {
+        int[] children = new int[frontier.length * Long.bitCount(labelMask)];
+        int size = 0;
+
+        for (int f : frontier) {
+            for (long mask = labelMask; mask != 0L; mask &= mask - 1L) {
+                int child = trie.getChild(f, Long.numberOfTrailingZeros(mask));
+
+                if (child != ContextCountTrie.NONE) {
+                    children[size++] = child;
+                }
+            }
+        }
+
+        return Arrays.copyOf(children, size);
+    }
+
+    private long[] sumHistograms(long[][] histograms, long labelMask) {
+        long[] sum = new long[alphabetSize];
+
+        for (long mask = labelMask; mask != 0L; mask &= mask - 1L) {
+            long[] histogram = histograms[Long.numberOfTrailingZeros(mask)];
+
+            for (int c = 0; c < alphabetSize; c++) {
+                sum[c] += histogram[c];
+            }
+        }
+
+        return sum;
+    }
+
+    private void computeScores(Node node) {
+        if (node.children == null) {
+            node.score = ScoringKernel.computeScore(node.histogram, k);
+            return;
+        }
+
+        double score = 0.0;
+
+        for (Node child : node.children) {
+            computeScores(child);
+            score += child.score;
+        }
+
+        node.score = score;
+    }
+
+    private ParsimoniousContextTreeNode<C> convert(Node node) {
+        ParsimoniousContextTreeNode<C> treeNode =
+                new ParsimoniousContextTreeNode<>();
+        Set<C> label = new HashSet<>();
+
+        for (long mask = node.labelMask; mask != 0L; mask &= mask - 1L) {
+            label.add(alphabet.get(Long.numberOfTrailingZeros(mask)));
+        }
+
+        treeNode.setLabel(label);
+        treeNode.setScore(node.score);
+
+        if (node.children != null) {
+            Set<ParsimoniousContextTreeNode<C>> children =
+                    new HashSet<>(node.children.length);
+
+            for (Node child : node.children) {
+                children.add(convert(child));
+            }
+
+            treeNode.setChildren(children);
+        }
+
+        return treeNode;
+    }
+
+    private void setLeafDistributions(Node node,
+                                      ParsimoniousContextTreeNode<C> treeNode,
+                                      double pseudoCount) {
+        if (node.children == null) {
+            ResponseVariableDistribution<C> distribution =
+                    new ResponseVariableDistribution<>();
+            double denominator = node.count + pseudoCount * alphabetSize;
+
+            for (int c = 0; c < alphabetSize; c++) {
+                distribution.putResponseVariableProbability(
+                        alphabet.get(c),
+                        denominator == 0.0 ?
+                                1.0 / alphabetSize :
+                                (node.histogram[c] + pseudoCount) /
+                                        denominator);
+            }
+
+            treeNode.setResponseVariableDistribution(distribution);
+            return;
+        }
+
+        // The converted children are in a hash set, matched by their labels:
+        for (ParsimoniousContextTreeNode<C> treeChild :
+                treeNode.getChildren()) {
+            long labelMask = 0L;
+
+            for (C character : treeChild.getLabel()) {
+                labelMask |= 1L << alphabet.getIndexOf(character);
+            }
+
+            setLeafDistributions(findChild(node.children, labelMask),
+                                 treeChild,
+                                 pseudoCount);
+        }
+    }
+
+    /**
+     * Writes {@code node} and its subtree in pre-order. The count of a node
+     * is the sum of its histogram, so it is not written.
+     */
+    private void writeNode(Node node, DataOutputStream out)
+    throws IOException {
+        out.writeLong(node.labelMask);
+
+        for (long responseCount : node.histogram) {
+            out.writeLong(responseCount);
+        }
+
+        out.writeLong(node.optimizedCount);
+        out.writeLong(node.refreshedCount);
+        out.writeDouble(node.minimumPenalty);
+        out.writeDouble(node.maximumPenalty);
+        out.writeDouble(node.subtreeMinimumPenalty);
+        out.writeDouble(node.subtreeMaximumPenalty);
+        out.writeInt(node.children == null ? -1 : node.children.length);
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                writeNode(child, out);
+            }
+        }
+    }
+
+    private Node readNode(DataInputStream in, int level) throws IOException {
+        long labelMask = in.readLong();
+        long[] histogram = new long[alphabetSize];
+
+        for (int c = 0; c < alphabetSize; c++) {
+            histogram[c] = in.readLong();
+
+            if (histogram[c] < 0L) {
+                throw new IOException("Negative response count " +
+                                      histogram[c] + ".");
+            }
+        }
+
+        Node node = new Node(labelMask, histogram);
+        node.optimizedCount = in.readLong();
+        node.refreshedCount = in.readLong();
+        node.minimumPenalty = in.readDouble();
+        node.maximumPenalty = in.readDouble();
+        node.subtreeMinimumPenalty = in.readDouble();
+        node.subtreeMaximumPenalty = in.readDouble();
+        int numberOfChildren = in.readInt();
+
+        if (numberOfChildren == -1) {
+            return node;
+        }
+
+        if (numberOfChildren < 1 || numberOfChildren > alphabetSize ||
+                level == depth) {
+            throw new IOException("Invalid number of children " +
+                                  numberOfChildren + " at level " + level +
+                                  ".");
+        }
+
+        node.children = new Node[numberOfChildren];
+
+        for (int i = 0; i < numberOfChildren; i++) {
+            node.children[i] = readNode(in, level + 1);
+        }
+
+        return node;
+    }
+
+    /**
+     * This class implements a node of the current tree.
+     */
+    private static final class Node {
+
+        final long labelMask;
+
+        /**
+         * The response counts of the rows reaching this node.
+         */
+        final long[] histogram;
+
+        long count;
+
+        /**
+         * The value of {@code count} when the subtree of this node was last
+         * optimized.
+         */
+        long optimizedCount;
+
+        /**
+         * The value of {@code count} when this node was last refreshed.
+         */
+        long refreshedCount;
+
+        Node[] children;
+        double score;
+
+        /**
+         * The children stay the same for the leaf penalties greater than
+         * {@code minimumPenalty} and at most {@code maximumPenalty}.
+         */
+        double minimumPenalty = Double.NEGATIVE_INFINITY;
+        double maximumPenalty = Double.POSITIVE_INFINITY;
+
+        /**
+         * The intersection of the penalty ranges of the subtree.
+         */
+        double subtreeMinimumPenalty = Double.NEGATIVE_INFINITY;
+        double subtreeMaximumPenalty = Double.POSITIVE_INFINITY;
+
+        Node(long labelMask, long[] histogram) {
+            this.labelMask = labelMask;
+            this.histogram = histogram;
+            this.optimizedCount = -1L;
+            this.refreshedCount = -1L;
+
+            for (long responseCount : histogram) {
+                count += responseCount;
+            }
+        }
+
+        boolean isValidFor(double k) {
+            return minimumPenalty < k && k <= maximumPenalty;
+        }
+
+        boolean isSubtreeValidFor(double k) {
+            return subtreeMinimumPenalty < k && k <= subtreeMaximumPenalty;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
 
 /**
  * This class implements the partial optimal PCT learner for the hybrid 
@@ -28,9 +29,9 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     private int requestedTreeDepth       = -1;
     
     /**
-     * Maps a single character to its absolute frequency.
+     * Maps the index of a single character to its absolute frequency.
      */
-    private Map<C, Integer> characterCountMap;
+    private int[] characterCountHistogram;
     
     /**
      * Holds all the possible node labels (proper and improper subsets of the 
@@ -38,6 +39,11 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      */
     private List<Set<C>> listOfAllPossibleNodeLabels;
     
+    /**
+     * The label holding the whole alphabet.
+     */
+    private Set<C> alphabetLabel;
+    
     /**
      * The root node of the resulting tree.
      */
@@ -70,6 +76,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 new PartialBasicParsimoniousContextTreeLearner<>();
         
         state.alphabet = getAlphabet(dataRows);
+        state.alphabetLabel = new HashSet<>(state.alphabet.getCharacters());
+        state.setContext(getContext());
         
         checkDataRowListNotEmpty(dataRows);
         checkDataRowListHasConstantNumberOfExplanatoryVariables(dataRows);
@@ -77,11 +85,12 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         state.listOfAllPossibleNodeLabels = 
                 state.alphabet.getAllPossibleLabels();
         
-        state.characterCountMap = new HashMap<>();
+        state.characterCountHistogram = new int[state.alphabet.size()];
         state.mapPartitionToScore = new HashMap<>();
         state.root = new ParsimoniousContextTreeNode<>();
         state.root.setLabel(Collections.<C>emptySet());
-        state.k = 0.5 * (state.alphabet.size() - 1) * Math.log(dataRows.size());
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   dataRows.size());
         state.generateAllAlphabetPartitions();
         state.buildTree(state.root, 
                         dataRows,
@@ -100,6 +109,15 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             return;
         }
         
+        if (getContext().shouldStop()) {
+            IndependenceModelParsimoniousContextTreeLearner
+                    .appendIndependenceModel(node,
+                                             alphabetLabel,
+                                             totalDepth - currentDepth,
+                                             computeScore(dataRows));
+            return;
+        }
+        
         Set<ParsimoniousContextTreeNode<C>> children = 
                 new HashSet<>(
                         this.alphabet
@@ -154,9 +172,21 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         }
         
         this.mapPartitionToScore.clear();
+        int numberOfPartitionsEvaluated = 0;
         
+        // Once the context stops the learning, the best partition evaluated
+        // so far is selected.
         for (List<Set<C>> alphabetPartition : 
                 this.listOfAllAlphabetPartitions) {
+            if (numberOfPartitionsEvaluated > 0 &&
+                    numberOfPartitionsEvaluated %
+                    BasicParsimoniousContextTreeLearner
+                            .PARTITIONS_PER_CONTEXT_CHECK == 0 &&
+                    getContext().shouldStop()) {
+                break;
+            }
+            
+            numberOfPartitionsEvaluated++;
             double score = 0.0;
             
             for (Set<C> label : alphabetPartition) {
@@ -207,22 +237,10 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     }
     
     private double computeScore(List<DataRow<C>> dataRows) {
-        double score = -k;
-        characterCountMap.clear();
-        
-        for (DataRow<C> dataRow : dataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            characterCountMap.put(
-                    responseVariable, 
-                    characterCountMap.getOrDefault(responseVariable, 0) + 1);
-        }
-        
-        for (Map.Entry<C, Integer> entry : characterCountMap.entrySet()) {
-            score += entry.getValue() *
-                     Math.log((1.0 * entry.getValue()) / dataRows.size());
-        }
-        
-        return score;
+        return ScoringKernel.computeScore(dataRows, 
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
     }
     
     public static void main(String[] args) {
@@ -14,14 +14,14 @@ import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
-import net.coderodde.msc.util.AbstractProbabilityDistribution;
-import net.coderodde.msc.util.support.BinaryTreeProbabilityDistribution;
+import net.coderodde.msc.ScoringKernel;
 
 /**
- * In this learner each children configuration is equally probable. The 
- * procedure for creating an alphabet partition is a brute-force approach:
- * randomly samples the labels until the sum of all characters equals the 
- * alphabet size, and then checks that the set of labels is a partition.
+ * In this learner the children configurations are distributed as if the labels
+ * were sampled uniformly at random until they cover the alphabet, retrying 
+ * whenever the sampled labels do not form a partition. Instead of actually
+ * retrying, the partitions are drawn directly via 
+ * {@link RandomPartitionSampler#createLabelSamplingSampler(List, Random)}.
  * 
  * @author Rodion "rodde" Efremov
  * @param <C> the actual character type.
@@ -33,12 +33,14 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     
     private ParsimoniousContextTreeNode<C> root;
     
-    private AbstractProbabilityDistribution<Set<C>> probabilityDistribution;
+    private RandomPartitionSampler<C> partitionSampler;
     
     private List<DataRow<C>> dataRows;
     
     private double k;
     
+    private int[] characterCountHistogram;
+    
     private Random random;
     
     public void setRandom(Random random) {
@@ -55,12 +57,16 @@ extends AbstractParsimoniousContextTreeLearner<C> {
                 new RandomParsimoniousContextTreeLearnerV1<>();
         
         state.random = random;
+        state.setContext(getContext());
         state.dataRows = listOfDataRows;
         state.alphabet = getAlphabet(listOfDataRows);
-        state.k = 0.5 * (state.alphabet.size() - 1)
-                      * Math.log(listOfDataRows.size());
-        state.probabilityDistribution =
-                createProbabilityDistribution(state.alphabet);
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   listOfDataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
+        state.partitionSampler = 
+                RandomPartitionSampler.createLabelSamplingSampler(
+                        state.alphabet.getCharacters(),
+                        random);
         state.root = state.buildTree();
         state.computeScores();
         return new ParsimoniousContextTree<>(state.root);
@@ -84,22 +90,10 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * @return the BIC score.
      */
     private double computeBIC(List<DataRow<C>> dataRows) {
-        double score = -this.k;
-        Map<C, Integer> characterToCountMap = new HashMap<>();
-        
-        for (DataRow<C> dataRow : dataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            characterToCountMap.put(
-                    responseVariable, 
-                    characterToCountMap.getOrDefault(responseVariable, 0) + 1);
-        }
-        
-        for (Map.Entry<C, Integer> entry : characterToCountMap.entrySet()) {
-            score += entry.getValue() * 
-                     Math.log((1.0 * entry.getValue()) / dataRows.size());
-        }
-        
-        return score;
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
     }
     
     /**
@@ -159,26 +153,6 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         node.setScore(score);
     }
     
-    /**
-     * Creates a uniform probability distribution over all possible alphabet
-     * subsets.
-     * 
-     * @param alphabet the target alphabet.
-     * @return a probability distribution of alphabet subsets.
-     */
-    private AbstractProbabilityDistribution<Set<C>> 
-            createProbabilityDistribution(Alphabet<C> alphabet) {
-        List<Set<C>> labels = alphabet.getAllPossibleLabels();
-        AbstractProbabilityDistribution<Set<C>> probabilityDistribution =
-                new BinaryTreeProbabilityDistribution<>(this.random);
-        
-        for (Set<C> label : labels) {
-            probabilityDistribution.addElement(label, 1.0);
-        }
-        
-        return probabilityDistribution;
-    }
-    
     /**
      * Builds the entire PCT.
      * 
@@ -228,56 +202,11 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * @return an alphabet partition.
      */
     private Set<Set<C>> createRandomChildLabelPartition() {
-        Set<Set<C>> labelSet = new HashSet<>();
-        Set<C> filter = new HashSet<>(alphabet.size());
-        
-        while (true) {
-            Set<C> label = probabilityDistribution.sampleElement();
-            filter.addAll(label);
-            labelSet.add(label);
-            
-            if (filter.size() == alphabet.size()) {
-                if (isAlphabetPartition(labelSet)) {
-                    return labelSet;
-                }
-                
-                labelSet.clear();
-                filter.clear();
-            }
-        }
-    }
-    
-    /**
-     * Checks that the input label set comprises a partition of the alphabet.
-     * 
-     * @param labelSet the label set to check.
-     * @return {@code true] only if {@code labelSet} is a valid alphabet 
-     *         partiion.
-     */
-    private boolean isAlphabetPartition(Set<Set<C>> labelSet) {
-        List<Set<C>> labelList = new ArrayList<>(labelSet);
-        int labelListSize = labelList.size();
-        
-        // Checks that all labels are disjoint:
-        for (int i = 0; i < labelListSize; ++i) {
-            Set<C> label1 = labelList.get(i);
-            
-            for (int j = i + 1; j < labelListSize; ++j) {
-                Set<C> label2 = labelList.get(j);
-                
-                if (!Collections.<C>disjoint(label1, label2)) {
-                    return false;
-                }
-            }
-        }
-        
-        // Check that the label set covers the alphabet:
-        Set<C> filter = new HashSet<>();
-        
-        for (Set<C> label : labelList) {
-            filter.addAll(label);
+        if (getContext().shouldStop()) {
+            return Collections.singleton(
+                    new HashSet<>(alphabet.getCharacters()));
         }
         
-        return filter.size() == alphabet.size();
+        return new HashSet<>(partitionSampler.sample());
     }
 }
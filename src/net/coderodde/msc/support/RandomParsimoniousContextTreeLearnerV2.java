@@ -1,6 +1,7 @@
 package net.coderodde.msc.support;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -13,6 +14,7 @@ import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
 import net.coderodde.msc.util.AbstractProbabilityDistribution;
 import net.coderodde.msc.util.support.BinaryTreeProbabilityDistribution;
 
@@ -44,6 +46,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     
     private double k;
     
+    private int[] characterCountHistogram;
+    
     private Random random;
     
     private double beta = DEFAULT_BETA;
@@ -67,10 +71,12 @@ extends AbstractParsimoniousContextTreeLearner<C> {
         state.setBeta(beta);
         
         state.random = random;
+        state.setContext(getContext());
         state.dataRows = dataRows;
         state.alphabet = getAlphabet(dataRows);
-        state.k = 0.5 * (state.alphabet.size() - 1)
-                      * Math.log(dataRows.size());
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   dataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
         state.bucketSizeDistribution = state.createBucketSizeDistribution();
         state.root = state.buildTree();
         state.computeScores();
@@ -163,6 +169,11 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * @return an alphabet partition.
      */
     private List<Set<C>> createRandomLabelSet() {
+        if (getContext().shouldStop()) {
+            return Collections.singletonList(
+                    new HashSet<>(alphabet.getCharacters()));
+        }
+        
         int buckets = bucketSizeDistribution.sampleElement();
         List<Set<C>> labelList = new ArrayList<>();
         
@@ -185,22 +196,10 @@ extends AbstractParsimoniousContextTreeLearner<C> {
      * @return a BIC score.
      */
     private double computeBIC(List<DataRow<C>> dataRows) {
-        double score = -this.k;
-        Map<C, Integer> characterToCountMap = new HashMap<>();
-        
-        for (DataRow<C> dataRow : dataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            characterToCountMap.put(
-                    responseVariable, 
-                    characterToCountMap.getOrDefault(responseVariable, 0) + 1);
-        }
-        
-        for (Map.Entry<C, Integer> entry : characterToCountMap.entrySet()) {
-            score += entry.getValue() * 
-                     Math.log((1.0 * entry.getValue()) / dataRows.size());
-        }
-        
-        return score;
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
     }
     
     /**
@@ -13,6 +13,7 @@ import net.coderodde.msc.Alphabet;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
 import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
 
 /**
  * This learner selects the number of children randomly from a uniform 
@@ -40,6 +41,8 @@ extends AbstractParsimoniousContextTreeLearner<C>{
     
     private double k;
     
+    private int[] characterCountHistogram;
+    
     private Random random;
     
     private int maximumChildrenPerNode = DEFAULT_MAXIMUM_CHILDREN_PER_NODE;
@@ -62,10 +65,12 @@ extends AbstractParsimoniousContextTreeLearner<C>{
                 new RandomParsimoniousContextTreeLearnerV3<>();
         
         state.random = random;
+        state.setContext(getContext());
         state.dataRows = dataRows;
         state.alphabet = getAlphabet(dataRows);
-        state.k = 0.5 * (state.alphabet.size() - 1) * 
-                         Math.log(dataRows.size());
+        state.k = ScoringKernel.computeLeafPenalty(state.alphabet.size(),
+                                                   dataRows.size());
+        state.characterCountHistogram = new int[state.alphabet.size()];
         state.maximumChildrenPerNode = maximumChildrenPerNode;
         state.root = state.buildTree();
         state.computeScoresV2();
@@ -92,7 +97,9 @@ extends AbstractParsimoniousContextTreeLearner<C>{
      * @return a set of child PCT nodes.
      */
     private Set<ParsimoniousContextTreeNode<C>> createChildren(int depth) {
-        int childCount = random.nextInt(alphabet.size()) + 1;
+        int childCount = getContext().shouldStop() ?
+                         1 :
+                         random.nextInt(alphabet.size()) + 1;
         childCount = Math.min(childCount, maximumChildrenPerNode);
         Set<ParsimoniousContextTreeNode<C>> children = 
                 new HashSet<>(childCount);
@@ -181,21 +188,9 @@ extends AbstractParsimoniousContextTreeLearner<C>{
     }
     
     private double computeBIC(List<DataRow<C>> dataRows) {
-        double score = -this.k;
-        Map<C, Integer> characterToCountMap = new HashMap<>();
-        
-        for (DataRow<C> dataRow : dataRows) {
-            C responseVariable = dataRow.getResponseVariable();
-            characterToCountMap.put(
-                    responseVariable, 
-                    characterToCountMap.getOrDefault(responseVariable, 0) + 1);
-        }
-        
-        for (Map.Entry<C, Integer> entry : characterToCountMap.entrySet()) {
-            score += entry.getValue() * 
-                     Math.log((1.0 * entry.getValue()) / dataRows.size());
-        }
-        
-        return score;
+        return ScoringKernel.computeScore(dataRows,
+                                          alphabet,
+                                          characterCountHistogram,
+                                          k);
     }
 }
@@ -0,0 +1,226 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class implements a rejection-free sampler of set partitions of a given
+ * list. First, the number of blocks {@code k} is drawn, after which a partition
+ * with exactly {@code k} blocks is drawn uniformly at random from a restricted
+ * growth string driven by the table of Stirling numbers of the second kind:
+ * since <code>S(n, k) = S(n - 1, k - 1) + k S(n - 1, k)</code>, the
+ * {@code n}th element opens a new block with probability
+ * <code>S(n - 1, k - 1) / S(n, k)</code>, and otherwise joins one of the
+ * {@code k} blocks of the remaining elements uniformly at random.
+ * <p>
+ * The block count distribution is what makes the samplers differ:
+ * {@link #createUniformSampler(List, Random)} draws each of the
+ * <code>B(n)</code> partitions with equal probability, and
+ * {@link #createLabelSamplingSampler(List, Random)} reproduces the
+ * distribution of drawing uniformly random nonempty labels until they cover
+ * the list and accepting only disjoint labels. In the latter, a partition with
+ * {@code k} blocks is drawn with probability proportional to
+ * <code>1 / C(2^n - 1, k)</code>.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <T> the actual element type.
+ */
+public final class RandomPartitionSampler<T> {
+
+    /**
+     * The elements to partition.
+     */
+    private final List<T> elements;
+
+    /**
+     * The random number generator.
+     */
+    private final Random random;
+
+    /**
+     * The Stirling numbers of the second kind: {@code stirlingNumbers[i][j]} is
+     * the number of partitions of {@code i} elements into {@code j} blocks.
+     */
+    private final double[][] stirlingNumbers;
+
+    /**
+     * The cumulative probabilities of the block counts. The entry at index
+     * {@code k - 1} is the probability of having at most {@code k} blocks.
+     */
+    private final double[] cumulativeBlockCountProbabilities;
+
+    /**
+     * For each element, the block decision of the last sample: {@code -1}
+     * opens a new block and a nonnegative value is the index of the block to
+     * join.
+     */
+    private final int[] blockIndices;
+
+    private RandomPartitionSampler(List<T> elements,
+                                   Random random,
+                                   double[] logBlockCountWeights) {
+        this.elements = new ArrayList<>(elements);
+        this.random = Objects.requireNonNull(random, "Random is null.");
+        this.stirlingNumbers = computeStirlingNumbers(this.elements.size());
+        this.cumulativeBlockCountProbabilities =
+                computeCumulativeProbabilities(logBlockCountWeights);
+        this.blockIndices = new int[this.elements.size()];
+    }
+
+    /**
+     * Creates a sampler returning each partition of {@code elements} with the
+     * same probability.
+     *
+     * @param <T>      the element type.
+     * @param elements the elements to partition.
+     * @param random   the random number generator.
+     * @return a uniform partition sampler.
+     */
+    public static <T> RandomPartitionSampler<T>
+        createUniformSampler(List<T> elements, Random random) {
+        checkElements(elements);
+        int n = elements.size();
+        double[][] stirlingNumbers = computeStirlingNumbers(n);
+        double[] logWeights = new double[n];
+
+        for (int blocks = 1; blocks <= n; blocks++) {
+            logWeights[blocks - 1] = Math.log(stirlingNumbers[n][blocks]);
+        }
+
+        return new RandomPartitionSampler<>(elements, random, logWeights);
+    }
+
+    /**
+     * Creates a sampler returning the partitions of {@code elements} with the
+     * same distribution as the procedure that samples uniformly random
+     * nonempty subsets of {@code elements} until they cover all the elements,
+     * and restarts if the sampled subsets are not disjoint.
+     *
+     * @param <T>      the element type.
+     * @param elements the elements to partition.
+     * @param random   the random number generator.
+     * @return a partition sampler.
+     */
+    public static <T> RandomPartitionSampler<T>
+        createLabelSamplingSampler(List<T> elements, Random random) {
+        checkElements(elements);
+        int n = elements.size();
+        double[][] stirlingNumbers = computeStirlingNumbers(n);
+        double[] logWeights = new double[n];
+        // The number of nonempty subsets of 'elements':
+        double numberOfLabels = Math.pow(2.0, n) - 1.0;
+        double logBinomial = 0.0;
+
+        for (int blocks = 1; blocks <= n; blocks++) {
+            logBinomial += Math.log(numberOfLabels - blocks + 1)
+                         - Math.log(blocks);
+            logWeights[blocks - 1] = Math.log(stirlingNumbers[n][blocks])
+                                   - logBinomial;
+        }
+
+        return new RandomPartitionSampler<>(elements, random, logWeights);
+    }
+
+    /**
+     * Samples a random partition.
+     *
+     * @return a random partition of the elements.
+     */
+    public List<Set<T>> sample() {
+        int blocks = sampleNumberOfBlocks();
+
+        // Decide the fate of each element starting from the last one:
+        for (int n = elements.size(); n > 0; n--) {
+            double coin = random.nextDouble() * stirlingNumbers[n][blocks];
+
+            if (coin < stirlingNumbers[n - 1][blocks - 1]) {
+                blockIndices[n - 1] = -1;
+                blocks--;
+            } else {
+                blockIndices[n - 1] = random.nextInt(blocks);
+            }
+        }
+
+        // Replay the decisions from the first element on:
+        List<Set<T>> partition = new ArrayList<>();
+
+        for (int i = 0; i < elements.size(); i++) {
+            if (blockIndices[i] == -1) {
+                Set<T> block = new HashSet<>();
+                block.add(elements.get(i));
+                partition.add(block);
+            } else {
+                partition.get(blockIndices[i]).add(elements.get(i));
+            }
+        }
+
+        return partition;
+    }
+
+    private int sampleNumberOfBlocks() {
+        double coin = random.nextDouble();
+
+        for (int i = 0; i < cumulativeBlockCountProbabilities.length - 1; i++) {
+            if (coin < cumulativeBlockCountProbabilities[i]) {
+                return i + 1;
+            }
+        }
+
+        return cumulativeBlockCountProbabilities.length;
+    }
+
+    private static double[][] computeStirlingNumbers(int n) {
+        double[][] stirlingNumbers = new double[n + 1][n + 1];
+        stirlingNumbers[0][0] = 1.0;
+
+        for (int i = 1; i <= n; i++) {
+            for (int j = 1; j <= i; j++) {
+                stirlingNumbers[i][j] = stirlingNumbers[i - 1][j - 1] +
+                                        j * stirlingNumbers[i - 1][j];
+
+                if (Double.isInfinite(stirlingNumbers[i][j])) {
+                    throw new IllegalArgumentException(
+                            "Too many elements to partition: " + n);
+                }
+            }
+        }
+
+        return stirlingNumbers;
+    }
+
+    private static double[]
+        computeCumulativeProbabilities(double[] logWeights) {
+        double maximumLogWeight = Double.NEGATIVE_INFINITY;
+
+        for (double logWeight : logWeights) {
+            maximumLogWeight = Math.max(maximumLogWeight, logWeight);
+        }
+
+        double[] cumulativeProbabilities = new double[logWeights.length];
+        double sum = 0.0;
+
+        for (int i = 0; i < logWeights.length; i++) {
+            sum += Math.exp(logWeights[i] - maximumLogWeight);
+            cumulativeProbabilities[i] = sum;
+        }
+
+        for (int i = 0; i < cumulativeProbabilities.length; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+
+        return cumulativeProbabilities;
+    }
+
+    private static <T> void checkElements(List<T> elements) {
+        Objects.requireNonNull(elements, "The element list is null.");
+
+        if (elements.isEmpty()) {
+            throw new IllegalArgumentException("The element list is empty.");
+        }
+    }
+}
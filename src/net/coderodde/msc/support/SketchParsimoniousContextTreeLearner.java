@@ -0,0 +1,303 @@
+package net.coderodde.msc.support;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ContextCountSketch;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.ScoringKernel;
+
+/**
+ * This class implements a greedy PCT learner working on the approximate
+ * counts of a {@link ContextCountSketch}, so that its memory usage does not
+ * depend on the number of distinct contexts. The children of each node are
+ * merged as in {@link HeuristicParsimoniousContextTreeLearner}, with the
+ * response histograms estimated from the sketch.
+ * <p>
+ * The rows reaching a node are represented by the hashes of the context
+ * prefixes matching the labels on the path to the node, along with their
+ * estimated counts. An estimate is never less than the true count, but in a
+ * large context space most of the unseen prefixes collide with seen ones, so
+ * a prefix is followed only if its estimate exceeds the minimum count, by
+ * default the error bound of the sketch. The estimate of a prefix is also
+ * capped by that of its parent prefix. The rows of the rarer contexts are
+ * thus left out, and the scores of the learned tree are only approximate;
+ * {@link net.coderodde.msc.CompactParsimoniousContextTree#computeScore}
+ * gives the exact score of the tree when the data is available.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <C> the character type.
+ */
+public final class SketchParsimoniousContextTreeLearner<C>
+extends AbstractParsimoniousContextTreeLearner<C> {
+
+    /**
+     * The default relative error bound of the sketch.
+     */
+    public static final double DEFAULT_EPSILON = 1e-5;
+
+    /**
+     * The default failure probability of the sketch.
+     */
+    public static final double DEFAULT_DELTA = 0.01;
+
+    private final ContextCountSketch<C> sketch;
+    private final Alphabet<C> alphabet;
+    private final int alphabetSize;
+
+    /**
+     * The minimum estimated count of a followed prefix, or a negative value
+     * for the error bound of the sketch.
+     */
+    private long minimumCount = -1L;
+
+    /**
+     * The leaf penalty of the ongoing request.
+     */
+    private double k;
+
+    /**
+     * The minimum count of the ongoing request.
+     */
+    private long threshold;
+
+    /**
+     * Constructs a learner with a conservative-update sketch having the
+     * default error bounds.
+     *
+     * @param alphabet the alphabet.
+     * @param depth    the depth of the learned trees.
+     */
+    public SketchParsimoniousContextTreeLearner(Alphabet<C> alphabet,
+                                                int depth) {
+        this(new ContextCountSketch<>(alphabet,
+                                      depth,
+                                      DEFAULT_EPSILON,
+                                      DEFAULT_DELTA,
+                                      true));
+    }
+
+    public SketchParsimoniousContextTreeLearner(ContextCountSketch<C> sketch) {
+        this.sketch = Objects.requireNonNull(sketch, "The sketch is null.");
+        this.alphabet = sketch.getAlphabet();
+        this.alphabetSize = alphabet.size();
+    }
+
+    /**
+     * Learns a tree from {@code listOfDataRows} through a fresh sketch having
+     * the error bounds of the sketch of this learner. The sketch of this
+     * learner is not affected.
+     *
+     * @param listOfDataRows the list of data rows.
+     * @return a parsimonious context tree.
+     */
+    @Override
+    public ParsimoniousContextTree<C> learn(List<DataRow<C>> listOfDataRows) {
+        Objects.requireNonNull(listOfDataRows);
+        checkDataRowListNotEmpty(listOfDataRows);
+        checkDataRowListHasConstantNumberOfExplanatoryVariables(listOfDataRows);
+
+        ContextCountSketch<C> freshSketch =
+                new ContextCountSketch<>(
+                        getAlphabet(listOfDataRows),
+                        listOfDataRows.get(0)
+                                      .getNumberOfExplanatoryVariables(),
+                        sketch.getEpsilon(),
+                        sketch.getDelta(),
+                        sketch.isConservative());
+
+        for (DataRow<C> dataRow : listOfDataRows) {
+            freshSketch.add(dataRow);
+        }
+
+        SketchParsimoniousContextTreeLearner<C> learner =
+                new SketchParsimoniousContextTreeLearner<>(freshSketch);
+        learner.setContext(getContext());
+        return learner.getTree();
+    }
+
+    public ContextCountSketch<C> getSketch() {
+        return sketch;
+    }
+
+    /**
+     * Sets the minimum count a prefix must have to be followed. A negative
+     * value stands for {@link ContextCountSketch#getErrorBound()}, which is
+     * the default. With zero, every prefix with a positive estimate is
+     * followed, which is exact for a sketch wide enough to have no
+     * collisions.
+     *
+     * @param minimumCount the minimum count.
+     */
+    public void setMinimumCount(long minimumCount) {
+        this.minimumCount = minimumCount;
+    }
+
+    public long getMinimumCount() {
+        return minimumCount;
+    }
+
+    public void add(DataRow<C> dataRow) {
+        sketch.add(dataRow);
+    }
+
+    public void addAll(List<DataRow<C>> dataRows) {
+        for (DataRow<C> dataRow : dataRows) {
+            sketch.add(dataRow);
+        }
+    }
+
+    /**
+     * Returns the tree learned from the rows added to the sketch so far.
+     *
+     * @return the tree.
+     */
+    public ParsimoniousContextTree<C> getTree() {
+        if (sketch.getNumberOfRows() == 0L) {
+            throw new IllegalStateException("There is no data rows.");
+        }
+
+        k = ScoringKernel.computeLeafPenalty(alphabetSize,
+                                             sketch.getNumberOfRows());
+        threshold = minimumCount < 0L ? sketch.getErrorBound() : minimumCount;
+        long[] histogram = new long[alphabetSize];
+
+        for (int c = 0; c < alphabetSize; c++) {
+            histogram[c] = sketch.estimateResponseCount(
+                    ContextCountSketch.ROOT, c);
+        }
+
+        ParsimoniousContextTreeNode<C> root =
+                build(0L,
+                      new long[]{ ContextCountSketch.ROOT },
+                      new long[]{ sketch.getNumberOfRows() },
+                      histogram,
+                      0);
+        root.setLabel(Collections.<C>emptySet());
+        return new ParsimoniousContextTree<>(root);
+    }
+
+    /**
+     * Builds the subtree of a node whose rows have the context prefixes
+     * {@code frontier} of length {@code level}, with the estimated counts
+     * {@code frontierCounts}.
+     */
+    private ParsimoniousContextTreeNode<C> build(long labelMask,
+                                                 long[] frontier,
+                                                 long[] frontierCounts,
+                                                 long[] histogram,
+                                                 int level) {
+        ParsimoniousContextTreeNode<C> node =
+                new ParsimoniousContextTreeNode<>();
+        Set<C> label = new HashSet<>();
+
+        for (long mask = labelMask; mask != 0L; mask &= mask - 1L) {
+            label.add(alphabet.get(Long.numberOfTrailingZeros(mask)));
+        }
+
+        node.setLabel(label);
+
+        if (level == sketch.getDepth()) {
+            node.setScore(ScoringKernel.computeScore(histogram, k));
+            return node;
+        }
+
+        long[][] characterHistograms = new long[alphabetSize][alphabetSize];
+        long[][] characterFrontiers = new long[alphabetSize][];
+        long[][] characterFrontierCounts = new long[alphabetSize][];
+        int[] characterFrontierSizes = new int[alphabetSize];
+
+        for (int c = 0; c < alphabetSize; c++) {
+            characterFrontiers[c] = new long[frontier.length];
+            characterFrontierCounts[c] = new long[frontier.length];
+        }
+
+        for (int i = 0; i < frontier.length; i++) {
+            for (int c = 0; c < alphabetSize; c++) {
+                long extendedPrefix = sketch.extend(frontier[i], c);
+                long count = Math.min(sketch.estimateCount(extendedPrefix),
+                                      frontierCounts[i]);
+
+                if (count == 0L || count <= threshold) {
+                    continue;
+                }
+
+                characterFrontiers[c][characterFrontierSizes[c]] =
+                        extendedPrefix;
+                characterFrontierCounts[c][characterFrontierSizes[c]++] =
+                        count;
+
+                for (int r = 0; r < alphabetSize; r++) {
+                    characterHistograms[c][r] +=
+                            Math.min(sketch.estimateResponseCount(
+                                             extendedPrefix, r),
+                                     count);
+                }
+            }
+        }
+
+        long[] labelMasks =
+                getContext().shouldStop() ?
+                new long[]{ alphabetSize == Long.SIZE ?
+                            -1L :
+                            (1L << alphabetSize) - 1L } :
+                GreedyPartition.select(characterHistograms, k, level)
+                               .labelMasks;
+        Set<ParsimoniousContextTreeNode<C>> children =
+                new HashSet<>(labelMasks.length);
+        double score = 0.0;
+
+        for (long childLabelMask : labelMasks) {
+            int childFrontierSize = 0;
+
+            for (long mask = childLabelMask; mask != 0L; mask &= mask - 1L) {
+                childFrontierSize +=
+                        characterFrontierSizes[Long.numberOfTrailingZeros(
+                                mask)];
+            }
+
+            long[] childFrontier = new long[childFrontierSize];
+            long[] childFrontierCounts = new long[childFrontierSize];
+            long[] childHistogram = new long[alphabetSize];
+            int size = 0;
+
+            for (long mask = childLabelMask; mask != 0L; mask &= mask - 1L) {
+                int c = Long.numberOfTrailingZeros(mask);
+                System.arraycopy(characterFrontiers[c],
+                                 0,
+                                 childFrontier,
+                                 size,
+                                 characterFrontierSizes[c]);
+                System.arraycopy(characterFrontierCounts[c],
+                                 0,
+                                 childFrontierCounts,
+                                 size,
+                                 characterFrontierSizes[c]);
+                size += characterFrontierSizes[c];
+
+                for (int r = 0; r < alphabetSize; r++) {
+                    childHistogram[r] += characterHistograms[c][r];
+                }
+            }
+
+            ParsimoniousContextTreeNode<C> child = build(childLabelMask,
+                                                         childFrontier,
+                                                         childFrontierCounts,
+                                                         childHistogram,
+                                                         level + 1);
+            score += child.getScore();
+            children.add(child);
+        }
+
+        node.setChildren(children);
+        node.setScore(score);
+        return node;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Random;
 import net.coderodde.msc.AbstractParsimoniousContextTreeLearner;
 import net.coderodde.msc.DataRow;
 import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.jfr.RandomCandidateScoredEvent;
 
 /**
  * This class implements a streak version of a random PCT learner
@@ -50,15 +51,30 @@ extends AbstractParsimoniousContextTreeLearner<C> {
     public ParsimoniousContextTree<C> learn(List<DataRow<C>> dataRows) {
         RandomParsimoniousContextTreeLearnerV2<C> learner = 
                 new RandomParsimoniousContextTreeLearnerV2<>();
+        learner.setContext(getContext());
         learner.setRandom(new Random());
         learner.setBeta(beta);
         
         double bestScore = Double.NEGATIVE_INFINITY;
         ParsimoniousContextTree<C> bestTree = null;
         int currentStreakLength = 0;
+        int iteration = 0;
         
         while (currentStreakLength <= maximumStreakLength) {
+            if (bestTree != null && getContext().shouldStop()) {
+                break;
+            }
+            
+            RandomCandidateScoredEvent event =
+                    new RandomCandidateScoredEvent();
+            event.begin();
             ParsimoniousContextTree<C> tree = learner.learn(dataRows);
+            event.commit(getClass(),
+                         iteration++,
+                         dataRows.get(0).getNumberOfExplanatoryVariables(),
+                         dataRows.size(),
+                         tree.getScore(),
+                         bestScore);
             
             if (bestScore < tree.getScore()) {
                 bestScore = tree.getScore();
@@ -67,6 +83,8 @@ extends AbstractParsimoniousContextTreeLearner<C> {
             } else {
                 currentStreakLength++;
             }
+            
+            getContext().reportProgress(iteration, -1);
         }
         
         return bestTree;
@@ -0,0 +1,100 @@
+package net.coderodde.msc.test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ContextCountTrie;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.io.ExternalContextCounter;
+import net.coderodde.msc.support.OnlineParsimoniousContextTreeLearner;
+
+/**
+ * This class measures counting the contexts of a generated DNA data file with
+ * {@link ExternalContextCounter} under several memory limits, and learning a
+ * tree from the counts. The smaller limits force the counts through sorted
+ * runs on disk.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class ExternalCountingBenchmark {
+
+    private static final int LINES = 5_000_000;
+    private static final int LINE_LENGTH = 12;
+    private static final int START = 9;
+    private static final int DEPTH = 9;
+    private static final long[] MEMORY_LIMITS =
+            { 64L << 20, 1L << 20, 64L << 10 };
+
+    public static void main(String[] args) throws IOException {
+        Path dataFile = Files.createTempFile("pct-benchmark", ".txt");
+
+        try {
+            generate(dataFile, new Random(1));
+            System.out.println("Data file: " + Files.size(dataFile) +
+                               " bytes, " + LINES + " lines.");
+            Alphabet<Character> alphabet =
+                    ExternalContextCounter.scanAlphabet(dataFile,
+                                                        START,
+                                                        DEPTH);
+
+            for (long memoryLimit : MEMORY_LIMITS) {
+                ExternalContextCounter counter =
+                        new ExternalContextCounter(alphabet, DEPTH);
+                counter.setMemoryLimit(memoryLimit);
+                long startTime = System.nanoTime();
+                ContextCountTrie<Character> trie =
+                        counter.count(dataFile, START);
+                long countDuration = System.nanoTime() - startTime;
+                startTime = System.nanoTime();
+                ParsimoniousContextTree<Character> tree =
+                        new OnlineParsimoniousContextTreeLearner<>(
+                                trie,
+                                OnlineParsimoniousContextTreeLearner.Strategy
+                                                                    .HEURISTIC)
+                                .getTree();
+                long learnDuration = System.nanoTime() - startTime;
+                System.out.printf("Memory limit %d KiB: counting %d ms " +
+                                  "(%d runs, %d merge passes, %d trie " +
+                                  "nodes), learning %d ms, score %f.\n",
+                                  memoryLimit >> 10,
+                                  countDuration / 1_000_000,
+                                  counter.getNumberOfSpilledRuns(),
+                                  counter.getNumberOfMergePasses(),
+                                  trie.size(),
+                                  learnDuration / 1_000_000,
+                                  tree.getScore());
+            }
+        } finally {
+            Files.delete(dataFile);
+        }
+    }
+
+    /**
+     * Writes lines of a random DNA sequence in which an 'a' is always
+     * followed by a 'g'.
+     */
+    private static void generate(Path dataFile, Random random)
+    throws IOException {
+        char[] line = new char[LINE_LENGTH];
+
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(dataFile,
+                                        StandardCharsets.ISO_8859_1)) {
+            for (int i = 0; i < LINES; ++i) {
+                for (int j = 0; j < LINE_LENGTH; ++j) {
+                    line[j] = j > 0 && line[j - 1] == 'a' ?
+                              'g' :
+                              "acgt".charAt(random.nextInt(4));
+                }
+
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package net.coderodde.msc.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.serving.ModelHandle;
+import net.coderodde.msc.serving.ModelRegistry;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+
+/**
+ * This class drives a {@link ModelRegistry} from several request threads while
+ * a background thread keeps publishing retrained models, and reports the
+ * lookup throughput and the statistics of the served model. The number of
+ * request threads and the duration in seconds may be given as the arguments.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class ModelRegistryBenchmark {
+
+    private static final String MODEL_NAME = "dna";
+    private static final int DEPTH = 5;
+    private static final int TRAINING_ROWS = 20_000;
+    private static final int CONTEXTS = 1 << 16;
+    private static final long PUBLICATION_INTERVAL_MILLIS = 10L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numberOfThreads = args.length > 0 ?
+                              Integer.parseInt(args[0]) :
+                              Runtime.getRuntime().availableProcessors();
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        System.out.println("Seed = " + seed);
+
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        List<ParsimoniousContextTreePredictor<Character>> predictors =
+                new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            List<DataRow<Character>> dataRows =
+                    createDataRows(alphabet, random);
+            predictors.add(new ParsimoniousContextTreePredictor<>(
+                    new HeuristicParsimoniousContextTreeLearner<Character>()
+                            .learn(dataRows),
+                    dataRows));
+        }
+
+        ModelRegistry<Character> registry = new ModelRegistry<>();
+        registry.publish(MODEL_NAME, predictors.get(0));
+
+        byte[] contexts = new byte[CONTEXTS + DEPTH];
+
+        for (int i = 0; i < contexts.length; i++) {
+            contexts[i] = (byte) random.nextInt(alphabet.size());
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        long[] lookups = new long[numberOfThreads];
+
+        for (int t = 0; t < numberOfThreads; t++) {
+            int threadIndex = t;
+            threads.add(new Thread(() -> {
+                ModelHandle<Character> handle =
+                        registry.getHandle(MODEL_NAME);
+                double checksum = 0.0;
+                long count = 0L;
+
+                while (running.get()) {
+                    for (int end = DEPTH; end < contexts.length; end++) {
+                        checksum += handle.getLogProbability(contexts,
+                                                             end,
+                                                             contexts[end]);
+                    }
+
+                    count += CONTEXTS;
+                }
+
+                lookups[threadIndex] = count;
+
+                if (checksum == 42.0) {
+                    System.out.println("Checksum hit.");
+                }
+            }));
+        }
+
+        Thread publisher = new Thread(() -> {
+            for (int i = 1; running.get(); i++) {
+                registry.publish(MODEL_NAME,
+                                 predictors.get(i % predictors.size()));
+
+                try {
+                    Thread.sleep(PUBLICATION_INTERVAL_MILLIS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+
+        long startTime = System.nanoTime();
+        threads.forEach(Thread::start);
+        publisher.start();
+        Thread.sleep(1000L * durationSeconds);
+        running.set(false);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        publisher.join();
+        long duration = System.nanoTime() - startTime;
+        long totalLookups = 0L;
+
+        for (long count : lookups) {
+            totalLookups += count;
+        }
+
+        System.out.println("Request threads: " + numberOfThreads);
+        System.out.printf("Throughput: %.1f million lookups per second.\n",
+                          1e3 * totalLookups / duration);
+        System.out.println("Served version: " +
+                           registry.getCurrentVersion(MODEL_NAME));
+        System.out.println(registry.getHandle(MODEL_NAME).getStatistics());
+    }
+
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet, Random random) {
+        Character[] sequence = new Character[TRAINING_ROWS + DEPTH];
+
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = alphabet.get(random.nextInt(alphabet.size()));
+        }
+
+        List<DataRow<Character>> dataRows = new ArrayList<>(TRAINING_ROWS);
+
+        for (int i = DEPTH; i < sequence.length; i++) {
+            dataRows.add(new DataRow<>(sequence, i, DEPTH));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,96 @@
+package net.coderodde.msc.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.OnlineParsimoniousContextTreeLearner;
+
+/**
+ * This class compares keeping a tree up to date with
+ * {@link OnlineParsimoniousContextTreeLearner} to learning it again with
+ * {@link HeuristicParsimoniousContextTreeLearner} after each batch of new
+ * rows. With the refresh threshold zero, the online tree is the one the batch
+ * learner would build. The rows come from a random DNA sequence in which an
+ * 'A' is always followed by a 'G'.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class OnlineLearnerBenchmark {
+
+    private static final int DEPTH = 5;
+    private static final int BATCHES = 50;
+    private static final int BATCH_SIZE = 20_000;
+    private static final double[] REFRESH_THRESHOLDS = { 0.0, 0.1 };
+
+    public static void main(String[] args) {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        System.out.println("Seed = " + seed);
+
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        List<DataRow<Character>> dataRows =
+                createDataRows(alphabet, BATCHES * BATCH_SIZE, random);
+
+        for (double refreshThreshold : REFRESH_THRESHOLDS) {
+            OnlineParsimoniousContextTreeLearner<Character> learner =
+                    new OnlineParsimoniousContextTreeLearner<>(alphabet,
+                                                               DEPTH);
+            learner.setRefreshThreshold(refreshThreshold);
+            long onlineDuration = 0L;
+            ParsimoniousContextTree<Character> tree = null;
+
+            for (int batch = 0; batch < BATCHES; batch++) {
+                long startTime = System.nanoTime();
+                learner.addAll(dataRows.subList(batch * BATCH_SIZE,
+                                                (batch + 1) * BATCH_SIZE));
+                tree = learner.getTree();
+                onlineDuration += System.nanoTime() - startTime;
+            }
+
+            System.out.printf("Online, threshold %.2f: %.1f ms per batch " +
+                              "of %d rows, %d partition selections, " +
+                              "final score %f.\n",
+                              refreshThreshold,
+                              onlineDuration / 1e6 / BATCHES,
+                              BATCH_SIZE,
+                              learner.getNumberOfPartitionSelections(),
+                              tree.getScore());
+        }
+
+        long startTime = System.nanoTime();
+        ParsimoniousContextTree<Character> batchTree =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        long batchDuration = System.nanoTime() - startTime;
+
+        System.out.printf("Batch: %.1f ms for the last relearning of %d " +
+                          "rows, score %f.\n",
+                          batchDuration / 1e6,
+                          dataRows.size(),
+                          batchTree.getScore());
+    }
+
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet, int rows, Random random) {
+        Character[] sequence = new Character[rows + DEPTH];
+
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = i > 0 && sequence[i - 1] == 'A' ?
+                          'G' :
+                          alphabet.get(random.nextInt(alphabet.size()));
+        }
+
+        List<DataRow<Character>> dataRows = new ArrayList<>(rows);
+
+        for (int i = DEPTH; i < sequence.length; i++) {
+            dataRows.add(new DataRow<>(sequence, i, DEPTH));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,131 @@
+package net.coderodde.msc.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.serving.PredictionClient;
+
+/**
+ * This class implements a load generator for
+ * {@link net.coderodde.msc.serving.PredictionServer}. Each connection sends
+ * windows of pipelined next-symbol requests with random contexts and waits for
+ * all the responses of a window before sending the next one. The latency of a
+ * request is the time from flushing its window to reading its response.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class PredictionServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println(
+                    "usage: java ... PredictionServerLoadGenerator HOST PORT " +
+                    "[CONNECTIONS [REQUESTS [PIPELINE_DEPTH]]]");
+            return;
+        }
+
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int requests = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        int pipelineDepth = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+
+        long[][] latencies = new long[connections][];
+        List<Thread> threads = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < connections; i++) {
+            int connection = i;
+            threads.add(new Thread(() -> {
+                try {
+                    latencies[connection] = run(host,
+                                                port,
+                                                requests,
+                                                pipelineDepth,
+                                                new Random(connection));
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long duration = System.nanoTime() - startTime;
+        long[] allLatencies = new long[connections * requests];
+
+        for (int i = 0; i < connections; i++) {
+            System.arraycopy(latencies[i],
+                             0,
+                             allLatencies,
+                             i * requests,
+                             requests);
+        }
+
+        Arrays.sort(allLatencies);
+        System.out.println("Connections: " + connections +
+                           ", pipeline depth: " + pipelineDepth);
+        System.out.printf("Throughput: %.0f requests per second.\n",
+                          1e9 * allLatencies.length / duration);
+        System.out.printf("p50: %.1f us, p99: %.1f us.\n",
+                          percentile(allLatencies, 0.50) / 1e3,
+                          percentile(allLatencies, 0.99) / 1e3);
+    }
+
+    private static long[] run(String host,
+                              int port,
+                              int requests,
+                              int pipelineDepth,
+                              Random random) throws IOException {
+        long[] latencies = new long[requests];
+
+        try (PredictionClient client = new PredictionClient(host, port)) {
+            PredictionClient.Response info = client.getInfo();
+            int contextLength = info.getContextLength();
+            int alphabetSize = info.getCharacters().size();
+            byte[][] contexts = new byte[1024][contextLength];
+
+            for (byte[] context : contexts) {
+                for (int i = 0; i < context.length; i++) {
+                    context[i] = (byte) random.nextInt(alphabetSize);
+                }
+            }
+
+            for (int sent = 0; sent < requests; sent += pipelineDepth) {
+                int window = Math.min(pipelineDepth, requests - sent);
+
+                for (int i = 0; i < window; i++) {
+                    client.sendNextSymbolRequest(
+                            contexts[(sent + i) % contexts.length]);
+                }
+
+                client.flush();
+                long windowStartTime = System.nanoTime();
+
+                for (int i = 0; i < window; i++) {
+                    PredictionClient.Response response = client.readResponse();
+
+                    if (!response.isOk()) {
+                        throw new IOException(response.getErrorMessage());
+                    }
+
+                    latencies[sent + i] = System.nanoTime() - windowStartTime;
+                }
+            }
+        }
+
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedValues, double fraction) {
+        int index = (int) Math.ceil(fraction * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, index)];
+    }
+}
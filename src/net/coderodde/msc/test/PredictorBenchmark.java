@@ -0,0 +1,108 @@
+package net.coderodde.msc.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+
+/**
+ * This class measures the throughput of the batch scoring of
+ * {@link ParsimoniousContextTreePredictor}. A tree is learned from a random
+ * DNA sequence, after which the held-out log-loss of a longer sequence is
+ * computed both sequentially and in parallel.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class PredictorBenchmark {
+
+    private static final int DEPTH = 5;
+    private static final int TRAINING_ROWS = 50_000;
+    private static final int TEST_ROWS = 4_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        System.out.println("Seed = " + seed);
+
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        List<DataRow<Character>> trainingDataRows =
+                createDataRows(alphabet, TRAINING_ROWS, random);
+        CompactParsimoniousContextTree<Character> tree =
+                new CompactParsimoniousContextTree<>(
+                        new HeuristicParsimoniousContextTreeLearner<Character>()
+                                .learn(trainingDataRows),
+                        alphabet);
+        ParsimoniousContextTreePredictor<Character> predictor =
+                new ParsimoniousContextTreePredictor<>(
+                        tree,
+                        trainingDataRows,
+                        ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+        EncodedDataSet<Character> testDataSet =
+                new EncodedDataSet<>(createDataRows(alphabet,
+                                                    TEST_ROWS,
+                                                    random),
+                                     alphabet);
+
+        System.out.println("Tree nodes: " + tree.size());
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            predictor.computeLogLikelihood(testDataSet);
+            predictor.computeLogLikelihoodInParallel(testDataSet);
+        }
+
+        double checksum = 0.0;
+        long sequentialDuration = 0L;
+        long parallelDuration = 0L;
+
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long startTime = System.nanoTime();
+            checksum += predictor.computeLogLikelihood(testDataSet);
+            long middleTime = System.nanoTime();
+            checksum += predictor.computeLogLikelihoodInParallel(testDataSet);
+            long endTime = System.nanoTime();
+            sequentialDuration += middleTime - startTime;
+            parallelDuration += endTime - middleTime;
+        }
+
+        System.out.println("Log-loss: " +
+                           predictor.computeLogLoss(testDataSet) + " nats.");
+        System.out.printf("Sequential: %.1f million contexts per second.\n",
+                          1e3 * TEST_ROWS * MEASURED_ROUNDS /
+                          sequentialDuration);
+        System.out.printf("Parallel: %.1f million contexts per second.\n",
+                          1e3 * TEST_ROWS * MEASURED_ROUNDS /
+                          parallelDuration);
+
+        if (checksum == 42.0) {
+            System.out.println("Checksum hit.");
+        }
+    }
+
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet, int rows, Random random) {
+        Character[] sequence = new Character[rows + DEPTH];
+
+        for (int i = 0; i < sequence.length; i++) {
+            // Make the character after an 'A' predictable:
+            sequence[i] = i > 0 && sequence[i - 1] == 'A' ?
+                          'G' :
+                          alphabet.get(random.nextInt(alphabet.size()));
+        }
+
+        List<DataRow<Character>> dataRows = new ArrayList<>(rows);
+
+        for (int i = DEPTH; i < sequence.length; i++) {
+            dataRows.add(new DataRow<>(sequence, i, DEPTH));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,124 @@
+package net.coderodde.msc.test;
+
+import java.util.Random;
+import net.coderodde.msc.util.AbstractProbabilityDistribution;
+import net.coderodde.msc.util.support.BinaryTreeProbabilityDistribution;
+import net.coderodde.msc.util.support.FenwickTreeProbabilityDistribution;
+
+/**
+ * This class compares the dynamic probability distributions. Each round adds
+ * a batch of elements, samples from the distribution and then removes a half
+ * of the elements, and is run first to warm up the JIT compiler and then
+ * timed.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class ProbabilityDistributionBenchmark {
+
+    private static final int ELEMENTS = 100_000;
+    private static final int SAMPLES = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        long seed = System.currentTimeMillis();
+        System.out.println("Seed = " + seed);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(new BinaryTreeProbabilityDistribution<>(new Random(seed)));
+            run(new FenwickTreeProbabilityDistribution<>(new Random(seed)));
+            runSlots(new FenwickTreeProbabilityDistribution<>(new Random(seed)));
+        }
+
+        long binaryTreeDuration = 0L;
+        long fenwickTreeDuration = 0L;
+        long fenwickTreeSlotDuration = 0L;
+
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            binaryTreeDuration += run(
+                    new BinaryTreeProbabilityDistribution<>(new Random(seed)));
+            fenwickTreeDuration += run(
+                    new FenwickTreeProbabilityDistribution<>(new Random(seed)));
+            fenwickTreeSlotDuration += runSlots(
+                    new FenwickTreeProbabilityDistribution<>(new Random(seed)));
+        }
+
+        System.out.println(
+                BinaryTreeProbabilityDistribution.class.getSimpleName() +
+                ": " + binaryTreeDuration / MEASURED_ROUNDS + " ms.");
+        System.out.println(
+                FenwickTreeProbabilityDistribution.class.getSimpleName() +
+                ": " + fenwickTreeDuration / MEASURED_ROUNDS + " ms.");
+        System.out.println(
+                FenwickTreeProbabilityDistribution.class.getSimpleName() +
+                " (slots): " + fenwickTreeSlotDuration / MEASURED_ROUNDS +
+                " ms.");
+    }
+
+    private static long run(
+            AbstractProbabilityDistribution<Integer> distribution) {
+        Random random = new Random(1);
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < ELEMENTS; i++) {
+            distribution.addElement(i, 1.0 + random.nextDouble());
+        }
+
+        long checksum = 0L;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            checksum += distribution.sampleElement();
+        }
+
+        for (int i = 0; i < ELEMENTS; i += 2) {
+            distribution.removeElement(i);
+        }
+
+        for (int i = 0; i < SAMPLES; i++) {
+            checksum += distribution.sampleElement();
+        }
+
+        long endTime = System.currentTimeMillis();
+
+        if (checksum == 42L) {
+            System.out.println("Checksum hit.");
+        }
+
+        return endTime - startTime;
+    }
+
+    private static long runSlots(
+            FenwickTreeProbabilityDistribution<Integer> distribution) {
+        Random random = new Random(1);
+        int[] slots = new int[ELEMENTS];
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < ELEMENTS; i++) {
+            slots[i] = distribution.addElementToSlot(i,
+                                                     1.0 + random.nextDouble());
+        }
+
+        long checksum = 0L;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            checksum += distribution.sampleSlot();
+        }
+
+        for (int i = 0; i < ELEMENTS; i += 2) {
+            distribution.removeSlot(slots[i]);
+        }
+
+        for (int i = 0; i < SAMPLES; i++) {
+            checksum += distribution.sampleSlot();
+        }
+
+        long endTime = System.currentTimeMillis();
+
+        if (checksum == 42L) {
+            System.out.println("Checksum hit.");
+        }
+
+        return endTime - startTime;
+    }
+}
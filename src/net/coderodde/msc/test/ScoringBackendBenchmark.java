@@ -0,0 +1,96 @@
+package net.coderodde.msc.test;
+
+import java.util.Random;
+import net.coderodde.msc.ScoringKernel;
+import net.coderodde.msc.util.ScoringBackend;
+import net.coderodde.msc.util.support.ScalarScoringBackend;
+import net.coderodde.msc.util.support.UnrolledScoringBackend;
+
+/**
+ * This class compares the scoring backends by summing the {@code n log n}
+ * values over random histograms. The sums are run first to warm up the JIT
+ * compiler and then timed.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class ScoringBackendBenchmark {
+
+    private static final int MAXIMUM_COUNT = 1_000_000;
+    private static final int HISTOGRAMS = 100_000;
+    private static final int HISTOGRAM_LENGTH = 20;
+    private static final int SUM_REPETITIONS = 50;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        System.out.println("Seed = " + seed);
+        System.out.println("Selected backend: " +
+                           ScoringKernel.getBackend().getName());
+
+        int[][] histograms = createHistograms(random);
+        double[] table = new double[MAXIMUM_COUNT + 1];
+
+        for (int n = 1; n < table.length; n++) {
+            table[n] = n * Math.log(n);
+        }
+
+        ScoringBackend[] backends = {
+            new ScalarScoringBackend(),
+            new UnrolledScoringBackend(),
+        };
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (ScoringBackend backend : backends) {
+                sum(backend, histograms, table);
+            }
+        }
+
+        for (ScoringBackend backend : backends) {
+            long sumDuration = 0L;
+
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                sumDuration += sum(backend, histograms, table);
+            }
+
+            System.out.println(
+                    backend.getName() + ": summing " +
+                    sumDuration / MEASURED_ROUNDS + " ms.");
+        }
+    }
+
+    private static int[][] createHistograms(Random random) {
+        int[][] histograms = new int[HISTOGRAMS][HISTOGRAM_LENGTH];
+
+        for (int[] histogram : histograms) {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = random.nextInt(MAXIMUM_COUNT / HISTOGRAM_LENGTH);
+            }
+        }
+
+        return histograms;
+    }
+
+    private static long sum(ScoringBackend backend,
+                            int[][] histograms,
+                            double[] table) {
+        double checksum = 0.0;
+        long startTime = System.currentTimeMillis();
+
+        for (int repetition = 0; repetition < SUM_REPETITIONS; repetition++) {
+            for (int[] histogram : histograms) {
+                checksum += backend.sumTableValues(histogram, table);
+            }
+        }
+
+        long endTime = System.currentTimeMillis();
+
+        if (checksum == 42.0) {
+            System.out.println("Checksum hit.");
+        }
+
+        return endTime - startTime;
+    }
+}
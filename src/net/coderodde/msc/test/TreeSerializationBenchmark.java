@@ -0,0 +1,151 @@
+package net.coderodde.msc.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.io.CharacterCodec;
+import net.coderodde.msc.io.ParsimoniousContextTreeReader;
+import net.coderodde.msc.io.ParsimoniousContextTreeWriter;
+
+/**
+ * This class measures writing and loading a tree file. The tree is the full
+ * tree of depth {@link #DEPTH} over the DNA alphabet, each node having one
+ * child per character. Loading the file and compiling a predictor from it is
+ * compared with converting the node graph of the same tree. Finally, the
+ * tree is shared; as all its subtrees of equal height are equal, the shared
+ * tree has one child list per level.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public class TreeSerializationBenchmark {
+
+    private static final int DEPTH = 10;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        CompactParsimoniousContextTree<Character> tree =
+                createFullTree(alphabet, DEPTH);
+        ParsimoniousContextTree<Character> nodeGraph =
+                tree.toParsimoniousContextTree();
+        ParsimoniousContextTreeWriter<Character> writer =
+                new ParsimoniousContextTreeWriter<>(
+                        CharacterCodec.forCharacters());
+        ParsimoniousContextTreeReader<Character> reader =
+                new ParsimoniousContextTreeReader<>(
+                        CharacterCodec.forCharacters());
+        Path path = Files.createTempFile("pct", ".bin");
+        System.out.println("Tree nodes: " + tree.size());
+
+        try {
+            long startTime = System.nanoTime();
+            writer.write(tree, path);
+            long endTime = System.nanoTime();
+            System.out.printf("Wrote %d bytes in %.1f ms.\n",
+                              Files.size(path),
+                              (endTime - startTime) / 1e6);
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                new ParsimoniousContextTreePredictor<>(reader.read(path));
+                new ParsimoniousContextTreePredictor<>(
+                        new CompactParsimoniousContextTree<>(nodeGraph,
+                                                             alphabet));
+            }
+
+            long loadDuration = 0L;
+            long compileDuration = 0L;
+            long conversionDuration = 0L;
+
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long time1 = System.nanoTime();
+                CompactParsimoniousContextTree<Character> loadedTree =
+                        reader.read(path);
+                long time2 = System.nanoTime();
+                new ParsimoniousContextTreePredictor<>(loadedTree);
+                long time3 = System.nanoTime();
+                new CompactParsimoniousContextTree<>(nodeGraph, alphabet);
+                long time4 = System.nanoTime();
+                loadDuration += time2 - time1;
+                compileDuration += time3 - time2;
+                conversionDuration += time4 - time3;
+            }
+
+            System.out.printf("Loading the file: %.1f ms.\n",
+                              loadDuration / 1e6 / MEASURED_ROUNDS);
+            System.out.printf("Compiling the predictor: %.1f ms.\n",
+                              compileDuration / 1e6 / MEASURED_ROUNDS);
+            System.out.printf("Converting the node graph: %.1f ms.\n",
+                              conversionDuration / 1e6 / MEASURED_ROUNDS);
+
+            startTime = System.nanoTime();
+            CompactParsimoniousContextTree<Character> sharedTree =
+                    tree.share();
+            endTime = System.nanoTime();
+            writer.write(sharedTree, path);
+            System.out.printf("Shared tree: %d nodes, %d bytes, built in " +
+                              "%.1f ms.\n",
+                              sharedTree.size(),
+                              Files.size(path),
+                              (endTime - startTime) / 1e6);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static CompactParsimoniousContextTree<Character>
+        createFullTree(Alphabet<Character> alphabet, int depth) {
+        int alphabetSize = alphabet.size();
+        int size = 0;
+        int levelSize = 1;
+
+        for (int d = 0; d <= depth; d++) {
+            size += levelSize;
+            levelSize *= alphabetSize;
+        }
+
+        int numberOfInternalNodes = (size - 1) / alphabetSize;
+        int numberOfLeaves = size - numberOfInternalNodes;
+        long[] labelMasks = new long[size];
+        int[] firstChildren = new int[size];
+        int[] childCounts = new int[size];
+        int[] responseOffsets = new int[size];
+        double[] responseProbabilities =
+                new double[numberOfLeaves * alphabetSize];
+
+        labelMasks[CompactParsimoniousContextTree.ROOT] =
+                (1L << alphabetSize) - 1L;
+
+        for (int node = 0; node < size; node++) {
+            if (node > 0) {
+                labelMasks[node] = 1L << ((node - 1) % alphabetSize);
+            }
+
+            if (node < numberOfInternalNodes) {
+                firstChildren[node] = 1 + node * alphabetSize;
+                childCounts[node] = alphabetSize;
+                responseOffsets[node] = CompactParsimoniousContextTree.NONE;
+            } else {
+                firstChildren[node] = CompactParsimoniousContextTree.NONE;
+                responseOffsets[node] =
+                        (node - numberOfInternalNodes) * alphabetSize;
+            }
+        }
+
+        Arrays.fill(responseProbabilities, 1.0 / alphabetSize);
+        return CompactParsimoniousContextTree.fromArrays(
+                alphabet,
+                labelMasks,
+                firstChildren,
+                childCounts,
+                new double[size],
+                responseOffsets,
+                responseProbabilities);
+    }
+}
@@ -0,0 +1,210 @@
+package net.coderodde.msc.util;
+
+/**
+ * This class implements a count-min sketch of {@code long} keys. The sketch
+ * has {@code d} rows of {@code w} counters, each row having its own hash
+ * function. Adding a key increments one counter per row, and the estimate of
+ * a key is the minimum of its counters. The estimate is never less than the
+ * true count, and with {@code w = ceil(e / epsilon)} and
+ * {@code d = ceil(ln(1 / delta))} it exceeds the true count by more than
+ * {@code epsilon} times the total count with probability at most
+ * {@code delta}.
+ * <p>
+ * With the conservative update, adding a key raises only the counters that
+ * would otherwise fall below the new estimate, which keeps the same
+ * guarantee and usually gives much smaller errors. The memory usage depends
+ * only on {@code w} and {@code d}, not on the number of keys added.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+        0x9e3779b97f4a7c15L, 0xbf58476d1ce4e5b9L, 0x94d049bb133111ebL,
+        0x2545f4914f6cdd1dL, 0xd6e8feb86659fd93L, 0xa0761d6478bd642fL,
+        0xe7037ed1a0b428dbL, 0x8ebc6af09c88c6e3L
+    };
+
+    private final int width;
+    private final int numberOfHashFunctions;
+    private final boolean conservative;
+    private final long[] counters;
+
+    /**
+     * The indices of the counters of the key being updated, one per row.
+     */
+    private final int[] indices;
+
+    private long totalCount;
+
+    /**
+     * Constructs a sketch of {@code numberOfHashFunctions} rows of
+     * {@code width} counters.
+     *
+     * @param width                 the number of counters per row.
+     * @param numberOfHashFunctions the number of rows, at most eight.
+     * @param conservative          whether to use the conservative update.
+     */
+    public CountMinSketch(int width,
+                          int numberOfHashFunctions,
+                          boolean conservative) {
+        if (width < 1) {
+            throw new IllegalArgumentException(
+                    "The width must be positive: " + width);
+        }
+
+        if (numberOfHashFunctions < 1 ||
+                numberOfHashFunctions > SEEDS.length) {
+            throw new IllegalArgumentException(
+                    "The number of hash functions must be within [1, " +
+                    SEEDS.length + "]: " + numberOfHashFunctions);
+        }
+
+        if ((long) width * numberOfHashFunctions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "The sketch is too large: " + width + " x " +
+                    numberOfHashFunctions);
+        }
+
+        this.width = width;
+        this.numberOfHashFunctions = numberOfHashFunctions;
+        this.conservative = conservative;
+        this.counters = new long[width * numberOfHashFunctions];
+        this.indices = new int[numberOfHashFunctions];
+    }
+
+    /**
+     * Constructs the smallest sketch whose estimates exceed the true counts by
+     * at most {@code epsilon} times the total count with probability at least
+     * {@code 1 - delta}.
+     *
+     * @param epsilon      the relative error bound in {@code (0, 1)}.
+     * @param delta        the failure probability in {@code (0, 1)}.
+     * @param conservative whether to use the conservative update.
+     * @return the sketch.
+     */
+    public static CountMinSketch forErrorBounds(double epsilon,
+                                                double delta,
+                                                boolean conservative) {
+        if (!(epsilon > 0.0 && epsilon < 1.0)) {
+            throw new IllegalArgumentException(
+                    "The epsilon must be within (0, 1): " + epsilon);
+        }
+
+        if (!(delta > 0.0 && delta < 1.0)) {
+            throw new IllegalArgumentException(
+                    "The delta must be within (0, 1): " + delta);
+        }
+
+        return new CountMinSketch(
+                (int) Math.min(Integer.MAX_VALUE,
+                               Math.ceil(Math.E / epsilon)),
+                (int) Math.max(1.0, Math.ceil(Math.log(1.0 / delta))),
+                conservative);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getNumberOfHashFunctions() {
+        return numberOfHashFunctions;
+    }
+
+    public boolean isConservative() {
+        return conservative;
+    }
+
+    /**
+     * Returns the sum of the counts of all the keys added so far.
+     *
+     * @return the total count.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of bytes taken by the counters.
+     *
+     * @return the memory usage in bytes.
+     */
+    public long getMemoryUsage() {
+        return (long) counters.length * Long.BYTES;
+    }
+
+    /**
+     * Adds {@code count} to the count of {@code key}.
+     *
+     * @param key   the key.
+     * @param count the non-negative count to add.
+     */
+    public void add(long key, long count) {
+        if (count < 0L) {
+            throw new IllegalArgumentException(
+                    "The count must be non-negative: " + count);
+        }
+
+        totalCount += count;
+
+        if (!conservative) {
+            for (int row = 0; row < numberOfHashFunctions; row++) {
+                counters[index(key, row)] += count;
+            }
+
+            return;
+        }
+
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < numberOfHashFunctions; row++) {
+            indices[row] = index(key, row);
+            estimate = Math.min(estimate, counters[indices[row]]);
+        }
+
+        long target = estimate + count;
+
+        for (int row = 0; row < numberOfHashFunctions; row++) {
+            if (counters[indices[row]] < target) {
+                counters[indices[row]] = target;
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated count of {@code key}, which is never less than
+     * the true count.
+     *
+     * @param key the key.
+     * @return the estimated count.
+     */
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < numberOfHashFunctions; row++) {
+            estimate = Math.min(estimate, counters[index(key, row)]);
+        }
+
+        return estimate;
+    }
+
+    private int index(long key, int row) {
+        long hash = mix(key ^ SEEDS[row]);
+        // Maps the upper 32 bits of the hash to [0, width):
+        return row * width + (int) (((hash >>> 32) * width) >>> 32);
+    }
+
+    /**
+     * Returns a hash of {@code value} whose bits all depend on all the bits
+     * of {@code value}, computed by the finalizer of SplitMix64.
+     *
+     * @param value the value to hash.
+     * @return the hash of the value.
+     */
+    public static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,29 @@
+package net.coderodde.msc.util;
+
+/**
+ * This interface defines the innermost loop of the BIC scoring: summing the
+ * {@code n log n} values over a histogram. The implementations may differ in
+ * the order of the additions, and thus in the last bits of the sums.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public interface ScoringBackend {
+
+    /**
+     * Returns the name of this backend.
+     *
+     * @return the name of this backend.
+     */
+    public String getName();
+
+    /**
+     * Returns the sum of {@code table[histogram[i]]} over all {@code i}.
+     *
+     * @param histogram the histogram.
+     * @param table     the table to look up the values from. Must be longer
+     *                  than any count in {@code histogram}.
+     * @return the sum of the table values.
+     */
+    public double sumTableValues(int[] histogram, double[] table);
+}
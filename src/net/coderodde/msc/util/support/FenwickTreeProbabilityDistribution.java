@@ -0,0 +1,437 @@
+package net.coderodde.msc.util.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.msc.util.AbstractProbabilityDistribution;
+
+/**
+ * This class implements a probability distribution relying on a Fenwick tree
+ * (a binary indexed tree) of weights laid out over a dense array of slots. Each
+ * element occupies a single slot; removed slots are recycled via a free list.
+ * Adding, removing, updating the weight of and sampling an element all run in
+ * <tt>O(log n)</tt> worst case time and do not allocate, except when the slot
+ * arrays have to grow.
+ * <p>
+ * In addition to the generic element API, this class exposes an int-keyed fast
+ * path: {@link #addElementToSlot(Object, double)} returns the slot index of the
+ * new element, which may then be passed to {@link #updateSlotWeight(int, double)},
+ * {@link #removeSlot(int)} and compared against {@link #sampleSlot()} without
+ * any hashing.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ * @param <E> the actual type of the elements stored in this distribution.
+ */
+public class FenwickTreeProbabilityDistribution<E>
+extends AbstractProbabilityDistribution<E> {
+
+    /**
+     * The default number of slots.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Marks the end of the free slot list.
+     */
+    private static final int NO_SLOT = -1;
+
+    /**
+     * The Fenwick tree. The entry at index {@code i} (1-based) holds the sum of
+     * the weights of the slots {@code i - lowbit(i)}, ..., {@code i - 1}.
+     */
+    private double[] tree;
+
+    /**
+     * The weight of each slot. A weight of zero marks a free slot.
+     */
+    private double[] weights;
+
+    /**
+     * The element stored in each slot.
+     */
+    private Object[] elements;
+
+    /**
+     * Links each free slot to the next free slot.
+     */
+    private int[] nextFreeSlot;
+
+    /**
+     * The head of the free slot list.
+     */
+    private int freeSlotListHead = NO_SLOT;
+
+    /**
+     * The number of slots ever taken. All slots at indices at least this value
+     * are free and not in the free list.
+     */
+    private int slotWatermark;
+
+    /**
+     * The largest power of two not exceeding the capacity. Used for the
+     * top-down descent while sampling.
+     */
+    private int topBit;
+
+    /**
+     * Maps each element to the slot it occupies.
+     */
+    private final Map<E, Integer> map = new HashMap<>();
+
+    /**
+     * Constructs this probability distribution using a default random number
+     * generator.
+     */
+    public FenwickTreeProbabilityDistribution() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator.
+     *
+     * @param random the random number generator to use.
+     */
+    public FenwickTreeProbabilityDistribution(final Random random) {
+        this(random, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs this probability distribution using the input random number
+     * generator and preallocates {@code capacity} slots.
+     *
+     * @param random   the random number generator to use.
+     * @param capacity the initial number of slots.
+     */
+    public FenwickTreeProbabilityDistribution(final Random random,
+                                              final int capacity) {
+        super(random);
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "The capacity must be positive. Received " + capacity);
+        }
+
+        allocate(capacity);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean addElement(E element, double weight) {
+        checkWeight(weight);
+
+        if (this.map.containsKey(element)) {
+            return false;
+        }
+
+        this.map.put(element, insert(element, weight));
+        return true;
+    }
+
+    /**
+     * Adds the element {@code element} with weight {@code weight} and returns
+     * the slot it occupies. Unlike {@link #addElement(Object, double)}, this
+     * method does not check whether the element is already present; the
+     * element may only be accessed through the returned slot afterwards.
+     *
+     * @param element the element to add.
+     * @param weight  the weight of the new element.
+     * @return the slot of the new element.
+     */
+    public int addElementToSlot(E element, double weight) {
+        checkWeight(weight);
+        return insert(element, weight);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean contains(E element) {
+        return this.map.containsKey(element);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E sampleElement() {
+        return getSlotElement(sampleSlot());
+    }
+
+    /**
+     * Returns a randomly chosen slot taking the weights into account.
+     *
+     * @return a randomly chosen slot.
+     */
+    public int sampleSlot() {
+        checkNotEmpty();
+
+        while (true) {
+            int slot = descend(this.random.nextDouble() * prefixSum());
+
+            if (slot < this.slotWatermark && this.weights[slot] > 0.0) {
+                return slot;
+            }
+
+            // Rounding errors accumulated by the weight deltas made a free
+            // slot reachable. Rebuild the tree from the exact weights:
+            rebuild();
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean removeElement(E element) {
+        Integer slot = this.map.remove(element);
+
+        if (slot == null) {
+            return false;
+        }
+
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Removes the element occupying the slot {@code slot}.
+     *
+     * @param slot the slot to free.
+     */
+    public void removeSlot(int slot) {
+        checkSlot(slot);
+
+        @SuppressWarnings("unchecked")
+        E element = (E) this.elements[slot];
+        Integer mappedSlot = this.map.get(element);
+
+        if (mappedSlot != null && mappedSlot == slot) {
+            this.map.remove(element);
+        }
+
+        release(slot);
+    }
+
+    /**
+     * Sets the weight of {@code element} to {@code weight}.
+     *
+     * @param element the element whose weight to update.
+     * @param weight  the new weight.
+     * @return {@code true} only if the element was present in this probability
+     *         distribution.
+     */
+    public boolean updateWeight(E element, double weight) {
+        checkWeight(weight);
+        Integer slot = this.map.get(element);
+
+        if (slot == null) {
+            return false;
+        }
+
+        setSlotWeight(slot, weight);
+        return true;
+    }
+
+    /**
+     * Sets the weight of the element occupying the slot {@code slot}.
+     *
+     * @param slot   the slot of the target element.
+     * @param weight the new weight.
+     */
+    public void updateSlotWeight(int slot, double weight) {
+        checkWeight(weight);
+        checkSlot(slot);
+        setSlotWeight(slot, weight);
+    }
+
+    /**
+     * Returns the element occupying the slot {@code slot}.
+     *
+     * @param slot the slot to query.
+     * @return the element in the slot.
+     */
+    @SuppressWarnings("unchecked")
+    public E getSlotElement(int slot) {
+        checkSlot(slot);
+        return (E) this.elements[slot];
+    }
+
+    /**
+     * Returns the weight of the element occupying the slot {@code slot}.
+     *
+     * @param slot the slot to query.
+     * @return the weight of the element in the slot.
+     */
+    public double getSlotWeight(int slot) {
+        checkSlot(slot);
+        return this.weights[slot];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(this.tree, 0.0);
+        Arrays.fill(this.weights, 0.0);
+        Arrays.fill(this.elements, null);
+        this.map.clear();
+        this.freeSlotListHead = NO_SLOT;
+        this.slotWatermark = 0;
+        this.size = 0;
+        this.totalWeight = 0.0;
+    }
+
+    private int insert(E element, double weight) {
+        int slot;
+
+        if (this.freeSlotListHead != NO_SLOT) {
+            slot = this.freeSlotListHead;
+            this.freeSlotListHead = this.nextFreeSlot[slot];
+        } else {
+            if (this.slotWatermark == this.weights.length) {
+                allocate(2 * this.weights.length);
+            }
+
+            slot = this.slotWatermark++;
+        }
+
+        this.elements[slot] = element;
+        this.weights[slot] = weight;
+        add(slot, weight);
+        this.size++;
+        this.totalWeight += weight;
+        return slot;
+    }
+
+    private void release(int slot) {
+        double weight = this.weights[slot];
+        add(slot, -weight);
+        this.weights[slot] = 0.0;
+        this.elements[slot] = null;
+        this.nextFreeSlot[slot] = this.freeSlotListHead;
+        this.freeSlotListHead = slot;
+        this.size--;
+
+        if (this.size == 0) {
+            // Get rid of the accumulated rounding errors for free:
+            Arrays.fill(this.tree, 0.0);
+            this.totalWeight = 0.0;
+        } else {
+            this.totalWeight -= weight;
+        }
+    }
+
+    private void setSlotWeight(int slot, double weight) {
+        double delta = weight - this.weights[slot];
+        this.weights[slot] = weight;
+        add(slot, delta);
+        this.totalWeight += delta;
+    }
+
+    /**
+     * Adds {@code delta} to the weight of the slot {@code slot} in the Fenwick
+     * tree.
+     *
+     * @param slot  the 0-based slot index.
+     * @param delta the weight delta.
+     */
+    private void add(int slot, double delta) {
+        for (int i = slot + 1; i < this.tree.length; i += i & -i) {
+            this.tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the sum of all weights as seen by the Fenwick tree.
+     *
+     * @return the total weight.
+     */
+    private double prefixSum() {
+        double sum = 0.0;
+
+        for (int i = this.tree.length - 1; i > 0; i -= i & -i) {
+            sum += this.tree[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Finds the 0-based slot whose weight interval contains {@code value}.
+     *
+     * @param value the value within {@code [0, total weight)}.
+     * @return the slot.
+     */
+    private int descend(double value) {
+        int position = 0;
+
+        for (int bit = this.topBit; bit != 0; bit >>>= 1) {
+            int next = position + bit;
+
+            if (next < this.tree.length && this.tree[next] <= value) {
+                position = next;
+                value -= this.tree[next];
+            }
+        }
+
+        // 'position' is the 1-based index of the last slot whose prefix sum
+        // is at most 'value', which is the 0-based index of the next slot.
+        return position;
+    }
+
+    /**
+     * Grows the slot arrays to {@code capacity} slots and rebuilds the tree.
+     *
+     * @param capacity the new capacity.
+     */
+    private void allocate(int capacity) {
+        if (this.weights == null) {
+            this.weights = new double[capacity];
+            this.elements = new Object[capacity];
+            this.nextFreeSlot = new int[capacity];
+        } else {
+            this.weights = Arrays.copyOf(this.weights, capacity);
+            this.elements = Arrays.copyOf(this.elements, capacity);
+            this.nextFreeSlot = Arrays.copyOf(this.nextFreeSlot, capacity);
+        }
+
+        this.tree = new double[capacity + 1];
+        this.topBit = Integer.highestOneBit(capacity);
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the Fenwick tree from the slot weights in linear time.
+     */
+    private void rebuild() {
+        Arrays.fill(this.tree, 0.0);
+        double sum = 0.0;
+
+        for (int i = 1; i < this.tree.length; ++i) {
+            this.tree[i] += this.weights[i - 1];
+            sum += this.weights[i - 1];
+            int parent = i + (i & -i);
+
+            if (parent < this.tree.length) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+
+        this.totalWeight = sum;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= this.slotWatermark
+                     || this.weights[slot] == 0.0) {
+            throw new IllegalArgumentException(
+                    "The slot " + slot + " is not occupied.");
+        }
+    }
+}
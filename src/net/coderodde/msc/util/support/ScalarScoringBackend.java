@@ -0,0 +1,30 @@
+package net.coderodde.msc.util.support;
+
+import net.coderodde.msc.util.ScoringBackend;
+
+/**
+ * This class implements the straightforward scoring backend. It adds the
+ * values in order, so it is the reference for the other backends and the
+ * default of {@link net.coderodde.msc.ScoringKernel}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class ScalarScoringBackend implements ScoringBackend {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public double sumTableValues(int[] histogram, double[] table) {
+        double sum = 0.0;
+
+        for (int count : histogram) {
+            sum += table[count];
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,47 @@
+package net.coderodde.msc.util.support;
+
+import net.coderodde.msc.util.ScoringBackend;
+
+/**
+ * This class implements a scoring backend summing the table values with four
+ * independent accumulators, so that the additions do not wait on each other.
+ * Since the additions are reordered, the sums may differ from those of
+ * {@link ScalarScoringBackend} in the last bits, and so may the scores and
+ * the ties between them. The backend is therefore only used when selected
+ * explicitly.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class UnrolledScoringBackend implements ScoringBackend {
+
+    private static final int LANES = 4;
+
+    @Override
+    public String getName() {
+        return "unrolled";
+    }
+
+    @Override
+    public double sumTableValues(int[] histogram, double[] table) {
+        double sum0 = 0.0;
+        double sum1 = 0.0;
+        double sum2 = 0.0;
+        double sum3 = 0.0;
+        int length = histogram.length;
+        int i = 0;
+
+        for (; i + LANES <= length; i += LANES) {
+            sum0 += table[histogram[i]];
+            sum1 += table[histogram[i + 1]];
+            sum2 += table[histogram[i + 2]];
+            sum3 += table[histogram[i + 3]];
+        }
+
+        for (; i < length; i++) {
+            sum0 += table[histogram[i]];
+        }
+
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+}
@@ -0,0 +1,286 @@
+package net.coderodde.msc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompactParsimoniousContextTreeTest {
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G', 'T');
+
+    private List<DataRow<Character>> dataRows;
+    private ParsimoniousContextTree<Character> tree;
+
+    @Before
+    public void before() {
+        Random random = new Random(1);
+        dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 500; ++i) {
+            Character[] variables = new Character[3];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        tree = new BasicParsimoniousContextTreeLearner<Character>()
+                .learn(dataRows);
+    }
+
+    @Test
+    public void testRoundTripPreservesTree() {
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree, alphabet);
+
+        assertEquals(2, compactTree.getDepth());
+        assertEquals(tree.getScore(), compactTree.getScore(), 0.0);
+        assertSameTree(tree.getRoot(),
+                       compactTree.toParsimoniousContextTree().getRoot());
+    }
+
+    @Test
+    public void testComputeScoreEqualsLearnedScore() {
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree, alphabet);
+
+        assertEquals(tree.getScore(),
+                     compactTree.computeScore(
+                             new EncodedDataSet<>(dataRows, alphabet)),
+                     1e-9 * Math.abs(tree.getScore()));
+    }
+
+    @Test
+    public void testChildrenAreContiguous() {
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree);
+
+        int expectedFirstChild = 1;
+
+        for (int node = 0; node < compactTree.size(); ++node) {
+            if (compactTree.isLeaf(node)) {
+                assertEquals(CompactParsimoniousContextTree.NONE,
+                             compactTree.getFirstChild(node));
+                continue;
+            }
+
+            assertEquals(expectedFirstChild, compactTree.getFirstChild(node));
+            expectedFirstChild += compactTree.getChildCount(node);
+            long union = 0L;
+
+            for (int i = 0; i < compactTree.getChildCount(node); ++i) {
+                long mask = compactTree.getLabelMask(
+                        compactTree.getFirstChild(node) + i);
+                assertEquals(0L, union & mask);
+                union |= mask;
+            }
+
+            assertEquals((1L << alphabet.size()) - 1L, union);
+        }
+
+        assertEquals(compactTree.size(), expectedFirstChild);
+    }
+
+    @Test
+    public void testFindLeafFollowsContext() {
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree, alphabet);
+        EncodedDataSet<Character> dataSet =
+                new EncodedDataSet<>(dataRows, alphabet);
+
+        for (int row = 0; row < dataRows.size(); ++row) {
+            DataRow<Character> dataRow = dataRows.get(row);
+            int leaf = compactTree.findLeaf(dataRow);
+
+            assertTrue(compactTree.isLeaf(leaf));
+            assertEquals(leaf, compactTree.findLeaf(dataSet, row));
+            assertEquals(findLeaf(tree.getRoot(), dataRow).getScore(),
+                         compactTree.getScore(leaf),
+                         0.0);
+        }
+    }
+
+    @Test
+    public void testResponseDistributionsAreConverted() {
+        ParsimoniousContextTreeNode<Character> leaf =
+                findLeaf(tree.getRoot(), dataRows.get(0));
+        ResponseVariableDistribution<Character> distribution =
+                new ResponseVariableDistribution<>();
+        distribution.putResponseVariableProbability('A', 0.25);
+        distribution.putResponseVariableProbability('G', 0.75);
+        leaf.setResponseVariableDistribution(distribution);
+
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree, alphabet);
+        int compactLeaf = compactTree.findLeaf(dataRows.get(0));
+
+        assertEquals(0.25, compactTree.getResponseProbability(compactLeaf, 0),
+                     0.0);
+        assertEquals(0.0, compactTree.getResponseProbability(compactLeaf, 1),
+                     0.0);
+        assertEquals(0.75, compactTree.getResponseProbability(compactLeaf, 2),
+                     0.0);
+        assertEquals(CompactParsimoniousContextTree.NONE,
+                     compactTree.getResponseOffset(
+                             CompactParsimoniousContextTree.ROOT));
+
+        ParsimoniousContextTreeNode<Character> convertedLeaf =
+                findLeaf(compactTree.toParsimoniousContextTree().getRoot(),
+                         dataRows.get(0));
+        assertEquals(0.75,
+                     convertedLeaf.getResponseVariableDistribution()
+                                  .getResponseVariableProbability('G'),
+                     0.0);
+    }
+
+    @Test
+    public void testShareInternsEqualSubtrees() {
+        ParsimoniousContextTreeNode<Character> root = createFullTree(2);
+        root.setLabel(Collections.emptySet());
+        ParsimoniousContextTree<Character> fullTree =
+                new ParsimoniousContextTree<>(root);
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(fullTree, alphabet);
+        CompactParsimoniousContextTree<Character> sharedTree =
+                compactTree.share();
+
+        assertEquals(21, compactTree.size());
+        assertEquals(9, sharedTree.size());
+        assertEquals(21, sharedTree.getExpandedSize());
+        assertEquals(2, sharedTree.getDepth());
+        assertSameTree(fullTree.getRoot(),
+                       sharedTree.toParsimoniousContextTree().getRoot());
+
+        int firstChild = sharedTree.getFirstChild(
+                sharedTree.getFirstChild(CompactParsimoniousContextTree.ROOT));
+
+        for (int i = 0; i < alphabet.size(); ++i) {
+            assertEquals(firstChild,
+                         sharedTree.getFirstChild(
+                                 sharedTree.getFirstChild(
+                                         CompactParsimoniousContextTree.ROOT)
+                                 + i));
+        }
+    }
+
+    @Test
+    public void testCreateSharedAgreesWithShare() {
+        CompactParsimoniousContextTree<Character> expected =
+                new CompactParsimoniousContextTree<>(tree, alphabet).share();
+        CompactParsimoniousContextTree<Character> actual =
+                CompactParsimoniousContextTree.createShared(tree, alphabet);
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int node = 0; node < expected.size(); ++node) {
+            assertEquals(expected.getLabelMask(node),
+                         actual.getLabelMask(node));
+            assertEquals(expected.getFirstChild(node),
+                         actual.getFirstChild(node));
+            assertEquals(expected.getChildCount(node),
+                         actual.getChildCount(node));
+            assertEquals(expected.getScore(node), actual.getScore(node), 0.0);
+        }
+    }
+
+    @Test
+    public void testSharedTreePredictsLikeUnsharedTree() {
+        EncodedDataSet<Character> dataSet =
+                new EncodedDataSet<>(dataRows, alphabet);
+        CompactParsimoniousContextTree<Character> compactTree =
+                new CompactParsimoniousContextTree<>(tree, alphabet)
+                        .withLeafDistributions(dataSet, 0.0);
+        CompactParsimoniousContextTree<Character> sharedTree =
+                compactTree.share();
+
+        assertEquals(compactTree.size(), sharedTree.getExpandedSize());
+        assertEquals(
+                new ParsimoniousContextTreePredictor<>(compactTree)
+                        .computeLogLikelihood(dataSet),
+                new ParsimoniousContextTreePredictor<>(sharedTree)
+                        .computeLogLikelihood(dataSet),
+                0.0);
+    }
+
+    private ParsimoniousContextTreeNode<Character> createFullTree(int depth) {
+        ParsimoniousContextTreeNode<Character> node =
+                new ParsimoniousContextTreeNode<>();
+        node.setLabel(new HashSet<>(alphabet.getCharacters()));
+        node.setScore(depth);
+
+        if (depth > 0) {
+            Set<ParsimoniousContextTreeNode<Character>> children =
+                    new HashSet<>();
+
+            for (Character character : alphabet) {
+                ParsimoniousContextTreeNode<Character> child =
+                        createFullTree(depth - 1);
+                child.setLabel(Collections.singleton(character));
+                children.add(child);
+            }
+
+            node.setChildren(children);
+        }
+
+        return node;
+    }
+
+    private static ParsimoniousContextTreeNode<Character>
+        findLeaf(ParsimoniousContextTreeNode<Character> node,
+                 DataRow<Character> dataRow) {
+        for (int d = 0; node.getChildren() != null; ++d) {
+            Character character = dataRow.getExplanatoryVariable(d);
+            ParsimoniousContextTreeNode<Character> next = null;
+
+            for (ParsimoniousContextTreeNode<Character> child :
+                    node.getChildren()) {
+                if (child.getLabel().contains(character)) {
+                    next = child;
+                }
+            }
+
+            node = next;
+        }
+
+        return node;
+    }
+
+    private static void assertSameTree(
+            ParsimoniousContextTreeNode<Character> expected,
+            ParsimoniousContextTreeNode<Character> actual) {
+        assertEquals(expected.getLabel(), actual.getLabel());
+        assertEquals(expected.getScore(), actual.getScore(), 0.0);
+
+        if (expected.getChildren() == null) {
+            assertNull(actual.getChildren());
+            return;
+        }
+
+        assertEquals(expected.getChildren().size(),
+                     actual.getChildren().size());
+        Map<Set<Character>, ParsimoniousContextTreeNode<Character>> map =
+                new HashMap<>();
+
+        for (ParsimoniousContextTreeNode<Character> child :
+                actual.getChildren()) {
+            map.put(child.getLabel(), child);
+        }
+
+        for (ParsimoniousContextTreeNode<Character> child :
+                expected.getChildren()) {
+            assertSameTree(child, map.get(child.getLabel()));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package net.coderodde.msc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LearnerMetricsTest {
+
+    private static final int DEPTH = 2;
+
+    private List<DataRow<Character>> dataRows;
+
+    @Before
+    public void before() {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G');
+        Random random = new Random(1);
+        dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 400; ++i) {
+            Character[] variables = new Character[DEPTH + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+    }
+
+    @Test
+    public void testBasicLearnerCounts() {
+        LearnerMetrics metrics = new LearnerMetrics();
+        BasicParsimoniousContextTreeLearner<Character> learner =
+                new BasicParsimoniousContextTreeLearner<>();
+        learner.setListener(metrics);
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        // 7 labels under the root and 7 under each of them:
+        assertEquals(7 + 7 * 7, metrics.getNumberOfNodesCreated());
+        // The pruned nodes of the pruned children are not counted:
+        assertTrue(metrics.getNumberOfNodesCreated() -
+                   metrics.getNumberOfNodesPruned() >=
+                   countNonRootNodes(tree.getRoot()));
+        // Bell(3) = 5 partitions at the root and at each of its 7 children:
+        assertEquals(5 * 8, metrics.getNumberOfPartitionsEvaluated());
+        assertEquals(49, metrics.getNumberOfHistogramsBuilt());
+        assertEquals(0, metrics.getNumberOfMergesAttempted());
+        assertEquals(DEPTH + 1, metrics.getNumberOfLevels());
+        assertEquals(1, metrics.getNumberOfSubtreesBuilt(0));
+        assertEquals(7, metrics.getNumberOfSubtreesBuilt(1));
+        assertEquals(49, metrics.getNumberOfSubtreesBuilt(2));
+        assertTrue(metrics.getNanoseconds(0) >= metrics.getNanoseconds(1));
+        assertEquals(metrics.getNanoseconds(0),
+                     metrics.getSelfNanoseconds(0) +
+                     metrics.getSelfNanoseconds(1) +
+                     metrics.getSelfNanoseconds(2));
+    }
+
+    @Test
+    public void testHeuristicLearnersCountMerges() {
+        for (AbstractParsimoniousContextTreeLearner<Character> learner :
+                Arrays.asList(
+                        new HeuristicParsimoniousContextTreeLearner<Character>(),
+                        new HybridHeuristicParsimoniousContextTreeLearnerV1<
+                                Character>())) {
+            LearnerMetrics metrics = new LearnerMetrics();
+            learner.setListener(metrics);
+            learner.learn(dataRows);
+
+            assertTrue(metrics.getNumberOfMergesAttempted() > 0);
+            assertTrue(metrics.getNumberOfMergesAccepted() <=
+                       metrics.getNumberOfMergesAttempted());
+            assertEquals(metrics.getNumberOfMergesAccepted(),
+                         metrics.getNumberOfNodesPruned());
+            assertTrue(metrics.getNumberOfRowsScanned() >= dataRows.size());
+            assertEquals(1, metrics.getNumberOfSubtreesBuilt(0));
+        }
+    }
+
+    @Test
+    public void testListenerDoesNotChangeTree() {
+        double expectedScore =
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows)
+                        .getScore();
+        BasicParsimoniousContextTreeLearner<Character> learner =
+                new BasicParsimoniousContextTreeLearner<>();
+        learner.setListener(new LearnerMetrics());
+
+        assertEquals(expectedScore, learner.learn(dataRows).getScore(), 0.0);
+    }
+
+    @Test
+    public void testReport() {
+        LearnerMetrics metrics = new LearnerMetrics();
+        HeuristicParsimoniousContextTreeLearner<Character> learner =
+                new HeuristicParsimoniousContextTreeLearner<>();
+        learner.setListener(metrics);
+        learner.learn(dataRows);
+        String report = metrics.getReport();
+
+        assertTrue(report.startsWith("level"));
+        assertTrue(report.contains("total"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getNumberOfLevels());
+        assertEquals(0, metrics.getNumberOfRowsScanned());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testThrowsOnNullListener() {
+        new HeuristicParsimoniousContextTreeLearner<Character>()
+                .setListener(null);
+    }
+
+    private static int countNonRootNodes(ParsimoniousContextTreeNode<?> root) {
+        int count = 0;
+
+        if (root.getChildren() != null) {
+            for (ParsimoniousContextTreeNode<?> child : root.getChildren()) {
+                count += 1 + countNonRootNodes(child);
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,174 @@
+package net.coderodde.msc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
+import net.coderodde.msc.support.IndependenceModelParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.OnlineParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.StreakRandomParsimoniousContextTreeLearnerV1;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.checkComplete;
+import static org.junit.Assert.*;
+
+public class LearningContextTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final int DEPTH = 3;
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G');
+
+    private final List<DataRow<Character>> dataRows = createDataRows();
+
+    @Test
+    public void testDeadline() throws InterruptedException {
+        LearningContext context = new LearningContext(10L,
+                                                      TimeUnit.MILLISECONDS);
+
+        assertTrue(context.hasDeadline());
+        assertFalse(context.shouldStop());
+        Thread.sleep(20L);
+        assertTrue(context.isDeadlineExceeded());
+        assertTrue(context.shouldStop());
+        assertEquals(0L, context.getRemainingNanoseconds());
+
+        context = new LearningContext();
+
+        assertFalse(context.shouldStop());
+        assertEquals(Long.MAX_VALUE, context.getRemainingNanoseconds());
+        context.cancel();
+        assertTrue(context.isCancelled());
+        assertTrue(context.shouldStop());
+    }
+
+    @Test
+    public void testExpiredLearnersReturnIndependenceModel() {
+        double expectedScore =
+                new IndependenceModelParsimoniousContextTreeLearner<
+                        Character>()
+                        .learn(dataRows)
+                        .getScore();
+        List<AbstractParsimoniousContextTreeLearner<Character>> learners =
+                new ArrayList<>();
+        learners.add(new BasicParsimoniousContextTreeLearner<>());
+        learners.add(new HeuristicParsimoniousContextTreeLearner<>());
+        learners.add(new HybridHeuristicParsimoniousContextTreeLearnerV1<>());
+
+        for (AbstractParsimoniousContextTreeLearner<Character> learner :
+                learners) {
+            learner.setContext(new LearningContext(0L, TimeUnit.SECONDS));
+            ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+            checkComplete(tree.getRoot(), DEPTH, alphabet.size());
+            assertEquals(expectedScore,
+                         tree.getScore(),
+                         EPSILON * Math.abs(expectedScore));
+        }
+    }
+
+    @Test
+    public void testCancelledOptimalLearnerKeepsBestPartitionSoFar() {
+        BasicParsimoniousContextTreeLearner<Character> learner =
+                new BasicParsimoniousContextTreeLearner<>();
+        LearningContext context = new LearningContext();
+        List<Long> progress = new ArrayList<>();
+        context.setProgressListener((workDone, totalWork) -> {
+            progress.add(workDone);
+            assertEquals(7L, totalWork);
+            context.cancel();
+        });
+        learner.setContext(context);
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        checkComplete(tree.getRoot(), DEPTH, alphabet.size());
+        assertEquals(7, progress.size());
+        assertTrue(tree.getScore() >=
+                   new IndependenceModelParsimoniousContextTreeLearner<
+                           Character>()
+                           .learn(dataRows)
+                           .getScore());
+        assertTrue(tree.getScore() <=
+                   new BasicParsimoniousContextTreeLearner<Character>()
+                           .learn(dataRows)
+                           .getScore());
+    }
+
+    @Test
+    public void testRandomSearchReturnsIncumbent() {
+        StreakRandomParsimoniousContextTreeLearnerV1<Character> learner =
+                new StreakRandomParsimoniousContextTreeLearnerV1<>();
+        learner.setMaximumStreakLength(Integer.MAX_VALUE);
+        LearningContext context = new LearningContext();
+        int[] numberOfCandidates = new int[1];
+        context.setProgressListener((workDone, totalWork) -> {
+            numberOfCandidates[0]++;
+            assertEquals(-1L, totalWork);
+
+            if (workDone == 5) {
+                context.cancel();
+            }
+        });
+        learner.setContext(context);
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        assertEquals(5, numberOfCandidates[0]);
+        checkComplete(tree.getRoot(), DEPTH, alphabet.size());
+    }
+
+    @Test
+    public void testOnlineOptimalLearnerOptimizesAgainAfterFallback() {
+        OnlineParsimoniousContextTreeLearner<Character> learner =
+                new OnlineParsimoniousContextTreeLearner<>(
+                        alphabet,
+                        DEPTH,
+                        OnlineParsimoniousContextTreeLearner.Strategy.OPTIMAL);
+        learner.addAll(dataRows);
+        learner.setContext(new LearningContext(0L, TimeUnit.SECONDS));
+        double greedyScore = learner.getTree().getScore();
+        double expectedGreedyScore =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows)
+                        .getScore();
+
+        assertEquals(expectedGreedyScore,
+                     greedyScore,
+                     EPSILON * Math.abs(expectedGreedyScore));
+
+        learner.setContext(new LearningContext());
+        double optimalScore = learner.getTree().getScore();
+        double expectedOptimalScore =
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows)
+                        .getScore();
+
+        assertEquals(expectedOptimalScore,
+                     optimalScore,
+                     EPSILON * Math.abs(expectedOptimalScore));
+    }
+
+    private List<DataRow<Character>> createDataRows() {
+        Random random = new Random(3);
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 500; ++i) {
+            Character[] variables = new Character[DEPTH + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            // Make the response depend on the first character:
+            if (random.nextBoolean()) {
+                variables[DEPTH] = variables[0];
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,123 @@
+package net.coderodde.msc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParsimoniousContextTreePredictorTest {
+
+    private static final int DEPTH = 3;
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G', 'T');
+
+    private byte[] sequence;
+    private List<DataRow<Character>> dataRows;
+    private CompactParsimoniousContextTree<Character> tree;
+    private ParsimoniousContextTreePredictor<Character> predictor;
+
+    @Before
+    public void before() {
+        Random random = new Random(1);
+        sequence = new byte[5000];
+        Character[] characters = new Character[sequence.length];
+
+        for (int i = 0; i < sequence.length; ++i) {
+            // The character after an 'A' is mostly a 'G':
+            boolean afterA = i > 0 && sequence[i - 1] == 0;
+            sequence[i] = afterA && random.nextInt(4) > 0 ?
+                          2 :
+                          (byte) random.nextInt(alphabet.size());
+            characters[i] = alphabet.get(sequence[i]);
+        }
+
+        dataRows = new ArrayList<>();
+
+        for (int i = DEPTH; i < characters.length; ++i) {
+            dataRows.add(new DataRow<>(characters, i, DEPTH));
+        }
+
+        tree = new CompactParsimoniousContextTree<>(
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows),
+                alphabet);
+        predictor = new ParsimoniousContextTreePredictor<>(tree, dataRows, 0.5);
+    }
+
+    @Test
+    public void testProbabilitiesSumToOne() {
+        byte[] context = new byte[DEPTH];
+
+        for (int i = 0; i < 64; ++i) {
+            context[0] = (byte) (i & 3);
+            context[1] = (byte) ((i >>> 2) & 3);
+            context[2] = (byte) (i >>> 4);
+            double[] probabilities = new double[alphabet.size()];
+            predictor.getNextSymbolProbabilities(context,
+                                                 DEPTH,
+                                                 probabilities);
+            assertEquals(1.0, Arrays.stream(probabilities).sum(), 1e-12);
+        }
+
+        assertTrue(predictor.getProbability(Arrays.asList('C', 'T', 'A'), 'G')
+                   > 0.6);
+    }
+
+    @Test
+    public void testProbabilitiesMatchLeafCounts() {
+        int[] counts = new int[tree.size() * alphabet.size()];
+        int[] totals = new int[tree.size()];
+
+        for (DataRow<Character> dataRow : dataRows) {
+            int leaf = tree.findLeaf(dataRow);
+            counts[leaf * alphabet.size() +
+                   alphabet.getIndexOf(dataRow.getResponseVariable())]++;
+            totals[leaf]++;
+        }
+
+        for (DataRow<Character> dataRow : dataRows) {
+            int leaf = tree.findLeaf(dataRow);
+            int response = alphabet.getIndexOf(dataRow.getResponseVariable());
+            double expected =
+                    (counts[leaf * alphabet.size() + response] + 0.5) /
+                    (totals[leaf] + 0.5 * alphabet.size());
+            assertEquals(Math.log(expected),
+                         predictor.getLogProbability(dataRow),
+                         1e-12);
+        }
+    }
+
+    @Test
+    public void testBatchScoringAgreesWithSingleQueries() {
+        EncodedDataSet<Character> dataSet =
+                new EncodedDataSet<>(dataRows, alphabet);
+        double expected = 0.0;
+
+        for (DataRow<Character> dataRow : dataRows) {
+            expected += predictor.getLogProbability(dataRow);
+        }
+
+        assertEquals(expected, predictor.computeLogLikelihood(dataSet), 1e-8);
+        assertEquals(expected,
+                     predictor.computeLogLikelihoodInParallel(dataSet),
+                     1e-8);
+        assertEquals(expected,
+                     predictor.computeSequenceLogLikelihood(sequence,
+                                                            0,
+                                                            sequence.length),
+                     1e-8);
+        assertEquals(-expected / dataRows.size(),
+                     predictor.computeLogLoss(dataSet),
+                     1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnShortContext() {
+        predictor.getLogProbability(new byte[DEPTH - 1], DEPTH - 1, 0);
+    }
+}
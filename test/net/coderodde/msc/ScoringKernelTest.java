@@ -0,0 +1,28 @@
+package net.coderodde.msc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ScoringKernelTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void testLargeCountsAreComputedDirectly() {
+        int n = Integer.MAX_VALUE;
+        double expected = n * Math.log(n);
+
+        assertEquals(expected, ScoringKernel.nLogN(n), EPSILON * expected);
+        assertEquals(expected, ScoringKernel.nLogN((long) n), 0.0);
+    }
+
+    @Test
+    public void testScoresHistogramBeyondTable() {
+        int[] histogram = { Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2 };
+        int total = histogram[0] + histogram[1];
+        double expected = -total * Math.log(2.0) - 1.0;
+        double score = ScoringKernel.computeScore(histogram, total, 1.0);
+
+        assertEquals(expected, score, 1e-9 * Math.abs(expected));
+    }
+}
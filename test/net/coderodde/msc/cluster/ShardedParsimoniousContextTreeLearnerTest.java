@@ -0,0 +1,141 @@
+package net.coderodde.msc.cluster;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShardedParsimoniousContextTreeLearnerTest {
+
+    private static final int DEPTH = 3;
+    private static final double DELTA = 1e-9;
+
+    private final List<ShardWorker> workers = new ArrayList<>();
+    private final List<InetSocketAddress> addresses = new ArrayList<>();
+    private List<DataRow<Character>> dataRows;
+
+    @Before
+    public void before() throws Exception {
+        for (int i = 0; i < 3; ++i) {
+            ShardWorker worker = new ShardWorker(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            worker.start();
+            workers.add(worker);
+            addresses.add(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                          worker.getPort()));
+        }
+
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G');
+        Random random = new Random(1);
+        Character[] sequence = new Character[600];
+
+        for (int i = 0; i < sequence.length; ++i) {
+            sequence[i] = i > 0 && sequence[i - 1] == 'A' ?
+                          'G' :
+                          alphabet.get(random.nextInt(alphabet.size()));
+        }
+
+        dataRows = new ArrayList<>();
+
+        for (int i = DEPTH; i < sequence.length; ++i) {
+            dataRows.add(new DataRow<>(sequence, i, DEPTH));
+        }
+    }
+
+    @After
+    public void after() throws Exception {
+        for (ShardWorker worker : workers) {
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testOptimalEqualsBasicLearner() {
+        ParsimoniousContextTree<Character> expected =
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        ParsimoniousContextTree<Character> tree =
+                new ShardedParsimoniousContextTreeLearner<Character>(
+                        addresses,
+                        ShardedParsimoniousContextTreeLearner.Strategy.OPTIMAL)
+                        .learn(dataRows);
+
+        assertEquals(expected.getScore(), tree.getScore(), DELTA);
+        assertEquals(expected.getRoot().getChildren().size(),
+                     tree.getRoot().getChildren().size());
+    }
+
+    @Test
+    public void testHybridEqualsHybridLearner() {
+        ParsimoniousContextTree<Character> expected =
+                new HybridHeuristicParsimoniousContextTreeLearnerV1<Character>()
+                        .learn(dataRows);
+        ParsimoniousContextTree<Character> tree =
+                new ShardedParsimoniousContextTreeLearner<Character>(
+                        addresses,
+                        ShardedParsimoniousContextTreeLearner.Strategy.HYBRID)
+                        .learn(dataRows);
+
+        assertEquals(expected.getScore(), tree.getScore(), DELTA);
+    }
+
+    @Test
+    public void testWorkersServeSeveralLearners() {
+        ShardedParsimoniousContextTreeLearner<Character> learner =
+                new ShardedParsimoniousContextTreeLearner<>(
+                        addresses.subList(0, 1),
+                        ShardedParsimoniousContextTreeLearner.Strategy.OPTIMAL);
+
+        assertEquals(learner.learn(dataRows).getScore(),
+                     learner.learn(dataRows).getScore(),
+                     0.0);
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testThrowsOnUnreachableWorker() throws Exception {
+        int port;
+
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        new ShardedParsimoniousContextTreeLearner<Character>(
+                Arrays.asList(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                              port)),
+                ShardedParsimoniousContextTreeLearner.Strategy.HYBRID)
+                .learn(dataRows);
+    }
+
+    @Test
+    public void testLaunchedWorkerProcess() throws Exception {
+        try (ShardWorkerProcesses processes = ShardWorkerProcesses.launch(1)) {
+            ParsimoniousContextTree<Character> tree =
+                    new ShardedParsimoniousContextTreeLearner<Character>(
+                            processes.getAddresses(),
+                            ShardedParsimoniousContextTreeLearner.Strategy
+                                                                 .HYBRID)
+                            .learn(dataRows);
+
+            assertEquals(
+                    new HybridHeuristicParsimoniousContextTreeLearnerV1<
+                            Character>().learn(dataRows).getScore(),
+                    tree.getScore(),
+                    DELTA);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package net.coderodde.msc.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.ContextCountTrie;
+import net.coderodde.msc.DataRow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ExternalContextCounterTest {
+
+    private static final int START = 5;
+    private static final int DEPTH = 4;
+
+    private Path temporaryDirectory;
+    private Path dataFile;
+    private List<String> lines;
+
+    @Before
+    public void before() throws IOException {
+        temporaryDirectory = Files.createTempDirectory("pct-runs");
+        dataFile = Files.createTempFile("pct", ".txt");
+        Random random = new Random(1);
+        lines = new ArrayList<>();
+
+        for (int i = 0; i < 3000; ++i) {
+            StringBuilder sb = new StringBuilder();
+
+            for (int j = 0; j < 8; ++j) {
+                sb.append("ACGT".charAt(random.nextInt(4)));
+            }
+
+            lines.add(sb.toString());
+        }
+
+        Files.write(dataFile, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.deleteIfExists(dataFile);
+
+        try (Stream<Path> runs = Files.list(temporaryDirectory)) {
+            runs.forEach(run -> run.toFile().delete());
+        }
+
+        Files.delete(temporaryDirectory);
+    }
+
+    @Test
+    public void testSpilledCountsEqualInMemoryCounts() throws IOException {
+        Alphabet<Character> alphabet =
+                ExternalContextCounter.scanAlphabet(dataFile, START, DEPTH);
+        ExternalContextCounter counter =
+                new ExternalContextCounter(alphabet, DEPTH);
+        counter.setMemoryLimit(ExternalContextCounter.MINIMUM_MEMORY_LIMIT);
+        counter.setMaximumMergeFanIn(2);
+        counter.setTemporaryDirectory(temporaryDirectory);
+        ContextCountTrie<Character> actual = counter.count(dataFile, START);
+
+        ContextCountTrie<Character> expected =
+                new ContextCountTrie<>(alphabet, DEPTH);
+
+        for (String line : lines) {
+            Character[] variables = new Character[line.length()];
+
+            for (int i = 0; i < variables.length; ++i) {
+                variables[i] = Character.toLowerCase(line.charAt(i));
+            }
+
+            expected.add(new DataRow<>(variables, START, DEPTH));
+        }
+
+        assertTrue(counter.getNumberOfSpilledRuns() > 2);
+        assertTrue(counter.getNumberOfMergePasses() > 0);
+        assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows());
+        assertEquals(expected.size(), actual.size());
+        assertSameCounts(expected,
+                         ContextCountTrie.ROOT,
+                         actual,
+                         ContextCountTrie.ROOT);
+
+        try (Stream<Path> runs = Files.list(temporaryDirectory)) {
+            assertEquals(0L, runs.count());
+        }
+    }
+
+    @Test
+    public void testCountsWithoutSpillingWhenTableIsLargeEnough()
+    throws IOException {
+        ExternalContextCounter counter =
+                new ExternalContextCounter(
+                        ExternalContextCounter.scanAlphabet(dataFile,
+                                                            START,
+                                                            DEPTH),
+                        DEPTH);
+        counter.setTemporaryDirectory(temporaryDirectory);
+        ContextCountTrie<Character> trie = counter.count(dataFile, START);
+
+        assertEquals(0, counter.getNumberOfSpilledRuns());
+        assertEquals(lines.size(), trie.getNumberOfRows());
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnShortLine() throws IOException {
+        Files.write(dataFile,
+                    "acgtacgt\nacg\n".getBytes(StandardCharsets.ISO_8859_1));
+        new ExternalContextCounter(new Alphabet<>('a', 'c', 'g', 't'), DEPTH)
+                .count(dataFile, START);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsWhenContextDoesNotFitInKey() {
+        new ExternalContextCounter(new Alphabet<>('a', 'c', 'g', 't'), 31);
+    }
+
+    private static void assertSameCounts(ContextCountTrie<Character> expected,
+                                         int expectedNode,
+                                         ContextCountTrie<Character> actual,
+                                         int actualNode) {
+        int alphabetSize = expected.getAlphabet().size();
+
+        for (int c = 0; c < alphabetSize; c++) {
+            assertEquals(expected.getResponseCount(expectedNode, c),
+                         actual.getResponseCount(actualNode, c));
+            int expectedChild = expected.getChild(expectedNode, c);
+            int actualChild = actual.getChild(actualNode, c);
+            assertEquals(expectedChild == ContextCountTrie.NONE,
+                         actualChild == ContextCountTrie.NONE);
+
+            if (expectedChild != ContextCountTrie.NONE) {
+                assertSameCounts(expected, expectedChild, actual, actualChild);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.coderodde.msc.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.LearningContext;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.IndependenceModelParsimoniousContextTreeLearner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LearnedTreeCacheTest {
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G', 'T');
+
+    private Path directory;
+    private List<DataRow<Character>> dataRows;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("pct-cache");
+        dataRows = createDataRows(1);
+    }
+
+    @After
+    public void after() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder())
+                                  .collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testReusesTreeAcrossInstances() throws IOException {
+        double expectedScore =
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows)
+                        .getScore();
+
+        LearnedTreeCache<Character> cache = createCache(1L << 20);
+        CompactParsimoniousContextTree<Character> tree =
+                cache.getOrLearn(dataRows,
+                                 new BasicParsimoniousContextTreeLearner<>(),
+                                 "");
+
+        assertEquals(expectedScore, tree.getScore(), 0.0);
+        assertEquals(0, cache.getNumberOfHits());
+        assertEquals(1, cache.getNumberOfMisses());
+
+        cache = createCache(1L << 20);
+        tree = cache.getOrLearn(dataRows,
+                                new BasicParsimoniousContextTreeLearner<>(),
+                                "");
+
+        assertEquals(expectedScore, tree.getScore(), 0.0);
+        assertEquals(expectedScore,
+                     tree.toParsimoniousContextTree().getScore(),
+                     0.0);
+        assertEquals(1, cache.getNumberOfHits());
+        assertEquals(0, cache.getNumberOfMisses());
+    }
+
+    @Test
+    public void testDoesNotCacheStoppedLearning() throws IOException {
+        LearnedTreeCache<Character> cache = createCache(1L << 20);
+        BasicParsimoniousContextTreeLearner<Character> learner =
+                new BasicParsimoniousContextTreeLearner<>();
+        learner.setContext(new LearningContext(0L, TimeUnit.SECONDS));
+        cache.getOrLearn(dataRows, learner, "");
+
+        assertEquals(0, cache.size());
+
+        learner.setContext(new LearningContext());
+        cache.getOrLearn(dataRows, learner, "");
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getNumberOfMisses());
+    }
+
+    @Test
+    public void testKeyDependsOnDataLearnerAndParameters() {
+        BasicParsimoniousContextTreeLearner<Character> learner =
+                new BasicParsimoniousContextTreeLearner<>();
+        String key = LearnedTreeCache.computeKey(dataRows, learner, "");
+
+        assertEquals(key, LearnedTreeCache.computeKey(dataRows, learner, ""));
+        assertNotEquals(key,
+                        LearnedTreeCache.computeKey(dataRows, learner, "1"));
+        assertNotEquals(key,
+                        LearnedTreeCache.computeKey(createDataRows(2),
+                                                    learner,
+                                                    ""));
+        assertNotEquals(
+                key,
+                LearnedTreeCache.computeKey(
+                        dataRows,
+                        new IndependenceModelParsimoniousContextTreeLearner<
+                                Character>(),
+                        ""));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedTree() throws IOException {
+        LearnedTreeCache<Character> cache = createCache(1L << 20);
+        IndependenceModelParsimoniousContextTreeLearner<Character> learner =
+                new IndependenceModelParsimoniousContextTreeLearner<>();
+        cache.getOrLearn(dataRows, learner, "a");
+        long treeSize = cache.getTotalSize();
+
+        cache = createCache(2 * treeSize);
+        cache.getOrLearn(dataRows, learner, "a");
+        cache.getOrLearn(dataRows, learner, "b");
+        // Touch "a" so that "b" is the least recently used:
+        cache.getOrLearn(dataRows, learner, "a");
+        cache.getOrLearn(dataRows, learner, "c");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.getTotalSize() <= 2 * treeSize);
+        assertNotNull(cache.get(
+                LearnedTreeCache.computeKey(dataRows, learner, "a")));
+        assertNull(cache.get(
+                LearnedTreeCache.computeKey(dataRows, learner, "b")));
+        assertNotNull(cache.get(
+                LearnedTreeCache.computeKey(dataRows, learner, "c")));
+    }
+
+    @Test
+    public void testRelearnsCorruptTree() throws IOException {
+        LearnedTreeCache<Character> cache = createCache(1L << 20);
+        IndependenceModelParsimoniousContextTreeLearner<Character> learner =
+                new IndependenceModelParsimoniousContextTreeLearner<>();
+        String key = LearnedTreeCache.computeKey(dataRows, learner, "");
+        cache.getOrLearn(dataRows, learner, "");
+        Files.write(directory.resolve(key + ".pct"), new byte[]{ 1, 2, 3 });
+
+        cache = createCache(1L << 20);
+
+        assertNull(cache.get(key));
+        assertNotNull(cache.getOrLearn(dataRows, learner, ""));
+        assertNotNull(cache.get(key));
+    }
+
+    private LearnedTreeCache<Character> createCache(long maximumSize)
+    throws IOException {
+        return new LearnedTreeCache<>(directory,
+                                      CharacterCodec.forCharacters(),
+                                      maximumSize);
+    }
+
+    private List<DataRow<Character>> createDataRows(long seed) {
+        Random random = new Random(seed);
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 300; ++i) {
+            Character[] variables = new Character[3];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,159 @@
+package net.coderodde.msc.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParsimoniousContextTreeReaderTest {
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G', 'T');
+
+    private final ParsimoniousContextTreeWriter<Character> writer =
+            new ParsimoniousContextTreeWriter<>(
+                    CharacterCodec.forCharacters());
+
+    private final ParsimoniousContextTreeReader<Character> reader =
+            new ParsimoniousContextTreeReader<>(
+                    CharacterCodec.forCharacters());
+
+    private EncodedDataSet<Character> dataSet;
+    private CompactParsimoniousContextTree<Character> tree;
+
+    @Before
+    public void before() {
+        Random random = new Random(1);
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 500; ++i) {
+            Character[] variables = new Character[3];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        dataSet = new EncodedDataSet<>(dataRows, alphabet);
+        tree = new CompactParsimoniousContextTree<>(
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows),
+                alphabet)
+                .withLeafDistributions(
+                        dataSet,
+                        ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+    }
+
+    @Test
+    public void testFileRoundTripPreservesTree() throws IOException {
+        Path path = Files.createTempFile("pct", ".bin");
+
+        try {
+            writer.write(tree, path);
+            assertSameTree(tree, reader.read(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testLoadedTreePredictsLikeTrainedPredictor()
+    throws IOException {
+        ParsimoniousContextTreePredictor<Character> trained =
+                new ParsimoniousContextTreePredictor<>(
+                        tree,
+                        dataSet,
+                        ParsimoniousContextTreePredictor.DEFAULT_PSEUDO_COUNT);
+        ParsimoniousContextTreePredictor<Character> loaded =
+                new ParsimoniousContextTreePredictor<>(
+                        reader.read(ByteBuffer.wrap(toBytes(tree))));
+
+        assertEquals(trained.computeLogLikelihood(dataSet),
+                     loaded.computeLogLikelihood(dataSet),
+                     0.0);
+    }
+
+    @Test
+    public void testSharedTreeStaysShared() throws IOException {
+        CompactParsimoniousContextTree<Character> sharedTree = tree.share();
+        assertSameTree(sharedTree,
+                       reader.read(ByteBuffer.wrap(toBytes(sharedTree))));
+    }
+
+    @Test
+    public void testReadingMovesBufferPastTree() throws IOException {
+        byte[] bytes = toBytes(tree);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.put(bytes).put((byte) 1).put((byte) 2).put((byte) 3).flip();
+
+        reader.read(buffer);
+        assertEquals(bytes.length, buffer.position());
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnBadMagic() throws IOException {
+        byte[] bytes = toBytes(tree);
+        bytes[0] ^= 1;
+        reader.read(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnTruncatedFile() throws IOException {
+        byte[] bytes = toBytes(tree);
+        reader.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+    }
+
+    private byte[] toBytes(CompactParsimoniousContextTree<Character> tree)
+    throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(tree, out);
+        return out.toByteArray();
+    }
+
+    private static void assertSameTree(
+            CompactParsimoniousContextTree<Character> expected,
+            CompactParsimoniousContextTree<Character> actual) {
+        assertEquals(expected.getAlphabet().getCharacters(),
+                     actual.getAlphabet().getCharacters());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getDepth(), actual.getDepth());
+
+        for (int node = 0; node < expected.size(); ++node) {
+            assertEquals(expected.getLabelMask(node),
+                         actual.getLabelMask(node));
+            assertEquals(expected.getFirstChild(node),
+                         actual.getFirstChild(node));
+            assertEquals(expected.getChildCount(node),
+                         actual.getChildCount(node));
+            assertEquals(expected.getScore(node), actual.getScore(node), 0.0);
+            assertEquals(expected.getResponseOffset(node) ==
+                         CompactParsimoniousContextTree.NONE,
+                         actual.getResponseOffset(node) ==
+                         CompactParsimoniousContextTree.NONE);
+
+            if (expected.getResponseOffset(node) !=
+                    CompactParsimoniousContextTree.NONE) {
+                for (int c = 0; c < expected.getAlphabet().size(); ++c) {
+                    assertEquals(expected.getResponseProbability(node, c),
+                                 actual.getResponseProbability(node, c),
+                                 0.0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package net.coderodde.msc.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.support.BasicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import net.coderodde.msc.support.IterativeRandomParsimoniousContextTreeLearner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LearnerEventsTest {
+
+    private static final int DEPTH = 2;
+
+    private final Alphabet<Character> alphabet =
+            new Alphabet<>('A', 'C', 'G');
+
+    private List<DataRow<Character>> dataRows;
+    private Path recordingFile;
+
+    @Before
+    public void before() throws IOException {
+        Random random = new Random(1);
+        dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 300; ++i) {
+            Character[] variables = new Character[DEPTH + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        recordingFile = Files.createTempFile("learner-events", ".jfr");
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.delete(recordingFile);
+    }
+
+    @Test
+    public void testEventsAreRecordedWhenEnabled() throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(SubtreeBuiltEvent.class)
+                     .withThreshold(Duration.ZERO);
+            recording.enable(PartitionSweepEvent.class)
+                     .withThreshold(Duration.ZERO);
+            recording.enable(MergeStepEvent.class);
+            recording.enable(RandomCandidateScoredEvent.class);
+            recording.enable(DataLoadedEvent.class);
+            recording.start();
+            learn();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        // The root and its 7 children at level 1:
+        assertEquals(8, count(events, "net.coderodde.msc.SubtreeBuilt",
+                              BasicParsimoniousContextTreeLearner.class));
+        assertEquals(8, count(events, "net.coderodde.msc.PartitionSweep",
+                              BasicParsimoniousContextTreeLearner.class));
+        assertTrue(count(events, "net.coderodde.msc.MergeStep",
+                         HeuristicParsimoniousContextTreeLearner.class) > 0);
+        assertEquals(5, count(events, "net.coderodde.msc.RandomCandidateScored",
+                              IterativeRandomParsimoniousContextTreeLearner
+                                      .class));
+        assertEquals(1, count(events, "net.coderodde.msc.DataLoaded", null));
+
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName()
+                     .equals("net.coderodde.msc.PartitionSweep")) {
+                assertEquals(3, event.getInt("alphabetSize"));
+                // Bell(3):
+                assertEquals(5, event.getInt("candidateCount"));
+                assertTrue(event.getDouble("scoreDelta") >= 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testFineGrainedEventsAreDisabledByDefault()
+    throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.start();
+            learn();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        assertEquals(0, count(events, "net.coderodde.msc.MergeStep", null));
+        assertEquals(0, count(events,
+                              "net.coderodde.msc.RandomCandidateScored",
+                              null));
+        assertEquals(1, count(events, "net.coderodde.msc.DataLoaded", null));
+    }
+
+    private void learn() {
+        new EncodedDataSet<>(dataRows, alphabet);
+        new BasicParsimoniousContextTreeLearner<Character>().learn(dataRows);
+        new HeuristicParsimoniousContextTreeLearner<Character>()
+                .learn(dataRows);
+        IterativeRandomParsimoniousContextTreeLearner<Character> learner =
+                new IterativeRandomParsimoniousContextTreeLearner<>();
+        learner.setRandom(new Random(1));
+        learner.setIterations(5);
+        learner.learn(dataRows);
+    }
+
+    private static int count(List<RecordedEvent> events,
+                             String name,
+                             Class<?> learner) {
+        int count = 0;
+
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name) &&
+                    (learner == null ||
+                     event.getClass("learner").getName()
+                          .equals(learner.getName()))) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
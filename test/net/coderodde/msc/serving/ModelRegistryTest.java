@@ -0,0 +1,132 @@
+package net.coderodde.msc.serving;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.support.IndependenceModelParsimoniousContextTreeLearner;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ModelRegistryTest {
+
+    private final ModelRegistry<Character> registry = new ModelRegistry<>();
+
+    @Test
+    public void testPublishRetiresPreviousVersion() {
+        ParsimoniousContextTreePredictor<Character> predictor1 =
+                createPredictor('A', 'C');
+        ParsimoniousContextTreePredictor<Character> predictor2 =
+                createPredictor('C', 'A');
+
+        assertNull(registry.getCurrentVersion("m"));
+        assertNull(registry.publish("m", predictor1));
+
+        ModelVersion<Character> version1 = registry.getCurrentVersion("m");
+        assertEquals(1L, version1.getVersionNumber());
+        assertFalse(version1.isRetired());
+
+        assertSame(version1, registry.publish("m", predictor2));
+        assertTrue(version1.isRetired());
+        assertEquals(2L, registry.getCurrentVersion("m").getVersionNumber());
+        assertSame(predictor2,
+                   registry.getCurrentVersion("m").getPredictor());
+
+        ModelVersion<Character> version2 = registry.withdraw("m");
+        assertEquals(2L, version2.getVersionNumber());
+        assertTrue(version2.isRetired());
+        assertTrue(registry.getPublishedModelNames().isEmpty());
+        assertEquals(2L, registry.getHandle("m")
+                                 .getStatistics()
+                                 .getNumberOfPublications());
+    }
+
+    @Test
+    public void testQueriesAreCounted() {
+        registry.publish("m", createPredictor('A', 'C'));
+        ModelHandle<Character> handle = registry.getHandle("m");
+        byte[] context = { 0, 1 };
+
+        for (int i = 0; i < 10; ++i) {
+            handle.getLogProbability(context, 2, 0);
+        }
+
+        handle.getNextSymbolProbabilities(context, 2, new double[2]);
+        assertEquals(11L, handle.getStatistics().getNumberOfQueries());
+        assertTrue(handle.getStatistics().getTotalLatencyNanos() >= 0L);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsWhenNothingIsPublished() {
+        registry.getHandle("m").getLogProbability(new byte[2], 2, 0);
+    }
+
+    @Test
+    public void testReadersSeeOnlyPublishedVersions() throws Exception {
+        // The first model always predicts 'A', the second one 'C':
+        ParsimoniousContextTreePredictor<Character> predictor1 =
+                createPredictor('A', 'C');
+        ParsimoniousContextTreePredictor<Character> predictor2 =
+                createPredictor('C', 'A');
+        double logProbability1 =
+                predictor1.getLogProbability(new byte[2], 2, 0);
+        double logProbability2 =
+                predictor2.getLogProbability(new byte[2], 2, 0);
+
+        registry.publish("m", predictor1);
+        ModelHandle<Character> handle = registry.getHandle("m");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int i = 0; i < 4; ++i) {
+            readers.add(new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        double logProbability =
+                                handle.getLogProbability(new byte[2], 2, 0);
+
+                        if (logProbability != logProbability1 &&
+                                logProbability != logProbability2) {
+                            throw new AssertionError(logProbability);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+
+        for (int i = 0; i < 1000; ++i) {
+            registry.publish("m", i % 2 == 0 ? predictor2 : predictor1);
+        }
+
+        running.set(false);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(1001L, registry.getCurrentVersion("m").getVersionNumber());
+    }
+
+    private static ParsimoniousContextTreePredictor<Character>
+        createPredictor(char frequent, char rare) {
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        for (int i = 0; i < 100; ++i) {
+            dataRows.add(new DataRow<>('A', 'C', i < 99 ? frequent : rare));
+        }
+
+        dataRows.add(new DataRow<>('C', 'A', rare));
+        return new ParsimoniousContextTreePredictor<>(
+                new IndependenceModelParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows),
+                dataRows);
+    }
+}
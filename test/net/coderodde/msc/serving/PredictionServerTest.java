@@ -0,0 +1,153 @@
+package net.coderodde.msc.serving;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreePredictor;
+import net.coderodde.msc.support.HeuristicParsimoniousContextTreeLearner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PredictionServerTest {
+
+    private static final int DEPTH = 3;
+
+    private final ModelRegistry<Character> registry = new ModelRegistry<>();
+    private ParsimoniousContextTreePredictor<Character> predictor;
+    private PredictionServer<Character> server;
+    private PredictionClient client;
+
+    @Before
+    public void before() throws Exception {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        Random random = new Random(1);
+        Character[] sequence = new Character[2000];
+
+        for (int i = 0; i < sequence.length; ++i) {
+            sequence[i] = i > 0 && sequence[i - 1] == 'A' ?
+                          'G' :
+                          alphabet.get(random.nextInt(alphabet.size()));
+        }
+
+        List<DataRow<Character>> dataRows = new ArrayList<>();
+
+        for (int i = DEPTH; i < sequence.length; ++i) {
+            dataRows.add(new DataRow<>(sequence, i, DEPTH));
+        }
+
+        predictor = new ParsimoniousContextTreePredictor<>(
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows),
+                dataRows);
+        server = new PredictionServer<>(
+                registry.getHandle("m"),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = new PredictionClient("localhost", server.getPort());
+    }
+
+    @After
+    public void after() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testAnswersErrorWithoutModel() throws Exception {
+        PredictionClient.Response response = client.getInfo();
+        assertFalse(response.isOk());
+        assertNotNull(response.getErrorMessage());
+    }
+
+    @Test
+    public void testInfo() throws Exception {
+        registry.publish("m", predictor);
+        PredictionClient.Response response = client.getInfo();
+
+        assertEquals(1L, response.getVersionNumber());
+        assertEquals(predictor.getContextLength(),
+                     response.getContextLength());
+
+        List<String> expectedCharacters = new ArrayList<>();
+
+        for (Character character : predictor.getAlphabet().getCharacters()) {
+            expectedCharacters.add(character.toString());
+        }
+
+        assertEquals(expectedCharacters, response.getCharacters());
+    }
+
+    @Test
+    public void testPipelinedRequestsAreAnsweredInOrder() throws Exception {
+        registry.publish("m", predictor);
+        Random random = new Random(2);
+        int contextLength = predictor.getContextLength();
+        List<byte[]> contexts = new ArrayList<>();
+
+        for (int i = 0; i < 5000; ++i) {
+            byte[] context = new byte[contextLength + random.nextInt(3)];
+
+            for (int j = 0; j < context.length; ++j) {
+                context[j] = (byte) random.nextInt(4);
+            }
+
+            contexts.add(context);
+            assertEquals(2 * i, client.sendNextSymbolRequest(context));
+            assertEquals(2 * i + 1,
+                         client.sendSequenceLogLikelihoodRequest(context));
+        }
+
+        client.flush();
+        double[] expectedProbabilities = new double[4];
+
+        for (int i = 0; i < contexts.size(); ++i) {
+            byte[] context = contexts.get(i);
+            PredictionClient.Response response = client.readResponse();
+            assertEquals(2 * i, response.getRequestId());
+            predictor.getNextSymbolProbabilities(context,
+                                                 context.length,
+                                                 expectedProbabilities);
+            assertTrue(Arrays.equals(expectedProbabilities,
+                                     response.getProbabilities()));
+
+            response = client.readResponse();
+            assertEquals(2 * i + 1, response.getRequestId());
+            assertEquals(
+                    predictor.computeSequenceLogLikelihood(
+                            context,
+                            Math.min(contextLength, context.length),
+                            context.length),
+                    response.getLogLikelihood(),
+                    0.0);
+        }
+
+        assertEquals(10_000L, registry.getHandle("m")
+                                      .getStatistics()
+                                      .getNumberOfQueries());
+    }
+
+    @Test
+    public void testRejectsInvalidRequests() throws Exception {
+        registry.publish("m", predictor);
+
+        // Too short a context:
+        client.sendNextSymbolRequest(new byte[0]);
+        // Out of the alphabet:
+        client.sendNextSymbolRequest(new byte[]{ 0, 1, 9, 2 });
+        client.flush();
+
+        assertFalse(client.readResponse().isOk());
+        assertFalse(client.readResponse().isOk());
+
+        // The connection is still usable:
+        assertEquals(4, client.getNextSymbolProbabilities(
+                new byte[]{ 0, 1, 2, 3 }).length);
+    }
+}
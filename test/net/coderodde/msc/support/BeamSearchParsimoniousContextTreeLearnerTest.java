@@ -0,0 +1,83 @@
+package net.coderodde.msc.support;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.checkComplete;
+import static net.coderodde.msc.support.LearnerTestSupport.createDataRows;
+import static net.coderodde.msc.support.LearnerTestSupport.sumLeafScores;
+import static org.junit.Assert.*;
+
+public class BeamSearchParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testNarrowBeamIsNotWorseThanGreedyMerges() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(3 + seed % 5, 1, 300 + 100 * seed, seed);
+            BeamSearchParsimoniousContextTreeLearner<Integer> learner =
+                    new BeamSearchParsimoniousContextTreeLearner<>();
+            learner.setBeamWidth(1);
+            double score = learner.learn(dataRows).getScore();
+            double heuristicScore =
+                    new HeuristicParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+
+            assertTrue(score >= heuristicScore - EPSILON * Math.abs(score));
+        }
+    }
+
+    @Test
+    public void testWideBeamFindsOptimalPartition() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(2 + seed % 4, 1, 200 + 100 * seed, seed);
+            BeamSearchParsimoniousContextTreeLearner<Integer> learner =
+                    new BeamSearchParsimoniousContextTreeLearner<>();
+            learner.setBeamWidth(1000);
+            double score = learner.learn(dataRows).getScore();
+            double expectedScore =
+                    new BasicParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+
+            assertEquals(expectedScore, score, EPSILON * Math.abs(score));
+        }
+    }
+
+    @Test
+    public void testLearnsCompleteTree() {
+        List<DataRow<Integer>> dataRows = createDataRows(5, 3, 2000, 1);
+        BeamSearchParsimoniousContextTreeLearner<Integer> learner =
+                new BeamSearchParsimoniousContextTreeLearner<>();
+        learner.setNodeTimeBudget(1L, TimeUnit.SECONDS);
+        ParsimoniousContextTreeNode<Integer> root =
+                learner.learn(dataRows).getRoot();
+
+        checkComplete(root, 3, 5);
+        assertEquals(sumLeafScores(root), root.getScore(), EPSILON *
+                     Math.abs(root.getScore()));
+    }
+
+    @Test
+    public void testExpiredNodeTimeBudgetKeepsSingletons() {
+        List<DataRow<Integer>> dataRows = createDataRows(4, 1, 500, 2);
+        BeamSearchParsimoniousContextTreeLearner<Integer> learner =
+                new BeamSearchParsimoniousContextTreeLearner<>();
+        learner.setNodeTimeBudget(0L, TimeUnit.SECONDS);
+        ParsimoniousContextTreeNode<Integer> root =
+                learner.learn(dataRows).getRoot();
+
+        assertEquals(4, root.getChildren().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveBeamWidth() {
+        new BeamSearchParsimoniousContextTreeLearner<Integer>().setBeamWidth(0);
+    }
+}
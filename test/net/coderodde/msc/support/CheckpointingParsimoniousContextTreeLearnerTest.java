@@ -0,0 +1,159 @@
+package net.coderodde.msc.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CheckpointingParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * The number of nonempty labels over three characters.
+     */
+    private static final int NUMBER_OF_SUBTREES = 7;
+
+    private Path checkpointDirectory;
+    private List<DataRow<Character>> dataRows;
+    private double expectedScore;
+
+    @Before
+    public void before() throws IOException {
+        checkpointDirectory = Files.createTempDirectory("pct-checkpoints");
+        dataRows = createDataRows(new Alphabet<>('A', 'C', 'G'), 3, 500, 1);
+        expectedScore = new BasicParsimoniousContextTreeLearner<Character>()
+                .learn(dataRows)
+                .getScore();
+    }
+
+    @After
+    public void after() throws IOException {
+        try (Stream<Path> paths = Files.walk(checkpointDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder())
+                                  .collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testAgreesWithBasicLearner() throws IOException {
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                createLearner();
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        assertEquals(expectedScore,
+                     tree.getScore(),
+                     EPSILON * Math.abs(expectedScore));
+        assertEquals(0, learner.getNumberOfResumedSubtrees());
+        assertEquals(NUMBER_OF_SUBTREES, learner.getNumberOfLearnedSubtrees());
+        assertEquals(NUMBER_OF_SUBTREES, getCheckpointFiles().size());
+    }
+
+    @Test
+    public void testResumesFinishedSubtrees() throws IOException {
+        createLearner().learn(dataRows);
+        List<Path> checkpointFiles = getCheckpointFiles();
+        Files.delete(checkpointFiles.get(0));
+        Files.delete(checkpointFiles.get(1));
+
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                createLearner();
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        assertEquals(expectedScore,
+                     tree.getScore(),
+                     EPSILON * Math.abs(expectedScore));
+        assertEquals(NUMBER_OF_SUBTREES - 2,
+                     learner.getNumberOfResumedSubtrees());
+        assertEquals(2, learner.getNumberOfLearnedSubtrees());
+        assertEquals(NUMBER_OF_SUBTREES, getCheckpointFiles().size());
+    }
+
+    @Test
+    public void testRelearnsCorruptSubtree() throws IOException {
+        createLearner().learn(dataRows);
+        Path checkpointFile = getCheckpointFiles().get(0);
+        byte[] bytes = Files.readAllBytes(checkpointFile);
+        Files.write(checkpointFile,
+                    Arrays.copyOf(bytes, bytes.length - 1));
+
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                createLearner();
+        ParsimoniousContextTree<Character> tree = learner.learn(dataRows);
+
+        assertEquals(expectedScore,
+                     tree.getScore(),
+                     EPSILON * Math.abs(expectedScore));
+        assertEquals(1, learner.getNumberOfLearnedSubtrees());
+    }
+
+    @Test
+    public void testDoesNotResumeFromOtherData() throws IOException {
+        createLearner().learn(dataRows);
+        List<DataRow<Character>> otherDataRows =
+                createDataRows(new Alphabet<>('A', 'C', 'G'), 3, 500, 2);
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                createLearner();
+        learner.learn(otherDataRows);
+
+        assertEquals(0, learner.getNumberOfResumedSubtrees());
+        assertEquals(2 * NUMBER_OF_SUBTREES, getCheckpointFiles().size());
+    }
+
+    private CheckpointingParsimoniousContextTreeLearner<Character>
+        createLearner() {
+        CheckpointingParsimoniousContextTreeLearner<Character> learner =
+                new CheckpointingParsimoniousContextTreeLearner<>(
+                        checkpointDirectory);
+        learner.setNumberOfThreads(2);
+        return learner;
+    }
+
+    private List<Path> getCheckpointFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(checkpointDirectory)) {
+            return paths.filter(Files::isRegularFile)
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet,
+                       int depth,
+                       int size,
+                       long seed) {
+        Random random = new Random(seed);
+        List<DataRow<Character>> dataRows = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            Character[] variables = new Character[depth + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            if (random.nextBoolean()) {
+                variables[depth] = variables[depth - 1];
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+}
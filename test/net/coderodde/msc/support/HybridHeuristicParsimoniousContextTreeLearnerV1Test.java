@@ -0,0 +1,74 @@
+package net.coderodde.msc.support;
+
+import java.util.List;
+import net.coderodde.msc.DataRow;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.createDataRows;
+import static org.junit.Assert.*;
+import static net.coderodde.msc.support.HybridHeuristicParsimoniousContextTreeLearnerV1.Decision.*;
+
+public class HybridHeuristicParsimoniousContextTreeLearnerV1Test {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testSkippingAllSearchesGivesHeuristicTree() {
+        List<DataRow<Integer>> dataRows = createDataRows(4, 4, 3000, 1);
+        HybridHeuristicParsimoniousContextTreeLearnerV1<Integer> learner =
+                new HybridHeuristicParsimoniousContextTreeLearnerV1<>();
+        learner.setMinimumGainPerWorkUnit(1e9);
+        double score = learner.learn(dataRows).getScore();
+        double expectedScore =
+                new HeuristicParsimoniousContextTreeLearner<Integer>()
+                        .learn(dataRows)
+                        .getScore();
+
+        assertEquals(expectedScore, score, EPSILON * Math.abs(score));
+        assertEquals(0L, learner.getNumberOfDecisions(SEARCHED_WITH_GAIN));
+        assertEquals(0L, learner.getNumberOfDecisions(SEARCHED_WITHOUT_GAIN));
+        assertTrue(learner.getNumberOfDecisions(NOT_WORTH_THE_WORK) +
+                   learner.getNumberOfDecisions(HEURISTIC_OPTIMAL) > 0L);
+    }
+
+    @Test
+    public void testSearchesWhereverGainIsPossibleAtZeroGainPerWorkUnit() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(2 + seed % 4, 3, 500 + 200 * seed, seed);
+            HybridHeuristicParsimoniousContextTreeLearnerV1<Integer> learner =
+                    new HybridHeuristicParsimoniousContextTreeLearnerV1<>();
+            learner.setMinimumGainPerWorkUnit(0.0);
+            learner.learn(dataRows);
+
+            assertEquals(0L, learner.getNumberOfDecisions(NOT_WORTH_THE_WORK));
+            assertTrue(learner.getNumberOfDecisions(HEURISTIC_OPTIMAL) +
+                       learner.getNumberOfDecisions(SEARCHED_WITH_GAIN) +
+                       learner.getNumberOfDecisions(SEARCHED_WITHOUT_GAIN) >
+                       0L);
+
+            learner.resetDecisionCounts();
+
+            assertEquals(0L, learner.getNumberOfDecisions(HEURISTIC_OPTIMAL));
+        }
+    }
+
+    @Test
+    public void testConcurrentSearchLearnsSameTree() {
+        List<DataRow<Integer>> dataRows = createDataRows(6, 3, 5000, 2);
+        HybridHeuristicParsimoniousContextTreeLearnerV1<Integer> learner =
+                new HybridHeuristicParsimoniousContextTreeLearnerV1<>();
+        learner.setMinimumGainPerWorkUnit(0.0);
+        double expectedScore = learner.learn(dataRows).getScore();
+        learner.setConcurrentSearch(true);
+        double score = learner.learn(dataRows).getScore();
+
+        assertEquals(expectedScore, score, EPSILON * Math.abs(score));
+        assertTrue(learner.getNumberOfConcurrentSearches() > 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativeGainPerWorkUnit() {
+        new HybridHeuristicParsimoniousContextTreeLearnerV1<Integer>()
+                .setMinimumGainPerWorkUnit(-1.0);
+    }
+}
@@ -0,0 +1,109 @@
+package net.coderodde.msc.support;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.createDataRows;
+import static org.junit.Assert.*;
+
+public class LearnerPlannerTest {
+
+    @Test
+    public void testBellNumbers() {
+        double[] expected = { 1.0, 1.0, 2.0, 5.0, 15.0, 52.0, 203.0 };
+
+        for (int n = 0; n < expected.length; n++) {
+            assertEquals(expected[n], LearnerPlanner.getBellNumber(n), 0.0);
+        }
+
+        assertEquals(27644437.0, LearnerPlanner.getBellNumber(13), 0.0);
+    }
+
+    @Test
+    public void testChoosesOptimalForSmallData() {
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setQualityTarget(LearnerPlanner.Quality.OPTIMAL);
+        planner.setMemoryBudget(Long.MAX_VALUE);
+        LearnerPlanner.Plan plan = planner.plan(createDataRows(3, 2, 200, 1));
+
+        assertEquals(LearnerPlanner.Quality.OPTIMAL, plan.getQuality());
+        assertEquals(1, plan.getNumberOfThreads());
+        assertTrue(plan.meetsQualityTarget());
+        assertTrue(plan.isWithinBudgets());
+        assertTrue(plan.getExplanation().contains("alphabet 3, depth 2"));
+        assertTrue(plan.createLearner()
+                instanceof BasicParsimoniousContextTreeLearner);
+    }
+
+    @Test
+    public void testChoosesThreadsWithCheckpointDirectory() {
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setQualityTarget(LearnerPlanner.Quality.OPTIMAL);
+        planner.setMemoryBudget(Long.MAX_VALUE);
+        planner.setMaximumNumberOfThreads(16);
+        planner.setCheckpointDirectory(Paths.get("checkpoints"));
+        LearnerPlanner.Plan plan = planner.plan(3, 3, 10_000, 27);
+
+        // Limited by the 7 subtrees of the root:
+        assertEquals(7, plan.getNumberOfThreads());
+        assertTrue(plan.createLearner()
+                instanceof CheckpointingParsimoniousContextTreeLearner);
+
+        planner.setMaximumNumberOfThreads(2);
+
+        assertEquals(2, planner.plan(3, 3, 10_000, 27).getNumberOfThreads());
+    }
+
+    @Test
+    public void testFallsBackWhenOptimalIsInfeasible() {
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setQualityTarget(LearnerPlanner.Quality.OPTIMAL);
+        LearnerPlanner.Plan plan = planner.plan(20, 3, 100_000, 8000);
+
+        assertFalse(plan.meetsQualityTarget());
+        assertTrue(plan.isWithinBudgets());
+        assertEquals(LearnerPlanner.Quality.HEURISTIC, plan.getQuality());
+    }
+
+    @Test
+    public void testMemoryBudgetRulesOutOptimal() {
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setQualityTarget(LearnerPlanner.Quality.HYBRID);
+        planner.setMemoryBudget(1L << 30);
+        LearnerPlanner.Plan plan = planner.plan(13, 1, 1000, 13);
+
+        // The partitions of 13 characters take several gigabytes:
+        assertEquals(LearnerPlanner.Quality.HEURISTIC, plan.getQuality());
+        assertTrue(plan.getEstimatedBytes() <= 1L << 30);
+        assertTrue(plan.getExplanation().contains("over memory budget"));
+    }
+
+    @Test
+    public void testTimeBudgetPicksFasterLearner() {
+        LearnerPlanner planner = new LearnerPlanner();
+        planner.setQualityTarget(LearnerPlanner.Quality.OPTIMAL);
+        planner.setMemoryBudget(Long.MAX_VALUE);
+        LearnerPlanner.Plan unlimited = planner.plan(6, 3, 20_000, 216);
+
+        assertEquals(LearnerPlanner.Quality.OPTIMAL, unlimited.getQuality());
+
+        planner.setTimeBudget(5L, TimeUnit.SECONDS);
+        LearnerPlanner.Plan limited = planner.plan(6, 3, 20_000, 216);
+
+        assertEquals(LearnerPlanner.Quality.HYBRID, limited.getQuality());
+        assertTrue(limited.getEstimatedNanoseconds() <=
+                   TimeUnit.SECONDS.toNanos(5L));
+
+        planner.setTimeBudget(0L, TimeUnit.SECONDS);
+        LearnerPlanner.Plan none = planner.plan(6, 3, 20_000, 216);
+
+        assertEquals(LearnerPlanner.Quality.INDEPENDENCE_MODEL,
+                     none.getQuality());
+        assertFalse(none.isWithinBudgets());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTooManyDistinctContexts() {
+        new LearnerPlanner().plan(4, 2, 10, 11);
+    }
+}
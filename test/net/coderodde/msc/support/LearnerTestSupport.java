@@ -0,0 +1,111 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class holds the data and the checks shared by the learner tests. It is
+ * public only for the tests of {@code net.coderodde.msc}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 19, 2026)
+ */
+public final class LearnerTestSupport {
+
+    private LearnerTestSupport() {}
+
+    /**
+     * Creates rows over the characters {@code 0, 1, ..., alphabetSize - 1}
+     * whose response is half the first explanatory variable half of the time,
+     * so that the trees have some structure.
+     *
+     * @param alphabetSize the alphabet size.
+     * @param depth        the number of explanatory variables.
+     * @param numberOfRows the number of rows.
+     * @param seed         the seed of the rows.
+     * @return the data rows.
+     */
+    public static List<DataRow<Integer>> createDataRows(int alphabetSize,
+                                                        int depth,
+                                                        int numberOfRows,
+                                                        long seed) {
+        Random random = new Random(seed);
+        List<DataRow<Integer>> dataRows = new ArrayList<>(numberOfRows);
+
+        for (int i = 0; i < numberOfRows; i++) {
+            Integer[] variables = new Integer[depth + 1];
+
+            for (int j = 0; j < variables.length; j++) {
+                variables[j] = random.nextInt(alphabetSize);
+            }
+
+            if (random.nextBoolean()) {
+                variables[depth] = variables[0] / 2;
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+
+    /**
+     * Checks that the children of each inner node partition the alphabet and
+     * that all the leaves are at depth {@code depth}.
+     *
+     * @param <C>          the character type.
+     * @param node         the root of the subtree to check.
+     * @param depth        the depth of the subtree.
+     * @param alphabetSize the alphabet size.
+     */
+    public static <C> void checkComplete(ParsimoniousContextTreeNode<C> node,
+                                         int depth,
+                                         int alphabetSize) {
+        if (depth == 0) {
+            assertTrue(node.getChildren() == null ||
+                       node.getChildren().isEmpty());
+            return;
+        }
+
+        Set<C> characters = new HashSet<>();
+        int numberOfCharacters = 0;
+
+        for (ParsimoniousContextTreeNode<C> child : node.getChildren()) {
+            characters.addAll(child.getLabel());
+            numberOfCharacters += child.getLabel().size();
+            checkComplete(child, depth - 1, alphabetSize);
+        }
+
+        assertEquals(alphabetSize, characters.size());
+        assertEquals(alphabetSize, numberOfCharacters);
+    }
+
+    /**
+     * Returns the sum of the scores of the leaves below {@code node}.
+     *
+     * @param <C>  the character type.
+     * @param node the root of the subtree.
+     * @return the sum of the leaf scores.
+     */
+    public static <C> double sumLeafScores(
+            ParsimoniousContextTreeNode<C> node) {
+        if (node.getChildren() == null || node.getChildren().isEmpty()) {
+            return node.getScore();
+        }
+
+        double score = 0.0;
+
+        for (ParsimoniousContextTreeNode<C> child : node.getChildren()) {
+            score += sumLeafScores(child);
+        }
+
+        return score;
+    }
+}
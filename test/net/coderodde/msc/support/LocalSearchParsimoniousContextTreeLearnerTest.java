@@ -0,0 +1,82 @@
+package net.coderodde.msc.support;
+
+import java.util.List;
+import net.coderodde.msc.DataRow;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.createDataRows;
+import static org.junit.Assert.*;
+
+public class LocalSearchParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testIsNotWorseThanGreedyMerges() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(3 + seed % 6, 1, 300 + 100 * seed, seed);
+            double score =
+                    new LocalSearchParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+            double heuristicScore =
+                    new HeuristicParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+
+            assertTrue(score >= heuristicScore - EPSILON * Math.abs(score));
+        }
+    }
+
+    @Test
+    public void testIsNotBetterThanOptimal() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(2 + seed % 4, 2, 300 + 100 * seed, seed);
+            double score =
+                    new LocalSearchParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+            double optimalScore =
+                    new BasicParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+
+            assertTrue(score <= optimalScore + EPSILON * Math.abs(score));
+        }
+    }
+
+    @Test
+    public void testNumberOfThreadsDoesNotChangeTree() {
+        List<DataRow<Integer>> dataRows = createDataRows(7, 3, 4000, 1);
+        LocalSearchParsimoniousContextTreeLearner<Integer> learner =
+                new LocalSearchParsimoniousContextTreeLearner<>();
+        learner.setNumberOfThreads(1);
+        double expectedScore = learner.learn(dataRows).getScore();
+        learner.setNumberOfThreads(4);
+        double score = learner.learn(dataRows).getScore();
+
+        assertEquals(expectedScore, score, 0.0);
+    }
+
+    @Test
+    public void testWithoutIterationsGivesHeuristicTree() {
+        List<DataRow<Integer>> dataRows = createDataRows(6, 1, 2000, 2);
+        LocalSearchParsimoniousContextTreeLearner<Integer> learner =
+                new LocalSearchParsimoniousContextTreeLearner<>();
+        learner.setMaximumIterationsWithoutImprovement(0);
+        double score = learner.learn(dataRows).getScore();
+        double expectedScore =
+                new HeuristicParsimoniousContextTreeLearner<Integer>()
+                        .learn(dataRows)
+                        .getScore();
+
+        assertEquals(expectedScore, score, EPSILON * Math.abs(score));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativeTabuTenure() {
+        new LocalSearchParsimoniousContextTreeLearner<Integer>()
+                .setTabuTenure(-1);
+    }
+}
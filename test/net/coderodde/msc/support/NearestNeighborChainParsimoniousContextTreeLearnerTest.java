@@ -0,0 +1,47 @@
+package net.coderodde.msc.support;
+
+import java.util.List;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import org.junit.Test;
+import static net.coderodde.msc.support.LearnerTestSupport.checkComplete;
+import static net.coderodde.msc.support.LearnerTestSupport.createDataRows;
+import static org.junit.Assert.*;
+
+public class NearestNeighborChainParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testMatchesGreedyMerges() {
+        for (int seed = 0; seed < 10; seed++) {
+            List<DataRow<Integer>> dataRows =
+                    createDataRows(3 + seed, 1 + seed % 3, 500 + 200 * seed,
+                                   seed);
+            double score =
+                    new NearestNeighborChainParsimoniousContextTreeLearner<
+                            Integer>()
+                            .learn(dataRows)
+                            .getScore();
+            double expectedScore =
+                    new HeuristicParsimoniousContextTreeLearner<Integer>()
+                            .learn(dataRows)
+                            .getScore();
+
+            assertEquals(expectedScore, score, EPSILON * Math.abs(score));
+        }
+    }
+
+    @Test
+    public void testLearnsLargeAlphabet() {
+        List<DataRow<Integer>> dataRows = createDataRows(200, 2, 20_000, 1);
+        ParsimoniousContextTreeNode<Integer> root =
+                new NearestNeighborChainParsimoniousContextTreeLearner<
+                        Integer>()
+                        .learn(dataRows)
+                        .getRoot();
+
+        checkComplete(root, 2, 200);
+        assertTrue(root.getChildren().size() < 200);
+    }
+}
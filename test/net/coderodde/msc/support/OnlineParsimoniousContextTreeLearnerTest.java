@@ -0,0 +1,261 @@
+package net.coderodde.msc.support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import net.coderodde.msc.io.CharacterCodec;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OnlineParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testHeuristicStrategyAgreesWithHeuristicLearner() {
+        List<DataRow<Character>> dataRows =
+                createDataRows(new Alphabet<>('A', 'C', 'G', 'T'), 3, 3000);
+        ParsimoniousContextTree<Character> expected =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        ParsimoniousContextTree<Character> actual =
+                new OnlineParsimoniousContextTreeLearner<Character>(
+                        new Alphabet<>('A'), 0)
+                        .learn(dataRows);
+
+        assertEquals(expected.getScore(),
+                     actual.getScore(),
+                     EPSILON * Math.abs(expected.getScore()));
+        assertEquals(countNodes(expected.getRoot()),
+                     countNodes(actual.getRoot()));
+    }
+
+    @Test
+    public void testOptimalStrategyAgreesWithBasicLearner() {
+        List<DataRow<Character>> dataRows =
+                createDataRows(new Alphabet<>('A', 'C', 'G'), 3, 500);
+        ParsimoniousContextTree<Character> expected =
+                new BasicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        ParsimoniousContextTree<Character> actual =
+                new OnlineParsimoniousContextTreeLearner<Character>(
+                        new Alphabet<>('A'),
+                        0,
+                        OnlineParsimoniousContextTreeLearner.Strategy.OPTIMAL)
+                        .learn(dataRows);
+
+        assertEquals(expected.getScore(),
+                     actual.getScore(),
+                     EPSILON * Math.abs(expected.getScore()));
+    }
+
+    @Test
+    public void testStreamingWithZeroThresholdAgreesWithBatch() {
+        for (OnlineParsimoniousContextTreeLearner.Strategy strategy :
+                OnlineParsimoniousContextTreeLearner.Strategy.values()) {
+            Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G');
+            List<DataRow<Character>> dataRows =
+                    createDataRows(alphabet, 3, 1000);
+            OnlineParsimoniousContextTreeLearner<Character> streamingLearner =
+                    new OnlineParsimoniousContextTreeLearner<>(alphabet,
+                                                               3,
+                                                               strategy);
+            streamingLearner.setRefreshThreshold(0.0);
+
+            for (int i = 0; i < dataRows.size(); i += 100) {
+                streamingLearner.addAll(dataRows.subList(i, i + 100));
+                streamingLearner.getTree();
+            }
+
+            OnlineParsimoniousContextTreeLearner<Character> batchLearner =
+                    new OnlineParsimoniousContextTreeLearner<>(alphabet,
+                                                               3,
+                                                               strategy);
+            batchLearner.addAll(dataRows);
+
+            assertEquals(batchLearner.getTree().getScore(),
+                         streamingLearner.getTree().getScore(),
+                         0.0);
+        }
+    }
+
+    @Test
+    public void testScoresFollowNewRowsBelowThreshold() {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        List<DataRow<Character>> dataRows =
+                createDataRows(alphabet, 3, 2000);
+        OnlineParsimoniousContextTreeLearner<Character> learner =
+                new OnlineParsimoniousContextTreeLearner<>(alphabet, 3);
+        learner.addAll(dataRows.subList(0, 1900));
+        ParsimoniousContextTree<Character> tree = learner.getTree();
+        learner.addAll(dataRows.subList(1900, 2000));
+
+        // 100 new rows is below the default threshold, so the partitions stay
+        // the same but the scores are those of all the 2000 rows.
+        ParsimoniousContextTree<Character> updatedTree = learner.getTree();
+        assertEquals(2000, learner.getNumberOfRows());
+        assertNotEquals(tree.getScore(), updatedTree.getScore(), 0.0);
+        assertEquals(countNodes(tree.getRoot()),
+                     countNodes(updatedTree.getRoot()));
+    }
+
+    @Test
+    public void testSavedStateContinuesLikeFullRerun() throws IOException {
+        for (OnlineParsimoniousContextTreeLearner.Strategy strategy :
+                OnlineParsimoniousContextTreeLearner.Strategy.values()) {
+            Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G');
+            List<DataRow<Character>> dataRows =
+                    createDataRows(alphabet, 3, 2000);
+            OnlineParsimoniousContextTreeLearner<Character> learner =
+                    new OnlineParsimoniousContextTreeLearner<>(alphabet,
+                                                               3,
+                                                               strategy);
+            learner.setRefreshThreshold(0.0);
+            learner.addAll(dataRows.subList(0, 1999));
+            learner.getTree();
+            Path path = Files.createTempFile("pct", ".state");
+
+            try {
+                learner.save(path, CharacterCodec.forCharacters());
+                learner = OnlineParsimoniousContextTreeLearner.load(
+                        path,
+                        CharacterCodec.forCharacters());
+            } finally {
+                Files.deleteIfExists(path);
+            }
+
+            long selections = learner.getNumberOfPartitionSelections();
+            learner.addAll(dataRows.subList(1999, 2000));
+            ParsimoniousContextTree<Character> continuedTree =
+                    learner.getTree();
+
+            OnlineParsimoniousContextTreeLearner<Character> batchLearner =
+                    new OnlineParsimoniousContextTreeLearner<>(alphabet,
+                                                               3,
+                                                               strategy);
+            batchLearner.addAll(dataRows);
+            ParsimoniousContextTree<Character> batchTree =
+                    batchLearner.getTree();
+
+            assertEquals(strategy, learner.getStrategy());
+            assertEquals(0.0, learner.getRefreshThreshold(), 0.0);
+            assertEquals(2000, learner.getNumberOfRows());
+            assertEquals(batchTree.getScore(), continuedTree.getScore(), 0.0);
+            assertEquals(countNodes(batchTree.getRoot()),
+                         countNodes(continuedTree.getRoot()));
+
+            // Only the nodes on the path of the new row select again:
+            if (strategy ==
+                    OnlineParsimoniousContextTreeLearner.Strategy.HEURISTIC) {
+                assertTrue(learner.getNumberOfPartitionSelections() -
+                           selections <
+                           batchLearner.getNumberOfPartitionSelections());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadThrowsOnBadMagic() throws IOException {
+        Path path = Files.createTempFile("pct", ".state");
+
+        try {
+            Files.write(path, new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8 });
+            OnlineParsimoniousContextTreeLearner.load(
+                    path,
+                    CharacterCodec.forCharacters());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testLeafDistributionsSumToOne() {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        OnlineParsimoniousContextTreeLearner<Character> learner =
+                new OnlineParsimoniousContextTreeLearner<>(alphabet, 2);
+        learner.addAll(createDataRows(alphabet, 2, 1000));
+        checkLeafDistributions(learner.getTree(0.5).getRoot(), alphabet);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsWithoutRows() {
+        new OnlineParsimoniousContextTreeLearner<>(
+                new Alphabet<>('A', 'C'), 2).getTree();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTooLargeAlphabetForOptimalStrategy() {
+        new OnlineParsimoniousContextTreeLearner<>(
+                new Alphabet<>('A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I'),
+                2,
+                OnlineParsimoniousContextTreeLearner.Strategy.OPTIMAL);
+    }
+
+    private static void checkLeafDistributions(
+            ParsimoniousContextTreeNode<Character> node,
+            Alphabet<Character> alphabet) {
+        if (node.getChildren() != null) {
+            for (ParsimoniousContextTreeNode<Character> child :
+                    node.getChildren()) {
+                checkLeafDistributions(child, alphabet);
+            }
+
+            return;
+        }
+
+        double sum = 0.0;
+
+        for (Character character : alphabet) {
+            sum += node.getResponseVariableDistribution()
+                       .getResponseVariableProbability(character);
+        }
+
+        assertEquals(1.0, sum, EPSILON);
+    }
+
+    private static int countNodes(ParsimoniousContextTreeNode<Character> node) {
+        int count = 1;
+
+        if (node.getChildren() != null) {
+            for (ParsimoniousContextTreeNode<Character> child :
+                    node.getChildren()) {
+                count += countNodes(child);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Creates rows whose response repeats the nearest explanatory variable
+     * half of the time, so that the trees have some structure.
+     */
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet, int depth, int size) {
+        Random random = new Random(1);
+        List<DataRow<Character>> dataRows = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            Character[] variables = new Character[depth + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            if (random.nextBoolean()) {
+                variables[depth] = variables[depth - 1];
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+}
@@ -0,0 +1,104 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RandomPartitionSamplerTest {
+
+    private static final int SAMPLES = 300_000;
+
+    private static final List<Character> ALPHABET =
+            Arrays.asList('A', 'C', 'G', 'T');
+
+    @Test
+    public void testReturnsPartitions() {
+        RandomPartitionSampler<Character> sampler =
+                RandomPartitionSampler.createLabelSamplingSampler(
+                        ALPHABET,
+                        new Random(1));
+
+        for (int i = 0; i < 10_000; ++i) {
+            List<Set<Character>> partition = sampler.sample();
+            Set<Character> filter = new HashSet<>();
+            int total = 0;
+
+            for (Set<Character> block : partition) {
+                assertFalse(block.isEmpty());
+                filter.addAll(block);
+                total += block.size();
+            }
+
+            assertEquals(ALPHABET.size(), total);
+            assertEquals(new HashSet<>(ALPHABET), filter);
+        }
+    }
+
+    @Test
+    public void testUniformSamplerIsUniform() {
+        RandomPartitionSampler<Character> sampler =
+                RandomPartitionSampler.createUniformSampler(ALPHABET,
+                                                            new Random(2));
+        Map<Set<Set<Character>>, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            counts.merge(new HashSet<>(sampler.sample()), 1, Integer::sum);
+        }
+
+        // B(4) = 15:
+        assertEquals(15, counts.size());
+
+        for (int count : counts.values()) {
+            assertEquals(1.0 / 15, 1.0 * count / SAMPLES, 0.005);
+        }
+    }
+
+    @Test
+    public void testLabelSamplingSamplerMatchesRejectionSampling() {
+        // With 4 characters there are 15 nonempty labels. A partition with k
+        // blocks is hit with probability proportional to 1 / C(15, k):
+        double[] weights = { 1.0 / 15, 1.0 / 105, 1.0 / 455, 1.0 / 1365 };
+        // S(4, k) for k = 1, 2, 3, 4:
+        int[] stirlingNumbers = { 1, 7, 6, 1 };
+        double normalizer = 0.0;
+
+        for (int k = 0; k < weights.length; ++k) {
+            normalizer += stirlingNumbers[k] * weights[k];
+        }
+
+        RandomPartitionSampler<Character> sampler =
+                RandomPartitionSampler.createLabelSamplingSampler(
+                        new ArrayList<>(ALPHABET),
+                        new Random(3));
+        int[] blockCounts = new int[ALPHABET.size()];
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            blockCounts[sampler.sample().size() - 1]++;
+        }
+
+        for (int k = 0; k < weights.length; ++k) {
+            assertEquals(stirlingNumbers[k] * weights[k] / normalizer,
+                         1.0 * blockCounts[k] / SAMPLES,
+                         0.005);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnStirlingNumberOverflow() {
+        // S(230, 116) fits in a double, but S(230, 44) does not:
+        List<Integer> elements = new ArrayList<>();
+
+        for (int i = 0; i < 230; ++i) {
+            elements.add(i);
+        }
+
+        RandomPartitionSampler.createUniformSampler(elements, new Random(4));
+    }
+}
@@ -0,0 +1,122 @@
+package net.coderodde.msc.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.msc.Alphabet;
+import net.coderodde.msc.CompactParsimoniousContextTree;
+import net.coderodde.msc.ContextCountSketch;
+import net.coderodde.msc.DataRow;
+import net.coderodde.msc.EncodedDataSet;
+import net.coderodde.msc.LearningContext;
+import net.coderodde.msc.ParsimoniousContextTree;
+import net.coderodde.msc.ParsimoniousContextTreeNode;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SketchParsimoniousContextTreeLearnerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testWideSketchAgreesWithHeuristicLearner() {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G');
+        List<DataRow<Character>> dataRows = createDataRows(alphabet, 3, 3000);
+        ParsimoniousContextTree<Character> expected =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        SketchParsimoniousContextTreeLearner<Character> learner =
+                new SketchParsimoniousContextTreeLearner<>(alphabet, 3);
+        learner.setMinimumCount(0L);
+        learner.addAll(dataRows);
+        ParsimoniousContextTree<Character> actual = learner.getTree();
+
+        assertEquals(expected.getScore(),
+                     actual.getScore(),
+                     EPSILON * Math.abs(expected.getScore()));
+    }
+
+    @Test
+    public void testNarrowSketchStaysCloseToExactScore() {
+        Alphabet<Character> alphabet = new Alphabet<>('A', 'C', 'G', 'T');
+        List<DataRow<Character>> dataRows = createDataRows(alphabet, 4, 5000);
+        ParsimoniousContextTree<Character> expected =
+                new HeuristicParsimoniousContextTreeLearner<Character>()
+                        .learn(dataRows);
+        ContextCountSketch<Character> sketch =
+                new ContextCountSketch<>(alphabet, 4, 0.002, 0.01, true);
+
+        for (DataRow<Character> dataRow : dataRows) {
+            sketch.add(dataRow);
+        }
+
+        CompactParsimoniousContextTree<Character> actual =
+                new CompactParsimoniousContextTree<>(
+                        new SketchParsimoniousContextTreeLearner<>(sketch)
+                                .getTree(),
+                        alphabet);
+        double score =
+                actual.computeScore(new EncodedDataSet<>(dataRows, alphabet));
+
+        assertTrue(sketch.getMemoryUsage() < 64 * 1024);
+        assertTrue(score > 1.05 * expected.getScore());
+    }
+
+    @Test
+    public void testStoppedLearningCoversLargestAlphabet() {
+        Character[] characters =
+                new Character[EncodedDataSet.MAXIMUM_ALPHABET_SIZE];
+
+        for (int i = 0; i < characters.length; ++i) {
+            characters[i] = (char)('0' + i);
+        }
+
+        Alphabet<Character> alphabet = new Alphabet<>(characters);
+        SketchParsimoniousContextTreeLearner<Character> learner =
+                new SketchParsimoniousContextTreeLearner<>(alphabet, 2);
+        LearningContext context = new LearningContext();
+        context.cancel();
+        learner.setContext(context);
+        learner.addAll(createDataRows(alphabet, 2, 1000));
+        ParsimoniousContextTreeNode<Character> node =
+                learner.getTree().getRoot();
+
+        for (int level = 0; level < 2; ++level) {
+            assertEquals(1, node.getChildren().size());
+            node = node.getChildren().iterator().next();
+            assertEquals(alphabet.size(), node.getLabel().size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsWithoutRows() {
+        new SketchParsimoniousContextTreeLearner<>(
+                new Alphabet<>('A', 'C'), 2).getTree();
+    }
+
+    /**
+     * Creates rows whose response repeats the nearest explanatory variable
+     * half of the time, so that the trees have some structure.
+     */
+    private static List<DataRow<Character>>
+        createDataRows(Alphabet<Character> alphabet, int depth, int size) {
+        Random random = new Random(1);
+        List<DataRow<Character>> dataRows = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            Character[] variables = new Character[depth + 1];
+
+            for (int j = 0; j < variables.length; ++j) {
+                variables[j] = alphabet.get(random.nextInt(alphabet.size()));
+            }
+
+            if (random.nextBoolean()) {
+                variables[depth] = variables[depth - 1];
+            }
+
+            dataRows.add(new DataRow<>(variables));
+        }
+
+        return dataRows;
+    }
+}
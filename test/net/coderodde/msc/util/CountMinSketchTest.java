@@ -0,0 +1,61 @@
+package net.coderodde.msc.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void testEstimatesAreWithinErrorBounds() {
+        CountMinSketch plainSketch =
+                CountMinSketch.forErrorBounds(0.001, 0.01, false);
+        CountMinSketch conservativeSketch =
+                CountMinSketch.forErrorBounds(0.001, 0.01, true);
+        Map<Long, Long> counts = new HashMap<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100_000; ++i) {
+            // A skewed distribution of 10000 keys:
+            long key = (long) (10_000 * Math.pow(random.nextDouble(), 3.0));
+            plainSketch.add(key, 1L);
+            conservativeSketch.add(key, 1L);
+            counts.merge(key, 1L, Long::sum);
+        }
+
+        int plainFailures = 0;
+
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            long plainEstimate = plainSketch.estimate(entry.getKey());
+            long conservativeEstimate =
+                    conservativeSketch.estimate(entry.getKey());
+
+            assertTrue(plainEstimate >= entry.getValue());
+            assertTrue(conservativeEstimate >= entry.getValue());
+            assertTrue(conservativeEstimate <= plainEstimate);
+
+            if (plainEstimate > entry.getValue() + 100L) {
+                plainFailures++;
+            }
+        }
+
+        assertTrue(plainFailures <= 0.01 * counts.size());
+        assertEquals(100_000L, plainSketch.getTotalCount());
+    }
+
+    @Test
+    public void testErrorBoundsDetermineDimensions() {
+        CountMinSketch sketch = CountMinSketch.forErrorBounds(0.01, 0.01, true);
+
+        assertEquals(272, sketch.getWidth());
+        assertEquals(5, sketch.getNumberOfHashFunctions());
+        assertEquals(272 * 5 * Long.BYTES, sketch.getMemoryUsage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativeCount() {
+        new CountMinSketch(16, 2, false).add(1L, -1L);
+    }
+}
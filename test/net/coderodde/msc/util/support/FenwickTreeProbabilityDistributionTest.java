@@ -0,0 +1,134 @@
+package net.coderodde.msc.util.support;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FenwickTreeProbabilityDistributionTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    public void testAddContainsRemove() {
+        FenwickTreeProbabilityDistribution<String> distribution =
+                new FenwickTreeProbabilityDistribution<>(new Random(1), 1);
+
+        assertTrue(distribution.isEmpty());
+        assertTrue(distribution.addElement("a", 1.0));
+        assertTrue(distribution.addElement("b", 2.0));
+        assertTrue(distribution.addElement("c", 3.0));
+        assertFalse(distribution.addElement("a", 5.0));
+        assertEquals(3, distribution.size());
+
+        assertTrue(distribution.contains("b"));
+        assertTrue(distribution.removeElement("b"));
+        assertFalse(distribution.contains("b"));
+        assertFalse(distribution.removeElement("b"));
+        assertEquals(2, distribution.size());
+
+        for (int i = 0; i < 1000; ++i) {
+            assertNotEquals("b", distribution.sampleElement());
+        }
+
+        distribution.clear();
+        assertTrue(distribution.isEmpty());
+        assertFalse(distribution.contains("a"));
+    }
+
+    @Test
+    public void testSamplingFollowsWeights() {
+        FenwickTreeProbabilityDistribution<Integer> distribution =
+                new FenwickTreeProbabilityDistribution<>(new Random(2));
+
+        distribution.addElement(0, 1.0);
+        distribution.addElement(1, 1.0);
+        distribution.addElement(2, 3.0);
+        distribution.addElement(3, 5.0);
+        distribution.removeElement(3);
+
+        int[] counts = new int[3];
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            counts[distribution.sampleElement()]++;
+        }
+
+        assertEquals(0.2, 1.0 * counts[0] / SAMPLES, 0.01);
+        assertEquals(0.2, 1.0 * counts[1] / SAMPLES, 0.01);
+        assertEquals(0.6, 1.0 * counts[2] / SAMPLES, 0.01);
+    }
+
+    @Test
+    public void testSlotFastPath() {
+        FenwickTreeProbabilityDistribution<Character> distribution =
+                new FenwickTreeProbabilityDistribution<>(new Random(3));
+
+        int slotA = distribution.addElementToSlot('a', 1.0);
+        int slotB = distribution.addElementToSlot('b', 1.0);
+        distribution.updateSlotWeight(slotA, 3.0);
+        assertEquals(3.0, distribution.getSlotWeight(slotA), 0.0);
+        assertEquals(Character.valueOf('b'),
+                     distribution.getSlotElement(slotB));
+
+        int hitsA = 0;
+
+        for (int i = 0; i < SAMPLES; ++i) {
+            if (distribution.sampleSlot() == slotA) {
+                hitsA++;
+            }
+        }
+
+        assertEquals(0.75, 1.0 * hitsA / SAMPLES, 0.01);
+
+        distribution.removeSlot(slotA);
+
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(slotB, distribution.sampleSlot());
+        }
+
+        // The freed slot is reused:
+        assertEquals(slotA, distribution.addElementToSlot('c', 1.0));
+    }
+
+    @Test
+    public void testRandomizedAgainstReference() {
+        Random random = new Random(4);
+        FenwickTreeProbabilityDistribution<Integer> distribution =
+                new FenwickTreeProbabilityDistribution<>(random, 2);
+        double[] weights = new double[100];
+
+        for (int operation = 0; operation < 10_000; ++operation) {
+            int element = random.nextInt(weights.length);
+            double weight = 0.1 + random.nextDouble();
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(weights[element] == 0.0,
+                                 distribution.addElement(element, weight));
+
+                    if (weights[element] == 0.0) {
+                        weights[element] = weight;
+                    }
+
+                    break;
+
+                case 1:
+                    assertEquals(weights[element] != 0.0,
+                                 distribution.removeElement(element));
+                    weights[element] = 0.0;
+                    break;
+
+                default:
+                    assertEquals(weights[element] != 0.0,
+                                 distribution.updateWeight(element, weight));
+
+                    if (weights[element] != 0.0) {
+                        weights[element] = weight;
+                    }
+            }
+
+            if (!distribution.isEmpty()) {
+                assertTrue(weights[distribution.sampleElement()] > 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.coderodde.msc.util.support;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class UnrolledScoringBackendTest {
+
+    private final ScalarScoringBackend scalarBackend =
+            new ScalarScoringBackend();
+
+    private final UnrolledScoringBackend unrolledBackend =
+            new UnrolledScoringBackend();
+
+    @Test
+    public void testSumsAgreeWithScalarBackend() {
+        Random random = new Random(2);
+        double[] table = new double[1000];
+
+        for (int n = 1; n < table.length; ++n) {
+            table[n] = n * Math.log(n);
+        }
+
+        for (int length = 0; length < 50; ++length) {
+            int[] histogram = new int[length];
+
+            for (int i = 0; i < length; ++i) {
+                histogram[i] = random.nextInt(table.length);
+            }
+
+            double expected = scalarBackend.sumTableValues(histogram, table);
+            assertEquals(expected,
+                         unrolledBackend.sumTableValues(histogram, table),
+                         1e-12 * Math.max(1.0, Math.abs(expected)));
+        }
+    }
+}